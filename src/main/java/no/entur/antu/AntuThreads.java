@@ -0,0 +1,28 @@
+package no.entur.antu;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The threads antu starts for itself, named after what they do so that a thread dump tells them apart.
+ * They are daemon threads: none of them holds work that a shutdown has to wait for.
+ */
+public final class AntuThreads {
+
+  private static final String PREFIX = "antu-";
+
+  private AntuThreads() {}
+
+  /**
+   * The factory of the single thread of an executor, named {@code antu-<name>}.
+   */
+  public static ThreadFactory named(String name) {
+    return Thread.ofPlatform().name(PREFIX + name).daemon().factory();
+  }
+
+  /**
+   * The factory of the threads of a pool, named {@code antu-<name>-0}, {@code antu-<name>-1} and so on.
+   */
+  public static ThreadFactory numbered(String name) {
+    return Thread.ofPlatform().name(PREFIX + name + "-", 0).daemon().factory();
+  }
+}
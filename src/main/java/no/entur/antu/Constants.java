@@ -21,6 +21,7 @@ package no.entur.antu;
 public final class Constants {
 
   public static final String NETEX_FILE_NAME = "EnturNetexFileName";
+  public static final String NETEX_FILE_SIZE = "EnturNetexFileSize";
 
   /**
    * Separates the NeTEx file names carried in a job message body.
@@ -0,0 +1,99 @@
+package no.entur.antu.cache;
+
+import static no.entur.antu.config.cache.CacheConfig.VALIDATION_DATA_TTL;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.redisson.api.RBatch;
+import org.redisson.api.RSetAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+/**
+ * Remembers the Redis keys a validation report created, so that they can be removed without searching the
+ * keyspace for them.
+ *
+ * <p>Deleting by pattern walks every key in Redis, once per call and per report, while all the other
+ * validations wait. Keys whose names are only known while a file is being validated are instead added to a
+ * per-report set as they are written, and cleaning up unlinks exactly the keys in that set. UNLINK leaves the
+ * memory to be reclaimed in the background by Redis.
+ *
+ * <p>Each repository keeps a registry of its own, so that cleaning up one repository does not remove the
+ * keys of another.
+ */
+public class ReportKeyRegistry {
+
+  private static final String KEY_PREFIX = "REPORT_KEYS_";
+
+  /**
+   * Keeps a single UNLINK from blocking Redis on a dataset with thousands of files.
+   */
+  private static final int UNLINK_CHUNK_SIZE = 1000;
+
+  private final RedissonClient redissonClient;
+  private final String name;
+
+  public ReportKeyRegistry(RedissonClient redissonClient, String name) {
+    this.redissonClient = redissonClient;
+    this.name = name;
+  }
+
+  /**
+   * Register keys of the report, in a round trip of its own.
+   */
+  public void register(String validationReportId, String... keys) {
+    RBatch batch = redissonClient.createBatch();
+    register(batch, validationReportId, keys);
+    batch.execute();
+  }
+
+  /**
+   * Add the registration of keys of the report to a batch, so that it travels with the writes that create
+   * them.
+   */
+  public void register(
+    RBatch batch,
+    String validationReportId,
+    String... keys
+  ) {
+    RSetAsync<String> registeredKeys = batch.getSet(
+      registryKey(validationReportId),
+      StringCodec.INSTANCE
+    );
+    registeredKeys.addAllAsync(Arrays.asList(keys));
+    // The registry outlives the keys it lists, so that none of them is ever forgotten.
+    registeredKeys.expireAsync(VALIDATION_DATA_TTL);
+  }
+
+  /**
+   * Unlink every key registered for the report, the additional keys, and the registry itself.
+   *
+   * @param additionalKeys keys of the report whose names do not depend on the files, and that therefore do
+   *                       not need to be registered.
+   */
+  public void unlinkAll(String validationReportId, String... additionalKeys) {
+    String registryKey = registryKey(validationReportId);
+    List<String> keys = new ArrayList<>(
+      redissonClient
+        .<String>getSet(registryKey, StringCodec.INSTANCE)
+        .readAll()
+    );
+    keys.addAll(Arrays.asList(additionalKeys));
+    keys.add(registryKey);
+
+    RBatch batch = redissonClient.createBatch();
+    for (int from = 0; from < keys.size(); from += UNLINK_CHUNK_SIZE) {
+      List<String> chunk = keys.subList(
+        from,
+        Math.min(from + UNLINK_CHUNK_SIZE, keys.size())
+      );
+      batch.getKeys().unlinkAsync(chunk.toArray(String[]::new));
+    }
+    batch.execute();
+  }
+
+  private String registryKey(String validationReportId) {
+    return KEY_PREFIX + name + '_' + validationReportId;
+  }
+}
@@ -1,9 +1,16 @@
 package no.entur.antu.config;
 
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import no.entur.antu.AntuThreads;
 import no.entur.antu.validation.validator.organisation.AgreementResource;
 import no.entur.antu.validation.validator.organisation.DefaultOrganisationAliasRepository;
+import no.entur.antu.validation.validator.organisation.LocalOrganisationAliasRepository;
 import no.entur.antu.validation.validator.organisation.OrganisationAliasRepository;
+import no.entur.antu.validation.validator.organisation.OrganisationAliasVersionRepository;
+import no.entur.antu.validation.validator.organisation.RedisOrganisationAliasVersionRepository;
+import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,15 +30,43 @@ public class AgreementConfig {
     return new AgreementResource(agreementRegistryWebClient);
   }
 
+  /**
+   * Reloads the local copy of the organisation aliases when a new version is announced, off the threads of
+   * the Redis client that deliver the announcements.
+   */
+  @Bean(destroyMethod = "shutdownNow")
+  @Profile("!test")
+  ExecutorService organisationAliasReloadExecutor() {
+    return Executors.newSingleThreadExecutor(
+      AntuThreads.named("organisation-alias-reload")
+    );
+  }
+
   @Bean
   @Profile("!test")
   OrganisationAliasRepository organisationAliasRepository(
     AgreementResource agreementResource,
-    @Qualifier("organisationAliasCache") Set<String> organisationAliasCache
+    @Qualifier("organisationAliasCache") Set<String> organisationAliasCache,
+    RedissonClient redissonClient,
+    @Qualifier(
+      "organisationAliasReloadExecutor"
+    ) ExecutorService organisationAliasReloadExecutor
   ) {
-    return new DefaultOrganisationAliasRepository(
-      agreementResource,
-      organisationAliasCache
+    OrganisationAliasVersionRepository organisationAliasVersionRepository =
+      new RedisOrganisationAliasVersionRepository(redissonClient);
+    LocalOrganisationAliasRepository organisationAliasRepository =
+      new LocalOrganisationAliasRepository(
+        new DefaultOrganisationAliasRepository(
+          agreementResource,
+          organisationAliasCache
+        ),
+        organisationAliasCache,
+        organisationAliasVersionRepository,
+        organisationAliasReloadExecutor
+      );
+    organisationAliasVersionRepository.onNewVersion(
+      organisationAliasRepository::reloadInBackground
     );
+    return organisationAliasRepository;
   }
 }
@@ -5,7 +5,6 @@ import static no.entur.antu.config.cache.CacheConfig.*;
 import java.util.Map;
 import no.entur.antu.netexdata.RedisCommonDataRepository;
 import org.entur.netex.validation.validator.jaxb.CommonDataRepositoryLoader;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,7 +16,6 @@ public class CommonDataConfig {
   @Bean
   @Profile("!test")
   CommonDataRepositoryLoader commonDataRepository(
-    RedissonClient redissonClient,
     @Qualifier(
       SCHEDULED_STOP_POINT_AND_QUAY_ID_CACHE
     ) Map<String, Map<String, String>> scheduledStopPointAndQuayIdCache,
@@ -29,7 +27,6 @@ public class CommonDataConfig {
     ) Map<String, Map<String, String>> scheduledStopPointRefToFlexibleStopPointRefCache
   ) {
     return new RedisCommonDataRepository(
-      redissonClient,
       scheduledStopPointAndQuayIdCache,
       serviceLinksAndFromToScheduledStopPointIdCache,
       scheduledStopPointRefToFlexibleStopPointRefCache
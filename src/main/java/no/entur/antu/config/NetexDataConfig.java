@@ -9,7 +9,9 @@ import java.util.Set;
 import no.entur.antu.netexdata.RedisNetexDataRepository;
 import org.entur.netex.validation.validator.jaxb.NetexDataRepository;
 import org.entur.netex.validation.validator.model.ServiceJourneyId;
+import org.entur.netex.validation.validator.model.ServiceJourneyInterchangeInfo;
 import org.entur.netex.validation.validator.model.ServiceJourneyStop;
+import org.entur.netex.validation.validator.model.SimpleLine;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -23,13 +25,13 @@ public class NetexDataConfig {
   @Profile("!test")
   NetexDataRepository netexDataRepository(
     RedissonClient redissonClient,
-    @Qualifier(LINE_INFO_CACHE) Map<String, List<String>> lineInfoCache,
+    @Qualifier(LINE_INFO_CACHE) Map<String, List<SimpleLine>> lineInfoCache,
     @Qualifier(
       SERVICE_JOURNEY_STOPS_CACHE
     ) Map<String, Map<String, List<ServiceJourneyStop>>> serviceJourneyStopsCache,
     @Qualifier(
       SERVICE_JOURNEY_INTERCHANGE_INFO_CACHE
-    ) Map<String, List<String>> serviceJourneyInterchangeInfoCache,
+    ) Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache,
     @Qualifier(
       ACTIVE_DATES_BY_SERVICE_JOURNEY_ID
     ) Map<String, Map<ServiceJourneyId, List<LocalDateTime>>> activeDatesByServiceJourneyRefCache,
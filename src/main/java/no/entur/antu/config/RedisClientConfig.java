@@ -2,6 +2,7 @@ package no.entur.antu.config;
 
 import java.io.File;
 import java.net.MalformedURLException;
+import no.entur.antu.job.JobRedisCommands;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.Codec;
@@ -60,9 +61,22 @@ public class RedisClientConfig {
     }
   }
 
+  /**
+   * Counts the round trips of each job when {@code antu.redis.command.counting.enabled} is set, see
+   * {@link JobRedisCommands}. Off by default: every call then goes through a reflective proxy, and a read
+   * of a local cached map encodes its key once more to tell whether the local cache serves it.
+   */
   @Bean(destroyMethod = "shutdown")
   @Profile("!test")
-  public RedissonClient redissonClient(Config redissonConfig) {
-    return Redisson.create(redissonConfig);
+  public RedissonClient redissonClient(
+    Config redissonConfig,
+    @Value(
+      "${antu.redis.command.counting.enabled:false}"
+    ) boolean countingEnabled
+  ) {
+    RedissonClient redissonClient = Redisson.create(redissonConfig);
+    return countingEnabled
+      ? JobRedisCommands.counting(redissonClient)
+      : redissonClient;
   }
 }
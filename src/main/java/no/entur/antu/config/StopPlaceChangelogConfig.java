@@ -16,15 +16,19 @@
 
 package no.entur.antu.config;
 
+import java.time.Duration;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
 import no.entur.antu.stop.StopPlaceRepositoryLoader;
 import no.entur.antu.stop.changelog.AntuPublicationTimeRecordFilterStrategy;
 import no.entur.antu.stop.changelog.AntuStopPlaceChangeLogListener;
 import no.entur.antu.stop.changelog.ChangelogStopPlaceRepositoryUpdater;
 import no.entur.antu.stop.changelog.RedisChangelogUpdateTimestampRepository;
+import no.entur.antu.stop.changelog.StopPlaceChangelogBatcher;
 import no.entur.antu.stop.changelog.StopPlaceRepositoryUpdater;
 import org.redisson.api.RedissonClient;
 import org.rutebanken.helper.stopplace.changelog.StopPlaceChangelog;
 import org.rutebanken.helper.stopplace.changelog.kafka.ChangelogConsumerController;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -45,20 +49,35 @@ public class StopPlaceChangelogConfig {
     return new RedisChangelogUpdateTimestampRepository(redissonClient);
   }
 
-  @Bean
-  public AntuStopPlaceChangeLogListener antuStopPlaceChangeLogListener(
+  @Bean(destroyMethod = "close")
+  public StopPlaceChangelogBatcher stopPlaceChangelogBatcher(
     StopPlaceRepositoryLoader stopPlaceRepositoryLoader,
-    RedisChangelogUpdateTimestampRepository changelogUpdateTimestampRepository
+    RedisChangelogUpdateTimestampRepository changelogUpdateTimestampRepository,
+    AntuPrometheusMetricsService antuPrometheusMetricsService,
+    @Value("${antu.stop.changelog.batch.size:500}") int maxBatchSize,
+    @Value(
+      "${antu.stop.changelog.batch.delay.millis:1000}"
+    ) long maxDelayMillis
   ) {
-    return new AntuStopPlaceChangeLogListener(
+    return new StopPlaceChangelogBatcher(
       stopPlaceRepositoryLoader,
-      changelogUpdateTimestampRepository
+      changelogUpdateTimestampRepository,
+      antuPrometheusMetricsService,
+      maxBatchSize,
+      Duration.ofMillis(maxDelayMillis)
     );
   }
 
+  @Bean
+  public AntuStopPlaceChangeLogListener antuStopPlaceChangeLogListener(
+    StopPlaceChangelogBatcher stopPlaceChangelogBatcher
+  ) {
+    return new AntuStopPlaceChangeLogListener(stopPlaceChangelogBatcher);
+  }
+
   @Bean
   StopPlaceRepositoryUpdater stopPlaceRepositoryUpdater(
-    StopPlaceRepositoryLoader stopPlaceRepositoryLoader,
+    StopPlaceChangelogBatcher stopPlaceChangelogBatcher,
     AntuPublicationTimeRecordFilterStrategy antuPublicationTimeRecordFilterStrategy,
     RedisChangelogUpdateTimestampRepository changelogUpdateTimestampRepository,
     ChangelogConsumerController changelogConsumerController,
@@ -66,7 +85,7 @@ public class StopPlaceChangelogConfig {
     AntuStopPlaceChangeLogListener antuStopPlaceChangeLogListener
   ) {
     return new ChangelogStopPlaceRepositoryUpdater(
-      stopPlaceRepositoryLoader,
+      stopPlaceChangelogBatcher,
       antuPublicationTimeRecordFilterStrategy,
       changelogUpdateTimestampRepository,
       changelogConsumerController,
@@ -16,21 +16,38 @@
 
 package no.entur.antu.config;
 
+import static no.entur.antu.stop.DefaultStopPlaceRepository.QUAYS_BY_STOP_PLACE_CACHE;
 import static no.entur.antu.stop.DefaultStopPlaceRepository.QUAY_CACHE;
 import static no.entur.antu.stop.DefaultStopPlaceRepository.STOP_PLACE_CACHE;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Set;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import no.entur.antu.services.AntuBlobStoreService;
 import no.entur.antu.stop.DefaultStopPlaceRepository;
 import no.entur.antu.stop.DefaultStopPlaceResource;
+import no.entur.antu.stop.QuayNotFoundCache;
+import no.entur.antu.stop.QuayProximityRepository;
 import no.entur.antu.stop.StopPlaceRepositoryLoader;
 import no.entur.antu.stop.changelog.DefaultStopPlaceRepositoryUpdater;
 import no.entur.antu.stop.changelog.StopPlaceRepositoryUpdater;
 import no.entur.antu.stop.loader.StopPlacesDatasetLoader;
+import no.entur.antu.stop.snapshot.QuayGridRepository;
+import no.entur.antu.stop.snapshot.RedisStopPlaceVersionRepository;
+import no.entur.antu.stop.snapshot.SnapshotStopPlaceRepository;
+import no.entur.antu.stop.snapshot.StopPlaceSnapshotStore;
+import no.entur.antu.stop.snapshot.StopPlaceVersionRepository;
+import no.entur.antu.stop.snapshot.VersionedStopPlaceRepository;
 import org.entur.netex.validation.validator.model.QuayId;
 import org.entur.netex.validation.validator.model.SimpleQuay;
 import org.entur.netex.validation.validator.model.SimpleStopPlace;
 import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -46,6 +63,14 @@ public class StopPlaceConfig {
     return new DefaultStopPlaceResource(stopPlacesDatasetLoader);
   }
 
+  @Bean
+  @Profile("!test")
+  StopPlaceVersionRepository stopPlaceVersionRepository(
+    RedissonClient redissonClient
+  ) {
+    return new RedisStopPlaceVersionRepository(redissonClient);
+  }
+
   @Bean
   @Profile("!test")
   StopPlaceRepositoryLoader stopPlaceRepository(
@@ -53,17 +78,77 @@ public class StopPlaceConfig {
       STOP_PLACE_CACHE
     ) Map<StopPlaceId, SimpleStopPlace> stopPlaceCache,
     @Qualifier(QUAY_CACHE) Map<QuayId, SimpleQuay> quayCache,
+    @Qualifier(
+      QUAYS_BY_STOP_PLACE_CACHE
+    ) Map<StopPlaceId, Set<String>> quaysByStopPlaceCache,
     @Qualifier(
       "stopPlaceResource"
-    ) DefaultStopPlaceResource defaultStopPlaceResource
+    ) DefaultStopPlaceResource defaultStopPlaceResource,
+    RedissonClient redissonClient,
+    StopPlaceVersionRepository stopPlaceVersionRepository,
+    AntuBlobStoreService antuBlobStoreService,
+    AntuPrometheusMetricsService antuPrometheusMetricsService,
+    @Value(
+      "${antu.stop.quay.not.found.cache.max.size:100000}"
+    ) int quayNotFoundCacheMaxSize,
+    @Value(
+      "${antu.stop.quay.not.found.cache.ttl.seconds:300}"
+    ) long quayNotFoundCacheTtlSeconds,
+    @Value("${antu.stop.snapshot.enabled:false}") boolean snapshotEnabled,
+    @Value(
+      "${antu.stop.snapshot.blob.name:stop-places/stop-place-snapshot.bin}"
+    ) String snapshotBlobName,
+    @Value(
+      "${antu.stop.snapshot.local.file:/tmp/antu/stop-place-snapshot.bin}"
+    ) String snapshotLocalFile
   ) {
-    return new DefaultStopPlaceRepository(
-      defaultStopPlaceResource,
+    DefaultStopPlaceRepository stopPlaceRepository =
+      new DefaultStopPlaceRepository(
+        defaultStopPlaceResource,
+        stopPlaceCache,
+        quayCache,
+        quaysByStopPlaceCache,
+        new QuayNotFoundCache(
+          quayNotFoundCacheMaxSize,
+          Duration.ofSeconds(quayNotFoundCacheTtlSeconds),
+          redissonClient.getTopic(
+            QuayNotFoundCache.INVALIDATION_TOPIC,
+            StringCodec.INSTANCE
+          ),
+          antuPrometheusMetricsService
+        )
+      );
+    if (!snapshotEnabled) {
+      return new VersionedStopPlaceRepository(
+        stopPlaceRepository,
+        stopPlaceVersionRepository
+      );
+    }
+    return new SnapshotStopPlaceRepository(
+      stopPlaceRepository,
       stopPlaceCache,
-      quayCache
+      quayCache,
+      stopPlaceVersionRepository,
+      new StopPlaceSnapshotStore(
+        antuBlobStoreService,
+        snapshotBlobName,
+        Path.of(snapshotLocalFile)
+      )
     );
   }
 
+  /**
+   * Indexed on the first query of each instance, whether the stop place snapshot is enabled or not.
+   */
+  @Bean
+  @Profile("!test")
+  QuayProximityRepository quayProximityRepository(
+    @Qualifier(QUAY_CACHE) Map<QuayId, SimpleQuay> quayCache,
+    StopPlaceVersionRepository stopPlaceVersionRepository
+  ) {
+    return new QuayGridRepository(quayCache, stopPlaceVersionRepository);
+  }
+
   @Profile("!stop-place-changelog")
   @Bean
   StopPlaceRepositoryUpdater stopPlaceRepositoryUpdater(
@@ -19,7 +19,15 @@ package no.entur.antu.config;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import no.entur.antu.AntuThreads;
+import no.entur.antu.job.JobRedisCommands;
 import no.entur.antu.netexdata.collectors.*;
+import no.entur.antu.stop.PrefetchingStopPlaceRepository;
+import no.entur.antu.stop.StopPlaceRepositoryLoader;
+import no.entur.antu.validation.ParallelDatasetValidator;
+import no.entur.antu.validation.ParallelJAXBValidator;
 import no.entur.antu.validation.validator.id.NetexIdValidator;
 import no.entur.antu.validation.validator.interchange.alighting.InterchangeForAlightingAndBoardingValidator;
 import no.entur.antu.validation.validator.interchange.distance.UnexpectedInterchangeDistanceValidator;
@@ -54,7 +62,6 @@ import org.entur.netex.validation.validator.jaxb.CommonDataRepositoryLoader;
 import org.entur.netex.validation.validator.jaxb.JAXBValidator;
 import org.entur.netex.validation.validator.jaxb.NetexDataCollector;
 import org.entur.netex.validation.validator.jaxb.NetexDataRepository;
-import org.entur.netex.validation.validator.jaxb.StopPlaceRepository;
 import org.entur.netex.validation.validator.schema.NetexSchemaValidator;
 import org.entur.netex.validation.validator.xpath.ValidationTreeFactory;
 import org.entur.netex.validation.validator.xpath.XPathRuleValidator;
@@ -78,6 +85,49 @@ public class TimetableDataValidatorConfig {
   )
   private boolean interchangeServiceJourneyReferencesExistValidatorEnabled;
 
+  /**
+   * Threads running the dataset validators of a dataset side by side. A pod validates few datasets at a
+   * time, so a handful is enough to cover the dataset validators of each. Their Redis round trips count
+   * towards the job that submitted them.
+   */
+  @Bean(destroyMethod = "shutdownNow")
+  public ExecutorService datasetValidatorExecutor(
+    @Value("${antu.netex.validation.dataset.threads:4}") int threads
+  ) {
+    return JobRedisCommands.propagating(
+      Executors.newFixedThreadPool(
+        threads,
+        AntuThreads.numbered("dataset-validator")
+      )
+    );
+  }
+
+  /**
+   * Threads helping the thread validating a file run its JAXB validators side by side, shared by the files
+   * a pod validates at once. Unless {@code antu.netex.validation.jaxb.threads} says otherwise, each of the
+   * files the job consumers can have in flight gets one helper per core: the cores bound how much runs at
+   * once, and a file does not queue behind the helpers of the others.
+   */
+  @Bean(destroyMethod = "shutdownNow")
+  public ExecutorService jaxbValidatorExecutor(
+    @Value("${antu.netex.validation.jaxb.threads:0}") int threads,
+    @Value("${antu.netex.job.consumers:1}") int jobConsumers,
+    @Value(
+      "${antu.netex.priority.job.consumers:1}"
+    ) int priorityJobConsumers
+  ) {
+    int poolSize = threads > 0
+      ? threads
+      : (jobConsumers + priorityJobConsumers) *
+      Runtime.getRuntime().availableProcessors();
+    return JobRedisCommands.propagating(
+      Executors.newFixedThreadPool(
+        poolSize,
+        AntuThreads.numbered("jaxb-validator")
+      )
+    );
+  }
+
   @Bean
   public ValidationTreeFactory timetableDataValidationTreeFactory(
     OrganisationAliasRepository organisationAliasRepository,
@@ -190,9 +240,13 @@ public class TimetableDataValidatorConfig {
     ServiceJourneyInterchangeInfoCollector serviceJourneyInterchangeInfoCollector,
     CommonDataRepositoryLoader commonDataRepository,
     NetexDataRepository netexDataRepository,
-    StopPlaceRepository stopPlaceRepository,
+    StopPlaceRepositoryLoader stopPlaceRepository,
     ServiceJourneyActiveDatesCollector serviceJourneyActiveDatesCollector,
-    ScheduledStopPointIdCollector scheduledStopPointIdCollector
+    ScheduledStopPointIdCollector scheduledStopPointIdCollector,
+    @Qualifier(
+      "datasetValidatorExecutor"
+    ) ExecutorService datasetValidatorExecutor,
+    @Qualifier("jaxbValidatorExecutor") ExecutorService jaxbValidatorExecutor
   ) {
     NetexXMLParser netexXMLParser = new NetexXMLParser(Set.of("SiteFrame"));
 
@@ -206,24 +260,7 @@ public class TimetableDataValidatorConfig {
       netexIdUniquenessValidator
     );
 
-    List<JAXBValidator> jaxbValidators = List.of(
-      new MismatchedTransportModeSubModeValidator(),
-      new UnexpectedDistanceBetweenStopPointsValidator(),
-      new IdenticalStopPointsValidator(),
-      new SameQuayRefValidator(),
-      new SameStopPointsValidator(),
-      new StopPointsCountValidator(),
-      new MissingPassengerStopAssignmentValidator(),
-      new NonIncreasingPassingTimeValidator(),
-      new UnexpectedSpeedValidator(),
-      new UnexpectedDistanceInServiceLinkValidator(),
-      new MismatchedStopPointsValidator(),
-      new MandatoryFieldsValidator(),
-      new DuplicateInterchangesValidator(),
-      new InvalidServiceAlterationValidator(),
-      new MissingReplacementValidator(),
-      new UnexpectedInterchangeDistanceValidator()
-    );
+    List<JAXBValidator> jaxbValidators = timetableDataJaxbValidators();
 
     List<DatasetValidator> netexTimetableDatasetValidators = new ArrayList<>();
     netexTimetableDatasetValidators.add(duplicateLineNameValidator);
@@ -258,13 +295,53 @@ public class TimetableDataValidatorConfig {
       .withNetexXMLParser(netexXMLParser)
       .withNetexSchemaValidator(netexSchemaValidator)
       .withXPathValidators(xPathValidators)
-      .withJaxbValidators(jaxbValidators)
-      .withDatasetValidators(netexTimetableDatasetValidators)
+      .withJaxbValidators(
+        List.of(
+          new ParallelJAXBValidator(jaxbValidators, jaxbValidatorExecutor)
+        )
+      )
+      .withDatasetValidators(
+        List.of(
+          new ParallelDatasetValidator(
+            netexTimetableDatasetValidators,
+            datasetValidatorExecutor
+          )
+        )
+      )
       .withNetexDataCollectors(commonDataCollectors)
       .withCommonDataRepository(commonDataRepository)
       .withNetexDataRepository(netexDataRepository)
-      .withStopPlaceRepository(stopPlaceRepository)
+      .withStopPlaceRepository(
+        PrefetchingStopPlaceRepository.perFile(
+          stopPlaceRepository,
+          commonDataRepository
+        )
+      )
       .withValidationReportEntryFactory(validationReportEntryFactory)
       .build();
   }
+
+  /**
+   * The JAXB validators of the timetable profile, in the order their issues are reported.
+   */
+  public static List<JAXBValidator> timetableDataJaxbValidators() {
+    return List.of(
+      new MismatchedTransportModeSubModeValidator(),
+      new UnexpectedDistanceBetweenStopPointsValidator(),
+      new IdenticalStopPointsValidator(),
+      new SameQuayRefValidator(),
+      new SameStopPointsValidator(),
+      new StopPointsCountValidator(),
+      new MissingPassengerStopAssignmentValidator(),
+      new NonIncreasingPassingTimeValidator(),
+      new UnexpectedSpeedValidator(),
+      new UnexpectedDistanceInServiceLinkValidator(),
+      new MismatchedStopPointsValidator(),
+      new MandatoryFieldsValidator(),
+      new DuplicateInterchangesValidator(),
+      new InvalidServiceAlterationValidator(),
+      new MissingReplacementValidator(),
+      new UnexpectedInterchangeDistanceValidator()
+    );
+  }
 }
@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import no.entur.antu.validation.NetexValidationProfile;
-import no.entur.antu.validation.state.ValidationStateRepository;
 import no.entur.antu.validation.validator.id.NetexIdValidator;
 import no.entur.antu.validation.validator.id.ReferenceToNsrValidator;
 import no.entur.antu.validation.validator.id.TrainElementRegistryIdValidator;
@@ -164,8 +163,7 @@ public class ValidatorConfig {
     ) boolean skipSchemaValidation,
     @Value(
       "${antu.netex.validation.validators.skip:false}"
-    ) boolean skipNetexValidators,
-    ValidationStateRepository validationStateRepository
+    ) boolean skipNetexValidators
   ) {
     return new NetexValidationProfile(
       Map.of(
@@ -184,7 +182,6 @@ public class ValidatorConfig {
         STOP,
         stopDataValidatorsRunner
       ),
-      validationStateRepository,
       skipSchemaValidation,
       skipNetexValidators
     );
@@ -38,12 +38,19 @@ public class CacheConfig {
     "serviceLinksAndFromToScheduledStopPointIdCache";
   public static final String SCHEDULED_STOP_POINT_REF_TO_FLEXIBLE_STOP_POINT_REF_CACHE =
     "scheduledStopPointRefToFlexibleStopPointRefCache";
-  public static final String LINE_INFO_CACHE = "linesInfoCache";
+
+  /**
+   * The {@code .v2} suffixes are serialization versions, like the one on {@link #VALIDATION_STATE_CACHE}.
+   * The lines and interchanges used to be stored as their {@code toString} form and were parsed back on
+   * every read. They are now stored through Kryo, and the new names keep the two formats apart during a
+   * rollout.
+   */
+  public static final String LINE_INFO_CACHE = "linesInfoCache.v2";
+
   public static final String SERVICE_JOURNEY_INTERCHANGE_INFO_CACHE =
-    "serviceJourneyInterchangeInfoCache";
+    "serviceJourneyInterchangeInfoCache.v2";
   public static final String SERVICE_JOURNEY_STOPS_CACHE =
     "serviceJourneyStopsCache";
-  public static final String QUAY_ID_NOT_FOUND_CACHE = "quayIdNotFoundCache";
   public static final String ORGANISATION_ALIAS_CACHE =
     "organisationAliasCache";
   public static final String ACTIVE_DATES_BY_DAY_TYPE_REF =
@@ -117,11 +124,17 @@ public class CacheConfig {
   }
 
   /**
-   * Keep track of quays not found when querying the stop place REST API.
+   * The quay ids of each stop place, maintained alongside the quay cache.
    */
-  @Bean(name = QUAY_ID_NOT_FOUND_CACHE)
-  public Set<QuayId> quayIdNotFoundCache(RedissonClient redissonClient) {
-    return redissonClient.getSet(QUAY_ID_NOT_FOUND_CACHE);
+  @Bean(name = QUAYS_BY_STOP_PLACE_CACHE)
+  public Map<StopPlaceId, Set<String>> quaysByStopPlaceCache(
+    RedissonClient redissonClient
+  ) {
+    return getOrCreateApplicationScopedCache(
+      redissonClient,
+      QUAYS_BY_STOP_PLACE_CACHE,
+      new CompositeCodec(new StopPlaceIdCodec(), DEFAULT_CODEC)
+    );
   }
 
   /**
@@ -214,24 +227,24 @@ public class CacheConfig {
    * The cache key is the current validation report.
    */
   @Bean(name = LINE_INFO_CACHE)
-  public Map<String, List<String>> lineNamesCache(
+  public Map<String, List<SimpleLine>> lineNamesCache(
     RedissonClient redissonClient
   ) {
     return getOrCreateReportScopedCache(
       redissonClient,
       LINE_INFO_CACHE,
-      new CompositeCodec(new StringCodec(), new JsonJacksonCodec())
+      new CompositeCodec(new StringCodec(), DEFAULT_CODEC)
     );
   }
 
   @Bean(name = SERVICE_JOURNEY_INTERCHANGE_INFO_CACHE)
-  public Map<String, List<String>> serviceJourneyInterchangeInfoCache(
+  public Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache(
     RedissonClient redissonClient
   ) {
     return getOrCreateReportScopedCache(
       redissonClient,
       SERVICE_JOURNEY_INTERCHANGE_INFO_CACHE,
-      new CompositeCodec(new StringCodec(), new JsonJacksonCodec())
+      new CompositeCodec(new StringCodec(), DEFAULT_CODEC)
     );
   }
 
@@ -8,7 +8,9 @@ import java.util.Map;
 import java.util.Set;
 import no.entur.antu.netexdata.collectors.*;
 import org.entur.netex.validation.validator.model.ServiceJourneyId;
+import org.entur.netex.validation.validator.model.ServiceJourneyInterchangeInfo;
 import org.entur.netex.validation.validator.model.ServiceJourneyStop;
+import org.entur.netex.validation.validator.model.SimpleLine;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -20,7 +22,7 @@ public class NetexDataCollectorConfig {
   @Bean
   public LineInfoCollector lineInfoScraper(
     RedissonClient redissonClient,
-    @Qualifier(LINE_INFO_CACHE) Map<String, List<String>> lineInfoCache
+    @Qualifier(LINE_INFO_CACHE) Map<String, List<SimpleLine>> lineInfoCache
   ) {
     return new LineInfoCollector(redissonClient, lineInfoCache);
   }
@@ -30,7 +32,7 @@ public class NetexDataCollectorConfig {
     RedissonClient redissonClient,
     @Qualifier(
       SERVICE_JOURNEY_INTERCHANGE_INFO_CACHE
-    ) Map<String, List<String>> serviceJourneyInterchangeInfoCache
+    ) Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache
   ) {
     return new ServiceJourneyInterchangeInfoCollector(
       redissonClient,
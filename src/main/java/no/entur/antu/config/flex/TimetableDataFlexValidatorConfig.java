@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import no.entur.antu.config.ValidationParametersConfig;
+import no.entur.antu.stop.PrefetchingStopPlaceRepository;
+import no.entur.antu.stop.StopPlaceRepositoryLoader;
 import no.entur.antu.validation.flex.validator.EnturFlexTimetableDataValidationTreeFactory;
 import no.entur.antu.validation.flex.validator.EnturImportFlexTimetableDataValidationTreeFactory;
 import no.entur.antu.validation.flex.validator.FileNameValidator;
@@ -42,7 +44,6 @@ import org.entur.netex.validation.validator.id.VersionOnRefToLocalNetexIdValidat
 import org.entur.netex.validation.validator.jaxb.CommonDataRepositoryLoader;
 import org.entur.netex.validation.validator.jaxb.JAXBValidator;
 import org.entur.netex.validation.validator.jaxb.NetexDataRepository;
-import org.entur.netex.validation.validator.jaxb.StopPlaceRepository;
 import org.entur.netex.validation.validator.schema.NetexSchemaValidator;
 import org.entur.netex.validation.validator.xpath.ValidationTreeFactory;
 import org.entur.netex.validation.validator.xpath.XPathRuleValidator;
@@ -207,7 +208,7 @@ public class TimetableDataFlexValidatorConfig {
     InvalidFlexibleAreaValidator invalidFlexibleAreaValidator,
     CommonDataRepositoryLoader commonDataRepository,
     NetexDataRepository netexDataRepository,
-    StopPlaceRepository stopPlaceRepository
+    StopPlaceRepositoryLoader stopPlaceRepository
   ) {
     List<JAXBValidator> jaxbValidators = List.of(
       invalidFlexibleAreaValidator,
@@ -223,7 +224,12 @@ public class TimetableDataFlexValidatorConfig {
       .withJaxbValidators(jaxbValidators)
       .withCommonDataRepository(commonDataRepository)
       .withNetexDataRepository(netexDataRepository)
-      .withStopPlaceRepository(stopPlaceRepository)
+      .withStopPlaceRepository(
+        PrefetchingStopPlaceRepository.perFile(
+          stopPlaceRepository,
+          commonDataRepository
+        )
+      )
       .withValidationReportEntryFactory(validationReportEntryFactory)
       .build();
   }
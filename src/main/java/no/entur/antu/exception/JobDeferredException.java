@@ -0,0 +1,12 @@
+package no.entur.antu.exception;
+
+/**
+ * Thrown when a job cannot run on this pod right now. This is not a failure: the message is acknowledged
+ * and the job put back at the end of its queue, see {@link no.entur.antu.job.DeferredJobRequeuer}.
+ */
+public class JobDeferredException extends AntuException {
+
+  public JobDeferredException(String message) {
+    super(message);
+  }
+}
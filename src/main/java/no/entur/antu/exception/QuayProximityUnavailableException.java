@@ -0,0 +1,12 @@
+package no.entur.antu.exception;
+
+/**
+ * Thrown by a spatial query over the quays while this instance has not indexed them yet, so that it is not
+ * taken for an area without quays. The task can be retried once the index is built.
+ */
+public class QuayProximityUnavailableException extends RetryableAntuException {
+
+  public QuayProximityUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -5,6 +5,10 @@ package no.entur.antu.exception;
  */
 public class RetryableAntuException extends AntuException {
 
+  public RetryableAntuException(String message) {
+    super(message);
+  }
+
   public RetryableAntuException(Throwable t) {
     super(t);
   }
@@ -39,6 +39,8 @@ public sealed interface AntuJob {
   /**
    * Validate a single NeTEx file.
    *
+   * @param netexFileSize     the uncompressed size of the file in bytes, 0 if unknown. Decides how much
+   *                          heap the job is expected to take, see {@code JobAdmissionController}.
    * @param nbNetexFiles      total number of NeTEx files in the dataset, the target of the report
    *                          aggregation barrier.
    * @param nbCommonFiles     number of common files in the dataset, the target of the common files
@@ -49,6 +51,7 @@ public sealed interface AntuJob {
   record ValidateFile(
     ValidationContext context,
     String netexFileName,
+    long netexFileSize,
     int nbNetexFiles,
     int nbCommonFiles,
     List<String> allNetexFileNames
@@ -68,6 +71,34 @@ public sealed interface AntuJob {
     }
   }
 
+  /**
+   * Validate several small line files one after the other on the same pod, each as if it had a job of its
+   * own: each file still gets a report of its own and counts towards the report aggregation on its own.
+   *
+   * @param netexFileNames       the line files, in the order they are validated.
+   * @param largestNetexFileSize the uncompressed size of the largest of the files in bytes. They are
+   *                             validated one at a time, so this decides how much heap the job is expected
+   *                             to take, see {@code JobAdmissionController}.
+   * @param nbNetexFiles         total number of NeTEx files in the dataset, the target of the report
+   *                             aggregation barrier.
+   */
+  record ValidateFiles(
+    ValidationContext context,
+    List<String> netexFileNames,
+    long largestNetexFileSize,
+    int nbNetexFiles
+  )
+    implements ValidationJob {
+    public ValidateFiles {
+      netexFileNames = List.copyOf(netexFileNames);
+    }
+
+    @Override
+    public JobType type() {
+      return JobType.VALIDATE_FILES;
+    }
+  }
+
   /**
    * All common files are validated: create a validation job for every line file.
    */
@@ -0,0 +1,221 @@
+package no.entur.antu.job;
+
+import static no.entur.antu.config.cache.CacheConfig.VALIDATION_DATA_TTL;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.entur.antu.exception.JobDeferredException;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import no.entur.antu.validation.state.ValidationStateRepository;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScoredSortedSetAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounds the file validations of one dataset that run at once, across every pod, to its share of the
+ * fleet.
+ *
+ * <p>PubSub delivers roughly in order, so a dataset fanning out into a thousand line files used to hold
+ * every job consumer until the last of them was done, and a small dataset submitted after it waited behind
+ * the whole backlog. A file validation of a dataset that already has its share in flight now waits
+ * {@code antu.job.fair.share.wait.millis} at most for one of them to finish, and is otherwise put back at
+ * the end of the queue, and the job consumer picks up the next message, which may be another dataset's.
+ * The wait paces the jobs going round the queue when there is little else on it.
+ *
+ * <p>The share is {@code antu.job.fair.share.total.in.flight}, the file validations the fleet runs at once,
+ * divided between the validations in progress, and never less than
+ * {@code antu.job.fair.share.min.in.flight}. A total of 0 turns the fair share off.
+ *
+ * <p>Each file validation in flight holds a lease in a sorted set of its report, scored by when the lease
+ * expires, so that the leases of a pod that stopped without releasing them do not hold the dataset back
+ * for longer than a job can run.
+ *
+ * <p>The gauge of the file validations in flight is tagged with the report: summed over the pods, it is
+ * what each dataset has in flight, which is what the share bounds.
+ */
+@Component
+public class DatasetFairShare {
+
+  private static final String KEY_PREFIX = "IN_FLIGHT_";
+
+  /**
+   * The longest the PubSub client extends the ack deadline of a message. A job that runs for longer has
+   * been redelivered anyway.
+   */
+  private static final Duration LEASE = Duration.ofHours(1);
+
+  private static final Duration RETRY_INTERVAL = Duration.ofMillis(250);
+
+  private final RedissonClient redissonClient;
+  private final ValidationStateRepository validationStateRepository;
+  private final int totalInFlight;
+  private final int minInFlight;
+  private final long maxWaitNanos;
+  private final AntuPrometheusMetricsService antuPrometheusMetricsService;
+
+  /**
+   * The file validations running on this pod, per report, for the gauge. An entry and its gauge are removed
+   * when the last of them is done, so that finished validations do not pile up in the registry.
+   */
+  private final Map<String, AtomicInteger> inFlightPerReport =
+    new ConcurrentHashMap<>();
+
+  public DatasetFairShare(
+    RedissonClient redissonClient,
+    ValidationStateRepository validationStateRepository,
+    @Value("${antu.job.fair.share.total.in.flight:0}") int totalInFlight,
+    @Value("${antu.job.fair.share.min.in.flight:4}") int minInFlight,
+    @Value("${antu.job.fair.share.wait.millis:2000}") long maxWaitMillis,
+    AntuPrometheusMetricsService antuPrometheusMetricsService
+  ) {
+    this.redissonClient = redissonClient;
+    this.validationStateRepository = validationStateRepository;
+    this.totalInFlight = totalInFlight;
+    this.minInFlight = minInFlight;
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    this.antuPrometheusMetricsService = antuPrometheusMetricsService;
+  }
+
+  /**
+   * Run {@code processing} once the dataset of the job has less than its share in flight. A job validating
+   * several files one after the other counts as one.
+   *
+   * @throws JobDeferredException if the dataset still has its share in flight after the wait. The job is
+   *                              put back on the queue.
+   */
+  public void run(AntuJob.ValidationJob job, Runnable processing) {
+    if (totalInFlight <= 0) {
+      processing.run();
+      return;
+    }
+    String validationReportId = job.context().validationReportId();
+    String leaseId = UUID.randomUUID().toString();
+    awaitLease(job, leaseId);
+    startInFlight(job.context());
+    try {
+      processing.run();
+    } finally {
+      endInFlight(validationReportId);
+      release(validationReportId, leaseId);
+    }
+  }
+
+  public void cleanUp(String validationReportId) {
+    redissonClient.getKeys().unlink(key(validationReportId));
+  }
+
+  private void awaitLease(AntuJob.ValidationJob job, String leaseId) {
+    String validationReportId = job.context().validationReportId();
+    long deadline = System.nanoTime() + maxWaitNanos;
+    int share = share();
+    while (!acquire(validationReportId, leaseId, share)) {
+      if (System.nanoTime() - deadline >= 0) {
+        antuPrometheusMetricsService.countFairShareDeferredJob(
+          job.context().referential()
+        );
+        throw new JobDeferredException(
+          "report " +
+          validationReportId +
+          " already has " +
+          share +
+          " file validations in flight"
+        );
+      }
+      try {
+        Thread.sleep(RETRY_INTERVAL);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new JobDeferredException(
+          "interrupted while waiting for a file validation of report " +
+          validationReportId +
+          " to finish"
+        );
+      }
+    }
+  }
+
+  int share() {
+    int validations = validationStateRepository.countValidationStates();
+    return Math.max(minInFlight, totalInFlight / Math.max(1, validations));
+  }
+
+  /**
+   * Take a lease and count the leases in one round trip. Two pods taking the last lease at the same
+   * instant may both see the share exceeded and both back out, but never both go ahead.
+   */
+  private boolean acquire(
+    String validationReportId,
+    String leaseId,
+    int share
+  ) {
+    long now = System.currentTimeMillis();
+    RBatch batch = redissonClient.createBatch();
+    RScoredSortedSetAsync<String> leases = batch.getScoredSortedSet(
+      key(validationReportId),
+      StringCodec.INSTANCE
+    );
+    leases.removeRangeByScoreAsync(0, true, now, true);
+    leases.addAsync(now + (double) LEASE.toMillis(), leaseId);
+    RFuture<Integer> leaseCount = leases.sizeAsync();
+    leases.expireAsync(VALIDATION_DATA_TTL);
+    batch.execute();
+
+    if (leaseCount.toCompletableFuture().join() <= share) {
+      return true;
+    }
+    release(validationReportId, leaseId);
+    return false;
+  }
+
+  private void release(String validationReportId, String leaseId) {
+    redissonClient
+      .<String>getScoredSortedSet(key(validationReportId), StringCodec.INSTANCE)
+      .remove(leaseId);
+  }
+
+  private void startInFlight(ValidationContext context) {
+    inFlightPerReport.compute(
+      context.validationReportId(),
+      (validationReportId, inFlight) -> {
+        if (inFlight != null) {
+          inFlight.incrementAndGet();
+          return inFlight;
+        }
+        AtomicInteger first = new AtomicInteger(1);
+        antuPrometheusMetricsService.registerDatasetInFlightGauge(
+          context.referential(),
+          validationReportId,
+          first::get
+        );
+        return first;
+      }
+    );
+  }
+
+  private void endInFlight(String validationReportId) {
+    inFlightPerReport.computeIfPresent(
+      validationReportId,
+      (ignored, inFlight) -> {
+        if (inFlight.decrementAndGet() > 0) {
+          return inFlight;
+        }
+        antuPrometheusMetricsService.removeDatasetInFlightGauge(
+          validationReportId
+        );
+        return null;
+      }
+    );
+  }
+
+  private static String key(String validationReportId) {
+    return KEY_PREFIX + validationReportId;
+  }
+}
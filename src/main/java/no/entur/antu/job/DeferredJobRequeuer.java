@@ -0,0 +1,50 @@
+package no.entur.antu.job;
+
+import no.entur.antu.exception.JobDeferredException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Puts a job that cannot run on this pod right now back at the end of its queue.
+ *
+ * <p>A nacked message is redelivered after the consumer base class has slept on it and the subscription
+ * has backed off, and is logged as a failure every time, so that a dataset waiting for its turn used to
+ * fill the logs and cycle through the pods at the pace of the retry policy. The message is instead
+ * acknowledged and the job published again: it comes back once the jobs queued behind it have had their
+ * turn, and a deferral is logged and counted as what it is.
+ */
+@Component
+public class DeferredJobRequeuer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+    DeferredJobRequeuer.class
+  );
+
+  private final JobQueue jobQueue;
+
+  public DeferredJobRequeuer(JobQueue jobQueue) {
+    this.jobQueue = jobQueue;
+  }
+
+  /**
+   * Run {@code processing}, and put the job back on its queue if it is deferred. Failures propagate, so the
+   * consumer base class still nacks the message.
+   *
+   * @return whether the job ran, false if it was put back on its queue.
+   */
+  public boolean runOrRequeue(AntuJob job, Runnable processing) {
+    try {
+      processing.run();
+      return true;
+    } catch (JobDeferredException e) {
+      LOGGER.info(
+        "Putting a {} job back on its queue: {}",
+        job.type(),
+        e.getMessage()
+      );
+      jobQueue.submit(job);
+      return false;
+    }
+  }
+}
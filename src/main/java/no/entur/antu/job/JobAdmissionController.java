@@ -0,0 +1,402 @@
+package no.entur.antu.job;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import no.entur.antu.exception.JobDeferredException;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admits a job to this pod only while the heap it is expected to take fits in what the jobs already
+ * running have left of the pod's budget.
+ *
+ * <p>A file being validated is held in heap several times over: its bytes, the XML tree, and the index
+ * built from it. That is why a pod used to run one job at a time, which leaves cores idle on a pod handed
+ * small files. Each file validation now reserves an estimate from the uncompressed size of its file, and
+ * jobs run side by side for as long as their reservations fit: small files validate in parallel, and a large
+ * one still gets most of the pod. How many can run at all is still bounded by
+ * {@code antu.netex.job.consumers}, which has to be raised for this to make a difference.
+ *
+ * <p>The jobs that load a whole dataset, splitting it, validating it as a whole and refreshing the stop place
+ * cache, reserve an estimate of their own, {@code antu.job.admission.split.mb},
+ * {@code antu.job.admission.dataset.validation.mb} and {@code antu.job.admission.stop.place.refresh.mb},
+ * half of the budget by default. No reservation is more than {@link #MAX_SHARE_OF_BUDGET} of the budget, a
+ * file of unknown size included: a job reserving the whole budget could only start on an idle pod, and
+ * waited for one for as long as small jobs kept arriving.
+ *
+ * <p>A large job, one reserving half of the budget or more, is not overtaken: while it waits, the jobs that
+ * arrive after it are only admitted if they leave room for it, so that it starts as soon as enough of the
+ * running jobs are done. It waits for up to {@code antu.job.admission.large.job.wait.millis}, its message
+ * held and its ack deadline extended by the PubSub client meanwhile. Any other job waits
+ * {@code antu.job.admission.wait.millis} at most, and is otherwise put back at the end of its queue, to be
+ * picked up by this pod or another: a deferral, logged and counted as such, not a failure.
+ *
+ * <p>A low priority job also gives way to the high priority jobs waiting for a reservation, so that a pod
+ * busy with a batch takes the validation someone is waiting on first when heap frees up. It only gives way
+ * for so long: once low priority jobs have been giving way for
+ * {@code antu.job.admission.low.priority.max.yield.millis} without one being admitted, they compete on
+ * equal terms again until one is, so that a steady stream of high priority jobs does not starve a batch.
+ *
+ * <p>A consumer thread whose job was put back on the queue backs off before it pulls the next one, see
+ * {@link #backOff()}: otherwise, while a large job holds the budget, the small jobs go round through PubSub
+ * at the pace of {@code antu.job.admission.wait.millis} on every consumer thread.
+ */
+@Component
+public class JobAdmissionController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+    JobAdmissionController.class
+  );
+
+  private static final long MEGABYTE = 1024L * 1024;
+
+  /**
+   * The share of the maximum heap the jobs may reserve when no budget is configured. The rest is for the
+   * caches, the PubSub clients and the collector's headroom.
+   */
+  private static final double DEFAULT_BUDGET_SHARE_OF_HEAP = 0.7;
+
+  /**
+   * The most of the budget a single job reserves, so that a quarter of it is always left to small jobs.
+   */
+  private static final double MAX_SHARE_OF_BUDGET = 0.75;
+
+  private final long budgetBytes;
+  private final long maxReservationBytes;
+  private final long baseReservationBytes;
+  private final long heapBytesPerFileByte;
+  private final long splitReservationBytes;
+  private final long datasetValidationReservationBytes;
+  private final long stopPlaceRefreshReservationBytes;
+  private final long maxWaitNanos;
+  private final long largeJobMaxWaitNanos;
+  private final long lowPriorityMaxYieldNanos;
+  private final long maxDeferralBackoffNanos;
+  private final AntuPrometheusMetricsService antuPrometheusMetricsService;
+
+  private long reservedBytes;
+  private int highPriorityWaiting;
+  private boolean lowPriorityYielding;
+  private long lowPriorityYieldingSince;
+  private int consecutiveDeferrals;
+  private long releases;
+
+  /**
+   * The large jobs waiting for a reservation, in the order they arrived. The first one is owed room.
+   */
+  private final Deque<LargeJob> largeJobsWaiting = new ArrayDeque<>();
+
+  /**
+   * @param budgetMegabytes               the heap the jobs running at once may reserve in total, 0 for a
+   *                                      share of the maximum heap.
+   * @param baseMegabytes                 the heap a file validation takes whatever the size of its file.
+   * @param heapBytesPerFileByte          the heap a file validation takes per byte of its uncompressed file.
+   * @param splitMegabytes                the heap splitting a dataset takes, 0 for half of the budget.
+   * @param datasetValidationMegabytes    the heap validating a dataset as a whole takes, 0 for half of the
+   *                                      budget.
+   * @param stopPlaceRefreshMegabytes     the heap refreshing the stop place cache takes, 0 for half of the
+   *                                      budget.
+   * @param maxWaitMillis                 how long a job waits for a reservation before it is put back on the
+   *                                      queue.
+   * @param largeJobMaxWaitMillis         how long a large job waits for a reservation before it is put back on
+   *                                      the queue.
+   * @param lowPriorityMaxYieldMillis     how long low priority jobs give way to high priority ones before one
+   *                                      of them is admitted regardless.
+   * @param maxDeferralBackoffMillis      the longest a consumer thread backs off after a deferral.
+   */
+  public JobAdmissionController(
+    @Value("${antu.job.admission.budget.mb:0}") long budgetMegabytes,
+    @Value("${antu.job.admission.base.mb:64}") long baseMegabytes,
+    @Value(
+      "${antu.job.admission.heap.bytes.per.file.byte:12}"
+    ) long heapBytesPerFileByte,
+    @Value("${antu.job.admission.split.mb:0}") long splitMegabytes,
+    @Value(
+      "${antu.job.admission.dataset.validation.mb:0}"
+    ) long datasetValidationMegabytes,
+    @Value(
+      "${antu.job.admission.stop.place.refresh.mb:0}"
+    ) long stopPlaceRefreshMegabytes,
+    @Value("${antu.job.admission.wait.millis:1000}") long maxWaitMillis,
+    @Value(
+      "${antu.job.admission.large.job.wait.millis:600000}"
+    ) long largeJobMaxWaitMillis,
+    @Value(
+      "${antu.job.admission.low.priority.max.yield.millis:60000}"
+    ) long lowPriorityMaxYieldMillis,
+    @Value(
+      "${antu.job.admission.deferral.max.backoff.millis:30000}"
+    ) long maxDeferralBackoffMillis,
+    AntuPrometheusMetricsService antuPrometheusMetricsService
+  ) {
+    this.budgetBytes =
+      budgetMegabytes > 0
+        ? budgetMegabytes * MEGABYTE
+        : (long) (Runtime.getRuntime().maxMemory() *
+          DEFAULT_BUDGET_SHARE_OF_HEAP);
+    this.maxReservationBytes = (long) (budgetBytes * MAX_SHARE_OF_BUDGET);
+    this.baseReservationBytes = baseMegabytes * MEGABYTE;
+    this.heapBytesPerFileByte = heapBytesPerFileByte;
+    this.splitReservationBytes = estimate(splitMegabytes);
+    this.datasetValidationReservationBytes =
+      estimate(datasetValidationMegabytes);
+    this.stopPlaceRefreshReservationBytes = estimate(stopPlaceRefreshMegabytes);
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    this.largeJobMaxWaitNanos =
+      TimeUnit.MILLISECONDS.toNanos(largeJobMaxWaitMillis);
+    this.lowPriorityMaxYieldNanos =
+      TimeUnit.MILLISECONDS.toNanos(lowPriorityMaxYieldMillis);
+    this.maxDeferralBackoffNanos =
+      TimeUnit.MILLISECONDS.toNanos(maxDeferralBackoffMillis);
+    this.antuPrometheusMetricsService = antuPrometheusMetricsService;
+    antuPrometheusMetricsService.registerJobAdmissionGauge(
+      this::reservedBytes
+    );
+  }
+
+  /**
+   * Run {@code processing} once the job's reservation fits in the budget, and release the reservation when
+   * it is done. Failures propagate, so the consumer base class still nacks the message.
+   *
+   * @param priority the priority of the lane the job was consumed from.
+   *
+   * @throws JobDeferredException if the reservation did not fit in time. The job is put back on the queue.
+   */
+  public void run(AntuJob job, JobPriority priority, Runnable processing) {
+    long reservation = reservation(job);
+    if (!reserve(reservation, priority)) {
+      deferred();
+      antuPrometheusMetricsService.countDeferredJob(job.type());
+      throw new JobDeferredException(
+        "not enough heap left to reserve " +
+        reservation / MEGABYTE +
+        " MB"
+      );
+    }
+    try {
+      processing.run();
+    } finally {
+      release(reservation);
+    }
+  }
+
+  /**
+   * Hold the calling consumer thread after its job was put back on the queue, so that it does not pull
+   * another job this pod cannot admit either. It is held until a running job releases its reservation, or
+   * for as long as a large job is waiting for one, but no longer than a backoff that starts at
+   * {@code antu.job.admission.wait.millis} and doubles with each job deferred in a row, up to
+   * {@code antu.job.admission.deferral.max.backoff.millis}. Returns at once if no job has been deferred for
+   * lack of heap since the last one was admitted.
+   */
+  public synchronized void backOff() {
+    if (consecutiveDeferrals == 0) {
+      return;
+    }
+    long backoff = Math.min(
+      maxDeferralBackoffNanos,
+      maxWaitNanos << Math.min(consecutiveDeferrals - 1, 20)
+    );
+    long deadline = System.nanoTime() + backoff;
+    long releasesSeen = releases;
+    while (releases == releasesSeen || !largeJobsWaiting.isEmpty()) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return;
+      }
+      try {
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * The cache refresh arms bind a name they never use (java:S1481), for the reason given on
+   * {@code JobMessageCodec.encode}.
+   */
+  @SuppressWarnings("java:S1481")
+  long reservation(AntuJob job) {
+    return switch (job) {
+      case AntuJob.ValidateFile validateFile -> fileValidationReservation(
+        validateFile.netexFileSize()
+      );
+      case AntuJob.ValidateFiles validateFiles -> fileValidationReservation(
+        validateFiles.largestNetexFileSize()
+      );
+      case AntuJob.SplitDataset ignored -> splitReservationBytes;
+      case AntuJob.ValidateDataset ignored -> datasetValidationReservationBytes;
+      case AntuJob.RefreshStopPlaceCache ignored -> stopPlaceRefreshReservationBytes;
+      // The lightweight jobs, which do not go through admission but on their own queue, and only move
+      // data around.
+      case AntuJob.CreateLineFileJobs ignored -> baseReservation();
+      case AntuJob.AggregateReports ignored -> baseReservation();
+      case AntuJob.CompleteValidation ignored -> baseReservation();
+      case AntuJob.RefreshOrganisationAliasCache ignored -> baseReservation();
+    };
+  }
+
+  private long fileValidationReservation(long netexFileSize) {
+    if (netexFileSize <= 0) {
+      return maxReservationBytes;
+    }
+    return Math.min(
+      maxReservationBytes,
+      baseReservationBytes + netexFileSize * heapBytesPerFileByte
+    );
+  }
+
+  private long baseReservation() {
+    return Math.min(maxReservationBytes, baseReservationBytes);
+  }
+
+  private long estimate(long megabytes) {
+    return Math.min(
+      maxReservationBytes,
+      megabytes > 0 ? megabytes * MEGABYTE : budgetBytes / 2
+    );
+  }
+
+  private boolean isLarge(long reservation) {
+    return reservation >= budgetBytes / 2;
+  }
+
+  synchronized long reservedBytes() {
+    return reservedBytes;
+  }
+
+  synchronized int highPriorityWaiting() {
+    return highPriorityWaiting;
+  }
+
+  synchronized int largeJobsWaiting() {
+    return largeJobsWaiting.size();
+  }
+
+  private synchronized void deferred() {
+    consecutiveDeferrals++;
+  }
+
+  private synchronized boolean reserve(
+    long reservation,
+    JobPriority priority
+  ) {
+    LargeJob largeJob = isLarge(reservation) ? new LargeJob(reservation) : null;
+    if (largeJob != null) {
+      largeJobsWaiting.addLast(largeJob);
+    }
+    if (priority == JobPriority.HIGH) {
+      highPriorityWaiting++;
+    }
+    try {
+      return awaitReservation(reservation, priority, largeJob);
+    } finally {
+      if (largeJob != null) {
+        largeJobsWaiting.remove(largeJob);
+      }
+      if (priority == JobPriority.HIGH) {
+        highPriorityWaiting--;
+        if (highPriorityWaiting == 0) {
+          lowPriorityYielding = false;
+        }
+      }
+      // The jobs that gave way to this one may go ahead now.
+      notifyAll();
+    }
+  }
+
+  private boolean awaitReservation(
+    long reservation,
+    JobPriority priority,
+    LargeJob largeJob
+  ) {
+    long deadline =
+      System.nanoTime() +
+      (largeJob != null ? largeJobMaxWaitNanos : maxWaitNanos);
+    while (!fits(reservation, largeJob) || mustGiveWay(priority)) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        LOGGER.info(
+          "{} of {} MB of heap reserved by the running jobs, {} high priority and {} large jobs waiting, cannot reserve {} MB more for a {} priority job",
+          reservedBytes / MEGABYTE,
+          budgetBytes / MEGABYTE,
+          highPriorityWaiting,
+          largeJobsWaiting.size(),
+          reservation / MEGABYTE,
+          priority
+        );
+        return false;
+      }
+      if (priority == JobPriority.LOW && lowPriorityYielding) {
+        // Nothing notifies when the low priority jobs have given way for long enough.
+        long yieldDeadline =
+          lowPriorityYieldingSince + lowPriorityMaxYieldNanos;
+        remaining = Math.min(remaining, yieldDeadline - System.nanoTime());
+      }
+      try {
+        TimeUnit.NANOSECONDS.timedWait(this, Math.max(remaining, 1));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    if (priority == JobPriority.LOW) {
+      lowPriorityYielding = false;
+    }
+    consecutiveDeferrals = 0;
+    reservedBytes += reservation;
+    return true;
+  }
+
+  /**
+   * Whether the reservation fits next to the running jobs, leaving room for the first large job waiting
+   * unless it is that job.
+   */
+  private boolean fits(long reservation, LargeJob largeJob) {
+    LargeJob firstInLine = largeJobsWaiting.peekFirst();
+    long owed = firstInLine == null || firstInLine == largeJob
+      ? 0
+      : firstInLine.reservation;
+    return reservedBytes + reservation + owed <= budgetBytes;
+  }
+
+  /**
+   * Whether a low priority job has to give way to the high priority jobs waiting, starting the clock of the
+   * starvation guard the first time it does.
+   */
+  private boolean mustGiveWay(JobPriority priority) {
+    if (priority == JobPriority.HIGH || highPriorityWaiting == 0) {
+      return false;
+    }
+    long now = System.nanoTime();
+    if (!lowPriorityYielding) {
+      lowPriorityYielding = true;
+      lowPriorityYieldingSince = now;
+    }
+    return now - lowPriorityYieldingSince < lowPriorityMaxYieldNanos;
+  }
+
+  private synchronized void release(long reservation) {
+    reservedBytes -= reservation;
+    releases++;
+    notifyAll();
+  }
+
+  /**
+   * A large job waiting for a reservation. Compared by identity, so that two of the same size are told
+   * apart.
+   */
+  private static final class LargeJob {
+
+    private final long reservation;
+
+    private LargeJob(long reservation) {
+      this.reservation = reservation;
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package no.entur.antu.job;
 
+import no.entur.antu.config.cache.ValidationState;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
 import no.entur.antu.pipeline.DatasetSplitter;
 import no.entur.antu.pipeline.DatasetValidator;
 import no.entur.antu.pipeline.NetexFileValidator;
@@ -10,6 +12,7 @@ import no.entur.antu.pipeline.ValidationCompleter;
 import no.entur.antu.validation.state.ValidationStateRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -33,6 +36,8 @@ public class JobDispatcher {
   private final ValidationCompleter validationCompleter;
   private final StopPlaceCacheRefresher stopPlaceCacheRefresher;
   private final OrganisationAliasCacheRefresher organisationAliasCacheRefresher;
+  private final AntuPrometheusMetricsService antuPrometheusMetricsService;
+  private final boolean redisCommandCounting;
 
   public JobDispatcher(
     ValidationStateRepository validationStateRepository,
@@ -42,7 +47,11 @@ public class JobDispatcher {
     DatasetValidator datasetValidator,
     ValidationCompleter validationCompleter,
     StopPlaceCacheRefresher stopPlaceCacheRefresher,
-    OrganisationAliasCacheRefresher organisationAliasCacheRefresher
+    OrganisationAliasCacheRefresher organisationAliasCacheRefresher,
+    AntuPrometheusMetricsService antuPrometheusMetricsService,
+    @Value(
+      "${antu.redis.command.counting.enabled:false}"
+    ) boolean redisCommandCounting
   ) {
     this.validationStateRepository = validationStateRepository;
     this.datasetSplitter = datasetSplitter;
@@ -52,33 +61,82 @@ public class JobDispatcher {
     this.validationCompleter = validationCompleter;
     this.stopPlaceCacheRefresher = stopPlaceCacheRefresher;
     this.organisationAliasCacheRefresher = organisationAliasCacheRefresher;
+    this.antuPrometheusMetricsService = antuPrometheusMetricsService;
+    this.redisCommandCounting = redisCommandCounting;
   }
 
   /**
-   * The cache refresh arms bind a name they never use (java:S1481), for the reason given on
-   * {@code JobMessageCodec.encode}: prettier-java rejects unnamed patterns, and a {@code default} arm would
-   * cost the exhaustiveness check.
+   * Run the job, counting the Redis round trips it takes if the counting is enabled.
    */
-  @SuppressWarnings("java:S1481")
   public void dispatch(AntuJob job) {
-    if (job instanceof AntuJob.ValidationJob validationJob) {
-      ValidationMdc.set(validationJob.context());
-      if (isObsolete(validationJob)) {
+    if (!redisCommandCounting) {
+      dispatchJob(job);
+      return;
+    }
+    JobRedisCommands.start();
+    try {
+      dispatchJob(job);
+    } finally {
+      int redisCommands = JobRedisCommands.stop();
+      antuPrometheusMetricsService.recordJobRedisCommands(
+        job.type(),
+        redisCommands
+      );
+      LOGGER.info(
+        "Job {} issued {} Redis commands",
+        job.type(),
+        redisCommands
+      );
+    }
+  }
+
+  private void dispatchJob(AntuJob job) {
+    if (!(job instanceof AntuJob.ValidationJob validationJob)) {
+      run(job, null);
+      return;
+    }
+    ValidationMdc.set(validationJob.context());
+    runValidationJob(validationJob);
+  }
+
+  private void runValidationJob(AntuJob.ValidationJob job) {
+    String validationReportId = job.context().validationReportId();
+    ValidationState validationState = null;
+    if (validationReportId != null) {
+      validationState = recordProgress(validationReportId);
+      if (validationState == null) {
         LOGGER.info(
           "Report {} is already complete. Ignoring job {}.",
-          validationJob.context().validationReportId(),
+          validationReportId,
           job.type()
         );
         return;
       }
     }
+    run(job, validationState);
+  }
 
+  /**
+   * The cache refresh arms bind a name they never use (java:S1481), for the reason given on
+   * {@code JobMessageCodec.encode}: prettier-java rejects unnamed patterns, and a {@code default} arm would
+   * cost the exhaustiveness check.
+   *
+   * @param validationState the state of the validation the job belongs to, as read when the job started.
+   *                        The file validations use it rather than reading it again.
+   */
+  @SuppressWarnings("java:S1481")
+  private void run(AntuJob job, ValidationState validationState) {
     switch (job) {
       case AntuJob.SplitDataset splitDataset -> datasetSplitter.split(
         splitDataset
       );
       case AntuJob.ValidateFile validateFile -> netexFileValidator.validate(
-        validateFile
+        validateFile,
+        validationState
+      );
+      case AntuJob.ValidateFiles validateFiles -> netexFileValidator.validate(
+        validateFiles,
+        validationState
       );
       case AntuJob.CreateLineFileJobs createLineFileJobs -> datasetSplitter.createLineFileJobs(
         createLineFileJobs
@@ -104,12 +162,10 @@ public class JobDispatcher {
    *
    * <p>Recording progress here rather than only checking is what keeps the stalled-validation sweep from
    * giving up on a large dataset that is still working through its files.
+   *
+   * @return the state of the validation, null if it is finished.
    */
-  private boolean isObsolete(AntuJob.ValidationJob job) {
-    String validationReportId = job.context().validationReportId();
-    return (
-      validationReportId != null &&
-      !validationStateRepository.recordProgress(validationReportId)
-    );
+  private ValidationState recordProgress(String validationReportId) {
+    return validationStateRepository.recordProgress(validationReportId);
   }
 }
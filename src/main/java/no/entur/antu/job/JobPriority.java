@@ -0,0 +1,16 @@
+package no.entur.antu.job;
+
+/**
+ * Which lane of the job queue a job travels in, and which it gives way to when a pod has to choose.
+ */
+public enum JobPriority {
+  /**
+   * A validation someone is waiting on, such as a dataset just uploaded by a provider.
+   */
+  HIGH,
+
+  /**
+   * Everything else: batch imports, exports, nightly validations and the cache refreshes.
+   */
+  LOW
+}
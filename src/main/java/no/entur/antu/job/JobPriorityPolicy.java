@@ -0,0 +1,49 @@
+package no.entur.antu.job;
+
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides the priority of a job from the validation it belongs to.
+ *
+ * <p>The validation client says which stage of its own workflow a validation is for, and that is what tells
+ * a validation someone is waiting on from a batch. A client whose validations are all interactive can be
+ * given priority as a whole. The stages and clients are the clients' own strings, so they are configured
+ * rather than hard-coded here.
+ */
+@Component
+public class JobPriorityPolicy {
+
+  private final Set<String> highPriorityStages;
+  private final Set<String> highPriorityClients;
+
+  public JobPriorityPolicy(
+    @Value(
+      "${antu.job.priority.high.stages:EnturValidationStagePreValidation}"
+    ) Set<String> highPriorityStages,
+    @Value(
+      "${antu.job.priority.high.clients:}"
+    ) Set<String> highPriorityClients
+  ) {
+    this.highPriorityStages = Set.copyOf(highPriorityStages);
+    this.highPriorityClients = Set.copyOf(highPriorityClients);
+  }
+
+  public JobPriority priorityOf(AntuJob job) {
+    if (
+      job instanceof AntuJob.ValidationJob validationJob &&
+      (
+        isIn(validationJob.context().validationStage(), highPriorityStages) ||
+        isIn(validationJob.context().validationClient(), highPriorityClients)
+      )
+    ) {
+      return JobPriority.HIGH;
+    }
+    return JobPriority.LOW;
+  }
+
+  private static boolean isIn(String value, Set<String> values) {
+    return value != null && values.contains(value);
+  }
+}
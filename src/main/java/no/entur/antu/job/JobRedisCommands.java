@@ -0,0 +1,136 @@
+package no.entur.antu.job;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.redisson.api.RedissonClient;
+
+/**
+ * Counts the Redis commands issued for the job the current thread is running.
+ *
+ * <p>Redis latency is what a file validation spends most of its time on besides the validators' own CPU,
+ * and it adds up one round trip at a time in places far apart: the validation state, the file store, the
+ * barriers, the fair share, the id and common data repositories, the collectors. The counting is done once,
+ * on the Redisson client every one of them is given, see {@link #counting(RedissonClient)}: the dispatcher
+ * reads the total when the job is done, and a job that grows a round trip shows up in the log and the
+ * metric, wherever the round trip was added.
+ *
+ * <p>A pipelined batch or a script is one command, and a read served by the local cache of a local cached
+ * map is none: what is counted is round trips. A method returning a view or an iterator counts as one,
+ * however many pages it goes on to read.
+ *
+ * <p>The counting is a diagnostic, enabled with {@code antu.redis.command.counting.enabled}: it puts a
+ * reflective proxy in front of every call to Redis.
+ *
+ * <p>Like {@link ValidationMdc}, the counter belongs to the thread running the job. The executors the
+ * validators fan out to carry it to their threads, see {@link #propagating(ExecutorService)}.
+ */
+public final class JobRedisCommands {
+
+  private static final ThreadLocal<AtomicInteger> COUNTER =
+    new ThreadLocal<>();
+
+  private JobRedisCommands() {}
+
+  /**
+   * Start counting for a new job on this thread, dropping whatever the previous job left.
+   */
+  public static void start() {
+    COUNTER.set(new AtomicInteger());
+  }
+
+  /**
+   * Stop counting on this thread.
+   *
+   * @return the round trips counted since {@link #start()}.
+   */
+  public static int stop() {
+    AtomicInteger counter = COUNTER.get();
+    COUNTER.remove();
+    return counter == null ? 0 : counter.get();
+  }
+
+  /**
+   * Wrap a Redisson client so that the round trips made through it, and through the objects and batches it
+   * hands out, count towards the job of the calling thread.
+   */
+  public static RedissonClient counting(RedissonClient redissonClient) {
+    return RedisCommandCountingProxy.wrapClient(redissonClient);
+  }
+
+  /**
+   * Wrap an executor so that its tasks count towards the job of the thread that submitted them.
+   */
+  public static ExecutorService propagating(ExecutorService executorService) {
+    return new PropagatingExecutorService(executorService);
+  }
+
+  /**
+   * Whether the thread is running a job whose round trips are counted.
+   */
+  static boolean active() {
+    return COUNTER.get() != null;
+  }
+
+  /**
+   * Count {@code commands} round trips towards the job running on this thread, if any.
+   */
+  static void count(int commands) {
+    AtomicInteger counter = COUNTER.get();
+    if (counter != null) {
+      counter.addAndGet(commands);
+    }
+  }
+
+  private static final class PropagatingExecutorService
+    extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+
+    private PropagatingExecutorService(ExecutorService delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      AtomicInteger counter = COUNTER.get();
+      delegate.execute(() -> {
+        AtomicInteger previous = COUNTER.get();
+        COUNTER.set(counter);
+        try {
+          command.run();
+        } finally {
+          COUNTER.set(previous);
+        }
+      });
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+      throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+}
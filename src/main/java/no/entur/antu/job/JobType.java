@@ -16,6 +16,7 @@ import java.util.stream.Stream;
 public enum JobType {
   SPLIT("SPLIT"),
   VALIDATE("VALIDATE"),
+  VALIDATE_FILES("VALIDATE_FILES"),
   VALIDATE_DATASET("VALIDATE_DATASET"),
   COMPLETE_VALIDATION("COMPLETE_VALIDATION"),
   AGGREGATE_REPORTS("AGGREGATE_REPORTS"),
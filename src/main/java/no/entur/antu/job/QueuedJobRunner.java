@@ -0,0 +1,72 @@
+package no.entur.antu.job;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a job pulled off one of the job queues, through the checks that may put it back on the queue.
+ *
+ * <p>The fair share of the dataset is checked first: it is one Redis round trip and a short wait, and a job
+ * it defers has then not held any heap while waiting for its turn. Only a job its dataset has room for is
+ * admitted on the heap of the pod, so that a large job that waited for the room it is owed does not lose
+ * it to the fair share afterwards.
+ *
+ * <p>A job put back on the queue is acknowledged right away, and the consumer thread then backs off before
+ * it pulls the next one, see {@link JobAdmissionController#backOff()}.
+ */
+@Component
+public class QueuedJobRunner {
+
+  private final DeferredJobRequeuer deferredJobRequeuer;
+  private final DatasetFairShare datasetFairShare;
+  private final JobAdmissionController jobAdmissionController;
+  private final JobDispatcher jobDispatcher;
+
+  public QueuedJobRunner(
+    DeferredJobRequeuer deferredJobRequeuer,
+    DatasetFairShare datasetFairShare,
+    JobAdmissionController jobAdmissionController,
+    JobDispatcher jobDispatcher
+  ) {
+    this.deferredJobRequeuer = deferredJobRequeuer;
+    this.datasetFairShare = datasetFairShare;
+    this.jobAdmissionController = jobAdmissionController;
+    this.jobDispatcher = jobDispatcher;
+  }
+
+  /**
+   * @param priority the priority of the queue the job was pulled off.
+   */
+  public void run(AntuJob job, JobPriority priority) {
+    boolean ran = deferredJobRequeuer.runOrRequeue(
+      job,
+      () ->
+        runWithinFairShare(
+          job,
+          () ->
+            jobAdmissionController.run(
+              job,
+              priority,
+              () -> jobDispatcher.dispatch(job)
+            )
+        )
+    );
+    if (!ran) {
+      jobAdmissionController.backOff();
+    }
+  }
+
+  /**
+   * The file validations are the jobs a dataset fans out into by the thousand, so the ones that take turns
+   * between datasets.
+   */
+  private void runWithinFairShare(AntuJob job, Runnable processing) {
+    if (
+      job instanceof AntuJob.ValidateFile ||
+      job instanceof AntuJob.ValidateFiles
+    ) {
+      datasetFairShare.run((AntuJob.ValidationJob) job, processing);
+    } else {
+      processing.run();
+    }
+  }
+}
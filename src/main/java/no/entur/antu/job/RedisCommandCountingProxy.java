@@ -0,0 +1,160 @@
+package no.entur.antu.job;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLocalCachedMap;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Counts the round trips made through a Redisson client, its objects and its batches, towards the job of
+ * the calling thread. See {@link JobRedisCommands#counting}.
+ *
+ * <ul>
+ *   <li>The client itself only hands out objects, so its calls are not counted. The objects are wrapped.</li>
+ *   <li>A call on an object is a round trip, except for the few that only read its local state, those that
+ *   hand out another object, and a read of a local cached map that the local cache serves.</li>
+ *   <li>A batch is a round trip when it is executed, however many commands it holds.</li>
+ * </ul>
+ *
+ * <p>Outside a job nothing is counted, and a call goes straight to the object without looking up the local
+ * cache.
+ */
+final class RedisCommandCountingProxy implements InvocationHandler {
+
+  private static final String REDISSON_API_PACKAGE = "org.redisson.api";
+
+  /**
+   * The methods of a Redisson object that do not reach Redis.
+   */
+  private static final Set<String> LOCAL_METHODS = Set.of(
+    "getName",
+    "getCodec",
+    "getCachedMap"
+  );
+
+  private enum Kind {
+    CLIENT,
+    OBJECT,
+    BATCH,
+  }
+
+  private final Object target;
+  private final Kind kind;
+
+  private RedisCommandCountingProxy(Object target, Kind kind) {
+    this.target = target;
+    this.kind = kind;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> T wrapClient(T client) {
+    return (T) wrap(client, Kind.CLIENT);
+  }
+
+  /**
+   * The proxy implements the public interfaces of the target, so that a local cached map is still a map and
+   * a batch still a batch. A proxy cannot implement an interface private to another package.
+   */
+  private static Object wrap(Object target, Kind kind) {
+    Class<?>[] interfaces = Arrays
+      .stream(ClassUtils.getAllInterfaces(target))
+      .filter(type -> Modifier.isPublic(type.getModifiers()))
+      .toArray(Class<?>[]::new);
+    return Proxy.newProxyInstance(
+      target.getClass().getClassLoader(),
+      interfaces,
+      new RedisCommandCountingProxy(target, kind)
+    );
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args)
+    throws Throwable {
+    if (method.getDeclaringClass() == Object.class) {
+      return invokeTarget(method, args);
+    }
+    return switch (kind) {
+      case CLIENT -> wrapObject(method, invokeTarget(method, args));
+      case OBJECT -> invokeOnObject(method, args);
+      case BATCH -> invokeOnBatch(method, args);
+    };
+  }
+
+  private Object invokeOnObject(Method method, Object[] args)
+    throws Throwable {
+    if (
+      !JobRedisCommands.active() ||
+      LOCAL_METHODS.contains(method.getName()) ||
+      handsOutObject(method) ||
+      servedByLocalCache(method, args)
+    ) {
+      return wrapObject(method, invokeTarget(method, args));
+    }
+    JobRedisCommands.count(1);
+    return invokeTarget(method, args);
+  }
+
+  /**
+   * The objects of a batch only queue their commands, so they are not wrapped.
+   */
+  private Object invokeOnBatch(Method method, Object[] args)
+    throws Throwable {
+    if (method.getName().startsWith("execute")) {
+      JobRedisCommands.count(1);
+    }
+    return invokeTarget(method, args);
+  }
+
+  private Object wrapObject(Method method, Object result) {
+    if (result == null || !handsOutObject(method)) {
+      return result;
+    }
+    return wrap(result, result instanceof RBatch ? Kind.BATCH : Kind.OBJECT);
+  }
+
+  private static boolean handsOutObject(Method method) {
+    Class<?> returnType = method.getReturnType();
+    return (
+      returnType.isInterface() &&
+      REDISSON_API_PACKAGE.equals(returnType.getPackageName()) &&
+      !RFuture.class.isAssignableFrom(returnType)
+    );
+  }
+
+  /**
+   * Whether a read of a local cached map finds every key it asks for in the local cache.
+   */
+  private boolean servedByLocalCache(Method method, Object[] args) {
+    if (
+      !(target instanceof RLocalCachedMap<?, ?> localCachedMap) ||
+      args == null ||
+      args.length != 1
+    ) {
+      return false;
+    }
+    Map<?, ?> localCache = localCachedMap.getCachedMap();
+    return switch (method.getName()) {
+      case "get", "containsKey" -> localCache.containsKey(args[0]);
+      case "getAll" -> args[0] instanceof Collection<?> keys &&
+        localCache.keySet().containsAll(keys);
+      default -> false;
+    };
+  }
+
+  private Object invokeTarget(Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import no.entur.antu.AntuThreads;
 import org.redisson.api.RBucket;
 import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
@@ -63,11 +64,7 @@ public class RedisLeaseLeaderElection implements LeaderElection {
    * pod re-elects itself and starts priming all over again.
    */
   private final ExecutorService leadershipCallbacks =
-    Executors.newSingleThreadExecutor(runnable -> {
-      Thread thread = new Thread(runnable, "antu-leadership");
-      thread.setDaemon(true);
-      return thread;
-    });
+    Executors.newSingleThreadExecutor(AntuThreads.named("leadership"));
 
   private volatile boolean leader;
 
@@ -1,7 +1,10 @@
 package no.entur.antu.memorystore;
 
 import java.time.Duration;
-import org.redisson.api.RBucket;
+import java.util.Map;
+import no.entur.antu.cache.ReportKeyRegistry;
+import org.redisson.api.RBatch;
+import org.redisson.api.RMapAsync;
 import org.redisson.api.RedissonClient;
 
 /**
@@ -10,10 +13,15 @@ import org.redisson.api.RedissonClient;
 public class RedisTemporaryFileRepository implements TemporaryFileRepository {
 
   private static final String TEMPORARY_FILE_KEY_PREFIX = "TEMPORARY_FILE_";
+  private static final String TEMPORARY_FILE_SIZES_KEY_PREFIX =
+    "TEMPORARY_FILE_SIZES_";
+  private static final Duration TEMPORARY_FILE_TTL = Duration.ofHours(1);
   private final RedissonClient redissonClient;
+  private final ReportKeyRegistry keyRegistry;
 
   public RedisTemporaryFileRepository(RedissonClient redissonClient) {
     this.redissonClient = redissonClient;
+    this.keyRegistry = new ReportKeyRegistry(redissonClient, "TEMPORARY_FILE");
   }
 
   @Override
@@ -22,20 +30,22 @@ public class RedisTemporaryFileRepository implements TemporaryFileRepository {
     String fileName,
     byte[] content
   ) {
-    RBucket<Object> temporaryFile = redissonClient.getBucket(
-      getTemporaryFileKey(validationReportId, fileName)
-    );
-    temporaryFile.set(content, Duration.ofHours(1));
+    String temporaryFileKey = getTemporaryFileKey(validationReportId, fileName);
+    RBatch batch = redissonClient.createBatch();
+    batch.getBucket(temporaryFileKey).setAsync(content, TEMPORARY_FILE_TTL);
+    keyRegistry.register(batch, validationReportId, temporaryFileKey);
+    batch.execute();
   }
 
+  /**
+   * A missing key reads as null, so a single GET tells a missing file from a present one.
+   */
   @Override
   public byte[] download(String validationReportId, String fileName) {
-    RBucket<Object> temporaryFile = redissonClient.getBucket(
-      getTemporaryFileKey(validationReportId, fileName)
-    );
-    if (temporaryFile.isExists()) {
-      return (byte[]) temporaryFile.get();
-    } else {
+    byte[] content = (byte[]) redissonClient
+      .getBucket(getTemporaryFileKey(validationReportId, fileName))
+      .get();
+    if (content == null) {
       throw new AntuMemoryStoreFileNotFoundException(
         "File " +
         fileName +
@@ -44,13 +54,37 @@ public class RedisTemporaryFileRepository implements TemporaryFileRepository {
         " not found in the memory store"
       );
     }
+    return content;
+  }
+
+  @Override
+  public void uploadFileSizes(
+    String validationReportId,
+    Map<String, Long> fileSizes
+  ) {
+    RBatch batch = redissonClient.createBatch();
+    RMapAsync<String, Long> temporaryFileSizes = batch.getMap(
+      getTemporaryFileSizesKey(validationReportId)
+    );
+    temporaryFileSizes.putAllAsync(fileSizes);
+    temporaryFileSizes.expireAsync(TEMPORARY_FILE_TTL);
+    batch.execute();
+  }
+
+  @Override
+  public Map<String, Long> downloadFileSizes(String validationReportId) {
+    return redissonClient
+      .<String, Long>getMap(getTemporaryFileSizesKey(validationReportId))
+      .readAllMap();
   }
 
   @Override
   public void cleanUp(String reportId) {
-    redissonClient
-      .getKeys()
-      .deleteByPattern(TEMPORARY_FILE_KEY_PREFIX + reportId + '*');
+    keyRegistry.unlinkAll(reportId, getTemporaryFileSizesKey(reportId));
+  }
+
+  private String getTemporaryFileSizesKey(String validationReportId) {
+    return TEMPORARY_FILE_SIZES_KEY_PREFIX + validationReportId;
   }
 
   private String getTemporaryFileKey(
@@ -1,5 +1,7 @@
 package no.entur.antu.memorystore;
 
+import java.util.Map;
+
 /**
  * A repository used to store temporary files created during the validation process.
  */
@@ -19,6 +21,20 @@ public interface TemporaryFileRepository {
    */
   byte[] download(String validationReportId, String fileName);
 
+  /**
+   * Record the size of the temporary files of a validation report.
+   * @param validationReportId the report id.
+   * @param fileSizes the size of each file, by file name.
+   */
+  void uploadFileSizes(String validationReportId, Map<String, Long> fileSizes);
+
+  /**
+   * Read the size of the temporary files of a validation report.
+   * @param validationReportId the report id.
+   * @return the size of each file, by file name. Empty if none was recorded.
+   */
+  Map<String, Long> downloadFileSizes(String validationReportId);
+
   /**
    * Delete all temporary files related to a given validation report.
    * @param reportId the validation report id.
@@ -1,10 +1,16 @@
 package no.entur.antu.metrics;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.ImmutableTag;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
+import no.entur.antu.job.JobType;
 import org.entur.netex.validation.validator.ValidationReport;
 import org.springframework.stereotype.Component;
 
@@ -12,19 +18,153 @@ import org.springframework.stereotype.Component;
 public class AntuPrometheusMetricsService {
 
   private static final String METRICS_PREFIX = "app.antu.";
+  private static final String VALIDATION_REPORT_ID_TAG = "validationReportId";
   private static final String VALIDATION_ENTRIES_COUNTER_NAME =
     METRICS_PREFIX + "data.validation.entries";
+  private static final String STOP_PLACE_CHANGELOG_BATCH_SIZE_NAME =
+    METRICS_PREFIX + "stop.changelog.batch.size";
+  private static final String STOP_PLACE_CHANGELOG_LAG_NAME =
+    METRICS_PREFIX + "stop.changelog.lag";
+  private static final String QUAY_NOT_FOUND_CACHE_LOOKUPS_NAME =
+    METRICS_PREFIX + "stop.quay.not.found.cache.lookups";
+  private static final String JOB_ADMISSION_RESERVED_HEAP_NAME =
+    METRICS_PREFIX + "job.admission.reserved.heap";
+  private static final String JOB_ADMISSION_DEFERRED_NAME =
+    METRICS_PREFIX + "job.admission.deferred";
+  private static final String DATASET_IN_FLIGHT_NAME =
+    METRICS_PREFIX + "job.dataset.in.flight";
+  private static final String FAIR_SHARE_DEFERRED_NAME =
+    METRICS_PREFIX + "job.fair.share.deferred";
+  private static final String VALIDATOR_WARM_UP_NAME =
+    METRICS_PREFIX + "validator.warm.up";
+  private static final String JOB_REDIS_COMMANDS_NAME =
+    METRICS_PREFIX + "job.redis.commands";
 
   private final MeterRegistry meterRegistry;
 
+  /**
+   * Resolved once: the quay lookups of every validation thread count here.
+   */
+  private final Counter quayNotFoundCacheHits;
+  private final Counter quayNotFoundCacheMisses;
+
   public AntuPrometheusMetricsService(MeterRegistry meterRegistry) {
     this.meterRegistry = meterRegistry;
+    this.quayNotFoundCacheHits =
+      meterRegistry.counter(
+        QUAY_NOT_FOUND_CACHE_LOOKUPS_NAME,
+        "result",
+        "hit"
+      );
+    this.quayNotFoundCacheMisses =
+      meterRegistry.counter(
+        QUAY_NOT_FOUND_CACHE_LOOKUPS_NAME,
+        "result",
+        "miss"
+      );
   }
 
   public void validationReportMetrics(ValidationReport validationReport) {
     countValidationEntries(validationReport);
   }
 
+  /**
+   * Record a batch of stop place changelog updates written to the stop place repository.
+   *
+   * @param batchSize the number of stop places and quays written, after coalescing.
+   * @param lag       the time from the publication of the latest update in the batch to its write, or null
+   *                  if the batch holds only deletions, that do not carry a publication time.
+   */
+  public void stopPlaceChangelogBatchMetrics(int batchSize, Duration lag) {
+    meterRegistry
+      .summary(STOP_PLACE_CHANGELOG_BATCH_SIZE_NAME)
+      .record(batchSize);
+    if (lag != null) {
+      meterRegistry.timer(STOP_PLACE_CHANGELOG_LAG_NAME).record(lag);
+    }
+  }
+
+  /**
+   * Count a lookup in the cache of the quays not found.
+   *
+   * @param hit true if the quay was known not to exist, false if it had to be looked up in the quay cache.
+   */
+  public void countQuayNotFoundCacheLookup(boolean hit) {
+    (hit ? quayNotFoundCacheHits : quayNotFoundCacheMisses).increment();
+  }
+
+  /**
+   * Expose the heap reserved by the jobs running on this instance.
+   */
+  public void registerJobAdmissionGauge(Supplier<Number> reservedBytes) {
+    Gauge
+      .builder(JOB_ADMISSION_RESERVED_HEAP_NAME, reservedBytes)
+      .baseUnit(BaseUnits.BYTES)
+      .register(meterRegistry);
+  }
+
+  /**
+   * Count a job handed back to the queue because there was not enough heap left to run it.
+   */
+  public void countDeferredJob(JobType jobType) {
+    meterRegistry
+      .counter(JOB_ADMISSION_DEFERRED_NAME, "type", jobType.wireValue())
+      .increment();
+  }
+
+  /**
+   * Expose the file validations of a report running on this instance.
+   */
+  public void registerDatasetInFlightGauge(
+    String codespace,
+    String validationReportId,
+    Supplier<Number> inFlight
+  ) {
+    Gauge
+      .builder(DATASET_IN_FLIGHT_NAME, inFlight)
+      .tag("Codespace", codespace)
+      .tag(VALIDATION_REPORT_ID_TAG, validationReportId)
+      .register(meterRegistry);
+  }
+
+  /**
+   * Stop exposing the file validations of a report, once none of them runs on this instance.
+   */
+  public void removeDatasetInFlightGauge(String validationReportId) {
+    meterRegistry
+      .find(DATASET_IN_FLIGHT_NAME)
+      .tag(VALIDATION_REPORT_ID_TAG, validationReportId)
+      .gauges()
+      .forEach(meterRegistry::remove);
+  }
+
+  /**
+   * Count a file validation put back on the queue because its dataset already had its share in flight.
+   */
+  public void countFairShareDeferredJob(String codespace) {
+    meterRegistry
+      .counter(FAIR_SHARE_DEFERRED_NAME, "Codespace", codespace)
+      .increment();
+  }
+
+  /**
+   * Record the time the validators of a profile took to warm up at startup.
+   */
+  public void recordValidatorWarmUp(String validationProfile, Duration time) {
+    meterRegistry
+      .timer(VALIDATOR_WARM_UP_NAME, "profile", validationProfile)
+      .record(time);
+  }
+
+  /**
+   * Record the Redis round trips a job took, see {@link no.entur.antu.job.JobRedisCommands}.
+   */
+  public void recordJobRedisCommands(JobType jobType, int redisCommands) {
+    meterRegistry
+      .summary(JOB_REDIS_COMMANDS_NAME, "type", jobType.wireValue())
+      .record(redisCommands);
+  }
+
   private void countValidationEntries(ValidationReport validationReport) {
     validationReport
       .getNumberOfValidationEntriesPerRule()
@@ -18,12 +18,14 @@ import org.slf4j.LoggerFactory;
 /**
  * Default implementation of NetexDataRepository.
  * This repository is used to store and retrieve collected data from Redis cache.
+ * Every cache is keyed by the validation report id, so that reading or clearing the data of a report
+ * never has to go through the data of the other reports being validated.
  */
 public class DefaultNetexDataRepository implements NetexDataRepositoryLoader {
 
-  private final Map<String, List<String>> lineInfoCache;
+  private final Map<String, List<SimpleLine>> lineInfoCache;
   private final Map<String, Map<String, List<ServiceJourneyStop>>> serviceJourneyStopsCache;
-  private final Map<String, List<String>> serviceJourneyInterchangeInfoCache;
+  private final Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache;
   private final Map<String, Map<ServiceJourneyId, List<LocalDateTime>>> activeDatesByServiceJourneyIdCache;
   private final Map<String, Map<String, List<LocalDateTime>>> dayTypeActiveDatesCache;
   private final Map<String, Map<String, LocalDateTime>> operatingDayActiveDateCache;
@@ -34,9 +36,9 @@ public class DefaultNetexDataRepository implements NetexDataRepositoryLoader {
   );
 
   public DefaultNetexDataRepository(
-    Map<String, List<String>> lineInfoCache,
+    Map<String, List<SimpleLine>> lineInfoCache,
     Map<String, Map<String, List<ServiceJourneyStop>>> serviceJourneyStopsCache,
-    Map<String, List<String>> serviceJourneyInterchangeInfoCache,
+    Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache,
     Map<String, Map<ServiceJourneyId, List<LocalDateTime>>> activeDatesByServiceJourneyId,
     Map<String, Map<String, List<LocalDateTime>>> dayTypeActiveDatesCache,
     Map<String, Map<String, LocalDateTime>> operatingDayActiveDateCache,
@@ -54,25 +56,44 @@ public class DefaultNetexDataRepository implements NetexDataRepositoryLoader {
 
   @Override
   public List<SimpleLine> lineNames(String validationReportId) {
-    List<String> lineInfoForReportId = lineInfoCache.get(validationReportId);
+    List<SimpleLine> lineInfoForReportId = lineInfoCache.get(
+      validationReportId
+    );
     if (lineInfoForReportId == null) {
       throw new AntuException(
         "Line names not found for validation report with id: " +
         validationReportId
       );
     }
-    return lineInfoForReportId.stream().map(SimpleLine::fromString).toList();
+    return List.copyOf(lineInfoForReportId);
   }
 
   public Map<ServiceJourneyId, List<ServiceJourneyStop>> serviceJourneyStops(
     String validationReportId
   ) {
-    return serviceJourneyStopsCache
-      .keySet()
+    return toServiceJourneyStops(
+      serviceJourneyStopsCache.getOrDefault(validationReportId, Map.of())
+    );
+  }
+
+  @Override
+  public List<ServiceJourneyInterchangeInfo> serviceJourneyInterchangeInfos(
+    String validationReportId
+  ) {
+    return List.copyOf(
+      serviceJourneyInterchangeInfoCache.getOrDefault(
+        validationReportId,
+        List.of()
+      )
+    );
+  }
+
+  protected static Map<ServiceJourneyId, List<ServiceJourneyStop>> toServiceJourneyStops(
+    Map<String, List<ServiceJourneyStop>> serviceJourneyStops
+  ) {
+    return serviceJourneyStops
+      .entrySet()
       .stream()
-      .filter(k -> k.startsWith(validationReportId))
-      .map(serviceJourneyStopsCache::get)
-      .flatMap(m -> m.entrySet().stream())
       .collect(
         Collectors.toMap(
           e -> ServiceJourneyId.ofValidId(e.getKey()),
@@ -82,21 +103,6 @@ public class DefaultNetexDataRepository implements NetexDataRepositoryLoader {
       );
   }
 
-  @Override
-  public List<ServiceJourneyInterchangeInfo> serviceJourneyInterchangeInfos(
-    String validationReportId
-  ) {
-    return Optional
-      .ofNullable(serviceJourneyInterchangeInfoCache)
-      .map(Map::entrySet)
-      .stream()
-      .flatMap(Set::stream)
-      .filter(entry -> entry.getKey().startsWith(validationReportId))
-      .flatMap(entry -> entry.getValue().stream())
-      .map(ServiceJourneyInterchangeInfo::fromString)
-      .toList();
-  }
-
   @Override
   public Map<ServiceJourneyId, List<DayTypeId>> serviceJourneyDayTypes(
     String validationReportId
@@ -141,16 +147,9 @@ public class DefaultNetexDataRepository implements NetexDataRepositoryLoader {
     activeDatesByServiceJourneyIdCache.remove(validationReportId);
     dayTypeActiveDatesCache.remove(validationReportId);
     operatingDayActiveDateCache.remove(validationReportId);
-
-    scheduledStopPointIdsCache
-      .keySet()
-      .removeIf(k -> k.startsWith(validationReportId));
-    serviceJourneyStopsCache
-      .keySet()
-      .removeIf(k -> k.startsWith(validationReportId));
-    serviceJourneyInterchangeInfoCache
-      .keySet()
-      .removeIf(k -> k.startsWith(validationReportId));
+    scheduledStopPointIdsCache.remove(validationReportId);
+    serviceJourneyStopsCache.remove(validationReportId);
+    serviceJourneyInterchangeInfoCache.remove(validationReportId);
 
     LOGGER.info(
       "Done clearing caches for validation report: {}",
@@ -2,14 +2,14 @@ package no.entur.antu.netexdata;
 
 import java.util.Map;
 import org.entur.netex.validation.validator.jaxb.DefaultCommonDataRepository;
-import org.redisson.api.RedissonClient;
 
+/**
+ * Common data repository backed by report-scoped Redis caches. The caches are keyed by the validation
+ * report id, so cleaning up a report only removes its entries from them.
+ */
 public class RedisCommonDataRepository extends DefaultCommonDataRepository {
 
-  private final RedissonClient redissonClient;
-
   public RedisCommonDataRepository(
-    RedissonClient redissonClient,
     Map<String, Map<String, String>> scheduledStopPointAndQuayIdCache,
     Map<String, Map<String, String>> serviceLinksAndFromToScheduledStopPointIdCache,
     Map<String, Map<String, String>> scheduledStopPointRefToFlexibleStopPointRefCache
@@ -19,12 +19,5 @@ public class RedisCommonDataRepository extends DefaultCommonDataRepository {
       serviceLinksAndFromToScheduledStopPointIdCache,
       scheduledStopPointRefToFlexibleStopPointRefCache
     );
-    this.redissonClient = redissonClient;
-  }
-
-  @Override
-  public void cleanUp(String validationReportId) {
-    redissonClient.getKeys().deleteByPattern(validationReportId + '*');
-    super.cleanUp(validationReportId);
   }
 }
@@ -4,8 +4,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import no.entur.antu.netexdata.collectors.ServiceJourneyInterchangeInfoCollector;
+import no.entur.antu.netexdata.collectors.ServiceJourneyStopsCollector;
 import org.entur.netex.validation.validator.model.ServiceJourneyId;
+import org.entur.netex.validation.validator.model.ServiceJourneyInterchangeInfo;
 import org.entur.netex.validation.validator.model.ServiceJourneyStop;
+import org.entur.netex.validation.validator.model.SimpleLine;
 import org.redisson.api.RedissonClient;
 
 public class RedisNetexDataRepository extends DefaultNetexDataRepository {
@@ -14,9 +18,9 @@ public class RedisNetexDataRepository extends DefaultNetexDataRepository {
 
   public RedisNetexDataRepository(
     RedissonClient redissonClient,
-    Map<String, List<String>> lineInfoCache,
+    Map<String, List<SimpleLine>> lineInfoCache,
     Map<String, Map<String, List<ServiceJourneyStop>>> serviceJourneyStopsCache,
-    Map<String, List<String>> serviceJourneyInterchangeInfoCache,
+    Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache,
     Map<String, Map<ServiceJourneyId, List<LocalDateTime>>> activeDatesByServiceJourneyIdCache,
     Map<String, Map<String, List<LocalDateTime>>> dayTypeActiveDatesCache,
     Map<String, Map<String, LocalDateTime>> operatingDayActiveDateCache,
@@ -34,9 +38,42 @@ public class RedisNetexDataRepository extends DefaultNetexDataRepository {
     this.redissonClient = redissonClient;
   }
 
+  /**
+   * Reads the Redis map of the report in one round trip, rather than paging through it as iterating the
+   * map would.
+   */
+  @Override
+  public Map<ServiceJourneyId, List<ServiceJourneyStop>> serviceJourneyStops(
+    String validationReportId
+  ) {
+    return toServiceJourneyStops(
+      redissonClient
+        .<String, List<ServiceJourneyStop>>getMap(
+          ServiceJourneyStopsCollector.cacheKey(validationReportId)
+        )
+        .readAllMap()
+    );
+  }
+
+  @Override
+  public List<ServiceJourneyInterchangeInfo> serviceJourneyInterchangeInfos(
+    String validationReportId
+  ) {
+    return redissonClient
+      .<ServiceJourneyInterchangeInfo>getList(
+        ServiceJourneyInterchangeInfoCollector.cacheKey(validationReportId)
+      )
+      .readAll();
+  }
+
   @Override
   public void cleanUp(String validationReportId) {
-    redissonClient.getKeys().deleteByPattern(validationReportId + '*');
+    redissonClient
+      .getKeys()
+      .unlink(
+        ServiceJourneyStopsCollector.cacheKey(validationReportId),
+        ServiceJourneyInterchangeInfoCollector.cacheKey(validationReportId)
+      );
     super.cleanUp(validationReportId);
   }
 }
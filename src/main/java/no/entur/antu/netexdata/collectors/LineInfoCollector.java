@@ -13,11 +13,11 @@ import org.rutebanken.netex.model.FlexibleLineTypeEnumeration;
 public class LineInfoCollector extends NetexDataCollector {
 
   private final RedissonClient redissonClient;
-  private final Map<String, List<String>> lineInfoCache;
+  private final Map<String, List<SimpleLine>> lineInfoCache;
 
   public LineInfoCollector(
     RedissonClient redissonClient,
-    Map<String, List<String>> lineInfoCache
+    Map<String, List<SimpleLine>> lineInfoCache
   ) {
     this.redissonClient = redissonClient;
     this.lineInfoCache = lineInfoCache;
@@ -47,7 +47,7 @@ public class LineInfoCollector extends NetexDataCollector {
 
       lineInfoCache.merge(
         validationReportId,
-        new ArrayList<>(List.of(lineInfo.toString())),
+        new ArrayList<>(List.of(lineInfo)),
         (existingList, newList) -> {
           existingList.addAll(newList);
           return existingList;
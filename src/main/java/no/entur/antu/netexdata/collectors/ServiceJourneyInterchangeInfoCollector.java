@@ -16,11 +16,11 @@ import org.redisson.api.RedissonClient;
 public class ServiceJourneyInterchangeInfoCollector extends NetexDataCollector {
 
   private final RedissonClient redissonClient;
-  private final Map<String, List<String>> serviceJourneyInterchangeInfoCache;
+  private final Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache;
 
   public ServiceJourneyInterchangeInfoCollector(
     RedissonClient redissonClient,
-    Map<String, List<String>> serviceJourneyInterchangeInfoCache
+    Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache
   ) {
     this.redissonClient = redissonClient;
     this.serviceJourneyInterchangeInfoCache =
@@ -32,7 +32,6 @@ public class ServiceJourneyInterchangeInfoCollector extends NetexDataCollector {
     JAXBValidationContext validationContext
   ) {
     addData(
-      validationContext.getFileName(),
       validationContext.getValidationReportId(),
       validationContext
         .serviceJourneyInterchanges()
@@ -53,8 +52,12 @@ public class ServiceJourneyInterchangeInfoCollector extends NetexDataCollector {
     // ServiceJourneyInterchange are only in line files
   }
 
+  /**
+   * All the line files of a report append to the same Redis list, which the report-scoped cache
+   * refers to under the validation report id. The file name is part of each interchange info, so
+   * nothing is lost by not keeping the files apart.
+   */
   private void addData(
-    String fileName,
     String validationReportId,
     Stream<ServiceJourneyInterchangeInfo> serviceJourneyInterchangeInfos
   ) {
@@ -62,25 +65,16 @@ public class ServiceJourneyInterchangeInfoCollector extends NetexDataCollector {
     try {
       lock.lock();
 
-      String keyName =
-        validationReportId +
-        "_" +
-        SERVICE_JOURNEY_INTERCHANGE_INFO_CACHE +
-        "_" +
-        fileName;
-
-      RList<String> serviceJourneyInterchangeInfosListCache =
-        redissonClient.getList(keyName);
+      RList<ServiceJourneyInterchangeInfo> serviceJourneyInterchangeInfosListCache =
+        redissonClient.getList(cacheKey(validationReportId));
       serviceJourneyInterchangeInfosListCache.addAll(
-        serviceJourneyInterchangeInfos
-          .map(ServiceJourneyInterchangeInfo::toString)
-          .toList()
+        serviceJourneyInterchangeInfos.toList()
       );
       serviceJourneyInterchangeInfosListCache.expireIfNotSet(
         VALIDATION_DATA_TTL
       );
-      serviceJourneyInterchangeInfoCache.put(
-        keyName,
+      serviceJourneyInterchangeInfoCache.putIfAbsent(
+        validationReportId,
         serviceJourneyInterchangeInfosListCache
       );
     } finally {
@@ -89,4 +83,11 @@ public class ServiceJourneyInterchangeInfoCollector extends NetexDataCollector {
       }
     }
   }
+
+  /**
+   * The name of the Redis list holding the service journey interchange infos of a validation report.
+   */
+  public static String cacheKey(String validationReportId) {
+    return validationReportId + "_" + SERVICE_JOURNEY_INTERCHANGE_INFO_CACHE;
+  }
 }
@@ -65,7 +65,6 @@ public class ServiceJourneyStopsCollector extends NetexDataCollector {
 
     addServiceJourneyStops(
       validationContext.getValidationReportId(),
-      validationContext.getFileName(),
       serviceJourneyStops
     );
   }
@@ -256,30 +255,30 @@ public class ServiceJourneyStopsCollector extends NetexDataCollector {
   /**
    * Adds the collected service journey stops to the distributed cache.
    *
-   * <p>This method uses Redis distributed locking to ensure thread-safe updates
-   * when multiple processes are collecting data concurrently. The data is stored
-   * both in Redis and in a local cache for performance.</p>
+   * <p>All the line files of a report add to the same Redis map, so that the stops of a report
+   * can be read back with a single lookup. The report-scoped cache refers to that map under the
+   * validation report id. The data is stored both in Redis and in a local cache for performance.</p>
    *
    * @param validationReportId the ID of the validation report
-   * @param filename the name of the file being processed
    * @param serviceJourneyStops the stops to cache
    */
   private void addServiceJourneyStops(
     String validationReportId,
-    String filename,
     Map<String, List<ServiceJourneyStop>> serviceJourneyStops
   ) {
     RLock lock = redissonClient.getLock(validationReportId);
     try {
       lock.lock();
 
-      String cacheKey = buildCacheKey(validationReportId, filename);
       RMap<String, List<ServiceJourneyStop>> serviceJourneyStopsMap =
-        redissonClient.getMap(cacheKey);
+        redissonClient.getMap(cacheKey(validationReportId));
 
       serviceJourneyStopsMap.putAll(serviceJourneyStops);
       serviceJourneyStopsMap.expireIfNotSet(VALIDATION_DATA_TTL);
-      serviceJourneyStopsCache.put(cacheKey, serviceJourneyStopsMap);
+      serviceJourneyStopsCache.putIfAbsent(
+        validationReportId,
+        serviceJourneyStopsMap
+      );
     } finally {
       if (lock.isHeldByCurrentThread()) {
         lock.unlock();
@@ -287,9 +286,10 @@ public class ServiceJourneyStopsCollector extends NetexDataCollector {
     }
   }
 
-  private String buildCacheKey(String validationReportId, String filename) {
-    return (
-      validationReportId + "_" + SERVICE_JOURNEY_STOPS_CACHE + "_" + filename
-    );
+  /**
+   * The name of the Redis map holding the service journey stops of a validation report.
+   */
+  public static String cacheKey(String validationReportId) {
+    return validationReportId + "_" + SERVICE_JOURNEY_STOPS_CACHE;
   }
 }
@@ -3,9 +3,11 @@ package no.entur.antu.pipeline;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import no.entur.antu.exception.AntuException;
@@ -15,6 +17,7 @@ import no.entur.antu.job.ValidationContext;
 import no.entur.antu.services.AntuExchangeBlobStoreService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -25,6 +28,11 @@ import org.springframework.stereotype.Component;
  * only once every common file has been validated, which is what
  * {@link ValidationBarrier.Stage#COMMON_FILES_VALIDATED} waits for. A dataset without common files
  * skips the barrier entirely.
+ *
+ * <p>Small line files, up to {@code antu.netex.job.batch.max.file.size.kb}, are validated
+ * {@code antu.netex.job.batch.max.files} to a job. On a dataset of hundreds of tiny line files, the
+ * message, the dispatch and the heap reservation of a job of their own cost more than validating them.
+ * Each of them still counts towards the report aggregation on its own.
  */
 @Component
 public class DatasetSplitter {
@@ -39,15 +47,29 @@ public class DatasetSplitter {
   private final AntuExchangeBlobStoreService antuExchangeBlobStoreService;
   private final NetexFileStore netexFileStore;
   private final JobQueue jobQueue;
+  private final long batchMaxFileSizeBytes;
+  private final int batchMaxFiles;
 
+  /**
+   * @param batchMaxFileSizeKb the size up to which line files are validated several to a job, 0 to give
+   *                           every file a job of its own.
+   * @param batchMaxFiles      the line files validated by one job at most.
+   */
   public DatasetSplitter(
     AntuExchangeBlobStoreService antuExchangeBlobStoreService,
     NetexFileStore netexFileStore,
-    JobQueue jobQueue
+    JobQueue jobQueue,
+    @Value(
+      "${antu.netex.job.batch.max.file.size.kb:0}"
+    ) long batchMaxFileSizeKb,
+    @Value("${antu.netex.job.batch.max.files:20}") int batchMaxFiles
   ) {
     this.antuExchangeBlobStoreService = antuExchangeBlobStoreService;
     this.netexFileStore = netexFileStore;
     this.jobQueue = jobQueue;
+    this.batchMaxFileSizeBytes =
+      batchMaxFiles > 1 ? batchMaxFileSizeKb * 1024 : 0;
+    this.batchMaxFiles = batchMaxFiles;
   }
 
   public void split(AntuJob.SplitDataset job) {
@@ -64,7 +86,11 @@ public class DatasetSplitter {
     }
 
     long startedAt = System.currentTimeMillis();
-    List<String> netexFileNames = storeSingleNetexFiles(context, dataset);
+    SortedMap<String, Long> netexFileSizes = storeSingleNetexFiles(
+      context,
+      dataset
+    );
+    List<String> netexFileNames = List.copyOf(netexFileSizes.keySet());
     LOGGER.info(
       "Split the NeTEx dataset into {} files in {} ms",
       netexFileNames.size(),
@@ -84,14 +110,15 @@ public class DatasetSplitter {
       .sorted(Comparator.reverseOrder())
       .toList();
     if (commonFileNames.isEmpty()) {
-      createLineFileJobs(
-        new AntuJob.CreateLineFileJobs(context, netexFileNames)
-      );
+      createLineFileJobs(context, netexFileNames, netexFileSizes);
     } else {
+      // For whichever pod opens the common files barrier and creates the line file jobs.
+      netexFileStore.saveSizes(context.validationReportId(), netexFileSizes);
       createValidationJobs(
         context,
         commonFileNames,
         netexFileNames,
+        netexFileSizes,
         commonFileNames.size()
       );
     }
@@ -101,26 +128,123 @@ public class DatasetSplitter {
    * Create a validation job for every line file, now that the common files are validated.
    */
   public void createLineFileJobs(AntuJob.CreateLineFileJobs job) {
-    List<String> lineFileNames = job
-      .allNetexFileNames()
+    createLineFileJobs(
+      job.context(),
+      job.allNetexFileNames(),
+      netexFileStore.readSizes(job.context().validationReportId())
+    );
+  }
+
+  /**
+   * The largest line files are queued first. The dataset is complete only once its last file is, and a large
+   * file started last, once the others are done, keeps one pod busy while the rest have nothing left of the
+   * dataset to do. Started first, it runs while the smaller files are spread over the other pods. As for the
+   * common files, this orders the queue and is no more than a tendency on delivery. Files of unknown size,
+   * from a dataset split by a version that did not record them, keep the name order.
+   */
+  private void createLineFileJobs(
+    ValidationContext context,
+    List<String> allNetexFileNames,
+    Map<String, Long> netexFileSizes
+  ) {
+    List<String> lineFileNames = allNetexFileNames
       .stream()
       .filter(fileName -> !AntuJob.isCommonFile(fileName))
+      .sorted(
+        Comparator
+          .comparingLong((String fileName) ->
+            netexFileSizes.getOrDefault(fileName, 0L)
+          )
+          .reversed()
+          .thenComparing(Comparator.naturalOrder())
+      )
       .toList();
     createValidationJobs(
-      job.context(),
-      lineFileNames,
-      job.allNetexFileNames(),
+      context,
+      lineFileNames
+        .stream()
+        .filter(fileName -> !isSmall(fileName, netexFileSizes))
+        .toList(),
+      allNetexFileNames,
+      netexFileSizes,
       0
     );
+    createBatchedValidationJobs(
+      context,
+      lineFileNames
+        .stream()
+        .filter(fileName -> isSmall(fileName, netexFileSizes))
+        .toList(),
+      allNetexFileNames,
+      netexFileSizes
+    );
+  }
+
+  /**
+   * Files of unknown size are never small.
+   */
+  private boolean isSmall(String fileName, Map<String, Long> netexFileSizes) {
+    long netexFileSize = netexFileSizes.getOrDefault(fileName, 0L);
+    return netexFileSize > 0 && netexFileSize <= batchMaxFileSizeBytes;
+  }
+
+  /**
+   * Create a job validating up to {@code batchMaxFiles} of the given line files, until all of them have one.
+   * A file left over on its own gets a job of the usual kind.
+   */
+  private void createBatchedValidationJobs(
+    ValidationContext context,
+    List<String> smallLineFileNames,
+    List<String> allNetexFileNames,
+    Map<String, Long> netexFileSizes
+  ) {
+    if (smallLineFileNames.isEmpty()) {
+      return;
+    }
+    LOGGER.info(
+      "Creating validation jobs for {} small files, {} to a job",
+      smallLineFileNames.size(),
+      batchMaxFiles
+    );
+    for (
+      int from = 0;
+      from < smallLineFileNames.size();
+      from += batchMaxFiles
+    ) {
+      List<String> batch = smallLineFileNames.subList(
+        from,
+        Math.min(from + batchMaxFiles, smallLineFileNames.size())
+      );
+      if (batch.size() == 1) {
+        createValidationJobs(
+          context,
+          batch,
+          allNetexFileNames,
+          netexFileSizes,
+          0
+        );
+      } else {
+        jobQueue.submit(
+          new AntuJob.ValidateFiles(
+            context,
+            batch,
+            batch.stream().mapToLong(netexFileSizes::get).max().orElse(0),
+            allNetexFileNames.size()
+          )
+        );
+      }
+    }
   }
 
   /**
-   * @param nbCommonFiles the common files barrier target, only carried on common file jobs.
+   * @param netexFileSizes the uncompressed size of the files, where known.
+   * @param nbCommonFiles  the common files barrier target, only carried on common file jobs.
    */
   private void createValidationJobs(
     ValidationContext context,
     List<String> fileNamesToValidate,
     List<String> allNetexFileNames,
+    Map<String, Long> netexFileSizes,
     int nbCommonFiles
   ) {
     LOGGER.info("Creating {} validation jobs", fileNamesToValidate.size());
@@ -134,6 +258,7 @@ public class DatasetSplitter {
         new AntuJob.ValidateFile(
           context,
           fileName,
+          netexFileSizes.getOrDefault(fileName, 0L),
           allNetexFileNames.size(),
           nbCommonFiles,
           carriedFileNames
@@ -146,13 +271,13 @@ public class DatasetSplitter {
    * Stream the archive entry by entry, filing each NeTEx file in the memory store. Streaming keeps
    * the memory footprint at one entry regardless of how large the dataset is.
    *
-   * @return the names of the NeTEx files found, in ascending name order.
+   * @return the uncompressed size of the NeTEx files found, by file name in ascending order.
    */
-  private List<String> storeSingleNetexFiles(
+  private SortedMap<String, Long> storeSingleNetexFiles(
     ValidationContext context,
     InputStream dataset
   ) {
-    List<String> netexFileNames = new ArrayList<>();
+    SortedMap<String, Long> netexFileSizes = new TreeMap<>();
     try (ZipInputStream archive = new ZipInputStream(dataset)) {
       ZipEntry entry;
       int entryCount = 0;
@@ -162,12 +287,9 @@ public class DatasetSplitter {
         }
         if (isNetexFile(entry)) {
           String fileName = entry.getName();
-          netexFileStore.save(
-            context.validationReportId(),
-            fileName,
-            readEntry(archive)
-          );
-          netexFileNames.add(fileName);
+          byte[] content = readEntry(archive);
+          netexFileStore.save(context.validationReportId(), fileName, content);
+          netexFileSizes.put(fileName, (long) content.length);
         }
       }
     } catch (IOException e) {
@@ -176,7 +298,7 @@ public class DatasetSplitter {
         e
       );
     }
-    return netexFileNames.stream().sorted().toList();
+    return netexFileSizes;
   }
 
   private static boolean isNetexFile(ZipEntry entry) {
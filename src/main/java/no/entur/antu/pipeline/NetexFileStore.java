@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -36,6 +37,22 @@ public class NetexFileStore {
     );
   }
 
+  /**
+   * Record the uncompressed size of the files of the dataset, for the pod that creates their validation
+   * jobs.
+   */
+  public void saveSizes(String validationReportId, Map<String, Long> sizes) {
+    temporaryFileRepository.uploadFileSizes(validationReportId, sizes);
+  }
+
+  /**
+   * @return the uncompressed size of the files of the dataset, by file name. Empty if they were not
+   *         recorded.
+   */
+  public Map<String, Long> readSizes(String validationReportId) {
+    return temporaryFileRepository.downloadFileSizes(validationReportId);
+  }
+
   /**
    * @throws no.entur.antu.memorystore.AntuMemoryStoreFileNotFoundException if the file is gone,
    *         which is how a duplicated PubSub delivery is recognised: the temporary files are
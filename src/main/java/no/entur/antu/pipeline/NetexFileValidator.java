@@ -2,6 +2,7 @@ package no.entur.antu.pipeline;
 
 import java.util.List;
 import java.util.Optional;
+import no.entur.antu.config.cache.ValidationState;
 import no.entur.antu.exception.AntuException;
 import no.entur.antu.exception.RetryableAntuException;
 import no.entur.antu.job.AntuJob;
@@ -65,14 +66,24 @@ public class NetexFileValidator {
     this.jobQueue = jobQueue;
   }
 
-  public void validate(AntuJob.ValidateFile job) {
+  /**
+   * @param validationState the state of the validation, as read when the job started.
+   */
+  public void validate(
+    AntuJob.ValidateFile job,
+    ValidationState validationState
+  ) {
     ValidationContext context = job.context();
     String netexFileName = job.netexFileName();
     ValidationMdc.setFileName(netexFileName);
     LOGGER.info("Validating NeTEx file {}", netexFileName);
     long startedAt = System.currentTimeMillis();
 
-    Optional<ValidationReport> report = runValidators(context, netexFileName);
+    Optional<ValidationReport> report = runValidators(
+      context,
+      netexFileName,
+      validationState
+    );
     if (report.isEmpty()) {
       return;
     }
@@ -91,13 +102,44 @@ public class NetexFileValidator {
     openBarriers(job);
   }
 
+  /**
+   * Validate each file of the job in turn, exactly as a job of its own would.
+   *
+   * <p>A retryable failure redelivers the whole job, and the files already done are validated again. That is
+   * what a redelivery of their own jobs would have done too, and the barrier counts a file once however
+   * often it arrives.
+   *
+   * <p>The files share the state read when the job started: only line files are batched, and the common
+   * files have all been validated by the time they are.
+   */
+  public void validate(
+    AntuJob.ValidateFiles job,
+    ValidationState validationState
+  ) {
+    LOGGER.info("Validating {} NeTEx files", job.netexFileNames().size());
+    for (String netexFileName : job.netexFileNames()) {
+      validate(
+        new AntuJob.ValidateFile(
+          job.context(),
+          netexFileName,
+          0,
+          job.nbNetexFiles(),
+          0,
+          List.of()
+        ),
+        validationState
+      );
+    }
+  }
+
   /**
    * @return empty when the file is gone from the memory store, which means this file has already
    *         been validated and the message is a duplicated delivery.
    */
   private Optional<ValidationReport> runValidators(
     ValidationContext context,
-    String netexFileName
+    String netexFileName,
+    ValidationState validationState
   ) {
     byte[] fileContent;
     try {
@@ -119,6 +161,7 @@ public class NetexFileValidator {
           context.validationReportId(),
           netexFileName,
           fileContent,
+          validationState,
           new AntuNetexValidationProgressCallback(
             validationStateRepository,
             context.validationReportId()
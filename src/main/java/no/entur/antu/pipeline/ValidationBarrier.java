@@ -2,12 +2,13 @@ package no.entur.antu.pipeline;
 
 import static no.entur.antu.config.cache.CacheConfig.VALIDATION_DATA_TTL;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.function.Consumer;
 import org.redisson.api.RBucket;
-import org.redisson.api.RSet;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -31,9 +32,36 @@ public class ValidationBarrier {
     ValidationBarrier.class
   );
 
-  private static final String KEY_PREFIX = "BARRIER_";
+  /**
+   * The {@code V2} is a serialization version. The file names used to be stored through the client's Kryo
+   * codec and are now plain strings, which is what the script below can compare and hand back. The new
+   * name keeps the two formats apart during a rollout: a validation that straddles it is concluded by the
+   * stalled-validation sweep, rather than opened early by a file counted once in each format.
+   */
+  private static final String KEY_PREFIX = "BARRIER_V2_";
   private static final String PASSED_SUFFIX = "_passed";
 
+  /**
+   * Records an arrival and, if it completed the set, claims the barrier and returns the files that arrived;
+   * returns nothing otherwise. A single script, so that it is one round trip per file and no other arrival
+   * can come in between the count and the claim. EXPIRE on a key that does not exist yet is a silent no-op,
+   * so it has to follow the write.
+   *
+   * <p>KEYS: the arrivals, the claim. ARGV: the file name, the number of files expected, the TTL in seconds.
+   */
+  private static final String ARRIVE =
+    """
+    redis.call('sadd', KEYS[1], ARGV[1])
+    redis.call('expire', KEYS[1], ARGV[3])
+    if redis.call('scard', KEYS[1]) < tonumber(ARGV[2]) then
+      return {}
+    end
+    if not redis.call('set', KEYS[2], '1', 'NX', 'EX', ARGV[3]) then
+      return {}
+    end
+    return redis.call('smembers', KEYS[1])
+    """;
+
   private final RedissonClient redissonClient;
 
   public ValidationBarrier(RedissonClient redissonClient) {
@@ -60,42 +88,36 @@ public class ValidationBarrier {
     Consumer<List<String>> onOpen
   ) {
     String key = key(stage, validationReportId);
-    RSet<String> arrived = redissonClient.getSet(key);
-    arrived.add(fileName);
-    // EXPIRE on a key that does not exist yet is a silent no-op, so it has to follow the write.
-    arrived.expire(VALIDATION_DATA_TTL);
-
-    int arrivedCount = arrived.size();
-    LOGGER.debug(
-      "{}: {} of {} files arrived for report {}",
-      stage,
-      arrivedCount,
-      expected,
-      validationReportId
-    );
-    if (arrivedCount < expected) {
-      return;
-    }
-
-    // Several pods can see a full set at once. Claiming the barrier before reading the set makes exactly
-    // one of them proceed; the claim is what the next stage is guarded by, not the count.
-    RBucket<Boolean> passed = redissonClient.getBucket(key + PASSED_SUFFIX);
-    if (!passed.setIfAbsent(Boolean.TRUE, VALIDATION_DATA_TTL)) {
+    String passedKey = key + PASSED_SUFFIX;
+    List<String> fileNames = redissonClient
+      .getScript(StringCodec.INSTANCE)
+      .eval(
+        RScript.Mode.READ_WRITE,
+        ARRIVE,
+        RScript.ReturnType.MULTI,
+        List.of(key, passedKey),
+        fileName,
+        Integer.toString(expected),
+        Long.toString(VALIDATION_DATA_TTL.toSeconds())
+      );
+    if (fileNames == null || fileNames.isEmpty()) {
       LOGGER.debug(
-        "{}: barrier for report {} was already passed",
+        "{}: {} arrived for report {}, barrier waiting for {} files or already passed",
         stage,
-        validationReportId
+        fileName,
+        validationReportId,
+        expected
       );
       return;
     }
 
-    Set<String> fileNames = arrived.readAll();
     LOGGER.info(
       "{}: barrier opened for report {} with {} files",
       stage,
       validationReportId,
       fileNames.size()
     );
+    RBucket<Boolean> passed = redissonClient.getBucket(passedKey);
     RedisClaim.runOrRelease(
       passed,
       stage + " barrier for report " + validationReportId,
@@ -104,11 +126,13 @@ public class ValidationBarrier {
   }
 
   public void cleanUp(String validationReportId) {
+    List<String> keys = new ArrayList<>();
     for (Stage stage : Stage.values()) {
       String key = key(stage, validationReportId);
-      redissonClient.getSet(key).delete();
-      redissonClient.getBucket(key + PASSED_SUFFIX).delete();
+      keys.add(key);
+      keys.add(key + PASSED_SUFFIX);
     }
+    redissonClient.getKeys().unlink(keys.toArray(String[]::new));
   }
 
   private static String key(Stage stage, String validationReportId) {
@@ -1,5 +1,10 @@
 package no.entur.antu.pipeline;
 
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import no.entur.antu.AntuThreads;
+import no.entur.antu.job.DatasetFairShare;
 import no.entur.antu.memorystore.TemporaryFileRepository;
 import no.entur.antu.netexdata.NetexDataRepositoryLoader;
 import no.entur.antu.sweden.stop.SwedenStopPlaceNetexIdRepository;
@@ -15,6 +20,11 @@ import org.springframework.stereotype.Component;
  *
  * <p>Removing the validation state is also what makes a redelivered job a no-op: a job whose report
  * has no state left has already run.
+ *
+ * <p>Once the client has been told, nothing waits for the clean-up, so the completing job hands it to a
+ * thread of its own rather than holding a job consumer while it runs. The validation state is removed last:
+ * if a clean-up in the background fails, the state is still there, the sweeper finds the validation
+ * stalled, and concluding it again finds the report published and cleans up once more.
  */
 @Component
 public class ValidationCacheCleaner {
@@ -30,6 +40,10 @@ public class ValidationCacheCleaner {
   private final NetexDataRepositoryLoader netexDataRepository;
   private final ValidationStateRepository validationStateRepository;
   private final ValidationBarrier validationBarrier;
+  private final DatasetFairShare datasetFairShare;
+
+  private final ExecutorService backgroundCleanUps =
+    Executors.newSingleThreadExecutor(AntuThreads.named("cache-cleaner"));
 
   public ValidationCacheCleaner(
     CommonDataRepositoryLoader commonDataRepository,
@@ -38,7 +52,8 @@ public class ValidationCacheCleaner {
     SwedenStopPlaceNetexIdRepository swedenStopPlaceNetexIdRepository,
     NetexDataRepositoryLoader netexDataRepository,
     ValidationStateRepository validationStateRepository,
-    ValidationBarrier validationBarrier
+    ValidationBarrier validationBarrier,
+    DatasetFairShare datasetFairShare
   ) {
     this.commonDataRepository = commonDataRepository;
     this.netexIdRepository = netexIdRepository;
@@ -47,6 +62,30 @@ public class ValidationCacheCleaner {
     this.netexDataRepository = netexDataRepository;
     this.validationStateRepository = validationStateRepository;
     this.validationBarrier = validationBarrier;
+    this.datasetFairShare = datasetFairShare;
+  }
+
+  @PreDestroy
+  void stopBackgroundCleanUps() {
+    // A clean-up that does not get to run is left to the key expiry and to the sweeper.
+    backgroundCleanUps.shutdownNow();
+  }
+
+  /**
+   * Clean up on the clean-up thread, and return at once.
+   */
+  public void cleanUpInBackground(String validationReportId) {
+    backgroundCleanUps.execute(() -> {
+      try {
+        cleanUp(validationReportId);
+      } catch (RuntimeException e) {
+        LOGGER.warn(
+          "Failed to clean up the cache for validation report {}",
+          validationReportId,
+          e
+        );
+      }
+    });
   }
 
   public void cleanUp(String validationReportId) {
@@ -57,6 +96,7 @@ public class ValidationCacheCleaner {
     swedenStopPlaceNetexIdRepository.cleanUp(validationReportId);
     netexDataRepository.cleanUp(validationReportId);
     validationBarrier.cleanUp(validationReportId);
+    datasetFairShare.cleanUp(validationReportId);
     validationStateRepository.cleanUp(validationReportId);
     LOGGER.info("Cleaned up the cache");
   }
@@ -87,7 +87,9 @@ public class ValidationCompleter {
         // The marker records that a terminal status was sent, not that a report is readable. It is what
         // stops a redelivery arriving after the Redis claim's TTL has lapsed sending a second one.
         validationReportStore.markReportPublished(context);
-        validationCacheCleaner.cleanUp(context.validationReportId());
+        validationCacheCleaner.cleanUpInBackground(
+          context.validationReportId()
+        );
       }
     );
   }
@@ -150,6 +152,7 @@ public class ValidationCompleter {
     validationReportStore.publishReport(context, report);
     validationStatusNotifier.notifyStatus(context, status);
     validationReportStore.markReportPublished(context);
-    validationCacheCleaner.cleanUp(context.validationReportId());
+    // The client has its status: the job consumer is released now, and the clean-up follows behind.
+    validationCacheCleaner.cleanUpInBackground(context.validationReportId());
   }
 }
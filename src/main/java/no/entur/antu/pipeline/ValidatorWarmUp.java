@@ -0,0 +1,141 @@
+package no.entur.antu.pipeline;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.UUID;
+import no.entur.antu.exception.AntuException;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import no.entur.antu.validation.NetexValidationProfile;
+import no.entur.antu.validation.ValidationProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a small line file through the validators of every profile while the pod starts.
+ *
+ * <p>The first file a pod validates used to pay for loading the NeTEx schema and compiling the XPath rules
+ * of its profile, and the autoscaler starts pods exactly when a dataset has fanned out and the backlog is
+ * at its highest. The job consumers depend on this bean, so they are not created, and nothing is pulled
+ * from the job queues, until it is done. The HTTP endpoints the probes ask only answer once the context
+ * has started, after that.
+ *
+ * <p>A warm-up is best effort: a profile whose validators fail on the sample is logged and skipped, and the
+ * pod starts anyway. What the validators write to Redis for the sample is cleaned up like any validation.
+ */
+@Component
+public class ValidatorWarmUp {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+    ValidatorWarmUp.class
+  );
+
+  private static final String SAMPLE_RESOURCE = "/warmup/warm-up-line.xml";
+  private static final String SAMPLE_FILE_NAME = "warm-up-line.xml";
+  private static final String SAMPLE_CODESPACE = "ENT";
+
+  private final NetexValidationProfile netexValidationProfile;
+  private final ValidationCacheCleaner validationCacheCleaner;
+  private final AntuPrometheusMetricsService antuPrometheusMetricsService;
+  private final boolean enabled;
+
+  public ValidatorWarmUp(
+    NetexValidationProfile netexValidationProfile,
+    ValidationCacheCleaner validationCacheCleaner,
+    AntuPrometheusMetricsService antuPrometheusMetricsService,
+    @Value("${antu.validation.warm.up.enabled:true}") boolean enabled
+  ) {
+    this.netexValidationProfile = netexValidationProfile;
+    this.validationCacheCleaner = validationCacheCleaner;
+    this.antuPrometheusMetricsService = antuPrometheusMetricsService;
+    this.enabled = enabled;
+  }
+
+  @PostConstruct
+  void warmUp() {
+    if (!enabled) {
+      return;
+    }
+    byte[] sample = readSample();
+    String validationReportId = "warm-up-" + UUID.randomUUID();
+    long startedAt = System.nanoTime();
+    try {
+      for (ValidationProfile validationProfile : ValidationProfile.values()) {
+        warmUp(validationProfile, validationReportId, sample);
+      }
+    } finally {
+      cleanUp(validationReportId);
+    }
+    LOGGER.info(
+      "Warmed up the validators in {} ms",
+      Duration.ofNanos(System.nanoTime() - startedAt).toMillis()
+    );
+  }
+
+  private void warmUp(
+    ValidationProfile validationProfile,
+    String validationReportId,
+    byte[] sample
+  ) {
+    long startedAt = System.nanoTime();
+    try {
+      if (
+        !netexValidationProfile.warmUp(
+          validationProfile,
+          SAMPLE_CODESPACE,
+          validationReportId,
+          SAMPLE_FILE_NAME,
+          sample
+        )
+      ) {
+        return;
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn(
+        "Failed to warm up the validators of profile {}, the first file will do it",
+        validationProfile.id(),
+        e
+      );
+      return;
+    }
+    Duration time = Duration.ofNanos(System.nanoTime() - startedAt);
+    antuPrometheusMetricsService.recordValidatorWarmUp(
+      validationProfile.id(),
+      time
+    );
+    LOGGER.info(
+      "Warmed up the validators of profile {} in {} ms",
+      validationProfile.id(),
+      time.toMillis()
+    );
+  }
+
+  private void cleanUp(String validationReportId) {
+    try {
+      validationCacheCleaner.cleanUp(validationReportId);
+    } catch (RuntimeException e) {
+      LOGGER.warn(
+        "Failed to clean up after the warm-up, the keys will expire",
+        e
+      );
+    }
+  }
+
+  private static byte[] readSample() {
+    try (
+      InputStream sample = ValidatorWarmUp.class.getResourceAsStream(
+        SAMPLE_RESOURCE
+      )
+    ) {
+      if (sample == null) {
+        throw new AntuException("Missing warm-up sample " + SAMPLE_RESOURCE);
+      }
+      return sample.readAllBytes();
+    } catch (IOException e) {
+      throw new AntuException("Failed to read the warm-up sample", e);
+    }
+  }
+}
@@ -22,5 +22,17 @@ public final class AntuQueues {
    */
   public static final String JOB_QUEUE = "AntuJobQueue";
 
+  /**
+   * Antu's internal work queue for the validations someone is waiting on, so that they do not queue behind
+   * a batch. See {@link PubSubJobQueue#queueFor}.
+   */
+  public static final String PRIORITY_JOB_QUEUE = "AntuPriorityJobQueue";
+
+  /**
+   * Antu's internal work queue for the jobs that only move data between Redis, PubSub and the buckets, so
+   * that they do not wait behind the file validations. See {@link PubSubJobQueue#queueFor}.
+   */
+  public static final String LIGHTWEIGHT_JOB_QUEUE = "AntuLightweightJobQueue";
+
   private AntuQueues() {}
 }
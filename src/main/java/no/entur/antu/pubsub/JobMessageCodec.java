@@ -8,6 +8,7 @@ import static no.entur.antu.Constants.FILENAME_DELIMITER;
 import static no.entur.antu.Constants.FILE_CREATED_TIMESTAMP_HEADER;
 import static no.entur.antu.Constants.JOB_TYPE;
 import static no.entur.antu.Constants.NETEX_FILE_NAME;
+import static no.entur.antu.Constants.NETEX_FILE_SIZE;
 import static no.entur.antu.Constants.RUTEBANKEN_FILE_HANDLE_HEADER;
 import static no.entur.antu.Constants.VALIDATION_CLIENT_HEADER;
 import static no.entur.antu.Constants.VALIDATION_CORRELATION_ID_HEADER;
@@ -62,6 +63,13 @@ public final class JobMessageCodec {
     }
     if (job instanceof AntuJob.ValidateFile validateFile) {
       put(attributes, NETEX_FILE_NAME, validateFile.netexFileName());
+      if (validateFile.netexFileSize() > 0) {
+        put(
+          attributes,
+          NETEX_FILE_SIZE,
+          String.valueOf(validateFile.netexFileSize())
+        );
+      }
       put(
         attributes,
         DATASET_NB_NETEX_FILES,
@@ -73,6 +81,18 @@ public final class JobMessageCodec {
         String.valueOf(validateFile.nbCommonFiles())
       );
     }
+    if (job instanceof AntuJob.ValidateFiles validateFiles) {
+      put(
+        attributes,
+        NETEX_FILE_SIZE,
+        String.valueOf(validateFiles.largestNetexFileSize())
+      );
+      put(
+        attributes,
+        DATASET_NB_NETEX_FILES,
+        String.valueOf(validateFiles.nbNetexFiles())
+      );
+    }
 
     // Only the file name lists need the body; an attribute value is capped at 1024 bytes. Every other job
     // travels entirely in its attributes. Listed one by one rather than defaulted, so adding a job type
@@ -82,6 +102,9 @@ public final class JobMessageCodec {
         case AntuJob.ValidateFile validateFile -> joinFileNames(
           validateFile.allNetexFileNames()
         );
+        case AntuJob.ValidateFiles validateFiles -> joinFileNames(
+          validateFiles.netexFileNames()
+        );
         case AntuJob.CreateLineFileJobs createLineFileJobs -> joinFileNames(
           createLineFileJobs.allNetexFileNames()
         );
@@ -111,10 +134,18 @@ public final class JobMessageCodec {
       case VALIDATE -> new AntuJob.ValidateFile(
         readContext(attributes),
         attributes.get(NETEX_FILE_NAME),
+        // Absent on the messages of versions that did not size the files: unknown.
+        readLong(attributes, NETEX_FILE_SIZE),
         readInt(attributes, DATASET_NB_NETEX_FILES),
         readInt(attributes, DATASET_NB_COMMON_FILES),
         splitFileNames(body)
       );
+      case VALIDATE_FILES -> new AntuJob.ValidateFiles(
+        readContext(attributes),
+        splitFileNames(body),
+        readLong(attributes, NETEX_FILE_SIZE),
+        readInt(attributes, DATASET_NB_NETEX_FILES)
+      );
       case CREATE_LINE_FILE_JOBS -> new AntuJob.CreateLineFileJobs(
         readContext(attributes),
         splitFileNames(body)
@@ -210,6 +241,11 @@ public final class JobMessageCodec {
     return value == null || value.isEmpty() ? 0 : Integer.parseInt(value);
   }
 
+  private static long readLong(Map<String, String> attributes, String name) {
+    String value = attributes.get(name);
+    return value == null || value.isEmpty() ? 0 : Long.parseLong(value);
+  }
+
   public static String joinFileNames(List<String> fileNames) {
     return String.join(FILENAME_DELIMITER, fileNames);
   }
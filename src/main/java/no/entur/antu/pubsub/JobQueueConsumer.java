@@ -2,11 +2,14 @@ package no.entur.antu.pubsub;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import no.entur.antu.job.JobDispatcher;
+import no.entur.antu.job.AntuJob;
+import no.entur.antu.job.JobPriority;
+import no.entur.antu.job.QueuedJobRunner;
 import no.entur.antu.job.ValidationMdc;
 import org.entur.pubsub.base.AbstractEnturGooglePubSubConsumer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
 
 /**
@@ -15,24 +18,28 @@ import org.springframework.stereotype.Component;
  * <p>The subscription is served by the PubSub streaming pull client, which extends the ack deadline
  * on its own for as long as a message is being processed, up to an hour. Validating a large file can
  * take minutes, and this is what keeps it from being redelivered while it is still running.
+ *
+ * <p>The jobs on this queue are the low priority ones, see {@link PriorityJobQueueConsumer}.
  */
 @Component
+// Validates files, so it is not to pull any before the validators are warm.
+@DependsOn("validatorWarmUp")
 @ConditionalOnProperty(
   value = "antu.pubsub.consumers.enabled",
   matchIfMissing = true
 )
 public class JobQueueConsumer extends AbstractEnturGooglePubSubConsumer {
 
-  private final JobDispatcher jobDispatcher;
+  private final QueuedJobRunner queuedJobRunner;
   private final InFlightMessages inFlightMessages;
   private final int concurrentConsumers;
 
   public JobQueueConsumer(
-    JobDispatcher jobDispatcher,
+    QueuedJobRunner queuedJobRunner,
     InFlightMessages inFlightMessages,
     @Value("${antu.netex.job.consumers:1}") int concurrentConsumers
   ) {
-    this.jobDispatcher = jobDispatcher;
+    this.queuedJobRunner = queuedJobRunner;
     this.inFlightMessages = inFlightMessages;
     this.concurrentConsumers = concurrentConsumers;
   }
@@ -52,13 +59,10 @@ public class JobQueueConsumer extends AbstractEnturGooglePubSubConsumer {
     // Cleared on the way in, not on the way out: the consumer base class logs a failed message after
     // onMessage returns, and that ERROR line is the one worth having the validation's identity on.
     ValidationMdc.clear();
-    inFlightMessages.track(() ->
-      jobDispatcher.dispatch(
-        JobMessageCodec.decode(
-          attributes,
-          new String(content, StandardCharsets.UTF_8)
-        )
-      )
+    AntuJob job = JobMessageCodec.decode(
+      attributes,
+      new String(content, StandardCharsets.UTF_8)
     );
+    inFlightMessages.track(() -> queuedJobRunner.run(job, JobPriority.LOW));
   }
 }
@@ -0,0 +1,66 @@
+package no.entur.antu.pubsub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import no.entur.antu.job.JobDispatcher;
+import no.entur.antu.job.ValidationMdc;
+import org.entur.pubsub.base.AbstractEnturGooglePubSubConsumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consumes antu's internal work queue for the lightweight jobs, on threads of its own.
+ *
+ * <p>These jobs take little heap and are done in seconds, so they are dispatched without going through the
+ * {@link no.entur.antu.job.JobAdmissionController}: a pod validating a file as large as its heap allows
+ * still aggregates and completes the other datasets.
+ */
+@Component
+@ConditionalOnProperty(
+  value = "antu.pubsub.consumers.enabled",
+  matchIfMissing = true
+)
+public class LightweightJobQueueConsumer
+  extends AbstractEnturGooglePubSubConsumer {
+
+  private final JobDispatcher jobDispatcher;
+  private final InFlightMessages inFlightMessages;
+  private final int concurrentConsumers;
+
+  public LightweightJobQueueConsumer(
+    JobDispatcher jobDispatcher,
+    InFlightMessages inFlightMessages,
+    @Value(
+      "${antu.netex.lightweight.job.consumers:2}"
+    ) int concurrentConsumers
+  ) {
+    this.jobDispatcher = jobDispatcher;
+    this.inFlightMessages = inFlightMessages;
+    this.concurrentConsumers = concurrentConsumers;
+  }
+
+  @Override
+  protected String getDestinationName() {
+    return AntuQueues.LIGHTWEIGHT_JOB_QUEUE;
+  }
+
+  @Override
+  protected int getConcurrentConsumers() {
+    return concurrentConsumers;
+  }
+
+  @Override
+  public void onMessage(byte[] content, Map<String, String> attributes) {
+    // Cleared on the way in, for the reason given on JobQueueConsumer.
+    ValidationMdc.clear();
+    inFlightMessages.track(() ->
+      jobDispatcher.dispatch(
+        JobMessageCodec.decode(
+          attributes,
+          new String(content, StandardCharsets.UTF_8)
+        )
+      )
+    );
+  }
+}
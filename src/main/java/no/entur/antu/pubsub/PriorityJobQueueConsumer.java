@@ -0,0 +1,69 @@
+package no.entur.antu.pubsub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import no.entur.antu.job.AntuJob;
+import no.entur.antu.job.JobPriority;
+import no.entur.antu.job.QueuedJobRunner;
+import no.entur.antu.job.ValidationMdc;
+import org.entur.pubsub.base.AbstractEnturGooglePubSubConsumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Consumes antu's internal work queue for the validations someone is waiting on.
+ *
+ * <p>The subscription is pulled on threads of its own, so a backlog of batch jobs on the
+ * {@link JobQueueConsumer} subscription does not delay these ones, and the jobs are admitted with high
+ * priority: the low priority jobs of the pod give way to them when heap frees up. The priority is that of
+ * the lane, the job is not looked at again.
+ */
+@Component
+// Validates files, so it is not to pull any before the validators are warm.
+@DependsOn("validatorWarmUp")
+@ConditionalOnProperty(
+  value = "antu.pubsub.consumers.enabled",
+  matchIfMissing = true
+)
+public class PriorityJobQueueConsumer
+  extends AbstractEnturGooglePubSubConsumer {
+
+  private final QueuedJobRunner queuedJobRunner;
+  private final InFlightMessages inFlightMessages;
+  private final int concurrentConsumers;
+
+  public PriorityJobQueueConsumer(
+    QueuedJobRunner queuedJobRunner,
+    InFlightMessages inFlightMessages,
+    @Value(
+      "${antu.netex.priority.job.consumers:1}"
+    ) int concurrentConsumers
+  ) {
+    this.queuedJobRunner = queuedJobRunner;
+    this.inFlightMessages = inFlightMessages;
+    this.concurrentConsumers = concurrentConsumers;
+  }
+
+  @Override
+  protected String getDestinationName() {
+    return AntuQueues.PRIORITY_JOB_QUEUE;
+  }
+
+  @Override
+  protected int getConcurrentConsumers() {
+    return concurrentConsumers;
+  }
+
+  @Override
+  public void onMessage(byte[] content, Map<String, String> attributes) {
+    // Cleared on the way in, for the reason given on JobQueueConsumer.
+    ValidationMdc.clear();
+    AntuJob job = JobMessageCodec.decode(
+      attributes,
+      new String(content, StandardCharsets.UTF_8)
+    );
+    inFlightMessages.track(() -> queuedJobRunner.run(job, JobPriority.HIGH));
+  }
+}
@@ -2,7 +2,10 @@ package no.entur.antu.pubsub;
 
 import com.google.cloud.spring.pubsub.core.PubSubTemplate;
 import no.entur.antu.job.AntuJob;
+import no.entur.antu.job.JobPriority;
+import no.entur.antu.job.JobPriorityPolicy;
 import no.entur.antu.job.JobQueue;
+import no.entur.antu.job.JobType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -15,9 +18,14 @@ public class PubSubJobQueue implements JobQueue {
   );
 
   private final PubSubTemplate pubSubTemplate;
+  private final JobPriorityPolicy jobPriorityPolicy;
 
-  public PubSubJobQueue(PubSubTemplate pubSubTemplate) {
+  public PubSubJobQueue(
+    PubSubTemplate pubSubTemplate,
+    JobPriorityPolicy jobPriorityPolicy
+  ) {
     this.pubSubTemplate = pubSubTemplate;
+    this.jobPriorityPolicy = jobPriorityPolicy;
   }
 
   @Override
@@ -26,9 +34,34 @@ public class PubSubJobQueue implements JobQueue {
     LOGGER.debug("Submitting job {}", job.type());
     PubSubPublishing.publishAndWait(
       pubSubTemplate,
-      AntuQueues.JOB_QUEUE,
+      queueFor(job.type(), jobPriorityPolicy.priorityOf(job)),
       message.body(),
       message.attributes()
     );
   }
+
+  /**
+   * The jobs that hold little in heap and mostly wait on Redis, PubSub and the buckets go to a queue of
+   * their own, consumed by threads of their own, so that a pod busy validating a large file still
+   * aggregates and completes the other datasets right away. The stop place cache refresh holds the whole
+   * stop place dataset in heap, and is not one of them.
+   *
+   * <p>The other jobs of a validation someone is waiting on go to the priority queue, so that they do not
+   * queue behind a batch, and are given way to by the other jobs when a pod has to choose.
+   */
+  static String queueFor(JobType jobType, JobPriority jobPriority) {
+    return switch (jobType) {
+      case AGGREGATE_REPORTS,
+        COMPLETE_VALIDATION,
+        CREATE_LINE_FILE_JOBS,
+        REFRESH_ORGANISATION_ALIAS_CACHE -> AntuQueues.LIGHTWEIGHT_JOB_QUEUE;
+      case SPLIT,
+        VALIDATE,
+        VALIDATE_FILES,
+        VALIDATE_DATASET,
+        REFRESH_STOP_PLACE_CACHE -> jobPriority == JobPriority.HIGH
+        ? AntuQueues.PRIORITY_JOB_QUEUE
+        : AntuQueues.JOB_QUEUE;
+    };
+  }
 }
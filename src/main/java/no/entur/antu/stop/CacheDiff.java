@@ -0,0 +1,86 @@
+package no.entur.antu.stop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.redisson.api.RMap;
+
+/**
+ * The difference between the content of a cache and the content it should have.
+ *
+ * <p>Rewriting every entry of a distributed cache on each refresh sends the whole register to Redis and
+ * invalidates every entry in the local cache of every instance, even when nothing changed. The diff is
+ * computed against the values currently in the cache, compared by content, so that a refresh only writes
+ * the entries that were added or changed and only removes the entries that disappeared.
+ *
+ * @param upserts the entries to write, the added and the changed ones.
+ * @param removed the keys to remove.
+ */
+record CacheDiff<K, V>(
+  Map<K, V> upserts,
+  List<K> removed,
+  int added,
+  int changed
+) {
+  /**
+   * Bounds the size of a single Redis command, so that a large diff does not block Redis while it is
+   * applied.
+   */
+  private static final int BATCH_SIZE = 1000;
+
+  static <K, V> CacheDiff<K, V> between(Map<K, V> cache, Map<K, V> content) {
+    Map<K, V> current = readAll(cache);
+    Map<K, V> upserts = new HashMap<>();
+    int added = 0;
+    for (Map.Entry<K, V> entry : content.entrySet()) {
+      V currentValue = current.get(entry.getKey());
+      if (currentValue == null) {
+        added++;
+        upserts.put(entry.getKey(), entry.getValue());
+      } else if (!Objects.equals(currentValue, entry.getValue())) {
+        upserts.put(entry.getKey(), entry.getValue());
+      }
+    }
+    List<K> removed = new ArrayList<>();
+    for (K key : current.keySet()) {
+      if (!content.containsKey(key)) {
+        removed.add(key);
+      }
+    }
+    return new CacheDiff<>(upserts, removed, added, upserts.size() - added);
+  }
+
+  /**
+   * Write the diff to the cache, in batches where the cache is a Redis map.
+   */
+  @SuppressWarnings("unchecked")
+  void applyTo(Map<K, V> cache) {
+    if (cache instanceof RMap<K, V> redisMap) {
+      if (!upserts.isEmpty()) {
+        redisMap.putAll(upserts, BATCH_SIZE);
+      }
+      for (int from = 0; from < removed.size(); from += BATCH_SIZE) {
+        List<K> chunk = removed.subList(
+          from,
+          Math.min(from + BATCH_SIZE, removed.size())
+        );
+        redisMap.fastRemove((K[]) chunk.toArray());
+      }
+    } else {
+      cache.putAll(upserts);
+      removed.forEach(cache::remove);
+    }
+  }
+
+  /**
+   * Read a whole cache in one round trip where it is a Redis map, rather than entry by entry.
+   */
+  private static <K, V> Map<K, V> readAll(Map<K, V> cache) {
+    if (cache instanceof RMap<K, V> redisMap) {
+      return redisMap.readAllMap();
+    }
+    return new HashMap<>(cache);
+  }
+}
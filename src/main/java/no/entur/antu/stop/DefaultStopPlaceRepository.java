@@ -24,6 +24,7 @@ import org.entur.netex.validation.validator.model.SimpleQuay;
 import org.entur.netex.validation.validator.model.SimpleStopPlace;
 import org.entur.netex.validation.validator.model.StopPlaceId;
 import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+import org.redisson.api.RMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,19 +39,50 @@ public class DefaultStopPlaceRepository implements StopPlaceRepositoryLoader {
 
   public static final String QUAY_CACHE = "quayCache";
   public static final String STOP_PLACE_CACHE = "stopPlaceCache";
+  public static final String QUAYS_BY_STOP_PLACE_CACHE =
+    "quaysByStopPlaceCache";
 
   private final StopPlaceResource stopPlaceResource;
   private final Map<StopPlaceId, SimpleStopPlace> stopPlaceCache;
   private final Map<QuayId, SimpleQuay> quayCache;
 
+  /**
+   * The quay ids of each stop place: the reverse of {@link SimpleQuay#stopPlaceId()}, so that the quays of a
+   * stop place are found without going through every quay in the country. Kept in step with the quay cache
+   * by every method that writes to it. The writes come from the leader only, the periodic refresh and the
+   * changelog, so the read-modify-write of an entry is not contended.
+   */
+  private final Map<StopPlaceId, Set<String>> quaysByStopPlaceCache;
+
+  private final QuayNotFoundCache quayNotFoundCache;
+
+  public DefaultStopPlaceRepository(
+    StopPlaceResource stopPlaceResource,
+    Map<StopPlaceId, SimpleStopPlace> stopPlaceCache,
+    Map<QuayId, SimpleQuay> quayCache,
+    Map<StopPlaceId, Set<String>> quaysByStopPlaceCache
+  ) {
+    this(
+      stopPlaceResource,
+      stopPlaceCache,
+      quayCache,
+      quaysByStopPlaceCache,
+      QuayNotFoundCache.disabled()
+    );
+  }
+
   public DefaultStopPlaceRepository(
     StopPlaceResource stopPlaceResource,
     Map<StopPlaceId, SimpleStopPlace> stopPlaceCache,
-    Map<QuayId, SimpleQuay> quayCache
+    Map<QuayId, SimpleQuay> quayCache,
+    Map<StopPlaceId, Set<String>> quaysByStopPlaceCache,
+    QuayNotFoundCache quayNotFoundCache
   ) {
     this.stopPlaceResource = stopPlaceResource;
     this.stopPlaceCache = Objects.requireNonNull(stopPlaceCache);
     this.quayCache = Objects.requireNonNull(quayCache);
+    this.quaysByStopPlaceCache = Objects.requireNonNull(quaysByStopPlaceCache);
+    this.quayNotFoundCache = Objects.requireNonNull(quayNotFoundCache);
   }
 
   @Override
@@ -60,20 +92,49 @@ public class DefaultStopPlaceRepository implements StopPlaceRepositoryLoader {
 
   @Override
   public boolean hasQuayId(QuayId quayId) {
-    if (quayCache.containsKey(quayId)) {
-      return true;
-    }
     return getQuay(quayId).isPresent();
   }
 
+  @Override
+  public Set<QuayId> findQuayIds(Set<QuayId> quayIds) {
+    return getQuays(quayIds).keySet();
+  }
+
+  @Override
+  public Map<QuayId, ResolvedQuay> resolveQuays(Set<QuayId> quayIds) {
+    Map<QuayId, SimpleQuay> quays = getQuays(quayIds);
+    Set<StopPlaceId> stopPlaceIds = new HashSet<>();
+    for (SimpleQuay quay : quays.values()) {
+      if (quay.stopPlaceId() != null) {
+        stopPlaceIds.add(quay.stopPlaceId());
+      }
+    }
+    Map<StopPlaceId, SimpleStopPlace> stopPlaces = getAll(
+      stopPlaceCache,
+      stopPlaceIds
+    );
+    Map<QuayId, ResolvedQuay> resolvedQuays = new HashMap<>();
+    quays.forEach((quayId, quay) -> {
+      SimpleStopPlace stopPlace = quay.stopPlaceId() == null
+        ? null
+        : stopPlaces.get(quay.stopPlaceId());
+      resolvedQuays.put(
+        quayId,
+        new ResolvedQuay(
+          quay.quayCoordinates(),
+          stopPlace == null ? null : stopPlace.transportModeAndSubMode(),
+          stopPlace == null ? null : stopPlace.name()
+        )
+      );
+    });
+    return resolvedQuays;
+  }
+
   @Override
   public Set<String> getQuaysForStopPlaceId(StopPlaceId stopPlaceId) {
-    return quayCache
-      .entrySet()
-      .stream()
-      .filter(entry -> entry.getValue().stopPlaceId().equals(stopPlaceId))
-      .map(entry -> entry.getKey().id())
-      .collect(Collectors.toSet());
+    return Set.copyOf(
+      quaysByStopPlaceCache.getOrDefault(stopPlaceId, Set.of())
+    );
   }
 
   @Override
@@ -99,7 +160,12 @@ public class DefaultStopPlaceRepository implements StopPlaceRepositoryLoader {
 
   @Override
   public boolean isEmpty() {
-    return quayCache.isEmpty() || stopPlaceCache.isEmpty();
+    // The index counts too: a cache primed before it existed has to be primed again to build it.
+    return (
+      quayCache.isEmpty() ||
+      stopPlaceCache.isEmpty() ||
+      quaysByStopPlaceCache.isEmpty()
+    );
   }
 
   @Override
@@ -112,8 +178,7 @@ public class DefaultStopPlaceRepository implements StopPlaceRepositoryLoader {
     if (newStopPlaceCache.isEmpty()) {
       LOGGER.warn("Unable to refresh cache, no stop place found");
     } else {
-      stopPlaceCache.keySet().retainAll(newStopPlaceCache.keySet());
-      stopPlaceCache.putAll(newStopPlaceCache);
+      update("Stop place", stopPlaceCache, newStopPlaceCache);
     }
     LOGGER.info("Updated Stop place cache");
 
@@ -121,9 +186,15 @@ public class DefaultStopPlaceRepository implements StopPlaceRepositoryLoader {
     if (newQuayCache.isEmpty()) {
       LOGGER.warn("Unable to refresh cache, no quay found");
     } else {
-      quayCache.keySet().retainAll(newQuayCache.keySet());
-      quayCache.putAll(newQuayCache);
+      update("Quay", quayCache, newQuayCache);
+      update(
+        "Quays by stop place",
+        quaysByStopPlaceCache,
+        quaysByStopPlace(newQuayCache)
+      );
     }
+    // Once the quays are written, so that no instance remembers a miss from before they were.
+    quayNotFoundCache.invalidateAll();
     LOGGER.info("Updated Quay cache");
 
     Instant publicationTime = stopPlaceResource.getPublicationTime();
@@ -141,9 +212,40 @@ public class DefaultStopPlaceRepository implements StopPlaceRepositoryLoader {
     return publicationTime;
   }
 
+  /**
+   * Bring a cache in line with the new content, writing only the entries that differ.
+   */
+  private static <K, V> void update(
+    String cacheName,
+    Map<K, V> cache,
+    Map<K, V> content
+  ) {
+    CacheDiff<K, V> diff = CacheDiff.between(cache, content);
+    diff.applyTo(cache);
+    LOGGER.info(
+      "{} cache: {} added, {} changed, {} removed",
+      cacheName,
+      diff.added(),
+      diff.changed(),
+      diff.removed().size()
+    );
+  }
+
   @Override
   public void createOrUpdateQuay(QuayId id, SimpleQuay quay) {
-    quayCache.put(id, quay);
+    SimpleQuay previous = quayCache.put(id, quay);
+    quayNotFoundCache.invalidate(Set.of(id));
+    if (
+      previous != null && !previous.stopPlaceId().equals(quay.stopPlaceId())
+    ) {
+      removeFromIndex(previous.stopPlaceId(), id);
+    }
+    Set<String> quayIds = new HashSet<>(
+      quaysByStopPlaceCache.getOrDefault(quay.stopPlaceId(), Set.of())
+    );
+    if (quayIds.add(id.id())) {
+      quaysByStopPlaceCache.put(quay.stopPlaceId(), quayIds);
+    }
   }
 
   @Override
@@ -161,14 +263,184 @@ public class DefaultStopPlaceRepository implements StopPlaceRepositoryLoader {
 
   @Override
   public void deleteQuay(QuayId quayId) {
-    quayCache.remove(quayId);
+    SimpleQuay removed = quayCache.remove(quayId);
+    if (removed != null) {
+      removeFromIndex(removed.stopPlaceId(), quayId);
+    }
+  }
+
+  @Override
+  public void apply(StopPlaceChanges changes) {
+    if (!changes.stopPlaceUpdates().isEmpty()) {
+      stopPlaceCache.putAll(changes.stopPlaceUpdates());
+    }
+    removeAll(stopPlaceCache, changes.stopPlaceDeletions());
+
+    Set<QuayId> changedQuayIds = new HashSet<>(changes.quayUpdates().keySet());
+    changedQuayIds.addAll(changes.quayDeletions());
+    Map<QuayId, SimpleQuay> previousQuays = getAll(quayCache, changedQuayIds);
+    if (!changes.quayUpdates().isEmpty()) {
+      quayCache.putAll(changes.quayUpdates());
+      quayNotFoundCache.invalidate(changes.quayUpdates().keySet());
+    }
+    removeAll(quayCache, changes.quayDeletions());
+
+    updateIndex(changes, previousQuays);
+  }
+
+  /**
+   * Apply to the index the moves, additions and deletions of quays in the changes, reading and writing the
+   * stop places affected in bulk.
+   */
+  private void updateIndex(
+    StopPlaceChanges changes,
+    Map<QuayId, SimpleQuay> previousQuays
+  ) {
+    Map<StopPlaceId, Set<String>> removedQuays = new HashMap<>();
+    Map<StopPlaceId, Set<String>> addedQuays = new HashMap<>();
+    changes
+      .quayUpdates()
+      .forEach((quayId, quay) -> {
+        SimpleQuay previous = previousQuays.get(quayId);
+        if (
+          previous != null &&
+          !previous.stopPlaceId().equals(quay.stopPlaceId())
+        ) {
+          removedQuays
+            .computeIfAbsent(previous.stopPlaceId(), k -> new HashSet<>())
+            .add(quayId.id());
+        }
+        addedQuays
+          .computeIfAbsent(quay.stopPlaceId(), k -> new HashSet<>())
+          .add(quayId.id());
+      });
+    for (QuayId quayId : changes.quayDeletions()) {
+      SimpleQuay previous = previousQuays.get(quayId);
+      if (previous != null) {
+        removedQuays
+          .computeIfAbsent(previous.stopPlaceId(), k -> new HashSet<>())
+          .add(quayId.id());
+      }
+    }
+
+    Set<StopPlaceId> affectedStopPlaces = new HashSet<>(removedQuays.keySet());
+    affectedStopPlaces.addAll(addedQuays.keySet());
+    Map<StopPlaceId, Set<String>> currentQuays = getAll(
+      quaysByStopPlaceCache,
+      affectedStopPlaces
+    );
+    Map<StopPlaceId, Set<String>> updatedQuays = new HashMap<>();
+    Set<StopPlaceId> emptiedStopPlaces = new HashSet<>();
+    for (StopPlaceId stopPlaceId : affectedStopPlaces) {
+      Set<String> current = currentQuays.getOrDefault(stopPlaceId, Set.of());
+      Set<String> quayIds = new HashSet<>(current);
+      quayIds.removeAll(removedQuays.getOrDefault(stopPlaceId, Set.of()));
+      quayIds.addAll(addedQuays.getOrDefault(stopPlaceId, Set.of()));
+      if (quayIds.isEmpty()) {
+        if (!current.isEmpty()) {
+          emptiedStopPlaces.add(stopPlaceId);
+        }
+      } else if (!quayIds.equals(current)) {
+        updatedQuays.put(stopPlaceId, quayIds);
+      }
+    }
+    if (!updatedQuays.isEmpty()) {
+      quaysByStopPlaceCache.putAll(updatedQuays);
+    }
+    removeAll(quaysByStopPlaceCache, emptiedStopPlaces);
+  }
+
+  /**
+   * Read the entries of the given keys, in one round trip where the cache is a Redis map.
+   */
+  private static <K, V> Map<K, V> getAll(Map<K, V> cache, Set<K> keys) {
+    if (keys.isEmpty()) {
+      return Map.of();
+    }
+    if (cache instanceof RMap<K, V> redisMap) {
+      return redisMap.getAll(keys);
+    }
+    Map<K, V> entries = new HashMap<>();
+    for (K key : keys) {
+      V value = cache.get(key);
+      if (value != null) {
+        entries.put(key, value);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Remove the given keys, in one round trip where the cache is a Redis map.
+   */
+  @SuppressWarnings("unchecked")
+  private static <K> void removeAll(Map<K, ?> cache, Set<K> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    if (cache instanceof RMap<?, ?> redisMap) {
+      ((RMap<K, ?>) redisMap).fastRemove((K[]) keys.toArray());
+    } else {
+      cache.keySet().removeAll(keys);
+    }
+  }
+
+  private void removeFromIndex(StopPlaceId stopPlaceId, QuayId quayId) {
+    Set<String> quayIds = quaysByStopPlaceCache.get(stopPlaceId);
+    if (quayIds == null || !quayIds.contains(quayId.id())) {
+      return;
+    }
+    Set<String> remaining = new HashSet<>(quayIds);
+    remaining.remove(quayId.id());
+    if (remaining.isEmpty()) {
+      quaysByStopPlaceCache.remove(stopPlaceId);
+    } else {
+      quaysByStopPlaceCache.put(stopPlaceId, remaining);
+    }
+  }
+
+  private static Map<StopPlaceId, Set<String>> quaysByStopPlace(
+    Map<QuayId, SimpleQuay> quays
+  ) {
+    return quays
+      .entrySet()
+      .stream()
+      .collect(
+        Collectors.groupingBy(
+          entry -> entry.getValue().stopPlaceId(),
+          Collectors.mapping(entry -> entry.getKey().id(), Collectors.toSet())
+        )
+      );
+  }
+
+  /**
+   * Read the given quays in one round trip, skipping and then remembering those not found.
+   */
+  private Map<QuayId, SimpleQuay> getQuays(Set<QuayId> quayIds) {
+    Set<QuayId> unresolved = new HashSet<>();
+    for (QuayId quayId : quayIds) {
+      if (!quayNotFoundCache.isNotFound(quayId)) {
+        unresolved.add(quayId);
+      }
+    }
+    Map<QuayId, SimpleQuay> quays = getAll(quayCache, unresolved);
+    for (QuayId quayId : unresolved) {
+      if (!quays.containsKey(quayId)) {
+        quayNotFoundCache.notFound(quayId);
+      }
+    }
+    return quays;
   }
 
   private Optional<SimpleQuay> getQuay(QuayId quayId) {
+    if (quayNotFoundCache.isNotFound(quayId)) {
+      return Optional.empty();
+    }
     SimpleQuay quayFromCache = quayCache.get(quayId);
     if (quayFromCache != null) {
       return Optional.of(quayFromCache);
     }
+    quayNotFoundCache.notFound(quayId);
     return Optional.empty();
   }
 }
@@ -1,20 +1,13 @@
 package no.entur.antu.stop;
 
-import static no.entur.antu.stop.changelog.support.ChangeLogUtils.parsePublicationTime;
-
-import jakarta.xml.bind.JAXBElement;
 import java.time.Instant;
 import java.util.Map;
-import java.util.stream.Collectors;
+import no.entur.antu.stop.loader.StopPlacesDataset;
 import no.entur.antu.stop.loader.StopPlacesDatasetLoader;
-import org.entur.netex.index.api.NetexEntitiesIndex;
-import org.entur.netex.validation.validator.model.QuayCoordinates;
 import org.entur.netex.validation.validator.model.QuayId;
 import org.entur.netex.validation.validator.model.SimpleQuay;
 import org.entur.netex.validation.validator.model.SimpleStopPlace;
 import org.entur.netex.validation.validator.model.StopPlaceId;
-import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
-import org.rutebanken.netex.model.StopPlace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,11 +60,11 @@ public class DefaultStopPlaceResource implements StopPlaceResource {
     if (parsedDataset) {
       return;
     }
-    NetexEntitiesIndex netexEntitiesIndex =
-      stopPlacesDatasetLoader.loadNetexEntitiesIndex();
-    quays = initQuays(netexEntitiesIndex);
-    stopPlaces = initStopPlaces(netexEntitiesIndex);
-    publicationTime = parsePublicationTime(netexEntitiesIndex);
+    StopPlacesDataset stopPlacesDataset =
+      stopPlacesDatasetLoader.loadStopPlacesDataset();
+    quays = stopPlacesDataset.quays();
+    stopPlaces = stopPlacesDataset.stopPlaces();
+    publicationTime = stopPlacesDataset.publicationTime();
     parsedDataset = true;
     LOGGER.info(
       "Loaded {} stop places and {} quays from NeTEx dataset",
@@ -79,48 +72,4 @@ public class DefaultStopPlaceResource implements StopPlaceResource {
       quays.size()
     );
   }
-
-  private static Map<StopPlaceId, SimpleStopPlace> initStopPlaces(
-    NetexEntitiesIndex netexEntitiesIndex
-  ) {
-    return netexEntitiesIndex
-      .getSiteFrames()
-      .stream()
-      .flatMap(siteFrame -> siteFrame.getStopPlaces().getStopPlace_().stream())
-      .map(JAXBElement::getValue)
-      .map(StopPlace.class::cast)
-      .collect(
-        Collectors.toUnmodifiableMap(
-          stopPlace -> new StopPlaceId(stopPlace.getId()),
-          stopPlace ->
-            new SimpleStopPlace(
-              stopPlace.getName().getValue(),
-              TransportModeAndSubMode.of(stopPlace)
-            )
-        )
-      );
-  }
-
-  private static Map<QuayId, SimpleQuay> initQuays(
-    NetexEntitiesIndex netexEntitiesIndex
-  ) {
-    return netexEntitiesIndex
-      .getQuayIndex()
-      .getLatestVersions()
-      .stream()
-      .collect(
-        Collectors.toUnmodifiableMap(
-          quay -> new QuayId(quay.getId()),
-          quay ->
-            new SimpleQuay(
-              QuayCoordinates.of(quay),
-              new StopPlaceId(
-                netexEntitiesIndex
-                  .getStopPlaceIdByQuayIdIndex()
-                  .get(quay.getId())
-              )
-            )
-        )
-      );
-  }
 }
@@ -0,0 +1,208 @@
+package no.entur.antu.stop;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.entur.netex.index.api.NetexEntitiesIndex;
+import org.entur.netex.validation.validator.jaxb.CommonDataRepository;
+import org.entur.netex.validation.validator.jaxb.StopPlaceRepository;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.ScheduledStopPointId;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+import org.rutebanken.netex.model.JourneyPattern;
+import org.rutebanken.netex.model.StopPointInJourneyPattern;
+
+/**
+ * The stop place repository seen by the JAXB validators of a single file.
+ *
+ * <p>The validators look up the coordinates, modes and stop place name of the same quays over and over:
+ * once per stop point, per journey pattern, per service link. Each lookup went through the local cache of
+ * the quay and stop place caches, and to Redis for an entry not cached yet. The quays of the file are
+ * instead resolved together when the file is parsed, and kept in a table for the validation of the file.
+ *
+ * <p>A line file rarely assigns quays itself: the passenger stop assignments are in the common files of the
+ * dataset. The quays of the file are therefore those of the scheduled stop points its journey patterns
+ * visit, looked up in the common data of the validation, see {@link #forValidationReport}, as well as those
+ * the file assigns. A quay the validators look up that is in neither is resolved on its first lookup and
+ * kept as well, so that each quay costs at most one round trip per file.
+ */
+public class PrefetchingStopPlaceRepository implements StopPlaceRepository {
+
+  /**
+   * The validation report of the file being validated on this thread. The runner only hands the factory the
+   * index of the file.
+   */
+  private static final ThreadLocal<String> VALIDATION_REPORT_ID =
+    new ThreadLocal<>();
+
+  private final StopPlaceRepositoryLoader stopPlaceRepository;
+
+  /** Empty for a quay that does not exist. */
+  private final Map<QuayId, Optional<ResolvedQuay>> quays =
+    new ConcurrentHashMap<>();
+
+  PrefetchingStopPlaceRepository(
+    StopPlaceRepositoryLoader stopPlaceRepository,
+    Set<QuayId> prefetchedQuayIds
+  ) {
+    this.stopPlaceRepository = stopPlaceRepository;
+    Map<QuayId, ResolvedQuay> resolvedQuays = stopPlaceRepository.resolveQuays(
+      prefetchedQuayIds
+    );
+    for (QuayId quayId : prefetchedQuayIds) {
+      quays.put(quayId, Optional.ofNullable(resolvedQuays.get(quayId)));
+    }
+  }
+
+  /**
+   * The factory of the repository of each file, to be given to the validators runner.
+   */
+  public static Function<NetexEntitiesIndex, StopPlaceRepository> perFile(
+    StopPlaceRepositoryLoader stopPlaceRepository,
+    CommonDataRepository commonDataRepository
+  ) {
+    return netexEntitiesIndex ->
+      new PrefetchingStopPlaceRepository(
+        stopPlaceRepository,
+        quayIds(
+          netexEntitiesIndex,
+          commonDataRepository,
+          VALIDATION_REPORT_ID.get()
+        )
+      );
+  }
+
+  /**
+   * Run the validation of a file on this thread, the repositories built for it prefetching the quays the
+   * common data of the given validation report assigns to the stop points of the file.
+   */
+  public static <T> T forValidationReport(
+    String validationReportId,
+    Supplier<T> validation
+  ) {
+    String previous = VALIDATION_REPORT_ID.get();
+    VALIDATION_REPORT_ID.set(validationReportId);
+    try {
+      return validation.get();
+    } finally {
+      if (previous == null) {
+        VALIDATION_REPORT_ID.remove();
+      } else {
+        VALIDATION_REPORT_ID.set(previous);
+      }
+    }
+  }
+
+  @Override
+  public boolean hasStopPlaceId(StopPlaceId stopPlaceId) {
+    return stopPlaceRepository.hasStopPlaceId(stopPlaceId);
+  }
+
+  @Override
+  public boolean hasQuayId(QuayId quayId) {
+    return quay(quayId).isPresent();
+  }
+
+  @Override
+  public TransportModeAndSubMode getTransportModesForQuayId(QuayId quayId) {
+    return quay(quayId)
+      .map(ResolvedQuay::transportModeAndSubMode)
+      .orElse(null);
+  }
+
+  @Override
+  public QuayCoordinates getCoordinatesForQuayId(QuayId quayId) {
+    return quay(quayId).map(ResolvedQuay::quayCoordinates).orElse(null);
+  }
+
+  @Override
+  public String getStopPlaceNameForQuayId(QuayId quayId) {
+    return quay(quayId).map(ResolvedQuay::stopPlaceName).orElse(null);
+  }
+
+  private Optional<ResolvedQuay> quay(QuayId quayId) {
+    Optional<ResolvedQuay> quay = quays.get(quayId);
+    if (quay == null) {
+      // Resolved outside of the map, so that a lookup does not block the others.
+      quay =
+        Optional.ofNullable(
+          stopPlaceRepository.resolveQuays(Set.of(quayId)).get(quayId)
+        );
+      quays.putIfAbsent(quayId, quay);
+    }
+    return quay;
+  }
+
+  /**
+   * The quays the file assigns, and those the common data of the validation assigns to the scheduled stop
+   * points of its journey patterns.
+   */
+  private static Set<QuayId> quayIds(
+    NetexEntitiesIndex netexEntitiesIndex,
+    CommonDataRepository commonDataRepository,
+    String validationReportId
+  ) {
+    Set<QuayId> quayIds = new HashSet<>();
+    for (String quayId : netexEntitiesIndex
+      .getQuayIdByStopPointRefIndex()
+      .values()) {
+      if (QuayId.isValid(quayId)) {
+        quayIds.add(new QuayId(quayId));
+      }
+    }
+    if (
+      validationReportId == null ||
+      !commonDataRepository.hasSharedScheduledStopPoints(validationReportId)
+    ) {
+      return quayIds;
+    }
+    Set<ScheduledStopPointId> scheduledStopPointIds = scheduledStopPointIds(
+      netexEntitiesIndex
+    );
+    for (ScheduledStopPointId scheduledStopPointId : scheduledStopPointIds) {
+      QuayId quayId = commonDataRepository.quayIdForScheduledStopPoint(
+        scheduledStopPointId,
+        validationReportId
+      );
+      if (quayId != null && QuayId.isValid(quayId.id())) {
+        quayIds.add(quayId);
+      }
+    }
+    return quayIds;
+  }
+
+  /**
+   * The scheduled stop points the journey patterns of the file visit, in no particular order.
+   */
+  private static Set<ScheduledStopPointId> scheduledStopPointIds(
+    NetexEntitiesIndex netexEntitiesIndex
+  ) {
+    return netexEntitiesIndex
+      .getJourneyPatternIndex()
+      .getAll()
+      .stream()
+      .map(JourneyPattern::getPointsInSequence)
+      .filter(Objects::nonNull)
+      .flatMap(pointsInSequence ->
+        pointsInSequence
+          .getPointInJourneyPatternOrStopPointInJourneyPatternOrTimingPointInJourneyPattern()
+          .stream()
+      )
+      .filter(StopPointInJourneyPattern.class::isInstance)
+      .map(StopPointInJourneyPattern.class::cast)
+      .map(StopPointInJourneyPattern::getScheduledStopPointRef)
+      .filter(Objects::nonNull)
+      .map(scheduledStopPointRef -> scheduledStopPointRef.getValue().getRef())
+      .filter(Objects::nonNull)
+      .map(ScheduledStopPointId::new)
+      .collect(Collectors.toSet());
+  }
+}
@@ -0,0 +1,213 @@
+package no.entur.antu.stop;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.redisson.api.RTopic;
+
+/**
+ * The quay ids recently looked up and not found in the quay cache, held by this instance.
+ *
+ * <p>The local cache of the quay cache only holds the quays that exist: a lookup of an unknown quay goes to
+ * Redis every time, and a dataset that references unknown quays makes one such lookup per reference and per
+ * file. Remembering the misses makes the repeated ones free.
+ *
+ * <p>An entry expires after {@code timeToLive}, and the oldest entries are dropped beyond {@code maxSize}.
+ * Only the leader writes to the quay cache, so the quays it writes are announced on a Redis topic, and every
+ * instance removes the entries they make stale: a quay created by the changelog is found on the other
+ * instances as soon as it is written, not when their entry expires.
+ *
+ * <p>Lookups run on every validation thread at once and take no lock. Dropping the oldest entries takes a
+ * pass over the cache, so it makes room for a tenth of {@code maxSize} at a time.
+ */
+public class QuayNotFoundCache {
+
+  /**
+   * The topic the quays written to the quay cache are announced on. A message is the quay ids, separated by
+   * commas, or {@link #ALL_QUAYS} when the quay cache is reloaded.
+   */
+  public static final String INVALIDATION_TOPIC =
+    "quayNotFoundCacheInvalidation";
+
+  private static final String ALL_QUAYS = "*";
+  private static final String SEPARATOR = ",";
+
+  private final int maxSize;
+  private final int sizeAfterEviction;
+  private final long timeToLiveNanos;
+  private final LongSupplier nanoTime;
+  private final RTopic invalidationTopic;
+  private final AntuPrometheusMetricsService antuPrometheusMetricsService;
+
+  private final Map<QuayId, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong insertions = new AtomicLong();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+
+  /**
+   * @param invalidationTopic the topic the writes of every instance are announced on, or null if only the
+   *                          writes of this instance are to invalidate the cache.
+   */
+  public QuayNotFoundCache(
+    int maxSize,
+    Duration timeToLive,
+    RTopic invalidationTopic,
+    AntuPrometheusMetricsService antuPrometheusMetricsService
+  ) {
+    this(
+      maxSize,
+      timeToLive,
+      System::nanoTime,
+      invalidationTopic,
+      antuPrometheusMetricsService
+    );
+  }
+
+  QuayNotFoundCache(
+    int maxSize,
+    Duration timeToLive,
+    LongSupplier nanoTime,
+    RTopic invalidationTopic,
+    AntuPrometheusMetricsService antuPrometheusMetricsService
+  ) {
+    this.maxSize = maxSize;
+    this.sizeAfterEviction = maxSize - maxSize / 10;
+    this.timeToLiveNanos = timeToLive.toNanos();
+    this.nanoTime = nanoTime;
+    this.invalidationTopic = invalidationTopic;
+    this.antuPrometheusMetricsService = antuPrometheusMetricsService;
+    if (invalidationTopic != null && maxSize > 0) {
+      invalidationTopic.addListener(
+        String.class,
+        (channel, message) -> invalidateLocally(message)
+      );
+    }
+  }
+
+  /**
+   * A cache that remembers nothing.
+   */
+  public static QuayNotFoundCache disabled() {
+    return new QuayNotFoundCache(
+      0,
+      Duration.ZERO,
+      System::nanoTime,
+      null,
+      null
+    );
+  }
+
+  /**
+   * Return true if the quay was recently not found.
+   */
+  public boolean isNotFound(QuayId quayId) {
+    if (maxSize == 0) {
+      return false;
+    }
+    Entry entry = entries.get(quayId);
+    boolean hit = entry != null && entry.expiry() - nanoTime.getAsLong() > 0;
+    if (entry != null && !hit) {
+      entries.remove(quayId, entry);
+    }
+    if (antuPrometheusMetricsService != null) {
+      antuPrometheusMetricsService.countQuayNotFoundCacheLookup(hit);
+    }
+    return hit;
+  }
+
+  public void notFound(QuayId quayId) {
+    if (maxSize == 0) {
+      return;
+    }
+    entries.put(
+      quayId,
+      new Entry(
+        nanoTime.getAsLong() + timeToLiveNanos,
+        insertions.incrementAndGet()
+      )
+    );
+    if (entries.size() > maxSize) {
+      evictOldest();
+    }
+  }
+
+  /**
+   * Remove the given quays, here and on every other instance.
+   */
+  public void invalidate(Collection<QuayId> quayIds) {
+    if (quayIds.isEmpty()) {
+      return;
+    }
+    quayIds.forEach(entries::remove);
+    publish(
+      quayIds.stream().map(QuayId::id).collect(Collectors.joining(SEPARATOR))
+    );
+  }
+
+  /**
+   * Remove every quay, here and on every other instance.
+   */
+  public void invalidateAll() {
+    entries.clear();
+    publish(ALL_QUAYS);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void publish(String message) {
+    if (invalidationTopic != null && maxSize > 0) {
+      invalidationTopic.publish(message);
+    }
+  }
+
+  private void invalidateLocally(String message) {
+    if (ALL_QUAYS.equals(message)) {
+      entries.clear();
+      return;
+    }
+    for (String quayId : message.split(SEPARATOR)) {
+      entries.remove(new QuayId(quayId));
+    }
+  }
+
+  /**
+   * Drop the oldest entries down to {@link #sizeAfterEviction}. A thread that finds another one evicting
+   * leaves it to it.
+   */
+  private void evictOldest() {
+    if (!evictionLock.tryLock()) {
+      return;
+    }
+    try {
+      int excess = entries.size() - sizeAfterEviction;
+      if (excess <= 0) {
+        return;
+      }
+      entries
+        .entrySet()
+        .stream()
+        .sorted(
+          Comparator.comparingLong(entry -> entry.getValue().insertion())
+        )
+        .limit(excess)
+        .toList()
+        .forEach(entry -> entries.remove(entry.getKey(), entry.getValue()));
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * @param insertion the order of the entry among those put in the cache, the lowest being the oldest.
+   */
+  private record Entry(long expiry, long insertion) {}
+}
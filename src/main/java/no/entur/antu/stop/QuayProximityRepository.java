@@ -0,0 +1,28 @@
+package no.entur.antu.stop;
+
+import java.util.List;
+import java.util.Optional;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+
+/**
+ * Spatial queries over the quays of the National Stop Place Registry, for the validators that compare
+ * the position of an element with the quays around it.
+ *
+ * <p>The queries are answered from an index held by each instance. Until it is built they throw
+ * {@link no.entur.antu.exception.QuayProximityUnavailableException}, rather than finding nothing.
+ */
+public interface QuayProximityRepository {
+  /**
+   * Return the quays within the radius of the point, the closest first.
+   */
+  List<QuayId> quaysWithin(QuayCoordinates center, double radiusMeters);
+
+  /**
+   * Return the quay closest to the point, if there is one within the given distance.
+   */
+  Optional<QuayId> nearestQuay(
+    QuayCoordinates center,
+    double maxDistanceMeters
+  );
+}
@@ -0,0 +1,17 @@
+package no.entur.antu.stop;
+
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+
+/**
+ * What the validators look up about a quay, read together with its stop place.
+ *
+ * @param quayCoordinates         the coordinates of the quay, or null if it has none.
+ * @param transportModeAndSubMode the modes of the stop place of the quay, or null if unknown.
+ * @param stopPlaceName           the name of the stop place of the quay, or null if unknown.
+ */
+public record ResolvedQuay(
+  QuayCoordinates quayCoordinates,
+  TransportModeAndSubMode transportModeAndSubMode,
+  String stopPlaceName
+) {}
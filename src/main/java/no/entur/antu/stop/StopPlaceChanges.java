@@ -0,0 +1,32 @@
+package no.entur.antu.stop;
+
+import java.util.Map;
+import java.util.Set;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+
+/**
+ * A set of changes to the stop place repository, to be written together.
+ * An entity is either updated or deleted, never both.
+ */
+public record StopPlaceChanges(
+  Map<StopPlaceId, SimpleStopPlace> stopPlaceUpdates,
+  Set<StopPlaceId> stopPlaceDeletions,
+  Map<QuayId, SimpleQuay> quayUpdates,
+  Set<QuayId> quayDeletions
+) {
+  public int size() {
+    return (
+      stopPlaceUpdates.size() +
+      stopPlaceDeletions.size() +
+      quayUpdates.size() +
+      quayDeletions.size()
+    );
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+}
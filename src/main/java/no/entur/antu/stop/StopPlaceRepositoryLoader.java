@@ -1,6 +1,7 @@
 package no.entur.antu.stop;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.Set;
 import org.entur.netex.validation.validator.jaxb.StopPlaceRepository;
 import org.entur.netex.validation.validator.model.QuayId;
@@ -46,6 +47,23 @@ public interface StopPlaceRepositoryLoader extends StopPlaceRepository {
    */
   void deleteQuay(QuayId quayId);
 
+  /**
+   * Create, update and delete stop places and quays in bulk, with a few round trips for the whole set
+   * rather than a few per entity.
+   */
+  void apply(StopPlaceChanges changes);
+
+  /**
+   * Return the quay IDs among the given ones that exist, resolved together rather than one by one.
+   */
+  Set<QuayId> findQuayIds(Set<QuayId> quayIds);
+
+  /**
+   * Return the coordinates, modes and stop place name of the given quays, read in a few round trips for the
+   * whole set. Quays that do not exist are left out.
+   */
+  Map<QuayId, ResolvedQuay> resolveQuays(Set<QuayId> quayIds);
+
   /**
    * Return the set of quay IDs for a given stop place ID.
    */
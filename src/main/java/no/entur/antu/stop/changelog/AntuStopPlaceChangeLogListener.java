@@ -1,9 +1,11 @@
 package no.entur.antu.stop.changelog;
 
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import no.entur.antu.stop.StopPlaceRepositoryLoader;
+import no.entur.antu.stop.StopPlaceChanges;
 import no.entur.antu.stop.changelog.support.ChangeLogUtils;
 import org.entur.netex.NetexParser;
 import org.entur.netex.index.api.NetexEntitiesIndex;
@@ -19,23 +21,23 @@ import org.rutebanken.netex.model.MultilingualString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Turns the updates of the stop place changelog into changes to the stop place repository, and hands them
+ * to a {@link StopPlaceChangelogBatcher} to be written in batches.
+ */
 public class AntuStopPlaceChangeLogListener
   implements StopPlaceChangelogListener {
 
-  private final StopPlaceRepositoryLoader stopPlaceRepositoryLoader;
-  private final ChangelogUpdateTimestampRepository changelogUpdateTimestampRepository;
+  private final StopPlaceChangelogBatcher stopPlaceChangelogBatcher;
 
   private static final Logger log = LoggerFactory.getLogger(
     AntuStopPlaceChangeLogListener.class
   );
 
   public AntuStopPlaceChangeLogListener(
-    StopPlaceRepositoryLoader stopPlaceRepositoryLoader,
-    ChangelogUpdateTimestampRepository changelogUpdateTimestampRepository
+    StopPlaceChangelogBatcher stopPlaceChangelogBatcher
   ) {
-    this.stopPlaceRepositoryLoader = stopPlaceRepositoryLoader;
-    this.changelogUpdateTimestampRepository =
-      changelogUpdateTimestampRepository;
+    this.stopPlaceChangelogBatcher = stopPlaceChangelogBatcher;
   }
 
   @Override
@@ -52,21 +54,13 @@ public class AntuStopPlaceChangeLogListener
 
   @Override
   public void onStopPlaceDeactivated(String id, InputStream stopPlaceStream) {
-    deactivateStopPlace(new StopPlaceId(id), stopPlaceStream);
-    log.info("Stop place deactivated: {}", id);
-  }
-
-  private void deactivateStopPlace(
-    StopPlaceId stopPlaceId,
-    InputStream stopPlaceStream
-  ) {
     NetexParser parser = new NetexParser();
     NetexEntitiesIndex netexEntitiesIndex = parser.parse(stopPlaceStream);
-    Set<String> quaysToDelete = getQuaysIdsFromIndex(netexEntitiesIndex);
-    deleteStopPlace(stopPlaceId);
-    for (String quayId : quaysToDelete) {
-      deleteQuay(quayId, stopPlaceId);
-    }
+    deleteStopPlace(
+      new StopPlaceId(id),
+      getQuaysIdsFromIndex(netexEntitiesIndex)
+    );
+    log.info("Stop place deactivated: {}", id);
   }
 
   private Set<String> getQuaysIdsFromIndex(
@@ -83,26 +77,26 @@ public class AntuStopPlaceChangeLogListener
   @Override
   public void onStopPlaceDeleted(String id) {
     StopPlaceId stopPlaceId = new StopPlaceId(id);
-    Set<String> quaysToDelete =
-      stopPlaceRepositoryLoader.getQuaysForStopPlaceId(stopPlaceId);
-    deleteStopPlace(stopPlaceId);
-    for (String quayId : quaysToDelete) {
-      deleteQuay(quayId, stopPlaceId);
-    }
-  }
-
-  private void deleteStopPlace(StopPlaceId stopPlaceId) {
-    stopPlaceRepositoryLoader.deleteStopPlace(stopPlaceId);
-    log.info("Deleted stop place with ID {}", stopPlaceId.id());
+    deleteStopPlace(
+      stopPlaceId,
+      stopPlaceChangelogBatcher.getQuaysForStopPlaceId(stopPlaceId)
+    );
   }
 
-  private void deleteQuay(String quayIdStr, StopPlaceId stopPlaceId) {
-    QuayId quayId = new QuayId(quayIdStr);
-    stopPlaceRepositoryLoader.deleteQuay(quayId);
+  private void deleteStopPlace(StopPlaceId stopPlaceId, Set<String> quayIds) {
+    stopPlaceChangelogBatcher.submit(
+      new StopPlaceChanges(
+        Map.of(),
+        Set.of(stopPlaceId),
+        Map.of(),
+        quayIds.stream().map(QuayId::new).collect(Collectors.toSet())
+      ),
+      null
+    );
     log.info(
-      "Deleted quay with ID {} associated with deleted stop place ID {}",
-      quayIdStr,
-      stopPlaceId.id()
+      "Deleted stop place with ID {} and its quays {}",
+      stopPlaceId.id(),
+      quayIds
     );
   }
 
@@ -110,38 +104,37 @@ public class AntuStopPlaceChangeLogListener
     NetexParser parser = new NetexParser();
     NetexEntitiesIndex netexEntitiesIndex = parser.parse(stopPlaceStream);
 
+    Map<StopPlaceId, SimpleStopPlace> stopPlaces = new HashMap<>();
     netexEntitiesIndex
       .getStopPlaceIndex()
       .getLatestVersions()
       .forEach(stopPlace -> {
-        StopPlaceId stopPlaceId = new StopPlaceId(stopPlace.getId());
         MultilingualString stopPlaceName = stopPlace.getName();
-        SimpleStopPlace simpleStopPlace = new SimpleStopPlace(
-          stopPlaceName == null ? "" : stopPlaceName.getValue(),
-          TransportModeAndSubMode.of(stopPlace)
-        );
-        stopPlaceRepositoryLoader.createOrUpdateStopPlace(
-          stopPlaceId,
-          simpleStopPlace
+        stopPlaces.put(
+          new StopPlaceId(stopPlace.getId()),
+          new SimpleStopPlace(
+            stopPlaceName == null ? "" : stopPlaceName.getValue(),
+            TransportModeAndSubMode.of(stopPlace)
+          )
         );
       });
 
+    Map<QuayId, SimpleQuay> quays = new HashMap<>();
     netexEntitiesIndex
       .getQuayIndex()
       .getLatestVersions()
       .forEach(quay -> {
-        QuayId quayId = new QuayId(quay.getId());
         StopPlaceId stopPlaceId = new StopPlaceId(
           netexEntitiesIndex.getStopPlaceIdByQuayIdIndex().get(quay.getId())
         );
-        SimpleQuay simpleQuay = new SimpleQuay(
-          QuayCoordinates.of(quay),
-          stopPlaceId
+        quays.put(
+          new QuayId(quay.getId()),
+          new SimpleQuay(QuayCoordinates.of(quay), stopPlaceId)
         );
-        stopPlaceRepositoryLoader.createOrUpdateQuay(quayId, simpleQuay);
       });
 
-    changelogUpdateTimestampRepository.setTimestamp(
+    stopPlaceChangelogBatcher.submit(
+      new StopPlaceChanges(stopPlaces, Set.of(), quays, Set.of()),
       ChangeLogUtils.parsePublicationTime(netexEntitiesIndex)
     );
   }
@@ -2,7 +2,6 @@ package no.entur.antu.stop.changelog;
 
 import java.time.Duration;
 import java.time.Instant;
-import no.entur.antu.stop.StopPlaceRepositoryLoader;
 import org.rutebanken.helper.stopplace.changelog.StopPlaceChangelog;
 import org.rutebanken.helper.stopplace.changelog.kafka.ChangelogConsumerController;
 import org.slf4j.Logger;
@@ -19,7 +18,7 @@ public class ChangelogStopPlaceRepositoryUpdater
     ChangelogStopPlaceRepositoryUpdater.class
   );
 
-  private final StopPlaceRepositoryLoader stopPlaceRepositoryLoader;
+  private final StopPlaceChangelogBatcher stopPlaceChangelogBatcher;
   private final AntuPublicationTimeRecordFilterStrategy antuPublicationTimeRecordFilterStrategy;
   private final RedisChangelogUpdateTimestampRepository changelogUpdateTimestampRepository;
   private final ChangelogConsumerController changelogConsumerController;
@@ -27,14 +26,14 @@ public class ChangelogStopPlaceRepositoryUpdater
   private final AntuStopPlaceChangeLogListener handler;
 
   public ChangelogStopPlaceRepositoryUpdater(
-    StopPlaceRepositoryLoader stopPlaceRepositoryLoader,
+    StopPlaceChangelogBatcher stopPlaceChangelogBatcher,
     AntuPublicationTimeRecordFilterStrategy antuPublicationTimeRecordFilterStrategy,
     RedisChangelogUpdateTimestampRepository changelogUpdateTimestampRepository,
     ChangelogConsumerController changelogConsumerController,
     StopPlaceChangelog stopPlaceChangelog,
     AntuStopPlaceChangeLogListener handler
   ) {
-    this.stopPlaceRepositoryLoader = stopPlaceRepositoryLoader;
+    this.stopPlaceChangelogBatcher = stopPlaceChangelogBatcher;
     this.antuPublicationTimeRecordFilterStrategy =
       antuPublicationTimeRecordFilterStrategy;
     this.changelogUpdateTimestampRepository =
@@ -64,8 +63,7 @@ public class ChangelogStopPlaceRepositoryUpdater
   public void createOrUpdate() {
     changelogConsumerController.stop();
     stopPlaceChangelog.unregisterStopPlaceChangelogListener(handler);
-    Instant publicationTime = stopPlaceRepositoryLoader.refreshCache();
-    changelogUpdateTimestampRepository.setTimestamp(publicationTime);
+    Instant publicationTime = stopPlaceChangelogBatcher.refreshCache();
     antuPublicationTimeRecordFilterStrategy.setPublicationTime(publicationTime);
     stopPlaceChangelog.registerStopPlaceChangelogListener(handler);
     changelogConsumerController.start();
@@ -6,7 +6,16 @@ import java.time.Instant;
  * Repository storing the time of the last update applied to the stop repository.
  */
 public interface ChangelogUpdateTimestampRepository {
+  /**
+   * Record the publication time of an update applied to the stop repository, unless a later one is
+   * already recorded.
+   */
   void setTimestamp(Instant publicationTime);
 
+  /**
+   * Record the publication time of a full reload of the stop repository, even if a later one is recorded.
+   */
+  void resetTimestamp(Instant publicationTime);
+
   Instant getTimestamp();
 }
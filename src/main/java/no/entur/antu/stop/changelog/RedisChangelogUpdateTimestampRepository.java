@@ -1,6 +1,7 @@
 package no.entur.antu.stop.changelog;
 
 import java.time.Instant;
+import org.redisson.api.RBucket;
 import org.redisson.api.RedissonClient;
 
 /**
@@ -23,6 +24,21 @@ public class RedisChangelogUpdateTimestampRepository
 
   @Override
   public void setTimestamp(Instant publicationTime) {
+    RBucket<Instant> bucket = redissonClient.getBucket(
+      CHANGELOG_UPDATE_TIMESTAMP
+    );
+    // Compare-and-set, so that a late write never moves the timestamp back past one written meanwhile.
+    Instant current = bucket.get();
+    while (current == null || publicationTime.isAfter(current)) {
+      if (bucket.compareAndSet(current, publicationTime)) {
+        return;
+      }
+      current = bucket.get();
+    }
+  }
+
+  @Override
+  public void resetTimestamp(Instant publicationTime) {
     redissonClient
       .<Instant>getBucket(CHANGELOG_UPDATE_TIMESTAMP)
       .set(publicationTime);
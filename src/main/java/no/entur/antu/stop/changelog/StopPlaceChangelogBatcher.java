@@ -0,0 +1,261 @@
+package no.entur.antu.stop.changelog;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import no.entur.antu.AntuThreads;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import no.entur.antu.stop.StopPlaceChanges;
+import no.entur.antu.stop.StopPlaceRepositoryLoader;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accumulates the changes of the stop place changelog and writes them to the stop place repository in
+ * batches.
+ *
+ * <p>Written one by one, each stop place and quay of an update costs a few round trips to Redis and an
+ * invalidation broadcast to every instance, and a bulk edit in the stop place register leaves a long tail
+ * of updates to catch up with. Changes are instead collected until there are {@code maxBatchSize} of them
+ * or the oldest has waited {@code maxDelay}, and then written together. Successive changes to the same
+ * entity, within an update or across the updates of a window, are coalesced: only the last one is written.
+ *
+ * <p>The changelog listener has no acknowledgement of its own. What a restart resumes from is the
+ * publication time recorded in Redis, see {@link ChangelogStopPlaceRepositoryUpdater#init()}: the consumer
+ * skips the updates published before it. That time is recorded only once the batch holding the update is
+ * written, so it plays the part of the offset commit, made after the flush: a restart replays the updates
+ * of a window that was still waiting, and writing them again is harmless. It only ever moves forward,
+ * except on a full refresh of the repository, see {@link #refreshCache()}.
+ *
+ * <p>A batch that fails to be written is kept, merged with the changes that arrive after it, and written
+ * again with the next batch, or after {@code maxDelay} if nothing arrives.
+ */
+public class StopPlaceChangelogBatcher implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+    StopPlaceChangelogBatcher.class
+  );
+
+  private final StopPlaceRepositoryLoader stopPlaceRepositoryLoader;
+  private final ChangelogUpdateTimestampRepository changelogUpdateTimestampRepository;
+  private final AntuPrometheusMetricsService antuPrometheusMetricsService;
+  private final int maxBatchSize;
+  private final Duration maxDelay;
+  private final ScheduledExecutorService scheduler =
+    Executors.newSingleThreadScheduledExecutor(
+      AntuThreads.named("changelog-batcher")
+    );
+
+  // Guarded by this.
+  private final Map<StopPlaceId, SimpleStopPlace> stopPlaceUpdates =
+    new HashMap<>();
+  private final Set<StopPlaceId> stopPlaceDeletions = new HashSet<>();
+  private final Map<QuayId, SimpleQuay> quayUpdates = new HashMap<>();
+  private final Set<QuayId> quayDeletions = new HashSet<>();
+  private Instant publicationTime;
+  private ScheduledFuture<?> scheduledFlush;
+
+  public StopPlaceChangelogBatcher(
+    StopPlaceRepositoryLoader stopPlaceRepositoryLoader,
+    ChangelogUpdateTimestampRepository changelogUpdateTimestampRepository,
+    AntuPrometheusMetricsService antuPrometheusMetricsService,
+    int maxBatchSize,
+    Duration maxDelay
+  ) {
+    this.stopPlaceRepositoryLoader = stopPlaceRepositoryLoader;
+    this.changelogUpdateTimestampRepository =
+      changelogUpdateTimestampRepository;
+    this.antuPrometheusMetricsService = antuPrometheusMetricsService;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelay = maxDelay;
+  }
+
+  /**
+   * Add the changes of a changelog update to the current batch, and write the batch if it is full.
+   *
+   * @param publicationTime the publication time of the update, or null if it does not have one.
+   */
+  public synchronized void submit(
+    StopPlaceChanges changes,
+    Instant publicationTime
+  ) {
+    changes
+      .stopPlaceUpdates()
+      .forEach((stopPlaceId, stopPlace) -> {
+        stopPlaceDeletions.remove(stopPlaceId);
+        stopPlaceUpdates.put(stopPlaceId, stopPlace);
+      });
+    changes
+      .stopPlaceDeletions()
+      .forEach(stopPlaceId -> {
+        stopPlaceUpdates.remove(stopPlaceId);
+        stopPlaceDeletions.add(stopPlaceId);
+      });
+    changes
+      .quayUpdates()
+      .forEach((quayId, quay) -> {
+        quayDeletions.remove(quayId);
+        quayUpdates.put(quayId, quay);
+      });
+    changes
+      .quayDeletions()
+      .forEach(quayId -> {
+        quayUpdates.remove(quayId);
+        quayDeletions.add(quayId);
+      });
+    if (
+      publicationTime != null &&
+      (this.publicationTime == null ||
+        publicationTime.isAfter(this.publicationTime))
+    ) {
+      this.publicationTime = publicationTime;
+    }
+
+    if (pendingChanges() >= maxBatchSize) {
+      flush();
+    } else if (pendingChanges() > 0) {
+      scheduleFlush();
+    }
+  }
+
+  /**
+   * Return the quays of a stop place, including those of the changes not written yet.
+   */
+  public synchronized Set<String> getQuaysForStopPlaceId(
+    StopPlaceId stopPlaceId
+  ) {
+    flush();
+    return stopPlaceRepositoryLoader.getQuaysForStopPlaceId(stopPlaceId);
+  }
+
+  /**
+   * Write the current batch.
+   */
+  public synchronized void flush() {
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+    if (pendingChanges() == 0) {
+      return;
+    }
+    StopPlaceChanges batch = new StopPlaceChanges(
+      Map.copyOf(stopPlaceUpdates),
+      Set.copyOf(stopPlaceDeletions),
+      Map.copyOf(quayUpdates),
+      Set.copyOf(quayDeletions)
+    );
+    try {
+      stopPlaceRepositoryLoader.apply(batch);
+    } catch (RuntimeException e) {
+      // Kept for the next attempt, whether or not more changes arrive.
+      scheduleFlush();
+      throw e;
+    }
+    if (publicationTime != null) {
+      changelogUpdateTimestampRepository.setTimestamp(publicationTime);
+    }
+    antuPrometheusMetricsService.stopPlaceChangelogBatchMetrics(
+      batch.size(),
+      publicationTime == null
+        ? null
+        : Duration.between(publicationTime, Instant.now())
+    );
+    LOGGER.info(
+      "Applied {} stop place changelog changes, published up to {}",
+      batch.size(),
+      publicationTime
+    );
+    clear();
+  }
+
+  /**
+   * Reload the whole stop place repository from the latest NeTEx export.
+   *
+   * <p>The changes not written yet date from before the export and are discarded: written after it, they
+   * would overwrite the fresher dataset. The refresh holds the lock of the batcher, so that no batch is
+   * written while it runs, and the recorded publication time is reset to the one of the export, even if
+   * older, so that the updates published since are replayed on top of it.
+   *
+   * @return the publication time of the export.
+   */
+  public synchronized Instant refreshCache() {
+    if (pendingChanges() > 0) {
+      LOGGER.info(
+        "Discarding {} stop place changelog changes superseded by the refresh of the stop place repository",
+        pendingChanges()
+      );
+      clear();
+    }
+    Instant exportPublicationTime = stopPlaceRepositoryLoader.refreshCache();
+    changelogUpdateTimestampRepository.resetTimestamp(exportPublicationTime);
+    return exportPublicationTime;
+  }
+
+  private void scheduleFlush() {
+    if (scheduledFlush == null) {
+      scheduledFlush =
+        scheduler.schedule(
+          this::scheduledFlush,
+          maxDelay.toMillis(),
+          TimeUnit.MILLISECONDS
+        );
+    }
+  }
+
+  private synchronized void scheduledFlush() {
+    scheduledFlush = null;
+    try {
+      flush();
+    } catch (Exception e) {
+      LOGGER.error(
+        "Failed to apply stop place changelog changes, retrying in {}",
+        maxDelay,
+        e
+      );
+    }
+  }
+
+  private void clear() {
+    stopPlaceUpdates.clear();
+    stopPlaceDeletions.clear();
+    quayUpdates.clear();
+    quayDeletions.clear();
+    publicationTime = null;
+  }
+
+  private int pendingChanges() {
+    return (
+      stopPlaceUpdates.size() +
+      stopPlaceDeletions.size() +
+      quayUpdates.size() +
+      quayDeletions.size()
+    );
+  }
+
+  /**
+   * Write what is left, so that a shutdown does not leave the repository behind the recorded publication
+   * time.
+   */
+  @Override
+  public void close() {
+    try {
+      flush();
+    } catch (Exception e) {
+      LOGGER.warn("Failed to apply stop place changelog changes on close", e);
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package no.entur.antu.stop.loader;
+
+import java.time.Instant;
+import java.util.Map;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+
+/**
+ * The data of a NeTEx stop place dataset that is relevant to validation.
+ *
+ * @param publicationTime the publication time of the dataset, or null if it does not have one.
+ */
+public record StopPlacesDataset(
+  Map<StopPlaceId, SimpleStopPlace> stopPlaces,
+  Map<QuayId, SimpleQuay> quays,
+  Instant publicationTime
+) {}
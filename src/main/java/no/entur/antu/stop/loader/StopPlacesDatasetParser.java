@@ -0,0 +1,402 @@
+package no.entur.antu.stop.loader;
+
+import static java.util.Map.entry;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.entur.netex.validation.xml.NetexXMLParser.NETEX_NAMESPACE;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import no.entur.antu.exception.AntuException;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+import org.entur.netex.validation.validator.model.TransportSubMode;
+import org.rutebanken.netex.model.AllVehicleModesOfTransportEnumeration;
+
+/**
+ * Extracts the stop places and quays of a NeTEx stop place dataset with a streaming XML reader.
+ *
+ * <p>The national stop place register is exported as a single large document, and binding all of it to
+ * JAXB objects to keep a name, a mode, coordinates and the stop place of each quay costs minutes and
+ * gigabytes. This reads the few elements it needs as they stream past and skips everything else, so that
+ * memory use is proportional to the extracted maps only.
+ *
+ * <p>The extracted data matches what the JAXB model gives: the direct {@code Name}, {@code TransportMode}
+ * and submode of each {@code StopPlace}, the {@code Centroid} of each {@code Quay} and the stop place it is
+ * listed under, and the publication time in the time zone of the first site frame. When an entity is
+ * present in several versions, the latest one is kept.
+ *
+ * <p>An instance accumulates the content of the documents given to {@link #parse(InputStream)}, and is not
+ * thread-safe.
+ */
+public class StopPlacesDatasetParser {
+
+  private static final String DEFAULT_TIME_ZONE = "Europe/Oslo";
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = xmlInputFactory();
+
+  /**
+   * The submode element of each mode a stop place can have a submode for, as
+   * {@code TransportModeAndSubMode.of(StopPlace)} reads them. The names do not all follow from the mode:
+   * the submode of a cableway is a {@code TelecabinSubmode}.
+   */
+  private static final Map<AllVehicleModesOfTransportEnumeration, String> SUBMODE_ELEMENTS =
+    Map.ofEntries(
+      entry(AllVehicleModesOfTransportEnumeration.AIR, "AirSubmode"),
+      entry(AllVehicleModesOfTransportEnumeration.BUS, "BusSubmode"),
+      entry(AllVehicleModesOfTransportEnumeration.COACH, "CoachSubmode"),
+      entry(AllVehicleModesOfTransportEnumeration.METRO, "MetroSubmode"),
+      entry(AllVehicleModesOfTransportEnumeration.RAIL, "RailSubmode"),
+      entry(AllVehicleModesOfTransportEnumeration.TRAM, "TramSubmode"),
+      entry(AllVehicleModesOfTransportEnumeration.WATER, "WaterSubmode"),
+      entry(
+        AllVehicleModesOfTransportEnumeration.CABLEWAY,
+        "TelecabinSubmode"
+      ),
+      entry(
+        AllVehicleModesOfTransportEnumeration.FUNICULAR,
+        "FunicularSubmode"
+      ),
+      entry(
+        AllVehicleModesOfTransportEnumeration.SNOW_AND_ICE,
+        "SnowAndIceSubmode"
+      )
+    );
+
+  private final Map<StopPlaceId, SimpleStopPlace> stopPlaces = new HashMap<>();
+  private final Map<QuayId, SimpleQuay> quays = new HashMap<>();
+  private final Map<String, String> stopPlaceVersions = new HashMap<>();
+  private final Map<String, String> quayVersions = new HashMap<>();
+  private LocalDateTime publicationTimestamp;
+  private String timeZone;
+
+  /**
+   * Extract the stop places and quays of a NeTEx document. The stream is read to the end of the document
+   * but not closed, so that it can be an entry of a zip archive.
+   */
+  public void parse(InputStream inputStream) {
+    try {
+      XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(
+        inputStream
+      );
+      try {
+        parse(reader);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new AntuException("Error while parsing the stop place dataset", e);
+    }
+  }
+
+  /**
+   * The stop places and quays of all the documents parsed so far.
+   */
+  public StopPlacesDataset dataset() {
+    return new StopPlacesDataset(
+      Collections.unmodifiableMap(stopPlaces),
+      Collections.unmodifiableMap(quays),
+      publicationTime()
+    );
+  }
+
+  private void parse(XMLStreamReader reader) throws XMLStreamException {
+    boolean inSiteFrame = false;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == END_ELEMENT && isNetex(reader, "SiteFrame")) {
+        inSiteFrame = false;
+      }
+      if (
+        event != START_ELEMENT ||
+        !NETEX_NAMESPACE.equals(reader.getNamespaceURI())
+      ) {
+        continue;
+      }
+      switch (reader.getLocalName()) {
+        case "PublicationTimestamp" -> {
+          String text = readText(reader).trim();
+          if (publicationTimestamp == null && !text.isEmpty()) {
+            publicationTimestamp = parseTimestamp(text);
+          }
+        }
+        case "SiteFrame" -> inSiteFrame = true;
+        case "FrameDefaults" -> {
+          if (inSiteFrame && timeZone == null) {
+            timeZone = readTimeZone(reader);
+          }
+        }
+        case "StopPlace" -> readStopPlace(reader);
+        default -> {
+          // Not needed for validation.
+        }
+      }
+    }
+  }
+
+  /**
+   * Read a stop place and its quays, from its start element to its end element.
+   */
+  private void readStopPlace(XMLStreamReader reader)
+    throws XMLStreamException {
+    String id = reader.getAttributeValue(null, "id");
+    String version = reader.getAttributeValue(null, "version");
+    StopPlaceId stopPlaceId = new StopPlaceId(id);
+    String name = "";
+    String transportMode = null;
+    Map<String, String> submodes = new HashMap<>();
+
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == END_ELEMENT) {
+        depth--;
+      } else if (event == START_ELEMENT) {
+        String element = reader.getLocalName();
+        if (depth > 1) {
+          depth++;
+        } else if ("Name".equals(element)) {
+          name = readText(reader);
+        } else if ("TransportMode".equals(element)) {
+          transportMode = readText(reader).trim();
+        } else if (element.endsWith("Submode")) {
+          submodes.put(element, readText(reader).trim());
+        } else if ("quays".equals(element)) {
+          readQuays(reader, stopPlaceId);
+        } else {
+          depth++;
+        }
+      }
+    }
+
+    if (isLatestVersion(stopPlaceVersions, id, version)) {
+      stopPlaces.put(
+        stopPlaceId,
+        new SimpleStopPlace(
+          name,
+          transportModeAndSubMode(transportMode, submodes)
+        )
+      );
+    }
+  }
+
+  private void readQuays(XMLStreamReader reader, StopPlaceId stopPlaceId)
+    throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == END_ELEMENT) {
+        depth--;
+      } else if (event == START_ELEMENT) {
+        if (depth == 1 && "Quay".equals(reader.getLocalName())) {
+          readQuay(reader, stopPlaceId);
+        } else {
+          depth++;
+        }
+      }
+    }
+  }
+
+  private void readQuay(XMLStreamReader reader, StopPlaceId stopPlaceId)
+    throws XMLStreamException {
+    String id = reader.getAttributeValue(null, "id");
+    String version = reader.getAttributeValue(null, "version");
+    QuayCoordinates quayCoordinates = null;
+
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == END_ELEMENT) {
+        depth--;
+      } else if (event == START_ELEMENT) {
+        if (depth == 1 && "Centroid".equals(reader.getLocalName())) {
+          quayCoordinates = readCentroid(reader);
+        } else {
+          depth++;
+        }
+      }
+    }
+
+    if (isLatestVersion(quayVersions, id, version)) {
+      quays.put(new QuayId(id), new SimpleQuay(quayCoordinates, stopPlaceId));
+    }
+  }
+
+  /**
+   * Read the location of a centroid, or null if it does not have both a longitude and a latitude.
+   */
+  private static QuayCoordinates readCentroid(XMLStreamReader reader)
+    throws XMLStreamException {
+    String longitude = null;
+    String latitude = null;
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == END_ELEMENT) {
+        depth--;
+      } else if (event == START_ELEMENT) {
+        String element = reader.getLocalName();
+        if ("Longitude".equals(element)) {
+          longitude = readText(reader).trim();
+        } else if ("Latitude".equals(element)) {
+          latitude = readText(reader).trim();
+        } else {
+          depth++;
+        }
+      }
+    }
+    if (longitude == null || latitude == null) {
+      return null;
+    }
+    return new QuayCoordinates(
+      Double.parseDouble(longitude),
+      Double.parseDouble(latitude)
+    );
+  }
+
+  private static String readTimeZone(XMLStreamReader reader)
+    throws XMLStreamException {
+    String timeZone = null;
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == END_ELEMENT) {
+        depth--;
+      } else if (event == START_ELEMENT) {
+        if ("TimeZone".equals(reader.getLocalName())) {
+          timeZone = readText(reader).trim();
+        } else {
+          depth++;
+        }
+      }
+    }
+    return timeZone;
+  }
+
+  /**
+   * The mode of the stop place, and the submode element that goes with it, see {@link #SUBMODE_ELEMENTS}.
+   */
+  private static TransportModeAndSubMode transportModeAndSubMode(
+    String transportMode,
+    Map<String, String> submodes
+  ) {
+    if (transportMode == null || transportMode.isEmpty()) {
+      return null;
+    }
+    AllVehicleModesOfTransportEnumeration mode;
+    try {
+      mode = AllVehicleModesOfTransportEnumeration.fromValue(transportMode);
+    } catch (IllegalArgumentException e) {
+      // Unknown to the NeTEx model, as JAXB would have it.
+      return null;
+    }
+    String submodeElement = SUBMODE_ELEMENTS.get(mode);
+    String submode = submodeElement == null
+      ? null
+      : submodes.get(submodeElement);
+    return new TransportModeAndSubMode(
+      mode,
+      submode == null || submode.isEmpty()
+        ? null
+        : new TransportSubMode(submode)
+    );
+  }
+
+  /**
+   * Record the version of an entity, and return true if it is the latest seen so far.
+   */
+  private static boolean isLatestVersion(
+    Map<String, String> versions,
+    String id,
+    String version
+  ) {
+    String previous = versions.get(id);
+    if (previous != null && compareVersions(version, previous) < 0) {
+      return false;
+    }
+    versions.put(id, version);
+    return true;
+  }
+
+  private static int compareVersions(String version, String other) {
+    if (version == null || other == null) {
+      return version == null ? (other == null ? 0 : -1) : 1;
+    }
+    try {
+      return Long.compare(Long.parseLong(version), Long.parseLong(other));
+    } catch (NumberFormatException e) {
+      return version.compareTo(other);
+    }
+  }
+
+  private Instant publicationTime() {
+    if (publicationTimestamp == null) {
+      return null;
+    }
+    return publicationTimestamp
+      .atZone(ZoneId.of(timeZone == null ? DEFAULT_TIME_ZONE : timeZone))
+      .toInstant();
+  }
+
+  private static LocalDateTime parseTimestamp(String text) {
+    try {
+      return LocalDateTime.parse(text);
+    } catch (DateTimeParseException e) {
+      // With an offset: the local time is what the JAXB model keeps.
+      return OffsetDateTime.parse(text).toLocalDateTime();
+    }
+  }
+
+  /**
+   * The text of an element, from its start element to its end element. Unlike
+   * {@link XMLStreamReader#getElementText()}, this does not fail on nested elements, and concatenates
+   * their text.
+   */
+  private static String readText(XMLStreamReader reader)
+    throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == START_ELEMENT) {
+        depth++;
+      } else if (event == END_ELEMENT) {
+        depth--;
+      } else if (reader.hasText()) {
+        text.append(reader.getText());
+      }
+    }
+    return text.toString();
+  }
+
+  private static boolean isNetex(XMLStreamReader reader, String element) {
+    return (
+      element.equals(reader.getLocalName()) &&
+      NETEX_NAMESPACE.equals(reader.getNamespaceURI())
+    );
+  }
+
+  private static XMLInputFactory xmlInputFactory() {
+    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(
+      XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+      false
+    );
+    return xmlInputFactory;
+  }
+}
@@ -0,0 +1,216 @@
+package no.entur.antu.stop.snapshot;
+
+import static no.entur.antu.validation.utilities.SphericalDistanceLibrary.RADIUS_OF_EARTH_IN_M;
+
+import java.util.Arrays;
+import no.entur.antu.validation.utilities.SphericalDistanceLibrary;
+
+/**
+ * A spatial index of quay coordinates: the quays are bucketed in a grid of cells of
+ * {@link #CELL_SIZE_DEGREES} in latitude and longitude.
+ *
+ * <p>The non-empty cells are kept as a sorted array of cell keys, with the positions of their quays stored
+ * contiguously in a second array, so that the index is three primitive arrays and no object per quay or per
+ * cell. A radius query binary searches the few cells that overlap the bounding box of the circle and
+ * measures the distance to the quays they hold, instead of scanning every quay in the country. The cells
+ * searched are cut to the rows and columns that hold quays, so that a wide radius does not search the sea
+ * and the rest of the world cell by cell.
+ */
+final class QuayGrid {
+
+  /** About 1.1 km north-south, and 550 m east-west in southern Norway. */
+  static final double CELL_SIZE_DEGREES = 0.01;
+
+  private static final long COLUMNS = (long) Math.ceil(
+    360 / CELL_SIZE_DEGREES
+  );
+  private static final double METERS_PER_DEGREE_OF_LATITUDE =
+    RADIUS_OF_EARTH_IN_M * Math.PI / 180;
+
+  private final double[] longitudes;
+  private final double[] latitudes;
+
+  /** The keys of the non-empty cells, sorted. */
+  private final long[] cellKeys;
+
+  /** The quays of cell i are at cellStarts[i] to cellStarts[i + 1] in {@link #quayPositions}. */
+  private final int[] cellStarts;
+
+  private final int[] quayPositions;
+
+  /** The bounds of the rows and columns that hold quays. */
+  private final long minRow;
+
+  private final long maxRow;
+  private final long minColumn;
+  private final long maxColumn;
+
+  /**
+   * @param longitudes the longitude of each quay, NaN for a quay without coordinates. Not copied.
+   * @param latitudes  the latitude of each quay. Not copied.
+   */
+  QuayGrid(double[] longitudes, double[] latitudes) {
+    this.longitudes = longitudes;
+    this.latitudes = latitudes;
+
+    // Each quay with coordinates as its cell key in the high bits and its position in the low bits, so that
+    // a primitive sort groups the quays by cell.
+    long[] entries = new long[longitudes.length];
+    int count = 0;
+    for (int position = 0; position < longitudes.length; position++) {
+      if (!Double.isNaN(longitudes[position])) {
+        long key = cellKey(
+          row(latitudes[position]),
+          column(longitudes[position])
+        );
+        entries[count++] = key << 32 | position;
+      }
+    }
+    Arrays.sort(entries, 0, count);
+
+    quayPositions = new int[count];
+    long[] keys = new long[count];
+    int[] starts = new int[count + 1];
+    int cells = 0;
+    for (int i = 0; i < count; i++) {
+      long key = entries[i] >>> 32;
+      if (cells == 0 || keys[cells - 1] != key) {
+        keys[cells] = key;
+        starts[cells] = i;
+        cells++;
+      }
+      quayPositions[i] = (int) entries[i];
+    }
+    starts[cells] = count;
+    cellKeys = Arrays.copyOf(keys, cells);
+    cellStarts = Arrays.copyOf(starts, cells + 1);
+
+    long lowestRow = Long.MAX_VALUE;
+    long highestRow = Long.MIN_VALUE;
+    long lowestColumn = Long.MAX_VALUE;
+    long highestColumn = Long.MIN_VALUE;
+    for (long key : cellKeys) {
+      lowestRow = Math.min(lowestRow, key / COLUMNS);
+      highestRow = Math.max(highestRow, key / COLUMNS);
+      lowestColumn = Math.min(lowestColumn, key % COLUMNS);
+      highestColumn = Math.max(highestColumn, key % COLUMNS);
+    }
+    minRow = lowestRow;
+    maxRow = highestRow;
+    minColumn = lowestColumn;
+    maxColumn = highestColumn;
+  }
+
+  /**
+   * Return the positions of the quays within the radius of the point, the closest first.
+   */
+  int[] within(double longitude, double latitude, double radiusMeters) {
+    if (cellKeys.length == 0) {
+      return new int[0];
+    }
+    double latitudeDelta = radiusMeters / METERS_PER_DEGREE_OF_LATITUDE;
+    double cosLatitude = Math.cos(
+      Math.toRadians(Math.min(89, Math.abs(latitude) + latitudeDelta))
+    );
+    double longitudeDelta = Math.min(180, latitudeDelta / cosLatitude);
+
+    int found = 0;
+    int[] positions = new int[16];
+    double[] distances = new double[16];
+    long firstRow = Math.max(minRow, row(latitude - latitudeDelta));
+    long lastRow = Math.min(
+      maxRow,
+      row(Math.min(90, latitude + latitudeDelta))
+    );
+    long firstColumn = column(longitude - longitudeDelta);
+    long lastColumn = column(longitude + longitudeDelta);
+    if (lastColumn - firstColumn + 1 >= COLUMNS) {
+      // Around the globe: each column once.
+      firstColumn = 0;
+      lastColumn = COLUMNS - 1;
+    }
+    if (firstColumn >= 0 && lastColumn < COLUMNS) {
+      // Not across the antimeridian, where the columns wrap around.
+      firstColumn = Math.max(firstColumn, minColumn);
+      lastColumn = Math.min(lastColumn, maxColumn);
+    }
+    for (long row = firstRow; row <= lastRow; row++) {
+      for (long column = firstColumn; column <= lastColumn; column++) {
+        int cell = Arrays.binarySearch(cellKeys, cellKey(row, column));
+        if (cell < 0) {
+          continue;
+        }
+        for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+          int position = quayPositions[i];
+          double distance = SphericalDistanceLibrary.distance(
+            latitude,
+            longitude,
+            latitudes[position],
+            longitudes[position],
+            RADIUS_OF_EARTH_IN_M
+          );
+          if (distance <= radiusMeters) {
+            if (found == positions.length) {
+              positions = Arrays.copyOf(positions, found * 2);
+              distances = Arrays.copyOf(distances, found * 2);
+            }
+            positions[found] = position;
+            distances[found] = distance;
+            found++;
+          }
+        }
+      }
+    }
+    return byDistance(positions, distances, found);
+  }
+
+  /**
+   * Return the position of the closest quay within the given distance of the point, or -1 if there is
+   * none. The search starts with the neighbouring cells and widens until a quay is found.
+   */
+  int nearest(double longitude, double latitude, double maxDistanceMeters) {
+    double radius = Math.min(
+      maxDistanceMeters,
+      CELL_SIZE_DEGREES * METERS_PER_DEGREE_OF_LATITUDE
+    );
+    while (true) {
+      int[] positions = within(longitude, latitude, radius);
+      if (positions.length > 0) {
+        return positions[0];
+      }
+      if (radius >= maxDistanceMeters) {
+        return -1;
+      }
+      radius = Math.min(maxDistanceMeters, radius * 4);
+    }
+  }
+
+  private static int[] byDistance(
+    int[] positions,
+    double[] distances,
+    int count
+  ) {
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+    int[] sorted = new int[count];
+    for (int i = 0; i < count; i++) {
+      sorted[i] = positions[order[i]];
+    }
+    return sorted;
+  }
+
+  private static long row(double latitude) {
+    return (long) Math.floor((latitude + 90) / CELL_SIZE_DEGREES);
+  }
+
+  private static long column(double longitude) {
+    return (long) Math.floor((longitude + 180) / CELL_SIZE_DEGREES);
+  }
+
+  private static long cellKey(long row, long column) {
+    return row * COLUMNS + Math.floorMod(column, COLUMNS);
+  }
+}
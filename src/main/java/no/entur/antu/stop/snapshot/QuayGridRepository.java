@@ -0,0 +1,169 @@
+package no.entur.antu.stop.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import no.entur.antu.exception.QuayProximityUnavailableException;
+import no.entur.antu.stop.QuayProximityRepository;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.redisson.api.RMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Answers the spatial queries over the quays from a {@link QuayGrid} of the quay cache, held by this
+ * instance.
+ *
+ * <p>The grid is built on the first query only, so that an instance that never answers one does not read
+ * the whole quay cache. From then on it is rebuilt the same way as a {@link StopPlaceSnapshot}, whether the
+ * snapshot is enabled or not: the instance compares the shared {@link StopPlaceVersionRepository version},
+ * increased after every write to the caches, with the one of its grid on a schedule, and builds a new grid
+ * from the quay cache when they differ. Until the caches are primed there is no grid, and the queries throw
+ * {@link QuayProximityUnavailableException}.
+ */
+public class QuayGridRepository implements QuayProximityRepository {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+    QuayGridRepository.class
+  );
+
+  private final Map<QuayId, SimpleQuay> quayCache;
+  private final StopPlaceVersionRepository stopPlaceVersionRepository;
+
+  private volatile IndexedQuays indexedQuays;
+  private volatile boolean queried;
+
+  public QuayGridRepository(
+    Map<QuayId, SimpleQuay> quayCache,
+    StopPlaceVersionRepository stopPlaceVersionRepository
+  ) {
+    this.quayCache = quayCache;
+    this.stopPlaceVersionRepository = stopPlaceVersionRepository;
+  }
+
+  @Override
+  public List<QuayId> quaysWithin(
+    QuayCoordinates center,
+    double radiusMeters
+  ) {
+    IndexedQuays current = current();
+    int[] positions = current.grid().within(
+      center.longitude(),
+      center.latitude(),
+      radiusMeters
+    );
+    List<QuayId> quays = new ArrayList<>(positions.length);
+    for (int position : positions) {
+      quays.add(new QuayId(current.quayIds()[position]));
+    }
+    return quays;
+  }
+
+  @Override
+  public Optional<QuayId> nearestQuay(
+    QuayCoordinates center,
+    double maxDistanceMeters
+  ) {
+    IndexedQuays current = current();
+    int position = current
+      .grid()
+      .nearest(center.longitude(), center.latitude(), maxDistanceMeters);
+    return position < 0
+      ? Optional.empty()
+      : Optional.of(new QuayId(current.quayIds()[position]));
+  }
+
+  /**
+   * Build a new grid if the caches have changed since the current one was built. Nothing is done until
+   * the grid has been queried once.
+   */
+  @Scheduled(
+    fixedDelayString = "${antu.stop.quay.grid.poll.millis:30000}",
+    initialDelay = 0
+  )
+  public void refreshGrid() {
+    if (queried) {
+      buildGrid();
+    }
+  }
+
+  private synchronized void buildGrid() {
+    try {
+      // Read before the cache, for the reason given in SnapshotStopPlaceRepository.refreshSnapshot.
+      long version = stopPlaceVersionRepository.getVersion();
+      IndexedQuays current = indexedQuays;
+      if (current != null && current.version() == version) {
+        return;
+      }
+      Map<QuayId, SimpleQuay> quays = readAll(quayCache);
+      if (quays.isEmpty()) {
+        LOGGER.info("Quay cache not primed, no quay grid built yet");
+        return;
+      }
+      long start = System.currentTimeMillis();
+      indexedQuays = IndexedQuays.of(version, quays);
+      LOGGER.info(
+        "Built quay grid version {} with {} quays in {} ms",
+        version,
+        quays.size(),
+        System.currentTimeMillis() - start
+      );
+    } catch (Exception e) {
+      // The current grid keeps serving the queries.
+      LOGGER.warn("Failed to refresh the quay grid", e);
+    }
+  }
+
+  private IndexedQuays current() {
+    IndexedQuays current = indexedQuays;
+    if (current == null) {
+      queried = true;
+      buildGrid();
+      current = indexedQuays;
+    }
+    if (current == null) {
+      throw new QuayProximityUnavailableException(
+        "The quays are not indexed on this instance yet"
+      );
+    }
+    return current;
+  }
+
+  private static <K, V> Map<K, V> readAll(Map<K, V> cache) {
+    if (cache instanceof RMap<K, V> redisMap) {
+      return redisMap.readAllMap();
+    }
+    return new HashMap<>(cache);
+  }
+
+  /**
+   * @param quayIds the id of the quay at each position of the grid.
+   */
+  private record IndexedQuays(long version, String[] quayIds, QuayGrid grid) {
+    static IndexedQuays of(long version, Map<QuayId, SimpleQuay> quays) {
+      String[] quayIds = new String[quays.size()];
+      double[] longitudes = new double[quays.size()];
+      double[] latitudes = new double[quays.size()];
+      int position = 0;
+      for (Map.Entry<QuayId, SimpleQuay> entry : quays.entrySet()) {
+        QuayCoordinates coordinates = entry.getValue().quayCoordinates();
+        quayIds[position] = entry.getKey().id();
+        longitudes[position] =
+          coordinates == null ? Double.NaN : coordinates.longitude();
+        latitudes[position] =
+          coordinates == null ? Double.NaN : coordinates.latitude();
+        position++;
+      }
+      return new IndexedQuays(
+        version,
+        quayIds,
+        new QuayGrid(longitudes, latitudes)
+      );
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package no.entur.antu.stop.snapshot;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+
+/**
+ * Stop place cache version stored in a Redis counter, with the changes of the latest versions in a Redis
+ * map keyed by version.
+ */
+public class RedisStopPlaceVersionRepository
+  implements StopPlaceVersionRepository {
+
+  private static final String STOP_PLACE_CACHE_VERSION =
+    "stopPlaceCacheVersion";
+
+  private static final String STOP_PLACE_CACHE_CHANGES =
+    "stopPlaceCacheChanges";
+
+  /**
+   * How many versions back the changes are kept. An instance further behind rebuilds its snapshot.
+   */
+  private static final int RECORDED_VERSIONS = 1000;
+
+  private final RedissonClient redissonClient;
+
+  public RedisStopPlaceVersionRepository(RedissonClient redissonClient) {
+    this.redissonClient = redissonClient;
+  }
+
+  @Override
+  public long getVersion() {
+    return redissonClient.getAtomicLong(STOP_PLACE_CACHE_VERSION).get();
+  }
+
+  @Override
+  public void incrementVersion() {
+    redissonClient.getAtomicLong(STOP_PLACE_CACHE_VERSION).incrementAndGet();
+  }
+
+  /**
+   * The change is recorded after the version is increased: an instance that polls in between finds it
+   * missing and rebuilds its snapshot, which is slower but not wrong.
+   */
+  @Override
+  public void incrementVersion(StopPlaceCacheChange change) {
+    long version = redissonClient
+      .getAtomicLong(STOP_PLACE_CACHE_VERSION)
+      .incrementAndGet();
+    RMap<Long, StopPlaceCacheChange> changes = changes();
+    changes.fastPut(version, change);
+    changes.fastRemove(version - RECORDED_VERSIONS);
+  }
+
+  @Override
+  public Optional<StopPlaceCacheChange> changesBetween(
+    long fromVersion,
+    long toVersion
+  ) {
+    if (
+      toVersion <= fromVersion || toVersion - fromVersion > RECORDED_VERSIONS
+    ) {
+      return Optional.empty();
+    }
+    Set<Long> versions = LongStream
+      .rangeClosed(fromVersion + 1, toVersion)
+      .boxed()
+      .collect(Collectors.toSet());
+    Map<Long, StopPlaceCacheChange> recorded = changes().getAll(versions);
+    if (recorded.size() != versions.size()) {
+      return Optional.empty();
+    }
+    return recorded.values().stream().reduce(StopPlaceCacheChange::merge);
+  }
+
+  private RMap<Long, StopPlaceCacheChange> changes() {
+    return redissonClient.getMap(STOP_PLACE_CACHE_CHANGES);
+  }
+}
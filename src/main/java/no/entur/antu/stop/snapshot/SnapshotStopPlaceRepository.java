@@ -0,0 +1,322 @@
+package no.entur.antu.stop.snapshot;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import no.entur.antu.stop.ResolvedQuay;
+import no.entur.antu.stop.StopPlaceRepositoryLoader;
+import no.entur.antu.stop.loader.StopPlacesDataset;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+import org.redisson.api.RMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Serves the quay lookups of the validators from a {@link StopPlaceSnapshot} held by this instance, and
+ * passes everything else to the repository backed by the distributed caches.
+ *
+ * <p>Every write through this repository increases the shared {@link StopPlaceVersionRepository version},
+ * see {@link VersionedStopPlaceRepository}. Each instance compares that version with the one of its snapshot
+ * on a schedule, and when they differ builds a new snapshot and swaps it in. A burst of changelog updates
+ * therefore costs one rebuild per instance, and a lookup reads one reference and never sees a half-built
+ * snapshot. Lookups may lag a write by up to the polling interval.
+ *
+ * <p>When the versions since the snapshot are all changelog updates, the new snapshot is the current one
+ * with the stop places and quays they changed read again, rather than the whole caches: see
+ * {@link StopPlaceCacheChange}. After a refresh, or when the changes are no longer recorded, it is built
+ * from the whole caches.
+ *
+ * <p>Until the caches are primed, the snapshot is built from the copy of the dataset saved by the last
+ * refresh in the {@link StopPlaceSnapshotStore}, if there is one, and otherwise there is no snapshot and
+ * lookups go to the caches. The copy saved on a refresh is the content of the caches at that point.
+ */
+public class SnapshotStopPlaceRepository extends VersionedStopPlaceRepository {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+    SnapshotStopPlaceRepository.class
+  );
+
+  /**
+   * The version of a snapshot loaded from the {@link StopPlaceSnapshotStore}: the shared version counts up
+   * from 0.
+   */
+  private static final long SAVED_SNAPSHOT_VERSION = -1;
+
+  private final Map<StopPlaceId, SimpleStopPlace> stopPlaceCache;
+  private final Map<QuayId, SimpleQuay> quayCache;
+  private final StopPlaceVersionRepository stopPlaceVersionRepository;
+  private final StopPlaceSnapshotStore stopPlaceSnapshotStore;
+
+  private volatile StopPlaceSnapshot snapshot;
+
+  /**
+   * @param delegate       the repository the writes go to, and the lookups while there is no snapshot.
+   * @param stopPlaceCache the stop places written by the delegate, read when building a snapshot.
+   * @param quayCache      the quays written by the delegate, read when building a snapshot.
+   */
+  public SnapshotStopPlaceRepository(
+    StopPlaceRepositoryLoader delegate,
+    Map<StopPlaceId, SimpleStopPlace> stopPlaceCache,
+    Map<QuayId, SimpleQuay> quayCache,
+    StopPlaceVersionRepository stopPlaceVersionRepository
+  ) {
+    this(delegate, stopPlaceCache, quayCache, stopPlaceVersionRepository, null);
+  }
+
+  /**
+   * @param stopPlaceSnapshotStore where the dataset is saved after a refresh and loaded from while the
+   *                               caches are not primed, or null to do neither.
+   */
+  public SnapshotStopPlaceRepository(
+    StopPlaceRepositoryLoader delegate,
+    Map<StopPlaceId, SimpleStopPlace> stopPlaceCache,
+    Map<QuayId, SimpleQuay> quayCache,
+    StopPlaceVersionRepository stopPlaceVersionRepository,
+    StopPlaceSnapshotStore stopPlaceSnapshotStore
+  ) {
+    super(delegate, stopPlaceVersionRepository);
+    this.stopPlaceCache = stopPlaceCache;
+    this.quayCache = quayCache;
+    this.stopPlaceVersionRepository = stopPlaceVersionRepository;
+    this.stopPlaceSnapshotStore = stopPlaceSnapshotStore;
+  }
+
+  @Override
+  public boolean hasStopPlaceId(StopPlaceId stopPlaceId) {
+    StopPlaceSnapshot current = snapshot;
+    return current == null
+      ? super.hasStopPlaceId(stopPlaceId)
+      : current.hasStopPlaceId(stopPlaceId);
+  }
+
+  @Override
+  public boolean hasQuayId(QuayId quayId) {
+    StopPlaceSnapshot current = snapshot;
+    return current == null
+      ? super.hasQuayId(quayId)
+      : current.hasQuayId(quayId);
+  }
+
+  @Override
+  public Set<QuayId> findQuayIds(Set<QuayId> quayIds) {
+    StopPlaceSnapshot current = snapshot;
+    if (current == null) {
+      return super.findQuayIds(quayIds);
+    }
+    Set<QuayId> found = new HashSet<>();
+    for (QuayId quayId : quayIds) {
+      if (current.hasQuayId(quayId)) {
+        found.add(quayId);
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public Map<QuayId, ResolvedQuay> resolveQuays(Set<QuayId> quayIds) {
+    StopPlaceSnapshot current = snapshot;
+    if (current == null) {
+      return super.resolveQuays(quayIds);
+    }
+    Map<QuayId, ResolvedQuay> resolvedQuays = new HashMap<>();
+    for (QuayId quayId : quayIds) {
+      if (current.hasQuayId(quayId)) {
+        resolvedQuays.put(
+          quayId,
+          new ResolvedQuay(
+            current.getCoordinatesForQuayId(quayId),
+            current.getTransportModesForQuayId(quayId),
+            current.getStopPlaceNameForQuayId(quayId)
+          )
+        );
+      }
+    }
+    return resolvedQuays;
+  }
+
+  @Override
+  public TransportModeAndSubMode getTransportModesForQuayId(QuayId quayId) {
+    StopPlaceSnapshot current = snapshot;
+    return current == null
+      ? super.getTransportModesForQuayId(quayId)
+      : current.getTransportModesForQuayId(quayId);
+  }
+
+  @Override
+  public QuayCoordinates getCoordinatesForQuayId(QuayId quayId) {
+    StopPlaceSnapshot current = snapshot;
+    return current == null
+      ? super.getCoordinatesForQuayId(quayId)
+      : current.getCoordinatesForQuayId(quayId);
+  }
+
+  @Override
+  public String getStopPlaceNameForQuayId(QuayId quayId) {
+    StopPlaceSnapshot current = snapshot;
+    return current == null
+      ? super.getStopPlaceNameForQuayId(quayId)
+      : current.getStopPlaceNameForQuayId(quayId);
+  }
+
+  @Override
+  public Instant refreshCache() {
+    Instant publicationTime = super.refreshCache();
+    if (stopPlaceSnapshotStore != null) {
+      try {
+        stopPlaceSnapshotStore.save(
+          new StopPlacesDataset(
+            readAll(stopPlaceCache),
+            readAll(quayCache),
+            publicationTime
+          )
+        );
+      } catch (Exception e) {
+        // The caches are refreshed: only the next cold start is slower.
+        LOGGER.warn("Failed to save the stop place snapshot", e);
+      }
+    }
+    return publicationTime;
+  }
+
+  /**
+   * Build a new snapshot if the caches have changed since the current one was built.
+   */
+  @Scheduled(
+    fixedDelayString = "${antu.stop.snapshot.poll.millis:30000}",
+    initialDelay = 0
+  )
+  public void refreshSnapshot() {
+    try {
+      // Read before the caches: a write that lands while the snapshot is built leaves the version ahead of
+      // the snapshot, and the next poll builds another one.
+      long version = stopPlaceVersionRepository.getVersion();
+      StopPlaceSnapshot current = snapshot;
+      if (current != null && current.version() == version) {
+        return;
+      }
+      if (isEmpty()) {
+        if (current == null) {
+          loadSavedSnapshot();
+        } else {
+          LOGGER.info(
+            "Stop place cache not primed, keeping the current snapshot"
+          );
+        }
+        return;
+      }
+      long start = System.currentTimeMillis();
+      if (current != null && current.version() != SAVED_SNAPSHOT_VERSION) {
+        Optional<StopPlaceCacheChange> change =
+          stopPlaceVersionRepository.changesBetween(
+            current.version(),
+            version
+          );
+        if (change.isPresent()) {
+          applyChange(current, version, change.get(), start);
+          return;
+        }
+      }
+      StopPlaceSnapshot newSnapshot = StopPlaceSnapshot.of(
+        version,
+        readAll(stopPlaceCache),
+        readAll(quayCache)
+      );
+      snapshot = newSnapshot;
+      LOGGER.info(
+        "Built stop place snapshot version {} with {} stop places and {} quays in {} ms",
+        version,
+        newSnapshot.stopPlaceCount(),
+        newSnapshot.quayCount(),
+        System.currentTimeMillis() - start
+      );
+    } catch (Exception e) {
+      // The current snapshot, or the caches, keep serving the lookups.
+      LOGGER.warn("Failed to refresh the stop place snapshot", e);
+    }
+  }
+
+  private void applyChange(
+    StopPlaceSnapshot current,
+    long version,
+    StopPlaceCacheChange change,
+    long start
+  ) {
+    snapshot =
+      current.withChanges(
+        version,
+        change,
+        getAll(stopPlaceCache, change.stopPlaceIds()),
+        getAll(quayCache, change.quayIds())
+      );
+    LOGGER.info(
+      "Applied {} stop place and {} quay changes to the stop place snapshot, now version {}, in {} ms",
+      change.stopPlaceIds().size(),
+      change.quayIds().size(),
+      version,
+      System.currentTimeMillis() - start
+    );
+  }
+
+  /**
+   * Build the snapshot from the saved copy of the dataset. It is given a version no build from the caches
+   * has, so that the first poll after the caches are primed replaces it.
+   */
+  private void loadSavedSnapshot() {
+    Optional<StopPlacesDataset> dataset = stopPlaceSnapshotStore == null
+      ? Optional.empty()
+      : stopPlaceSnapshotStore.load();
+    if (dataset.isEmpty()) {
+      LOGGER.info("Stop place cache not primed, no snapshot built yet");
+      return;
+    }
+    StopPlaceSnapshot newSnapshot = StopPlaceSnapshot.of(
+      SAVED_SNAPSHOT_VERSION,
+      dataset.get().stopPlaces(),
+      dataset.get().quays()
+    );
+    snapshot = newSnapshot;
+    LOGGER.info(
+      "Stop place cache not primed, loaded the saved snapshot published at {} with {} stop places and {} quays",
+      dataset.get().publicationTime(),
+      newSnapshot.stopPlaceCount(),
+      newSnapshot.quayCount()
+    );
+  }
+
+  /**
+   * Read the given entries in one round trip where the cache is a Redis map. The keys missing from the
+   * cache are missing from the result.
+   */
+  private static <K, V> Map<K, V> getAll(Map<K, V> cache, Set<K> keys) {
+    if (cache instanceof RMap<K, V> redisMap) {
+      return redisMap.getAll(keys);
+    }
+    Map<K, V> entries = new HashMap<>();
+    for (K key : keys) {
+      V value = cache.get(key);
+      if (value != null) {
+        entries.put(key, value);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Read a whole cache in one round trip where it is a Redis map, rather than entry by entry.
+   */
+  private static <K, V> Map<K, V> readAll(Map<K, V> cache) {
+    if (cache instanceof RMap<K, V> redisMap) {
+      return redisMap.readAllMap();
+    }
+    return new HashMap<>(cache);
+  }
+}
@@ -0,0 +1,54 @@
+package no.entur.antu.stop.snapshot;
+
+import java.util.HashSet;
+import java.util.Set;
+import no.entur.antu.stop.StopPlaceChanges;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+
+/**
+ * The stop places and quays a write to the caches created, updated or deleted, recorded with the version
+ * the write increased, so that an instance can apply them to its {@link StopPlaceSnapshot} instead of
+ * reading the whole caches again.
+ *
+ * <p>The sets are mutable so that the default codec of the Redis client can read them back.
+ */
+public record StopPlaceCacheChange(
+  Set<StopPlaceId> stopPlaceIds,
+  Set<QuayId> quayIds
+) {
+  public static StopPlaceCacheChange ofStopPlace(StopPlaceId stopPlaceId) {
+    return new StopPlaceCacheChange(
+      new HashSet<>(Set.of(stopPlaceId)),
+      new HashSet<>()
+    );
+  }
+
+  public static StopPlaceCacheChange ofQuay(QuayId quayId) {
+    return new StopPlaceCacheChange(
+      new HashSet<>(),
+      new HashSet<>(Set.of(quayId))
+    );
+  }
+
+  public static StopPlaceCacheChange of(StopPlaceChanges changes) {
+    Set<StopPlaceId> stopPlaceIds = new HashSet<>(
+      changes.stopPlaceUpdates().keySet()
+    );
+    stopPlaceIds.addAll(changes.stopPlaceDeletions());
+    Set<QuayId> quayIds = new HashSet<>(changes.quayUpdates().keySet());
+    quayIds.addAll(changes.quayDeletions());
+    return new StopPlaceCacheChange(stopPlaceIds, quayIds);
+  }
+
+  /**
+   * Return the stop places and quays changed by this write or the other one.
+   */
+  public StopPlaceCacheChange merge(StopPlaceCacheChange other) {
+    Set<StopPlaceId> mergedStopPlaceIds = new HashSet<>(stopPlaceIds);
+    mergedStopPlaceIds.addAll(other.stopPlaceIds());
+    Set<QuayId> mergedQuayIds = new HashSet<>(quayIds);
+    mergedQuayIds.addAll(other.quayIds());
+    return new StopPlaceCacheChange(mergedStopPlaceIds, mergedQuayIds);
+  }
+}
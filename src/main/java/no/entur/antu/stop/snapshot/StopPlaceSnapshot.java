@@ -0,0 +1,474 @@
+package no.entur.antu.stop.snapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+
+/**
+ * An immutable, in-heap copy of the stop place and quay caches, laid out for lookups.
+ *
+ * <p>Ids are positions in arrays: an open-addressing table maps the numeric part of an id such as
+ * {@code NSR:Quay:1234} to the position of the quay, and the coordinates and the stop place of the quay are
+ * read at that position from primitive arrays. A lookup hashes a long and reads a few array slots, instead of
+ * hashing the id record and going through the local cache of a Redisson map. The few ids that do not follow
+ * the NSR numbering are kept in an ordinary map.
+ *
+ * <p>The changes of the changelog updates are not written into the arrays, which would take a copy of all of
+ * them for every update: they are kept in small maps in front of the arrays, looked up first, and shared
+ * with the snapshot of the next update. Once they reach {@link #MAX_CHANGES} entries they are merged into new
+ * arrays, so that an update costs a copy of at most that many entries, and a full rebuild only every so
+ * many changes. The ids are kept for that merge.
+ */
+public final class StopPlaceSnapshot {
+
+  private static final String STOP_PLACE_ID_PREFIX = "NSR:StopPlace:";
+  private static final String QUAY_ID_PREFIX = "NSR:Quay:";
+  private static final int NO_STOP_PLACE = -1;
+
+  /**
+   * The most changed entries kept in front of the arrays: an update copies at most this many entries, and
+   * the some 150,000 stop places and quays of the registry are copied once every this many changed entries
+   * rather than on every update.
+   */
+  static final int MAX_CHANGES = 4096;
+
+  /** Marks a deleted entry among the changes. */
+  private static final SimpleStopPlace ABSENT_STOP_PLACE = new SimpleStopPlace(
+    null,
+    null
+  );
+
+  private static final SimpleQuay ABSENT_QUAY = new SimpleQuay(null, null);
+
+  private final long version;
+
+  private final List<String> stopPlaceIds;
+  private final IdIndex stopPlaceIndex;
+  private final String[] stopPlaceNames;
+  private final TransportModeAndSubMode[] stopPlaceModes;
+
+  private final List<String> quayIds;
+  private final IdIndex quayIndex;
+
+  /** NaN for a quay without coordinates. */
+  private final double[] quayLongitudes;
+
+  private final double[] quayLatitudes;
+
+  /** Position of the stop place of each quay, or {@link #NO_STOP_PLACE}. */
+  private final int[] quayStopPlaces;
+
+  /** The id of the stop place of each quay, whether the stop place is known or not, or null. */
+  private final String[] quayStopPlaceIds;
+
+  /** The stop places changed since the arrays were built, by id, or {@link #ABSENT_STOP_PLACE}. */
+  private final Map<String, SimpleStopPlace> stopPlaceChanges;
+
+  /** The quays changed since the arrays were built, by id, or {@link #ABSENT_QUAY}. */
+  private final Map<String, SimpleQuay> quayChanges;
+
+  private final int stopPlaceCount;
+  private final int quayCount;
+
+  private StopPlaceSnapshot(
+    long version,
+    Map<StopPlaceId, SimpleStopPlace> stopPlaces,
+    Map<QuayId, SimpleQuay> quays
+  ) {
+    this.version = version;
+
+    stopPlaceIds = new ArrayList<>(stopPlaces.size());
+    stopPlaceNames = new String[stopPlaces.size()];
+    stopPlaceModes = new TransportModeAndSubMode[stopPlaces.size()];
+    for (Map.Entry<StopPlaceId, SimpleStopPlace> entry : stopPlaces
+      .entrySet()) {
+      int position = stopPlaceIds.size();
+      stopPlaceIds.add(entry.getKey().id());
+      stopPlaceNames[position] = entry.getValue().name();
+      stopPlaceModes[position] = entry.getValue().transportModeAndSubMode();
+    }
+    stopPlaceIndex = new IdIndex(STOP_PLACE_ID_PREFIX, stopPlaceIds);
+
+    quayIds = new ArrayList<>(quays.size());
+    quayLongitudes = new double[quays.size()];
+    quayLatitudes = new double[quays.size()];
+    quayStopPlaces = new int[quays.size()];
+    quayStopPlaceIds = new String[quays.size()];
+    for (Map.Entry<QuayId, SimpleQuay> entry : quays.entrySet()) {
+      int position = quayIds.size();
+      quayIds.add(entry.getKey().id());
+      SimpleQuay quay = entry.getValue();
+      QuayCoordinates coordinates = quay.quayCoordinates();
+      quayLongitudes[position] =
+        coordinates == null ? Double.NaN : coordinates.longitude();
+      quayLatitudes[position] =
+        coordinates == null ? Double.NaN : coordinates.latitude();
+      quayStopPlaceIds[position] =
+        quay.stopPlaceId() == null ? null : quay.stopPlaceId().id();
+      quayStopPlaces[position] =
+        quay.stopPlaceId() == null
+          ? NO_STOP_PLACE
+          : stopPlaceIndex.positionOf(quay.stopPlaceId().id());
+    }
+    quayIndex = new IdIndex(QUAY_ID_PREFIX, quayIds);
+
+    stopPlaceChanges = Map.of();
+    quayChanges = Map.of();
+    stopPlaceCount = stopPlaceNames.length;
+    quayCount = quayStopPlaces.length;
+  }
+
+  /**
+   * Share the arrays of {@code indexed}, with the given changes in front of them.
+   */
+  private StopPlaceSnapshot(
+    StopPlaceSnapshot indexed,
+    long version,
+    Map<String, SimpleStopPlace> stopPlaceChanges,
+    Map<String, SimpleQuay> quayChanges
+  ) {
+    this.version = version;
+    stopPlaceIds = indexed.stopPlaceIds;
+    stopPlaceIndex = indexed.stopPlaceIndex;
+    stopPlaceNames = indexed.stopPlaceNames;
+    stopPlaceModes = indexed.stopPlaceModes;
+    quayIds = indexed.quayIds;
+    quayIndex = indexed.quayIndex;
+    quayLongitudes = indexed.quayLongitudes;
+    quayLatitudes = indexed.quayLatitudes;
+    quayStopPlaces = indexed.quayStopPlaces;
+    quayStopPlaceIds = indexed.quayStopPlaceIds;
+    this.stopPlaceChanges = stopPlaceChanges;
+    this.quayChanges = quayChanges;
+    stopPlaceCount =
+      countWithChanges(
+        stopPlaceNames.length,
+        stopPlaceIndex,
+        stopPlaceChanges,
+        ABSENT_STOP_PLACE
+      );
+    quayCount =
+      countWithChanges(
+        quayStopPlaces.length,
+        quayIndex,
+        quayChanges,
+        ABSENT_QUAY
+      );
+  }
+
+  /**
+   * Copy the given stop places and quays. The maps are not referenced after this returns.
+   *
+   * @param version the version of the caches the maps were read from.
+   */
+  public static StopPlaceSnapshot of(
+    long version,
+    Map<StopPlaceId, SimpleStopPlace> stopPlaces,
+    Map<QuayId, SimpleQuay> quays
+  ) {
+    return new StopPlaceSnapshot(version, stopPlaces, quays);
+  }
+
+  /**
+   * Return a snapshot of the caches once the given change is applied to them.
+   *
+   * @param version           the version of the caches the change brought them to.
+   * @param changedStopPlaces the stop places of the change, as they are now. Those missing were deleted.
+   * @param changedQuays      the quays of the change, as they are now. Those missing were deleted.
+   */
+  public StopPlaceSnapshot withChanges(
+    long version,
+    StopPlaceCacheChange change,
+    Map<StopPlaceId, SimpleStopPlace> changedStopPlaces,
+    Map<QuayId, SimpleQuay> changedQuays
+  ) {
+    Map<String, SimpleStopPlace> newStopPlaceChanges = new HashMap<>(
+      stopPlaceChanges
+    );
+    change
+      .stopPlaceIds()
+      .forEach(id -> newStopPlaceChanges.put(id.id(), ABSENT_STOP_PLACE));
+    changedStopPlaces.forEach((id, stopPlace) ->
+      newStopPlaceChanges.put(id.id(), stopPlace)
+    );
+
+    Map<String, SimpleQuay> newQuayChanges = new HashMap<>(quayChanges);
+    change.quayIds().forEach(id -> newQuayChanges.put(id.id(), ABSENT_QUAY));
+    changedQuays.forEach((id, quay) -> newQuayChanges.put(id.id(), quay));
+
+    if (newStopPlaceChanges.size() + newQuayChanges.size() > MAX_CHANGES) {
+      return new StopPlaceSnapshot(
+        version,
+        stopPlacesWith(newStopPlaceChanges),
+        quaysWith(newQuayChanges)
+      );
+    }
+    return new StopPlaceSnapshot(
+      this,
+      version,
+      newStopPlaceChanges,
+      newQuayChanges
+    );
+  }
+
+  /**
+   * The stop places of the arrays, with the given changes applied.
+   */
+  private Map<StopPlaceId, SimpleStopPlace> stopPlacesWith(
+    Map<String, SimpleStopPlace> changes
+  ) {
+    Map<StopPlaceId, SimpleStopPlace> stopPlaces = new HashMap<>();
+    for (int position = 0; position < stopPlaceIds.size(); position++) {
+      stopPlaces.put(
+        new StopPlaceId(stopPlaceIds.get(position)),
+        new SimpleStopPlace(stopPlaceNames[position], stopPlaceModes[position])
+      );
+    }
+    changes.forEach((id, stopPlace) -> {
+      if (stopPlace == ABSENT_STOP_PLACE) {
+        stopPlaces.remove(new StopPlaceId(id));
+      } else {
+        stopPlaces.put(new StopPlaceId(id), stopPlace);
+      }
+    });
+    return stopPlaces;
+  }
+
+  /**
+   * The quays of the arrays, with the given changes applied.
+   */
+  private Map<QuayId, SimpleQuay> quaysWith(Map<String, SimpleQuay> changes) {
+    Map<QuayId, SimpleQuay> quays = new HashMap<>();
+    for (int position = 0; position < quayIds.size(); position++) {
+      quays.put(
+        new QuayId(quayIds.get(position)),
+        new SimpleQuay(
+          Double.isNaN(quayLongitudes[position])
+            ? null
+            : new QuayCoordinates(
+              quayLongitudes[position],
+              quayLatitudes[position]
+            ),
+          quayStopPlaceIds[position] == null
+            ? null
+            : new StopPlaceId(quayStopPlaceIds[position])
+        )
+      );
+    }
+    changes.forEach((id, quay) -> {
+      if (quay == ABSENT_QUAY) {
+        quays.remove(new QuayId(id));
+      } else {
+        quays.put(new QuayId(id), quay);
+      }
+    });
+    return quays;
+  }
+
+  private static int countWithChanges(
+    int indexedCount,
+    IdIndex index,
+    Map<String, ?> changes,
+    Object absent
+  ) {
+    int count = indexedCount;
+    for (Map.Entry<String, ?> entry : changes.entrySet()) {
+      boolean indexed = index.positionOf(entry.getKey()) != IdIndex.ABSENT;
+      boolean present = entry.getValue() != absent;
+      if (indexed && !present) {
+        count--;
+      } else if (!indexed && present) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  public int stopPlaceCount() {
+    return stopPlaceCount;
+  }
+
+  public int quayCount() {
+    return quayCount;
+  }
+
+  public boolean hasStopPlaceId(StopPlaceId stopPlaceId) {
+    SimpleStopPlace changed = stopPlaceChanges.get(stopPlaceId.id());
+    if (changed != null) {
+      return changed != ABSENT_STOP_PLACE;
+    }
+    return stopPlaceIndex.positionOf(stopPlaceId.id()) != IdIndex.ABSENT;
+  }
+
+  public boolean hasQuayId(QuayId quayId) {
+    SimpleQuay changed = quayChanges.get(quayId.id());
+    if (changed != null) {
+      return changed != ABSENT_QUAY;
+    }
+    return quayIndex.positionOf(quayId.id()) != IdIndex.ABSENT;
+  }
+
+  public QuayCoordinates getCoordinatesForQuayId(QuayId quayId) {
+    SimpleQuay changed = quayChanges.get(quayId.id());
+    if (changed != null) {
+      return changed.quayCoordinates();
+    }
+    int quay = quayIndex.positionOf(quayId.id());
+    if (quay == IdIndex.ABSENT || Double.isNaN(quayLongitudes[quay])) {
+      return null;
+    }
+    return new QuayCoordinates(quayLongitudes[quay], quayLatitudes[quay]);
+  }
+
+  public TransportModeAndSubMode getTransportModesForQuayId(QuayId quayId) {
+    SimpleStopPlace changed = changedStopPlaceOf(quayId);
+    if (changed != null) {
+      return changed.transportModeAndSubMode();
+    }
+    int stopPlace = stopPlaceOf(quayId);
+    return stopPlace == NO_STOP_PLACE ? null : stopPlaceModes[stopPlace];
+  }
+
+  public String getStopPlaceNameForQuayId(QuayId quayId) {
+    SimpleStopPlace changed = changedStopPlaceOf(quayId);
+    if (changed != null) {
+      return changed.name();
+    }
+    int stopPlace = stopPlaceOf(quayId);
+    return stopPlace == NO_STOP_PLACE ? null : stopPlaceNames[stopPlace];
+  }
+
+  private int stopPlaceOf(QuayId quayId) {
+    int quay = quayIndex.positionOf(quayId.id());
+    return quay == IdIndex.ABSENT ? NO_STOP_PLACE : quayStopPlaces[quay];
+  }
+
+  /**
+   * The stop place of the quay as it is now, {@link #ABSENT_STOP_PLACE} if it has none, or null if neither
+   * the quay nor its stop place has changed since the arrays were built, which then still hold it.
+   */
+  private SimpleStopPlace changedStopPlaceOf(QuayId quayId) {
+    if (stopPlaceChanges.isEmpty() && quayChanges.isEmpty()) {
+      return null;
+    }
+    SimpleQuay changedQuay = quayChanges.get(quayId.id());
+    String stopPlaceId;
+    if (changedQuay != null) {
+      if (changedQuay.stopPlaceId() == null) {
+        return ABSENT_STOP_PLACE;
+      }
+      stopPlaceId = changedQuay.stopPlaceId().id();
+    } else {
+      int quay = quayIndex.positionOf(quayId.id());
+      if (quay == IdIndex.ABSENT || quayStopPlaceIds[quay] == null) {
+        return null;
+      }
+      stopPlaceId = quayStopPlaceIds[quay];
+    }
+    SimpleStopPlace changedStopPlace = stopPlaceChanges.get(stopPlaceId);
+    if (changedStopPlace != null || changedQuay == null) {
+      return changedStopPlace;
+    }
+    int stopPlace = stopPlaceIndex.positionOf(stopPlaceId);
+    return stopPlace == IdIndex.ABSENT
+      ? ABSENT_STOP_PLACE
+      : new SimpleStopPlace(
+        stopPlaceNames[stopPlace],
+        stopPlaceModes[stopPlace]
+      );
+  }
+
+  /**
+   * Maps ids to their positions. Ids made of the prefix and a positive number are looked up in an
+   * open-addressing table keyed by the number, with linear probing; 0 marks a free slot. Any other id is
+   * looked up in a map.
+   */
+  static final class IdIndex {
+
+    static final int ABSENT = -1;
+
+    private final String prefix;
+    private final long[] keys;
+    private final int[] positions;
+    private final int mask;
+    private final Map<String, Integer> otherIds = new HashMap<>();
+
+    IdIndex(String prefix, List<String> ids) {
+      this.prefix = prefix;
+      // At most half full, so that probe sequences stay short.
+      int capacity =
+        Integer.highestOneBit(Math.max(2, ids.size()) * 2 - 1) << 1;
+      keys = new long[capacity];
+      positions = new int[capacity];
+      mask = capacity - 1;
+      for (int position = 0; position < ids.size(); position++) {
+        String id = ids.get(position);
+        long number = numberOf(id);
+        if (number > 0) {
+          int slot = slotOf(number);
+          while (keys[slot] != 0 && keys[slot] != number) {
+            slot = (slot + 1) & mask;
+          }
+          keys[slot] = number;
+          positions[slot] = position;
+        } else {
+          otherIds.put(id, position);
+        }
+      }
+    }
+
+    int positionOf(String id) {
+      long number = numberOf(id);
+      if (number <= 0) {
+        return otherIds.getOrDefault(id, ABSENT);
+      }
+      int slot = slotOf(number);
+      while (keys[slot] != 0) {
+        if (keys[slot] == number) {
+          return positions[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      return ABSENT;
+    }
+
+    private int slotOf(long number) {
+      // Fibonacci hashing: spreads consecutive ids over the whole table.
+      return (int) ((number * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * The number after the prefix, or -1 if the id is not the prefix followed by up to 18 digits. A leading
+     * zero also gives -1, so that two different ids never share a number.
+     */
+    private long numberOf(String id) {
+      if (id == null || !id.startsWith(prefix)) {
+        return -1;
+      }
+      int length = id.length() - prefix.length();
+      if (length == 0 || length > 18 || id.charAt(prefix.length()) == '0') {
+        return -1;
+      }
+      long number = 0;
+      for (int i = prefix.length(); i < id.length(); i++) {
+        char c = id.charAt(i);
+        if (c < '0' || c > '9') {
+          return -1;
+        }
+        number = number * 10 + (c - '0');
+      }
+      return number;
+    }
+  }
+}
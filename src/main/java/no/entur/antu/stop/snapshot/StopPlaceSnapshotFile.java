@@ -0,0 +1,172 @@
+package no.entur.antu.stop.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import no.entur.antu.stop.loader.StopPlacesDataset;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+import org.entur.netex.validation.validator.model.TransportSubMode;
+import org.rutebanken.netex.model.AllVehicleModesOfTransportEnumeration;
+
+/**
+ * The binary file format of a persisted stop place dataset.
+ *
+ * <p>A header (magic number, format version, publication time in epoch milliseconds or -1), then the
+ * stop places (id, name, mode, submode) and the quays (id, longitude, latitude, stop place id), each list
+ * preceded by its length. Strings are length-prefixed UTF-8, with -1 for null; a quay without coordinates
+ * has NaN coordinates. The file is read through a memory mapping, without copying it to the heap first.
+ */
+final class StopPlaceSnapshotFile {
+
+  private static final int MAGIC = 0x414e5350; // "ANSP"
+  private static final int FORMAT_VERSION = 1;
+  private static final int NULL_STRING = -1;
+
+  private StopPlaceSnapshotFile() {}
+
+  static void write(StopPlacesDataset dataset, OutputStream outputStream)
+    throws IOException {
+    DataOutputStream out = new DataOutputStream(
+      new BufferedOutputStream(outputStream)
+    );
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeLong(
+      dataset.publicationTime() == null
+        ? -1
+        : dataset.publicationTime().toEpochMilli()
+    );
+
+    out.writeInt(dataset.stopPlaces().size());
+    for (Map.Entry<StopPlaceId, SimpleStopPlace> entry : dataset
+      .stopPlaces()
+      .entrySet()) {
+      TransportModeAndSubMode modes = entry
+        .getValue()
+        .transportModeAndSubMode();
+      writeString(out, entry.getKey().id());
+      writeString(out, entry.getValue().name());
+      writeString(
+        out,
+        modes == null || modes.mode() == null ? null : modes.mode().value()
+      );
+      writeString(
+        out,
+        modes == null || modes.subMode() == null ? null : modes.subMode().name()
+      );
+    }
+
+    out.writeInt(dataset.quays().size());
+    for (Map.Entry<QuayId, SimpleQuay> entry : dataset.quays().entrySet()) {
+      QuayCoordinates coordinates = entry.getValue().quayCoordinates();
+      StopPlaceId stopPlaceId = entry.getValue().stopPlaceId();
+      writeString(out, entry.getKey().id());
+      out.writeDouble(
+        coordinates == null ? Double.NaN : coordinates.longitude()
+      );
+      out.writeDouble(
+        coordinates == null ? Double.NaN : coordinates.latitude()
+      );
+      writeString(out, stopPlaceId == null ? null : stopPlaceId.id());
+    }
+    out.flush();
+  }
+
+  static StopPlacesDataset read(Path file) throws IOException {
+    try (
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)
+    ) {
+      ByteBuffer in = channel.map(
+        FileChannel.MapMode.READ_ONLY,
+        0,
+        channel.size()
+      );
+      if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+        throw new IOException("Not a stop place snapshot file: " + file);
+      }
+      long publicationTime = in.getLong();
+
+      int stopPlaceCount = in.getInt();
+      Map<StopPlaceId, SimpleStopPlace> stopPlaces = new HashMap<>(
+        stopPlaceCount * 2
+      );
+      for (int i = 0; i < stopPlaceCount; i++) {
+        StopPlaceId stopPlaceId = new StopPlaceId(readString(in));
+        String name = readString(in);
+        String mode = readString(in);
+        String subMode = readString(in);
+        stopPlaces.put(
+          stopPlaceId,
+          new SimpleStopPlace(
+            name,
+            mode == null
+              ? null
+              : new TransportModeAndSubMode(
+                AllVehicleModesOfTransportEnumeration.fromValue(mode),
+                subMode == null ? null : new TransportSubMode(subMode)
+              )
+          )
+        );
+      }
+
+      int quayCount = in.getInt();
+      Map<QuayId, SimpleQuay> quays = new HashMap<>(quayCount * 2);
+      for (int i = 0; i < quayCount; i++) {
+        QuayId quayId = new QuayId(readString(in));
+        double longitude = in.getDouble();
+        double latitude = in.getDouble();
+        String stopPlaceId = readString(in);
+        quays.put(
+          quayId,
+          new SimpleQuay(
+            Double.isNaN(longitude)
+              ? null
+              : new QuayCoordinates(longitude, latitude),
+            stopPlaceId == null ? null : new StopPlaceId(stopPlaceId)
+          )
+        );
+      }
+
+      return new StopPlacesDataset(
+        stopPlaces,
+        quays,
+        publicationTime == -1 ? null : Instant.ofEpochMilli(publicationTime)
+      );
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value)
+    throws IOException {
+    if (value == null) {
+      out.writeInt(NULL_STRING);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    if (length == NULL_STRING) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
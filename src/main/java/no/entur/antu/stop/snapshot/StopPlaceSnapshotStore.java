@@ -0,0 +1,121 @@
+package no.entur.antu.stop.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import no.entur.antu.services.AntuBlobStoreService;
+import no.entur.antu.stop.loader.StopPlacesDataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a copy of the stop place dataset in the {@link StopPlaceSnapshotFile} format, in the antu bucket and
+ * on the local disk of the instance.
+ *
+ * <p>The copy is written after each refresh of the caches. An instance that starts while the caches are
+ * empty, on a new deployment or after Redis was flushed, loads it instead of waiting for the leader to
+ * download and parse the stop place export again: from its local disk if it was restarted, otherwise from
+ * the bucket, keeping a local copy for the next start.
+ */
+public class StopPlaceSnapshotStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+    StopPlaceSnapshotStore.class
+  );
+
+  private final AntuBlobStoreService antuBlobStoreService;
+  private final String blobName;
+  private final Path localFile;
+
+  public StopPlaceSnapshotStore(
+    AntuBlobStoreService antuBlobStoreService,
+    String blobName,
+    Path localFile
+  ) {
+    this.antuBlobStoreService = antuBlobStoreService;
+    this.blobName = blobName;
+    this.localFile = localFile;
+  }
+
+  /**
+   * Write the dataset to the local disk, then upload it to the bucket.
+   */
+  public void save(StopPlacesDataset dataset) throws IOException {
+    Path temporaryFile = temporaryFile();
+    try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+      StopPlaceSnapshotFile.write(dataset, outputStream);
+    }
+    // Moved into place in one step, so that a crash never leaves a truncated file behind.
+    Files.move(
+      temporaryFile,
+      localFile,
+      StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE
+    );
+    try (InputStream inputStream = Files.newInputStream(localFile)) {
+      antuBlobStoreService.uploadBlob(blobName, inputStream);
+    }
+    LOGGER.info(
+      "Saved the stop place snapshot with {} stop places and {} quays to {}",
+      dataset.stopPlaces().size(),
+      dataset.quays().size(),
+      blobName
+    );
+  }
+
+  /**
+   * Read the dataset from the local disk, or from the bucket if there is no local copy.
+   *
+   * @return the dataset, or empty if no copy was saved yet or it cannot be read.
+   */
+  public Optional<StopPlacesDataset> load() {
+    try {
+      if (!Files.exists(localFile)) {
+        if (!antuBlobStoreService.existBlob(blobName)) {
+          LOGGER.info("No stop place snapshot found in {}", blobName);
+          return Optional.empty();
+        }
+        Path temporaryFile = temporaryFile();
+        try (
+          InputStream inputStream = antuBlobStoreService.getBlob(blobName)
+        ) {
+          Files.copy(
+            inputStream,
+            temporaryFile,
+            StandardCopyOption.REPLACE_EXISTING
+          );
+        }
+        Files.move(
+          temporaryFile,
+          localFile,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE
+        );
+      }
+      return Optional.of(StopPlaceSnapshotFile.read(localFile));
+    } catch (Exception e) {
+      LOGGER.warn("Failed to load the stop place snapshot", e);
+      // A damaged local copy is downloaded again on the next attempt.
+      deleteLocalFile();
+      return Optional.empty();
+    }
+  }
+
+  private void deleteLocalFile() {
+    try {
+      Files.deleteIfExists(localFile);
+    } catch (IOException e) {
+      LOGGER.warn("Failed to delete the stop place snapshot {}", localFile, e);
+    }
+  }
+
+  private Path temporaryFile() throws IOException {
+    Path directory = localFile.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    return Files.createTempFile(directory, "stop-place-snapshot", ".tmp");
+  }
+}
@@ -0,0 +1,32 @@
+package no.entur.antu.stop.snapshot;
+
+import java.util.Optional;
+
+/**
+ * The version of the stop place and quay caches, shared by all the instances.
+ * Increased after each write to the caches, so that the instances holding a {@link StopPlaceSnapshot} can
+ * tell that theirs is out of date.
+ */
+public interface StopPlaceVersionRepository {
+  long getVersion();
+
+  /**
+   * Increase the version after a write that may have changed any entry, a refresh.
+   */
+  void incrementVersion();
+
+  /**
+   * Increase the version after a write that changed the given entries only, and record them with it.
+   */
+  void incrementVersion(StopPlaceCacheChange change);
+
+  /**
+   * Return the entries changed by the writes that increased the version from {@code fromVersion} to
+   * {@code toVersion}, or nothing if one of them is not recorded: a refresh, or a write too old to be
+   * recorded still.
+   */
+  Optional<StopPlaceCacheChange> changesBetween(
+    long fromVersion,
+    long toVersion
+  );
+}
@@ -0,0 +1,131 @@
+package no.entur.antu.stop.snapshot;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import no.entur.antu.stop.ResolvedQuay;
+import no.entur.antu.stop.StopPlaceChanges;
+import no.entur.antu.stop.StopPlaceRepositoryLoader;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+
+/**
+ * Passes everything to the repository backed by the distributed caches, and increases the shared
+ * {@link StopPlaceVersionRepository version} once each write through it is done, a refresh or a changelog
+ * update. The instances holding a copy of the caches in heap, a {@link StopPlaceSnapshot} or a
+ * {@link QuayGridRepository}, compare that version with the one of their copy to tell that it is out of date.
+ * The changelog updates also record the entries they changed, so that a copy can apply them rather than be
+ * loaded again.
+ */
+public class VersionedStopPlaceRepository implements StopPlaceRepositoryLoader {
+
+  private final StopPlaceRepositoryLoader delegate;
+  private final StopPlaceVersionRepository stopPlaceVersionRepository;
+
+  public VersionedStopPlaceRepository(
+    StopPlaceRepositoryLoader delegate,
+    StopPlaceVersionRepository stopPlaceVersionRepository
+  ) {
+    this.delegate = delegate;
+    this.stopPlaceVersionRepository = stopPlaceVersionRepository;
+  }
+
+  @Override
+  public boolean hasStopPlaceId(StopPlaceId stopPlaceId) {
+    return delegate.hasStopPlaceId(stopPlaceId);
+  }
+
+  @Override
+  public boolean hasQuayId(QuayId quayId) {
+    return delegate.hasQuayId(quayId);
+  }
+
+  @Override
+  public Set<QuayId> findQuayIds(Set<QuayId> quayIds) {
+    return delegate.findQuayIds(quayIds);
+  }
+
+  @Override
+  public Map<QuayId, ResolvedQuay> resolveQuays(Set<QuayId> quayIds) {
+    return delegate.resolveQuays(quayIds);
+  }
+
+  @Override
+  public Set<String> getQuaysForStopPlaceId(StopPlaceId stopPlaceId) {
+    return delegate.getQuaysForStopPlaceId(stopPlaceId);
+  }
+
+  @Override
+  public TransportModeAndSubMode getTransportModesForQuayId(QuayId quayId) {
+    return delegate.getTransportModesForQuayId(quayId);
+  }
+
+  @Override
+  public QuayCoordinates getCoordinatesForQuayId(QuayId quayId) {
+    return delegate.getCoordinatesForQuayId(quayId);
+  }
+
+  @Override
+  public String getStopPlaceNameForQuayId(QuayId quayId) {
+    return delegate.getStopPlaceNameForQuayId(quayId);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return delegate.isEmpty();
+  }
+
+  @Override
+  public Instant refreshCache() {
+    Instant publicationTime = delegate.refreshCache();
+    stopPlaceVersionRepository.incrementVersion();
+    return publicationTime;
+  }
+
+  @Override
+  public void createOrUpdateQuay(QuayId quayId, SimpleQuay quay) {
+    delegate.createOrUpdateQuay(quayId, quay);
+    stopPlaceVersionRepository.incrementVersion(
+      StopPlaceCacheChange.ofQuay(quayId)
+    );
+  }
+
+  @Override
+  public void createOrUpdateStopPlace(
+    StopPlaceId id,
+    SimpleStopPlace stopPlace
+  ) {
+    delegate.createOrUpdateStopPlace(id, stopPlace);
+    stopPlaceVersionRepository.incrementVersion(
+      StopPlaceCacheChange.ofStopPlace(id)
+    );
+  }
+
+  @Override
+  public void deleteStopPlace(StopPlaceId stopPlaceId) {
+    delegate.deleteStopPlace(stopPlaceId);
+    stopPlaceVersionRepository.incrementVersion(
+      StopPlaceCacheChange.ofStopPlace(stopPlaceId)
+    );
+  }
+
+  @Override
+  public void deleteQuay(QuayId quayId) {
+    delegate.deleteQuay(quayId);
+    stopPlaceVersionRepository.incrementVersion(
+      StopPlaceCacheChange.ofQuay(quayId)
+    );
+  }
+
+  @Override
+  public void apply(StopPlaceChanges changes) {
+    delegate.apply(changes);
+    stopPlaceVersionRepository.incrementVersion(
+      StopPlaceCacheChange.of(changes)
+    );
+  }
+}
@@ -70,8 +70,12 @@ public class RedisSwedenStopPlaceNetexIdRepository
 
   @Override
   public void cleanUp(String reportId) {
-    redissonClient.getKeys().delete(getStopPlaceIdCacheKey(reportId));
-    redissonClient.getKeys().delete(getStopPlaceIdCacheSemaphoreKey(reportId));
+    redissonClient
+      .getKeys()
+      .unlink(
+        getStopPlaceIdCacheKey(reportId),
+        getStopPlaceIdCacheSemaphoreKey(reportId)
+      );
   }
 
   private String getStopPlaceIdCacheSemaphoreKey(String reportId) {
@@ -1,5 +1,7 @@
 package no.entur.antu.validation;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 import no.entur.antu.config.cache.ValidationState;
 import no.entur.antu.validation.state.ValidationStateRepository;
 import org.entur.netex.validation.validator.NetexValidationProgressCallBack;
@@ -19,6 +21,10 @@ import org.slf4j.LoggerFactory;
  * <p>{@code NetexValidatorsRunner} notifies every 10 seconds per running task, but stops after 180 of them.
  * A single task stuck for more than half an hour therefore does fall silent, so the stall threshold has to
  * stay at or above that to keep meaning what it says.
+ *
+ * <p>Recording progress is a read and a conditional write of the validation state, and the write
+ * invalidates the state in the local cache of every pod. The stall threshold is counted in tens of minutes,
+ * so progress is recorded at most once a minute per file, the job having recorded it when it started.
  */
 public class AntuNetexValidationProgressCallback
   implements NetexValidationProgressCallBack {
@@ -27,21 +33,44 @@ public class AntuNetexValidationProgressCallback
     AntuNetexValidationProgressCallback.class
   );
 
+  private static final Duration MIN_PROGRESS_INTERVAL = Duration.ofMinutes(1);
+
   private final ValidationStateRepository validationStateRepository;
   private final String validationReportId;
+  private final long minProgressIntervalNanos;
+  private final AtomicLong progressRecordedAt = new AtomicLong(
+    System.nanoTime()
+  );
 
   public AntuNetexValidationProgressCallback(
     ValidationStateRepository validationStateRepository,
     String validationReportId
+  ) {
+    this(validationStateRepository, validationReportId, MIN_PROGRESS_INTERVAL);
+  }
+
+  AntuNetexValidationProgressCallback(
+    ValidationStateRepository validationStateRepository,
+    String validationReportId,
+    Duration minProgressInterval
   ) {
     this.validationStateRepository = validationStateRepository;
     this.validationReportId = validationReportId;
+    this.minProgressIntervalNanos = minProgressInterval.toNanos();
   }
 
   @Override
   public void notifyProgress(String message) {
     LOGGER.debug("Netex Validation progress: {}", message);
-    validationStateRepository.recordProgress(validationReportId);
+    long now = System.nanoTime();
+    long recordedAt = progressRecordedAt.get();
+    // The validators notify from several threads; one of them records the progress.
+    if (
+      now - recordedAt >= minProgressIntervalNanos &&
+      progressRecordedAt.compareAndSet(recordedAt, now)
+    ) {
+      validationStateRepository.recordProgress(validationReportId);
+    }
   }
 
   /**
@@ -3,9 +3,10 @@ package no.entur.antu.validation;
 import java.util.Map;
 import no.entur.antu.config.cache.ValidationState;
 import no.entur.antu.exception.AntuException;
-import no.entur.antu.validation.state.ValidationStateRepository;
+import no.entur.antu.stop.PrefetchingStopPlaceRepository;
 import org.entur.netex.validation.validator.NetexValidationProgressCallBack;
 import org.entur.netex.validation.validator.NetexValidatorsRunner;
+import org.entur.netex.validation.validator.ValidationCompleteEvent;
 import org.entur.netex.validation.validator.ValidationReport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,18 +22,15 @@ public class NetexValidationProfile {
   );
 
   private final Map<ValidationProfile, NetexValidatorsRunner> netexValidatorsRunners;
-  private final ValidationStateRepository validationStateRepository;
   private final boolean skipSchemaValidation;
   private final boolean skipNetexValidators;
 
   public NetexValidationProfile(
     Map<ValidationProfile, NetexValidatorsRunner> netexValidatorsRunners,
-    ValidationStateRepository validationStateRepository,
     boolean skipSchemaValidation,
     boolean skipNetexValidators
   ) {
     this.netexValidatorsRunners = netexValidatorsRunners;
-    this.validationStateRepository = validationStateRepository;
     this.skipSchemaValidation = skipSchemaValidation;
     this.skipNetexValidators = skipNetexValidators;
   }
@@ -45,6 +43,8 @@ public class NetexValidationProfile {
    * @param validationReportId the report id.
    * @param filename           the name of the NeTEx file.
    * @param fileContent        the binary content of the NeTEx file.
+   * @param validationState    the state of the validation, as the caller read it. Null if the validation is
+   *                           already complete.
    * @return a ValidationReport listing the findings for this NeTEx file.
    */
   public ValidationReport validate(
@@ -53,6 +53,7 @@ public class NetexValidationProfile {
     String validationReportId,
     String filename,
     byte[] fileContent,
+    ValidationState validationState,
     NetexValidationProgressCallBack netexValidationProgressCallBack
   ) {
     if (validationProfile == null) {
@@ -65,28 +66,31 @@ public class NetexValidationProfile {
       validationProfile
     );
 
-    boolean validationAlreadyComplete = validationAlreadyComplete(
-      validationReportId
-    );
+    boolean validationAlreadyComplete = validationState == null;
     if (validationAlreadyComplete) {
       LOGGER.info("The validation is already complete, ignoring");
     }
-    boolean hasErrorInCommonFile = validationHasErrorInCommonFile(
-      validationReportId
-    );
+    boolean hasErrorInCommonFile =
+      validationState != null && validationState.hasErrorInCommonFile();
     if (hasErrorInCommonFile) {
       LOGGER.info(
         "The validation failed in common file, ignoring NeTEx validators"
       );
     }
-    return netexValidatorsRunner.validate(
-      codespace,
+    boolean skipValidators =
+      skipNetexValidators || validationAlreadyComplete || hasErrorInCommonFile;
+    return PrefetchingStopPlaceRepository.forValidationReport(
       validationReportId,
-      filename,
-      fileContent,
-      skipSchemaValidation || validationAlreadyComplete,
-      skipNetexValidators || validationAlreadyComplete || hasErrorInCommonFile,
-      netexValidationProgressCallBack
+      () ->
+        netexValidatorsRunner.validate(
+          codespace,
+          validationReportId,
+          filename,
+          fileContent,
+          skipSchemaValidation || validationAlreadyComplete,
+          skipValidators,
+          netexValidationProgressCallBack
+        )
     );
   }
 
@@ -110,12 +114,47 @@ public class NetexValidationProfile {
       validationProfile
     );
 
-    return netexValidatorsRunner.runNetexDatasetValidators(
-      validationReport,
-      netexValidationProgressCallBack
+    return ParallelDatasetValidator.reportingProgressTo(
+      netexValidationProgressCallBack,
+      () ->
+        netexValidatorsRunner.runNetexDatasetValidators(
+          validationReport,
+          netexValidationProgressCallBack
+        )
     );
   }
 
+  /**
+   * Run a NeTEx file through every validator of a profile, whatever the state of the validation, to load
+   * the schemas and compile the rules before the first real file does.
+   *
+   * @return false if there are no validators for the profile.
+   */
+  public boolean warmUp(
+    ValidationProfile validationProfile,
+    String codespace,
+    String validationReportId,
+    String filename,
+    byte[] fileContent
+  ) {
+    NetexValidatorsRunner netexValidatorsRunner = netexValidatorsRunners.get(
+      validationProfile
+    );
+    if (netexValidatorsRunner == null) {
+      return false;
+    }
+    netexValidatorsRunner.validate(
+      codespace,
+      validationReportId,
+      filename,
+      fileContent,
+      false,
+      false,
+      new IgnoredProgressCallback()
+    );
+    return true;
+  }
+
   private NetexValidatorsRunner getNetexValidatorsRunner(
     String validationProfile
   ) {
@@ -135,19 +174,20 @@ public class NetexValidationProfile {
     return netexValidatorsRunner;
   }
 
-  private ValidationState getValidationState(String validationReportId) {
-    return validationStateRepository.getValidationState(validationReportId);
-  }
+  /**
+   * A warm-up belongs to no validation, so there is no progress to record.
+   */
+  private static final class IgnoredProgressCallback
+    implements NetexValidationProgressCallBack {
 
-  private boolean validationAlreadyComplete(String validationReportId) {
-    return getValidationState(validationReportId) == null;
-  }
+    @Override
+    public void notifyProgress(String message) {
+      // Nothing to record.
+    }
 
-  private boolean validationHasErrorInCommonFile(String validationReportId) {
-    ValidationState validationState = getValidationState(validationReportId);
-    if (validationState != null) {
-      return validationState.hasErrorInCommonFile();
+    @Override
+    public void notifyValidationComplete(ValidationCompleteEvent event) {
+      // Nothing to record.
     }
-    return false;
   }
 }
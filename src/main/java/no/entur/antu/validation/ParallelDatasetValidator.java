@@ -0,0 +1,163 @@
+package no.entur.antu.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import no.entur.antu.exception.AntuException;
+import no.entur.antu.exception.RetryableAntuException;
+import org.entur.netex.validation.validator.DatasetValidator;
+import org.entur.netex.validation.validator.NetexValidationProgressCallBack;
+import org.entur.netex.validation.validator.ValidationReport;
+import org.slf4j.MDC;
+
+/**
+ * Runs a group of dataset validators concurrently, as one dataset validator.
+ *
+ * <p>The dataset validators only read what the collectors stored while the files were validated and only
+ * append entries, so nothing orders them but the report. Each one is therefore handed a report of its own,
+ * and the entries are appended to the merged report afterwards in the order the validators are listed. The
+ * published report is the same whichever validator happens to finish first.
+ *
+ * <p>This relies on no dataset validator reading the entries of the report it is given. None of antu's do;
+ * one that did would have to run outside this group.
+ *
+ * <p>The runner sees the group as one validator and reports progress for it alone. The progress callback
+ * of the validation is therefore handed to the group, see {@link #reportingProgressTo}, and each validator
+ * of the group reports its own start and completion to it, from the thread it runs on.
+ */
+public class ParallelDatasetValidator implements DatasetValidator {
+
+  private static final ThreadLocal<NetexValidationProgressCallBack> PROGRESS_CALLBACK =
+    new ThreadLocal<>();
+
+  private final List<DatasetValidator> datasetValidators;
+  private final ExecutorService executorService;
+
+  public ParallelDatasetValidator(
+    List<DatasetValidator> datasetValidators,
+    ExecutorService executorService
+  ) {
+    this.datasetValidators = List.copyOf(datasetValidators);
+    this.executorService = executorService;
+  }
+
+  /**
+   * Run a dataset validation on this thread, with the groups it runs reporting the progress of each of their
+   * validators to the given callback.
+   */
+  static <T> T reportingProgressTo(
+    NetexValidationProgressCallBack progressCallback,
+    Supplier<T> validation
+  ) {
+    NetexValidationProgressCallBack previous = PROGRESS_CALLBACK.get();
+    PROGRESS_CALLBACK.set(progressCallback);
+    try {
+      return validation.get();
+    } finally {
+      if (previous == null) {
+        PROGRESS_CALLBACK.remove();
+      } else {
+        PROGRESS_CALLBACK.set(previous);
+      }
+    }
+  }
+
+  @Override
+  public ValidationReport validate(ValidationReport validationReport) {
+    // The pool threads are shared between validations, so the log context and the progress callback are
+    // handed over explicitly.
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+    NetexValidationProgressCallBack progressCallback = PROGRESS_CALLBACK.get();
+    List<Future<ValidationReport>> results = new ArrayList<>();
+    for (DatasetValidator datasetValidator : datasetValidators) {
+      results.add(
+        executorService.submit(() ->
+          run(
+            mdc,
+            progressCallback,
+            datasetValidator,
+            emptyReportLike(validationReport)
+          )
+        )
+      );
+    }
+
+    try {
+      for (Future<ValidationReport> result : results) {
+        validationReport.addAllValidationReportEntries(
+          await(result).getValidationReportEntries()
+        );
+      }
+    } finally {
+      // A validator that failed fails the whole group, and the others have nothing left to contribute.
+      results.forEach(result -> result.cancel(true));
+    }
+    return validationReport;
+  }
+
+  private static ValidationReport run(
+    Map<String, String> mdc,
+    NetexValidationProgressCallBack progressCallback,
+    DatasetValidator datasetValidator,
+    ValidationReport validationReport
+  ) {
+    if (mdc != null) {
+      MDC.setContextMap(mdc);
+    }
+    String name = datasetValidator.getClass().getSimpleName();
+    try {
+      notifyProgress(progressCallback, "Running dataset validator " + name);
+      ValidationReport report = datasetValidator.validate(validationReport);
+      notifyProgress(progressCallback, "Completed dataset validator " + name);
+      return report;
+    } finally {
+      MDC.clear();
+    }
+  }
+
+  private static void notifyProgress(
+    NetexValidationProgressCallBack progressCallback,
+    String message
+  ) {
+    if (progressCallback != null) {
+      progressCallback.notifyProgress(message);
+    }
+  }
+
+  private static ValidationReport emptyReportLike(
+    ValidationReport validationReport
+  ) {
+    return new ValidationReport(
+      validationReport.getCodespace(),
+      validationReport.getValidationReportId()
+    );
+  }
+
+  /**
+   * Rethrows what the validator threw as it is, so that the caller can still tell a retryable failure
+   * from a permanent one.
+   */
+  private static ValidationReport await(Future<ValidationReport> result) {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RetryableAntuException(
+        "Interrupted while running the dataset validators",
+        e
+      );
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new AntuException(
+        "Dataset validator failed",
+        e.getCause() != null ? e.getCause() : e
+      );
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package no.entur.antu.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import no.entur.antu.exception.RetryableAntuException;
+import org.entur.netex.validation.validator.ValidationIssue;
+import org.entur.netex.validation.validator.ValidationRule;
+import org.entur.netex.validation.validator.jaxb.JAXBValidationContext;
+import org.entur.netex.validation.validator.jaxb.JAXBValidator;
+import org.slf4j.MDC;
+
+/**
+ * Runs a group of JAXB validators concurrently over the same file, as one JAXB validator.
+ *
+ * <p>A large line file used to be validated on one thread while the other cores of its pod had nothing to
+ * do. The JAXB validators are independent of each other: they only read the validation context, that is
+ * built once per file and not modified while they run, and return their issues rather than recording them.
+ * The issues are concatenated in the order the validators are listed, so the report is the same whichever
+ * validator happens to finish first.
+ *
+ * <p>The thread validating the file takes part: it runs the validators one after the other like the pool
+ * threads do, and the pool only adds helpers. A file whose helpers are queued behind those of the other
+ * files in flight is not held up by them, it is validated on its own thread in the meantime.
+ *
+ * <p>Sharing the context relies on it and its stop place repository being safe for concurrent reads. The
+ * per-file {@link no.entur.antu.stop.PrefetchingStopPlaceRepository} is, and the context and the entities
+ * index of the validator library are only read once the file is parsed. The tests of this class check it
+ * by running the validators of the timetable profile over one context from many threads at once.
+ */
+public class ParallelJAXBValidator implements JAXBValidator {
+
+  private final List<JAXBValidator> jaxbValidators;
+  private final ExecutorService executorService;
+
+  public ParallelJAXBValidator(
+    List<JAXBValidator> jaxbValidators,
+    ExecutorService executorService
+  ) {
+    this.jaxbValidators = List.copyOf(jaxbValidators);
+    this.executorService = executorService;
+  }
+
+  @Override
+  public List<ValidationIssue> validate(
+    JAXBValidationContext validationContext
+  ) {
+    Run run = new Run(validationContext);
+    // The pool threads are shared between files, so the log context is handed over explicitly.
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+    List<Future<?>> helpers = new ArrayList<>();
+    for (int i = 1; i < jaxbValidators.size(); i++) {
+      helpers.add(executorService.submit(() -> runWithMdc(mdc, run)));
+    }
+    try {
+      run.runRemaining();
+      return run.await();
+    } finally {
+      // The helpers still queued have nothing left to run.
+      helpers.forEach(helper -> helper.cancel(true));
+    }
+  }
+
+  @Override
+  public Set<ValidationRule> getRules() {
+    Set<ValidationRule> rules = new HashSet<>();
+    jaxbValidators.forEach(jaxbValidator ->
+      rules.addAll(jaxbValidator.getRules())
+    );
+    return rules;
+  }
+
+  private static void runWithMdc(Map<String, String> mdc, Run run) {
+    if (mdc != null) {
+      MDC.setContextMap(mdc);
+    }
+    try {
+      run.runRemaining();
+    } finally {
+      MDC.clear();
+    }
+  }
+
+  /**
+   * The validators of one file, taken one at a time by whichever thread is free, the thread validating the
+   * file included.
+   */
+  private final class Run {
+
+    private final JAXBValidationContext validationContext;
+    private final AtomicInteger next = new AtomicInteger();
+    private final List<List<ValidationIssue>> issues = new ArrayList<>(
+      Collections.nCopies(jaxbValidators.size(), List.of())
+    );
+    private final CountDownLatch done = new CountDownLatch(
+      jaxbValidators.size()
+    );
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private Run(JAXBValidationContext validationContext) {
+      this.validationContext = validationContext;
+    }
+
+    void runRemaining() {
+      int i;
+      while ((i = next.getAndIncrement()) < jaxbValidators.size()) {
+        try {
+          // A validator that failed fails the whole file, and the others have nothing left to contribute.
+          if (failure.get() == null) {
+            List<ValidationIssue> validatorIssues = jaxbValidators
+              .get(i)
+              .validate(validationContext);
+            synchronized (issues) {
+              issues.set(i, validatorIssues);
+            }
+          }
+        } catch (RuntimeException | Error e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          done.countDown();
+        }
+      }
+    }
+
+    /**
+     * Rethrows what a validator threw as it is, so that the caller can still tell a retryable failure
+     * from a permanent one.
+     */
+    List<ValidationIssue> await() {
+      try {
+        done.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure.compareAndSet(null, e);
+        throw new RetryableAntuException(
+          "Interrupted while running the JAXB validators",
+          e
+        );
+      }
+      Throwable validatorFailure = failure.get();
+      if (validatorFailure instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (validatorFailure instanceof Error error) {
+        throw error;
+      }
+      List<ValidationIssue> allIssues = new ArrayList<>();
+      synchronized (issues) {
+        issues.forEach(allIssues::addAll);
+      }
+      return allIssues;
+    }
+  }
+}
@@ -25,6 +25,11 @@ public class DefaultValidationStateRepository
     return Map.copyOf(validationStates);
   }
 
+  @Override
+  public int countValidationStates() {
+    return validationStates.size();
+  }
+
   /**
    * {@code replace} rather than {@code put}, because this is a read-modify-write and the clean-up of a
    * finished validation can land in the middle of it. {@code put} would recreate the entry that clean-up had
@@ -33,15 +38,18 @@ public class DefaultValidationStateRepository
    * that has been cleaned up stays cleaned up.
    */
   @Override
-  public boolean recordProgress(String validationReportId) {
+  public ValidationState recordProgress(String validationReportId) {
     ValidationState validationState = validationStates.get(validationReportId);
     if (validationState == null) {
-      return false;
+      return null;
     }
     validationState.recordProgressAt(Instant.now());
-    return (
-      validationStates.replace(validationReportId, validationState) != null
-    );
+    if (
+      validationStates.replace(validationReportId, validationState) == null
+    ) {
+      return null;
+    }
+    return validationState;
   }
 
   /**
@@ -18,6 +18,11 @@ public interface ValidationStateRepository {
    */
   Map<String, ValidationState> allValidationStates();
 
+  /**
+   * The number of validations currently in progress, without reading their states.
+   */
+  int countValidationStates();
+
   default boolean hasValidationState(String validationReportId) {
     return getValidationState(validationReportId) != null;
   }
@@ -27,11 +32,12 @@ public interface ValidationStateRepository {
    *
    * <p>Both in one call because every job asks both questions: whether it is a redelivery of something
    * already finished, and, if not, that the validation is still alive so the stalled-validation sweep
-   * leaves it alone.
+   * leaves it alone. The state read to record the progress is returned, so that the job does not read it
+   * again.
    *
-   * @return false if the validation has already reached a terminal status.
+   * @return the state of the validation, null if it has already reached a terminal status.
    */
-  boolean recordProgress(String validationReportId);
+  ValidationState recordProgress(String validationReportId);
 
   void updateValidationState(
     String validationReportId,
@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
+import no.entur.antu.cache.ReportKeyRegistry;
 import org.entur.netex.validation.validator.id.IdVersion;
 import org.entur.netex.validation.validator.id.NetexIdRepository;
 import org.redisson.api.RLocalCachedMap;
@@ -43,12 +44,18 @@ public class RedisNetexIdRepository implements NetexIdRepository {
 
   private final RLocalCachedMap<String, Set<String>> commonIdsCache;
 
+  /**
+   * The per-file id sets, which are the keys whose names are not known in advance.
+   */
+  private final ReportKeyRegistry keyRegistry;
+
   public RedisNetexIdRepository(
     RedissonClient redissonClient,
     RLocalCachedMap<String, Set<String>> commonIdsCache
   ) {
     this.redissonClient = redissonClient;
     this.commonIdsCache = commonIdsCache;
+    this.keyRegistry = new ReportKeyRegistry(redissonClient, "NETEX_ID_SET");
   }
 
   @Override
@@ -79,6 +86,7 @@ public class RedisNetexIdRepository implements NetexIdRepository {
         );
         return new HashSet<>(duplicatedIds);
       }
+      keyRegistry.register(reportId, netexLocalIdsKey, duplicatedNetexIdsKey);
       localNetexIds.addAll(localIds);
       localNetexIds.expireIfNotSet(VALIDATION_DATA_TTL);
 
@@ -154,15 +162,12 @@ public class RedisNetexIdRepository implements NetexIdRepository {
   @Override
   public void cleanUp(String reportId) {
     commonIdsCache.fastRemove(getCommonNetexIdsKey(reportId));
-    redissonClient.getKeys().delete(getCommonNetexIdsLockKey(reportId));
-    redissonClient.getKeys().delete(getAccumulatedNetexIdsKey(reportId));
-    redissonClient.getKeys().delete(getAccumulatedNetexIdsLockKey(reportId));
-    redissonClient
-      .getKeys()
-      .deleteByPattern(NETEX_LOCAL_ID_SET_PREFIX + reportId + '*');
-    redissonClient
-      .getKeys()
-      .deleteByPattern(DUPLICATED_ID_SET_PREFIX + reportId + '*');
+    keyRegistry.unlinkAll(
+      reportId,
+      getCommonNetexIdsLockKey(reportId),
+      getAccumulatedNetexIdsKey(reportId),
+      getAccumulatedNetexIdsLockKey(reportId)
+    );
   }
 
   private String getNetexLocalIdsKey(String reportId, String filename) {
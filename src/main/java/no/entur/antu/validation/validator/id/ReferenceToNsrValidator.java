@@ -3,6 +3,7 @@ package no.entur.antu.validation.validator.id;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import no.entur.antu.stop.StopPlaceRepositoryLoader;
 import org.entur.netex.validation.validator.id.ExternalReferenceValidator;
 import org.entur.netex.validation.validator.id.IdVersion;
 import org.entur.netex.validation.validator.jaxb.StopPlaceRepository;
@@ -30,9 +31,14 @@ public class ReferenceToNsrValidator implements ExternalReferenceValidator {
   public Set<IdVersion> validateReferenceIds(Set<IdVersion> externalIds) {
     Objects.requireNonNull(externalIds);
     Set<IdVersion> validIds = new HashSet<>();
+    Set<QuayId> existingQuayIds = existingQuayIds(externalIds);
 
     for (IdVersion id : externalIds) {
-      if (isValidQuayReference(id) || isValidStopPlaceReference(id)) {
+      QuayId quayId = quayIdOf(id);
+      if (
+        (quayId != null && existingQuayIds.contains(quayId)) ||
+        isValidStopPlaceReference(id)
+      ) {
         validIds.add(id);
       }
     }
@@ -40,17 +46,41 @@ public class ReferenceToNsrValidator implements ExternalReferenceValidator {
     return validIds;
   }
 
+  /**
+   * Resolve all the quays referenced in the file together, in one round trip to the stop place cache
+   * where the repository supports it, rather than one per reference.
+   */
+  private Set<QuayId> existingQuayIds(Set<IdVersion> externalIds) {
+    Set<QuayId> quayIds = new HashSet<>();
+    for (IdVersion id : externalIds) {
+      QuayId quayId = quayIdOf(id);
+      if (quayId != null) {
+        quayIds.add(quayId);
+      }
+    }
+    if (quayIds.isEmpty()) {
+      return Set.of();
+    }
+    if (stopPlaceRepository instanceof StopPlaceRepositoryLoader loader) {
+      return loader.findQuayIds(quayIds);
+    }
+    Set<QuayId> existingQuayIds = new HashSet<>();
+    for (QuayId quayId : quayIds) {
+      if (stopPlaceRepository.hasQuayId(quayId)) {
+        existingQuayIds.add(quayId);
+      }
+    }
+    return existingQuayIds;
+  }
+
+  private static QuayId quayIdOf(IdVersion id) {
+    return QuayId.isValid(id.getId()) ? new QuayId(id.getId()) : null;
+  }
+
   private boolean isValidStopPlaceReference(IdVersion id) {
     return (
       StopPlaceId.isValid(id.getId()) &&
       stopPlaceRepository.hasStopPlaceId(new StopPlaceId(id.getId()))
     );
   }
-
-  private boolean isValidQuayReference(IdVersion id) {
-    return (
-      QuayId.isValid(id.getId()) &&
-      stopPlaceRepository.hasQuayId(new QuayId(id.getId()))
-    );
-  }
 }
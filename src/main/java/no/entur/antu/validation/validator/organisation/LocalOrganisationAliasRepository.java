@@ -0,0 +1,156 @@
+package no.entur.antu.validation.validator.organisation;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.redisson.api.RSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Serves the organisation alias lookups from an immutable copy of the alias cache held by this instance,
+ * and passes the refreshes to the repository backed by the distributed cache.
+ *
+ * <p>The authority of every file is checked against the aliases: read from the distributed set, each check
+ * was a round trip to Redis. A refresh through this repository publishes a new
+ * {@link OrganisationAliasVersionRepository version} once it is done, and every instance reloads its copy
+ * when notified. Notifications are not delivered reliably, so the version is also polled on a schedule.
+ * A lookup reads one reference and never sees a half-loaded copy.
+ *
+ * <p>The notifications arrive on the threads of the Redis client, which must not wait for the set to be
+ * read: they only hand the reload to an executor of its own. The notifications that arrive while a reload
+ * is waiting to run are served by that reload.
+ *
+ * <p>Until the first copy is loaded, lookups go to the distributed cache.
+ */
+public class LocalOrganisationAliasRepository
+  implements OrganisationAliasRepository {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+    LocalOrganisationAliasRepository.class
+  );
+
+  private final OrganisationAliasRepository delegate;
+  private final Set<String> organisationAliasCache;
+  private final OrganisationAliasVersionRepository organisationAliasVersionRepository;
+
+  private final Executor reloadExecutor;
+  private final AtomicBoolean reloadPending = new AtomicBoolean();
+
+  private volatile LocalCopy localCopy;
+
+  private record LocalCopy(long version, Set<String> aliases) {}
+
+  /**
+   * @param delegate               the repository the refreshes go to, and the lookups while there is no copy.
+   * @param organisationAliasCache the aliases written by the delegate, read when loading a copy.
+   * @param reloadExecutor         runs the reloads requested by {@link #reloadInBackground()}.
+   */
+  public LocalOrganisationAliasRepository(
+    OrganisationAliasRepository delegate,
+    Set<String> organisationAliasCache,
+    OrganisationAliasVersionRepository organisationAliasVersionRepository,
+    Executor reloadExecutor
+  ) {
+    this.delegate = delegate;
+    this.organisationAliasCache = organisationAliasCache;
+    this.organisationAliasVersionRepository =
+      organisationAliasVersionRepository;
+    this.reloadExecutor = reloadExecutor;
+  }
+
+  @Override
+  public boolean hasOrganisationWithAlias(String organisationId) {
+    LocalCopy current = localCopy;
+    return current == null
+      ? delegate.hasOrganisationWithAlias(organisationId)
+      : current.aliases().contains(organisationId);
+  }
+
+  /**
+   * Publish a new version only if the refresh changed the aliases: the register rarely changes between two
+   * refreshes, and a new version makes every instance read the whole set again.
+   */
+  @Override
+  public void refreshCache() {
+    delegate.refreshCache();
+    LocalCopy current = localCopy;
+    if (
+      current != null &&
+      current.version() == organisationAliasVersionRepository.getVersion() &&
+      current.aliases().equals(readAll(organisationAliasCache))
+    ) {
+      LOGGER.info(
+        "Organisation alias cache unchanged, keeping version {}",
+        current.version()
+      );
+      return;
+    }
+    organisationAliasVersionRepository.publishNewVersion();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return delegate.isEmpty();
+  }
+
+  /**
+   * Reload on the reload executor, unless a reload is already waiting to run there. Called when a new
+   * version is announced.
+   */
+  public void reloadInBackground() {
+    if (reloadPending.compareAndSet(false, true)) {
+      reloadExecutor.execute(() -> {
+        // Cleared before reading the version, so that an announcement made from now on reloads again.
+        reloadPending.set(false);
+        reload();
+      });
+    }
+  }
+
+  /**
+   * Load a new copy if the cache has changed since the current one was loaded. Called on a schedule, and
+   * on the reload executor when a new version is announced.
+   */
+  @Scheduled(
+    fixedDelayString = "${antu.organisation.local.poll.millis:60000}",
+    initialDelay = 0
+  )
+  public synchronized void reload() {
+    try {
+      // Read before the cache: a refresh that lands while the copy is loaded leaves the version ahead of
+      // the copy, and the next reload loads another one.
+      long version = organisationAliasVersionRepository.getVersion();
+      LocalCopy current = localCopy;
+      if (current != null && current.version() == version) {
+        return;
+      }
+      if (delegate.isEmpty()) {
+        LOGGER.info("Organisation alias cache not primed, no local copy yet");
+        return;
+      }
+      Set<String> aliases = Set.copyOf(readAll(organisationAliasCache));
+      localCopy = new LocalCopy(version, aliases);
+      LOGGER.info(
+        "Loaded organisation alias cache version {} with {} aliases",
+        version,
+        aliases.size()
+      );
+    } catch (Exception e) {
+      // The current copy, or the distributed cache, keep serving the lookups.
+      LOGGER.warn("Failed to reload the organisation alias cache", e);
+    }
+  }
+
+  /**
+   * Read the whole set in one round trip where it is a Redis set, rather than by iterating over it.
+   */
+  private static Set<String> readAll(Set<String> cache) {
+    if (cache instanceof RSet<String> redisSet) {
+      return redisSet.readAll();
+    }
+    return new HashSet<>(cache);
+  }
+}
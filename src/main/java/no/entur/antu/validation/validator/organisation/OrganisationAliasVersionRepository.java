@@ -0,0 +1,21 @@
+package no.entur.antu.validation.validator.organisation;
+
+/**
+ * The version of the organisation alias cache, shared by all the instances.
+ * Increased after each refresh of the cache, and announced to the instances holding a local copy so that
+ * they reload it.
+ */
+public interface OrganisationAliasVersionRepository {
+  long getVersion();
+
+  /**
+   * Increase the version and notify the listeners of every instance.
+   */
+  void publishNewVersion();
+
+  /**
+   * Register a listener called when any instance publishes a new version. A notification can be lost: the
+   * listener should not be the only way a new version is picked up.
+   */
+  void onNewVersion(Runnable listener);
+}
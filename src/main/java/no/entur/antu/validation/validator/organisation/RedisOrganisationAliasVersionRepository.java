@@ -0,0 +1,41 @@
+package no.entur.antu.validation.validator.organisation;
+
+import org.redisson.api.RedissonClient;
+
+/**
+ * Organisation alias cache version stored in a Redis counter, and announced on a Redis topic.
+ */
+public class RedisOrganisationAliasVersionRepository
+  implements OrganisationAliasVersionRepository {
+
+  private static final String ORGANISATION_ALIAS_CACHE_VERSION =
+    "organisationAliasCacheVersion";
+
+  private final RedissonClient redissonClient;
+
+  public RedisOrganisationAliasVersionRepository(
+    RedissonClient redissonClient
+  ) {
+    this.redissonClient = redissonClient;
+  }
+
+  @Override
+  public long getVersion() {
+    return redissonClient.getAtomicLong(ORGANISATION_ALIAS_CACHE_VERSION).get();
+  }
+
+  @Override
+  public void publishNewVersion() {
+    long version = redissonClient
+      .getAtomicLong(ORGANISATION_ALIAS_CACHE_VERSION)
+      .incrementAndGet();
+    redissonClient.getTopic(ORGANISATION_ALIAS_CACHE_VERSION).publish(version);
+  }
+
+  @Override
+  public void onNewVersion(Runnable listener) {
+    redissonClient
+      .getTopic(ORGANISATION_ALIAS_CACHE_VERSION)
+      .addListener(Long.class, (channel, version) -> listener.run());
+  }
+}
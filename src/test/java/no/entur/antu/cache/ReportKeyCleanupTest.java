@@ -0,0 +1,132 @@
+package no.entur.antu.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import no.entur.antu.config.EmbeddedRedisTestBase;
+import no.entur.antu.memorystore.RedisTemporaryFileRepository;
+import no.entur.antu.netexdata.RedisNetexDataRepository;
+import no.entur.antu.netexdata.collectors.ServiceJourneyStopsCollector;
+import no.entur.antu.validation.validator.id.RedisNetexIdRepository;
+import org.entur.netex.validation.validator.model.ServiceJourneyId;
+import org.entur.netex.validation.validator.model.ServiceJourneyInterchangeInfo;
+import org.entur.netex.validation.validator.model.ServiceJourneyStop;
+import org.entur.netex.validation.validator.model.SimpleLine;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLocalCachedMap;
+import org.redisson.api.options.LocalCachedMapOptions;
+import org.redisson.api.redisnode.RedisNode;
+import org.redisson.api.redisnode.RedisNodes;
+
+/**
+ * Cleaning up after a report must not search the keyspace: SCAN and KEYS walk every key in Redis, and the
+ * other validations wait while they do.
+ */
+class ReportKeyCleanupTest extends EmbeddedRedisTestBase {
+
+  @Test
+  void cleanUpRemovesTheKeysOfTheReportWithoutScanningTheKeyspace() {
+    String reportId = "report-" + UUID.randomUUID();
+    String otherReportId = reportId + "0";
+
+    RedisTemporaryFileRepository temporaryFileRepository =
+      new RedisTemporaryFileRepository(redissonClient);
+    temporaryFileRepository.upload(reportId, "line1.xml", new byte[] { 1 });
+    temporaryFileRepository.upload(reportId, "line2.xml", new byte[] { 2 });
+    temporaryFileRepository.upload(
+      otherReportId,
+      "line1.xml",
+      new byte[] { 3 }
+    );
+
+    RLocalCachedMap<String, Set<String>> commonIdsCache =
+      redissonClient.getLocalCachedMap(
+        LocalCachedMapOptions.<String, Set<String>>name(
+          "reportKeyCleanupTestCommonIds"
+        )
+      );
+    RedisNetexIdRepository netexIdRepository = new RedisNetexIdRepository(
+      redissonClient,
+      commonIdsCache
+    );
+    netexIdRepository.getDuplicateNetexIds(
+      reportId,
+      "line1.xml",
+      Set.of("TST:Line:1")
+    );
+    netexIdRepository.getDuplicateNetexIds(
+      reportId,
+      "line2.xml",
+      Set.of("TST:Line:1")
+    );
+
+    redissonClient
+      .<String, List<ServiceJourneyStop>>getMap(
+        ServiceJourneyStopsCollector.cacheKey(reportId)
+      )
+      .put("TST:ServiceJourney:1", List.of());
+    RedisNetexDataRepository netexDataRepository = netexDataRepository();
+
+    long scansBefore = calls("scan") + calls("keys");
+
+    temporaryFileRepository.cleanUp(reportId);
+    netexIdRepository.cleanUp(reportId);
+    netexDataRepository.cleanUp(reportId);
+
+    assertEquals(scansBefore, calls("scan") + calls("keys"));
+    assertArrayEquals(
+      new byte[] { 3 },
+      temporaryFileRepository.download(otherReportId, "line1.xml")
+    );
+    assertEquals(
+      0,
+      redissonClient
+        .getKeys()
+        .countExists(
+          "TEMPORARY_FILE_" + reportId + "_line1.xml",
+          "TEMPORARY_FILE_" + reportId + "_line2.xml",
+          "NETEX_LOCAL_ID_SET_" + reportId + "_line1.xml",
+          "DUPLICATED_ID_SET_" + reportId + "_line2.xml",
+          "ACCUMULATED_NETEX_ID_SET_" + reportId,
+          ServiceJourneyStopsCollector.cacheKey(reportId),
+          "REPORT_KEYS_TEMPORARY_FILE_" + reportId,
+          "REPORT_KEYS_NETEX_ID_SET_" + reportId
+        )
+    );
+  }
+
+  private static RedisNetexDataRepository netexDataRepository() {
+    return new RedisNetexDataRepository(
+      redissonClient,
+      new HashMap<String, List<SimpleLine>>(),
+      new HashMap<String, Map<String, List<ServiceJourneyStop>>>(),
+      new HashMap<String, List<ServiceJourneyInterchangeInfo>>(),
+      new HashMap<String, Map<ServiceJourneyId, List<LocalDateTime>>>(),
+      new HashMap<String, Map<String, List<LocalDateTime>>>(),
+      new HashMap<String, Map<String, LocalDateTime>>(),
+      new HashMap<String, Set<String>>()
+    );
+  }
+
+  /**
+   * How many times Redis has run a command, from its own statistics.
+   */
+  private static long calls(String command) {
+    Map<String, String> commandStats = redissonClient
+      .getRedisNodes(RedisNodes.SINGLE)
+      .getInstance()
+      .info(RedisNode.InfoSection.COMMANDSTATS);
+    String stats = commandStats.get("cmdstat_" + command);
+    if (stats == null) {
+      return 0;
+    }
+    // calls=3,usec=42,usec_per_call=14.00,...
+    return Long.parseLong(stats.split(",")[0].substring("calls=".length()));
+  }
+}
@@ -19,20 +19,28 @@ import redis.embedded.RedisServer;
 public abstract class EmbeddedRedisTestBase {
 
   private static RedisServer redisServer;
+  private static int redisPort;
   protected static RedissonClient redissonClient;
 
   @BeforeAll
   static void startRedis() throws IOException {
-    int port = freePort();
-    redisServer = new RedisServer(port);
+    redisPort = freePort();
+    redisServer = new RedisServer(redisPort);
     redisServer.start();
+    redissonClient = newRedissonClient();
+  }
 
+  /**
+   * A client of its own, configured like the application's, for a test that simulates several pods. The
+   * caller shuts it down.
+   */
+  protected static RedissonClient newRedissonClient() {
     Config config = new Config();
     config.setCodec(
       new Kryo5Codec(EmbeddedRedisTestBase.class.getClassLoader())
     );
-    config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
-    redissonClient = Redisson.create(config);
+    config.useSingleServer().setAddress("redis://127.0.0.1:" + redisPort);
+    return Redisson.create(config);
   }
 
   @AfterAll
@@ -1,9 +1,14 @@
 package no.entur.antu.config;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import no.entur.antu.common.repository.TestNetexDataRepository;
 import no.entur.antu.netexdata.NetexDataRepositoryLoader;
+import no.entur.antu.stop.ResolvedQuay;
+import no.entur.antu.stop.StopPlaceChanges;
 import no.entur.antu.stop.StopPlaceRepositoryLoader;
 import no.entur.antu.validation.NetexCodespace;
 import no.entur.antu.validation.validator.organisation.OrganisationAliasRepository;
@@ -174,6 +179,23 @@ public class TestConfig {
       return true;
     }
 
+    @Override
+    public Set<QuayId> findQuayIds(Set<QuayId> quayIds) {
+      return quayIds;
+    }
+
+    @Override
+    public Map<QuayId, ResolvedQuay> resolveQuays(Set<QuayId> quayIds) {
+      return quayIds
+        .stream()
+        .collect(
+          Collectors.toMap(
+            Function.identity(),
+            quayId -> new ResolvedQuay(new QuayCoordinates(0, 0), null, null)
+          )
+        );
+    }
+
     @Override
     public Set<String> getQuaysForStopPlaceId(StopPlaceId stopPlaceId) {
       return Set.of();
@@ -218,6 +240,9 @@ public class TestConfig {
 
     @Override
     public void deleteQuay(QuayId quayId) {}
+
+    @Override
+    public void apply(StopPlaceChanges changes) {}
   }
 
   private static class TestOrganisationAliasRepository
@@ -1,5 +1,6 @@
 package no.entur.antu.config;
 
+import no.entur.antu.job.JobRedisCommands;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
@@ -23,7 +24,7 @@ public class TestRedisConfiguration {
   @Bean(destroyMethod = "shutdown")
   @DependsOn("redissonServer")
   public RedissonClient redissonClient(Config redissonConfig) {
-    return Redisson.create(redissonConfig);
+    return JobRedisCommands.counting(Redisson.create(redissonConfig));
   }
 
   @Bean
@@ -0,0 +1,68 @@
+package no.entur.antu.config.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.entur.netex.validation.validator.model.ServiceJourneyInterchangeInfo;
+import org.entur.netex.validation.validator.model.SimpleLine;
+import org.junit.jupiter.api.Test;
+import org.redisson.client.handler.State;
+import org.redisson.codec.Kryo5Codec;
+import org.rutebanken.netex.model.Line;
+import org.rutebanken.netex.model.MultilingualString;
+import org.rutebanken.netex.model.ScheduledStopPointRefStructure;
+import org.rutebanken.netex.model.ServiceJourneyInterchange;
+import org.rutebanken.netex.model.VehicleJourneyRefStructure;
+
+/**
+ * The lines and interchanges collected from the line files are stored through Kryo rather than as strings.
+ * They are model classes of the validator library, so this checks that they survive the codec they are
+ * stored with, and would catch a library upgrade that gives them a field Kryo cannot handle.
+ */
+class CollectedDataSerializationTest {
+
+  private static final Kryo5Codec CODEC = new Kryo5Codec();
+
+  @Test
+  void aLineRoundTripsThroughTheConfiguredCodec() throws Exception {
+    SimpleLine line = SimpleLine.of(
+      new Line()
+        .withId("TST:Line:1")
+        .withName(new MultilingualString().withValue("Line 1")),
+      "line1.xml"
+    );
+
+    assertEquals(line, roundTrip(line));
+  }
+
+  @Test
+  void anInterchangeRoundTripsThroughTheConfiguredCodec() throws Exception {
+    ServiceJourneyInterchangeInfo interchange = ServiceJourneyInterchangeInfo.of(
+      "line1.xml",
+      new ServiceJourneyInterchange()
+        .withId("TST:ServiceJourneyInterchange:1")
+        .withGuaranteed(true)
+        .withFromJourneyRef(
+          new VehicleJourneyRefStructure().withRef("TST:ServiceJourney:1")
+        )
+        .withToJourneyRef(
+          new VehicleJourneyRefStructure().withRef("TST:ServiceJourney:2")
+        )
+        .withFromPointRef(
+          new ScheduledStopPointRefStructure()
+            .withRef("TST:ScheduledStopPoint:1")
+        )
+        .withToPointRef(
+          new ScheduledStopPointRefStructure()
+            .withRef("TST:ScheduledStopPoint:2")
+        )
+    );
+
+    assertEquals(interchange, roundTrip(interchange));
+  }
+
+  private static Object roundTrip(Object value) throws Exception {
+    return CODEC
+      .getValueDecoder()
+      .decode(CODEC.getValueEncoder().encode(value), new State());
+  }
+}
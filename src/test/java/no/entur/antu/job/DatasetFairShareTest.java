@@ -0,0 +1,152 @@
+package no.entur.antu.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import no.entur.antu.config.EmbeddedRedisTestBase;
+import no.entur.antu.exception.JobDeferredException;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import no.entur.antu.validation.state.ValidationStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatasetFairShareTest extends EmbeddedRedisTestBase {
+
+  private ValidationStateRepository validationStateRepository;
+  private AntuPrometheusMetricsService antuPrometheusMetricsService;
+  private DatasetFairShare datasetFairShare;
+
+  @BeforeEach
+  void setUp() {
+    validationStateRepository = mock(ValidationStateRepository.class);
+    antuPrometheusMetricsService = mock(AntuPrometheusMetricsService.class);
+    // A fleet running 4 file validations at once, at least 1 per dataset, and no waiting for a turn.
+    datasetFairShare =
+      new DatasetFairShare(
+        redissonClient,
+        validationStateRepository,
+        4,
+        1,
+        0,
+        antuPrometheusMetricsService
+      );
+  }
+
+  @Test
+  void theFleetIsSharedBetweenTheValidationsInProgress() {
+    when(validationStateRepository.countValidationStates()).thenReturn(2);
+    assertEquals(2, datasetFairShare.share());
+
+    when(validationStateRepository.countValidationStates()).thenReturn(0);
+    assertEquals(4, datasetFairShare.share());
+
+    when(validationStateRepository.countValidationStates()).thenReturn(10);
+    assertEquals(1, datasetFairShare.share());
+  }
+
+  @Test
+  void aDatasetOverItsShareIsPutBackOnTheQueue() {
+    when(validationStateRepository.countValidationStates()).thenReturn(4);
+    String reportId = newReportId();
+
+    datasetFairShare.run(
+      validateFile(reportId, "a.xml"),
+      () ->
+        assertThrows(
+          JobDeferredException.class,
+          () -> datasetFairShare.run(validateFile(reportId, "b.xml"), () -> {})
+        )
+    );
+
+    verify(antuPrometheusMetricsService).countFairShareDeferredJob("rb_tst");
+  }
+
+  @Test
+  void anotherDatasetIsNotHeldBack() {
+    when(validationStateRepository.countValidationStates()).thenReturn(4);
+    AtomicBoolean ran = new AtomicBoolean();
+
+    datasetFairShare.run(
+      validateFile(newReportId(), "a.xml"),
+      () ->
+        datasetFairShare.run(
+          validateFile(newReportId(), "a.xml"),
+          () -> ran.set(true)
+        )
+    );
+
+    assertTrue(ran.get());
+  }
+
+  @Test
+  void theLeaseIsReleasedWhenTheJobFails() {
+    when(validationStateRepository.countValidationStates()).thenReturn(4);
+    String reportId = newReportId();
+    AtomicBoolean ran = new AtomicBoolean();
+
+    assertThrows(
+      IllegalStateException.class,
+      () ->
+        datasetFairShare.run(
+          validateFile(reportId, "a.xml"),
+          () -> {
+            throw new IllegalStateException();
+          }
+        )
+    );
+    datasetFairShare.run(validateFile(reportId, "a.xml"), () -> ran.set(true));
+
+    assertTrue(ran.get());
+  }
+
+  @Test
+  void theInFlightGaugeOfAReportIsRemovedWithItsLastFileValidation() {
+    when(validationStateRepository.countValidationStates()).thenReturn(1);
+    String reportId = newReportId();
+
+    datasetFairShare.run(
+      validateFile(reportId, "a.xml"),
+      () -> {
+        datasetFairShare.run(validateFile(reportId, "b.xml"), () -> {});
+        verify(antuPrometheusMetricsService, never())
+          .removeDatasetInFlightGauge(reportId);
+      }
+    );
+
+    verify(antuPrometheusMetricsService)
+      .registerDatasetInFlightGauge(eq("rb_tst"), eq(reportId), any());
+    verify(antuPrometheusMetricsService).removeDatasetInFlightGauge(reportId);
+  }
+
+  private static String newReportId() {
+    return "report-" + UUID.randomUUID();
+  }
+
+  private static AntuJob.ValidateFile validateFile(
+    String reportId,
+    String fileName
+  ) {
+    return new AntuJob.ValidateFile(
+      ValidationContext
+        .builder()
+        .referential("rb_tst")
+        .validationReportId(reportId)
+        .build(),
+      fileName,
+      0,
+      1,
+      0,
+      List.of()
+    );
+  }
+}
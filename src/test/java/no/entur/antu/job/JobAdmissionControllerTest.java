@@ -0,0 +1,332 @@
+package no.entur.antu.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import no.entur.antu.exception.JobDeferredException;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JobAdmissionControllerTest {
+
+  private static final long MEGABYTE = 1024L * 1024;
+
+  private static final ValidationContext CONTEXT = ValidationContext
+    .builder()
+    .referential("rb_tst")
+    .validationReportId("report")
+    .build();
+
+  private AntuPrometheusMetricsService antuPrometheusMetricsService;
+  private JobAdmissionController controller;
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @BeforeEach
+  void setUp() {
+    antuPrometheusMetricsService = mock(AntuPrometheusMetricsService.class);
+    // 100 MB, 10 MB per job plus 2 bytes per byte of file.
+    controller = controller(100, 60_000);
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+  }
+
+  @Test
+  void smallFilesRunSideBySide() throws Exception {
+    CountDownLatch running = new CountDownLatch(3);
+    for (int i = 0; i < 3; i++) {
+      runInBackground(validateFile(10 * MEGABYTE), running);
+    }
+
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+    assertEquals(90 * MEGABYTE, controller.reservedBytes());
+  }
+
+  @Test
+  void aFileThatDoesNotFitIsHandedBackToTheQueue() throws Exception {
+    CountDownLatch running = new CountDownLatch(1);
+    runInBackground(validateFile(30 * MEGABYTE), running);
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    assertThrows(
+      JobDeferredException.class,
+      () ->
+        controller.run(validateFile(30 * MEGABYTE), JobPriority.LOW, () -> {})
+    );
+    verify(antuPrometheusMetricsService).countDeferredJob(JobType.VALIDATE);
+  }
+
+  @Test
+  void aJobOfUnknownSizeLeavesRoomForSmallJobs() throws Exception {
+    CountDownLatch running = new CountDownLatch(2);
+    runInBackground(validateFile(0), running);
+    runInBackground(validateFile(MEGABYTE), running);
+
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+    assertEquals(87 * MEGABYTE, controller.reservedBytes());
+    assertThrows(
+      JobDeferredException.class,
+      () ->
+        controller.run(validateFile(10 * MEGABYTE), JobPriority.LOW, () -> {})
+    );
+  }
+
+  @Test
+  void aFileLargerThanTheBudgetReservesMostOfIt() {
+    assertEquals(
+      75 * MEGABYTE,
+      controller.reservation(validateFile(1024 * MEGABYTE))
+    );
+  }
+
+  @Test
+  void theJobsLoadingADatasetReserveTheirOwnEstimate() {
+    assertEquals(
+      50 * MEGABYTE,
+      controller.reservation(new AntuJob.ValidateDataset(CONTEXT))
+    );
+  }
+
+  @Test
+  void aConsumerIsNotHeldWhileItsJobsAreAdmitted() {
+    controller.run(validateFile(MEGABYTE), JobPriority.LOW, () -> {});
+
+    long start = System.nanoTime();
+    controller.backOff();
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  void aConsumerWhoseJobsAreDeferredIsHeldUntilHeapIsReleased()
+    throws Exception {
+    CountDownLatch running = new CountDownLatch(1);
+    runInBackground(validateFile(30 * MEGABYTE), running);
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+    // 10 deferrals in a row: the backoff has grown past the 5 seconds below.
+    for (int i = 0; i < 10; i++) {
+      assertThrows(
+        JobDeferredException.class,
+        () ->
+          controller.run(validateFile(30 * MEGABYTE), JobPriority.LOW, () -> {})
+      );
+    }
+
+    CountDownLatch backedOff = new CountDownLatch(1);
+    Thread
+      .ofPlatform()
+      .daemon()
+      .start(() -> {
+        controller.backOff();
+        backedOff.countDown();
+      });
+    assertFalse(backedOff.await(200, TimeUnit.MILLISECONDS));
+
+    release.countDown();
+    assertTrue(backedOff.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void aWaitingLargeJobIsNotOvertakenBySmallOnes() throws Exception {
+    controller = controller(5000, 60_000);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    CountDownLatch firstRunning = new CountDownLatch(2);
+    CountDownLatch largeJobRunning = new CountDownLatch(1);
+    CountDownLatch smallJobRunning = new CountDownLatch(1);
+    for (int i = 0; i < 2; i++) {
+      runInBackground(
+        validateFile(10 * MEGABYTE),
+        JobPriority.LOW,
+        firstRunning,
+        releaseFirst
+      );
+    }
+    assertTrue(firstRunning.await(5, TimeUnit.SECONDS));
+    runInBackground(
+      validateFile(30 * MEGABYTE),
+      JobPriority.LOW,
+      largeJobRunning,
+      release
+    );
+    awaitLargeJobWaiting();
+
+    // Fits next to the first two, but not next to them and the large job.
+    runInBackground(
+      validateFile(10 * MEGABYTE),
+      JobPriority.LOW,
+      smallJobRunning,
+      release
+    );
+    assertFalse(smallJobRunning.await(200, TimeUnit.MILLISECONDS));
+
+    releaseFirst.countDown();
+    assertTrue(largeJobRunning.await(5, TimeUnit.SECONDS));
+    assertTrue(smallJobRunning.await(5, TimeUnit.SECONDS));
+    assertEquals(100 * MEGABYTE, controller.reservedBytes());
+  }
+
+  @Test
+  void theReservationIsReleasedWhenTheJobFails() {
+    assertThrows(
+      IllegalStateException.class,
+      () ->
+        controller.run(
+          validateFile(MEGABYTE),
+          JobPriority.LOW,
+          () -> {
+            throw new IllegalStateException();
+          }
+        )
+    );
+
+    assertEquals(0, controller.reservedBytes());
+  }
+
+  @Test
+  void aLowPriorityJobGivesWayToAWaitingHighPriorityJob() throws Exception {
+    controller = controller(5000, 60_000);
+    CountDownLatch releaseBatch = new CountDownLatch(1);
+    CountDownLatch batchRunning = new CountDownLatch(1);
+    CountDownLatch highPriorityRunning = new CountDownLatch(1);
+    CountDownLatch lowPriorityRunning = new CountDownLatch(1);
+    runInBackground(
+      validateFile(30 * MEGABYTE),
+      JobPriority.LOW,
+      batchRunning,
+      releaseBatch
+    );
+    assertTrue(batchRunning.await(5, TimeUnit.SECONDS));
+    runInBackground(
+      validateFile(15 * MEGABYTE),
+      JobPriority.HIGH,
+      highPriorityRunning,
+      release
+    );
+    awaitHighPriorityWaiting();
+
+    // Fits next to the batch job, but the high priority job was first in line.
+    runInBackground(
+      validateFile(MEGABYTE),
+      JobPriority.LOW,
+      lowPriorityRunning,
+      release
+    );
+    assertFalse(lowPriorityRunning.await(200, TimeUnit.MILLISECONDS));
+
+    releaseBatch.countDown();
+    assertTrue(highPriorityRunning.await(5, TimeUnit.SECONDS));
+    assertTrue(lowPriorityRunning.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void aLowPriorityJobGivesWayForALimitedTime() throws Exception {
+    controller = controller(5000, 100);
+    CountDownLatch batchRunning = new CountDownLatch(1);
+    CountDownLatch highPriorityRunning = new CountDownLatch(1);
+    CountDownLatch lowPriorityRunning = new CountDownLatch(1);
+    runInBackground(validateFile(30 * MEGABYTE), batchRunning);
+    assertTrue(batchRunning.await(5, TimeUnit.SECONDS));
+    runInBackground(
+      validateFile(15 * MEGABYTE),
+      JobPriority.HIGH,
+      highPriorityRunning,
+      release
+    );
+    awaitHighPriorityWaiting();
+
+    runInBackground(validateFile(MEGABYTE), lowPriorityRunning);
+
+    assertTrue(lowPriorityRunning.await(5, TimeUnit.SECONDS));
+    assertEquals(1, controller.highPriorityWaiting());
+  }
+
+  private JobAdmissionController controller(
+    long maxWaitMillis,
+    long lowPriorityMaxYieldMillis
+  ) {
+    return new JobAdmissionController(
+      100,
+      10,
+      2,
+      0,
+      0,
+      0,
+      maxWaitMillis,
+      maxWaitMillis,
+      lowPriorityMaxYieldMillis,
+      60_000,
+      antuPrometheusMetricsService
+    );
+  }
+
+  private void awaitHighPriorityWaiting() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (
+      controller.highPriorityWaiting() == 0 && System.nanoTime() < deadline
+    ) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, controller.highPriorityWaiting());
+  }
+
+  private void awaitLargeJobWaiting() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (
+      controller.largeJobsWaiting() == 0 && System.nanoTime() < deadline
+    ) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, controller.largeJobsWaiting());
+  }
+
+  private void runInBackground(AntuJob job, CountDownLatch running) {
+    runInBackground(job, JobPriority.LOW, running, release);
+  }
+
+  private void runInBackground(
+    AntuJob job,
+    JobPriority priority,
+    CountDownLatch running,
+    CountDownLatch finished
+  ) {
+    JobAdmissionController admittingController = controller;
+    Thread
+      .ofPlatform()
+      .daemon()
+      .start(() ->
+        admittingController.run(
+          job,
+          priority,
+          () -> {
+            running.countDown();
+            try {
+              finished.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        )
+      );
+  }
+
+  private static AntuJob.ValidateFile validateFile(long netexFileSize) {
+    return new AntuJob.ValidateFile(
+      CONTEXT,
+      "line.xml",
+      netexFileSize,
+      1,
+      0,
+      List.of()
+    );
+  }
+}
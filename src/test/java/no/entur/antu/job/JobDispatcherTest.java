@@ -1,12 +1,16 @@
 package no.entur.antu.job;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.util.List;
+import no.entur.antu.config.cache.ValidationState;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
 import no.entur.antu.pipeline.DatasetSplitter;
 import no.entur.antu.pipeline.DatasetValidator;
 import no.entur.antu.pipeline.NetexFileValidator;
@@ -33,6 +37,11 @@ class JobDispatcherTest {
     .validationReportId(LIVE_REPORT_ID)
     .build();
 
+  private static final ValidationState LIVE_STATE = new ValidationState(
+    LIVE_CONTEXT,
+    Instant.now()
+  );
+
   private static final ValidationContext FINISHED_CONTEXT = ValidationContext
     .builder()
     .referential("rb_tst")
@@ -46,19 +55,19 @@ class JobDispatcherTest {
   private ValidationCompleter validationCompleter;
   private StopPlaceCacheRefresher stopPlaceCacheRefresher;
   private OrganisationAliasCacheRefresher organisationAliasCacheRefresher;
+  private AntuPrometheusMetricsService antuPrometheusMetricsService;
+  private ValidationStateRepository validationStateRepository;
   private JobDispatcher dispatcher;
 
   @BeforeEach
   void setUp() {
-    ValidationStateRepository validationStateRepository = mock(
-      ValidationStateRepository.class
-    );
+    validationStateRepository = mock(ValidationStateRepository.class);
     // recordProgress both answers "is this validation still running" and keeps the stalled-validation
     // sweep from giving up on it, so it is the one call the dispatcher makes.
     when(validationStateRepository.recordProgress(LIVE_REPORT_ID))
-      .thenReturn(true);
+      .thenReturn(LIVE_STATE);
     when(validationStateRepository.recordProgress(FINISHED_REPORT_ID))
-      .thenReturn(false);
+      .thenReturn(null);
 
     datasetSplitter = mock(DatasetSplitter.class);
     netexFileValidator = mock(NetexFileValidator.class);
@@ -68,6 +77,7 @@ class JobDispatcherTest {
     stopPlaceCacheRefresher = mock(StopPlaceCacheRefresher.class);
     organisationAliasCacheRefresher =
       mock(OrganisationAliasCacheRefresher.class);
+    antuPrometheusMetricsService = mock(AntuPrometheusMetricsService.class);
 
     dispatcher =
       new JobDispatcher(
@@ -78,24 +88,31 @@ class JobDispatcherTest {
         datasetValidator,
         validationCompleter,
         stopPlaceCacheRefresher,
-        organisationAliasCacheRefresher
+        organisationAliasCacheRefresher,
+        antuPrometheusMetricsService,
+        true
       );
   }
 
   @Test
   void aJobForAFinishedValidationIsIgnored() {
     dispatcher.dispatch(
-      new AntuJob.ValidateFile(FINISHED_CONTEXT, "a.xml", 1, 0, List.of())
+      new AntuJob.ValidateFile(FINISHED_CONTEXT, "a.xml", 0, 1, 0, List.of())
     );
 
     verifyNoInteractions(netexFileValidator);
   }
 
+  /**
+   * The state read to record the progress is the one the file validation goes by, rather than a second
+   * read of its own.
+   */
   @Test
   void aJobForARunningValidationIsExecuted() {
     AntuJob.ValidateFile job = new AntuJob.ValidateFile(
       LIVE_CONTEXT,
       "a.xml",
+      0,
       1,
       0,
       List.of()
@@ -103,7 +120,53 @@ class JobDispatcherTest {
 
     dispatcher.dispatch(job);
 
-    verify(netexFileValidator).validate(job);
+    verify(netexFileValidator).validate(job, LIVE_STATE);
+  }
+
+  @Test
+  void theRedisCommandsOfAJobAreCountedAndRecorded() {
+    AntuJob.ValidateFile job = new AntuJob.ValidateFile(
+      LIVE_CONTEXT,
+      "a.xml",
+      0,
+      1,
+      0,
+      List.of()
+    );
+    doAnswer(invocation -> {
+        JobRedisCommands.count(3);
+        return null;
+      })
+      .when(netexFileValidator)
+      .validate(job, LIVE_STATE);
+
+    dispatcher.dispatch(job);
+    dispatcher.dispatch(new AntuJob.RefreshStopPlaceCache());
+
+    verify(antuPrometheusMetricsService)
+      .recordJobRedisCommands(JobType.VALIDATE, 3);
+    verify(antuPrometheusMetricsService)
+      .recordJobRedisCommands(JobType.REFRESH_STOP_PLACE_CACHE, 0);
+  }
+
+  @Test
+  void noRedisCommandsAreRecordedWhenTheCountingIsDisabled() {
+    new JobDispatcher(
+      validationStateRepository,
+      datasetSplitter,
+      netexFileValidator,
+      reportAggregator,
+      datasetValidator,
+      validationCompleter,
+      stopPlaceCacheRefresher,
+      organisationAliasCacheRefresher,
+      antuPrometheusMetricsService,
+      false
+    )
+      .dispatch(new AntuJob.RefreshStopPlaceCache());
+
+    verify(stopPlaceCacheRefresher).refresh();
+    verifyNoInteractions(antuPrometheusMetricsService);
   }
 
   /**
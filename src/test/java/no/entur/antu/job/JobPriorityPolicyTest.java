@@ -0,0 +1,65 @@
+package no.entur.antu.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class JobPriorityPolicyTest {
+
+  private final JobPriorityPolicy jobPriorityPolicy = new JobPriorityPolicy(
+    Set.of("EnturValidationStagePreValidation"),
+    Set.of("Kakka")
+  );
+
+  @Test
+  void aValidationOfAHighPriorityStageIsOfHighPriority() {
+    assertEquals(
+      JobPriority.HIGH,
+      jobPriorityPolicy.priorityOf(
+        splitDataset("Marduk", "EnturValidationStagePreValidation")
+      )
+    );
+  }
+
+  @Test
+  void aValidationOfAHighPriorityClientIsOfHighPriority() {
+    assertEquals(
+      JobPriority.HIGH,
+      jobPriorityPolicy.priorityOf(splitDataset("Kakka", null))
+    );
+  }
+
+  @Test
+  void aBatchValidationIsOfLowPriority() {
+    assertEquals(
+      JobPriority.LOW,
+      jobPriorityPolicy.priorityOf(
+        splitDataset("Marduk", "EnturValidationStageNightlyValidation")
+      )
+    );
+  }
+
+  @Test
+  void aCacheRefreshIsOfLowPriority() {
+    assertEquals(
+      JobPriority.LOW,
+      jobPriorityPolicy.priorityOf(new AntuJob.RefreshStopPlaceCache())
+    );
+  }
+
+  private static AntuJob.SplitDataset splitDataset(
+    String validationClient,
+    String validationStage
+  ) {
+    return new AntuJob.SplitDataset(
+      ValidationContext
+        .builder()
+        .referential("rb_tst")
+        .validationReportId("report")
+        .validationClient(validationClient)
+        .validationStage(validationStage)
+        .build()
+    );
+  }
+}
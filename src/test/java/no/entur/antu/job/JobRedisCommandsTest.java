@@ -0,0 +1,91 @@
+package no.entur.antu.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import no.entur.antu.config.EmbeddedRedisTestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBatch;
+import org.redisson.api.RLocalCachedMap;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.options.LocalCachedMapOptions;
+
+class JobRedisCommandsTest extends EmbeddedRedisTestBase {
+
+  private RedissonClient countingClient;
+
+  @BeforeEach
+  void setUp() {
+    countingClient = JobRedisCommands.counting(redissonClient);
+  }
+
+  @Test
+  void aCallOnAnObjectIsARoundTripAndHandingItOutIsNot() {
+    JobRedisCommands.start();
+    countingClient.<String>getBucket(newKey()).set("value");
+    countingClient.<String>getBucket(newKey()).get();
+    countingClient.getMap(newKey()).getName();
+
+    assertEquals(2, JobRedisCommands.stop());
+  }
+
+  @Test
+  void aBatchIsOneRoundTrip() {
+    JobRedisCommands.start();
+    RBatch batch = countingClient.createBatch();
+    batch.getBucket(newKey()).setAsync("a");
+    batch.getBucket(newKey()).setAsync("b");
+    batch.getMap(newKey()).putAsync("c", "d");
+    batch.execute();
+
+    assertEquals(1, JobRedisCommands.stop());
+  }
+
+  @Test
+  void aReadServedByTheLocalCacheIsNoRoundTrip() {
+    RLocalCachedMap<String, String> map = countingClient.getLocalCachedMap(
+      LocalCachedMapOptions.<String, String>name(newKey())
+    );
+    map.put("key", "value");
+
+    JobRedisCommands.start();
+    map.get("key");
+    map.get("key");
+    map.getAll(Set.of("key"));
+
+    assertEquals(0, JobRedisCommands.stop());
+  }
+
+  /**
+   * The validators fan out to executors of their own: what they read counts towards the job that submitted
+   * them.
+   */
+  @Test
+  void theTasksOfAPropagatingExecutorCountTowardsTheSubmittingJob()
+    throws Exception {
+    ExecutorService executor = JobRedisCommands.propagating(
+      Executors.newFixedThreadPool(2)
+    );
+    try {
+      JobRedisCommands.start();
+      executor
+        .submit(() -> countingClient.<String>getBucket(newKey()).get())
+        .get();
+      executor
+        .submit(() -> countingClient.getMap(newKey()).readAllMap())
+        .get();
+
+      assertEquals(2, JobRedisCommands.stop());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String newKey() {
+    return "job-redis-commands-" + UUID.randomUUID();
+  }
+}
@@ -0,0 +1,147 @@
+package no.entur.antu.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import no.entur.antu.config.EmbeddedRedisTestBase;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import no.entur.antu.validation.state.ValidationStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueuedJobRunnerTest extends EmbeddedRedisTestBase {
+
+  private static final long MEGABYTE = 1024L * 1024;
+
+  private JobQueue jobQueue;
+  private JobAdmissionController jobAdmissionController;
+  private JobDispatcher jobDispatcher;
+  private QueuedJobRunner queuedJobRunner;
+
+  @BeforeEach
+  void setUp() {
+    AntuPrometheusMetricsService antuPrometheusMetricsService = mock(
+      AntuPrometheusMetricsService.class
+    );
+    ValidationStateRepository validationStateRepository = mock(
+      ValidationStateRepository.class
+    );
+    // 4 file validations across the fleet between 10 validations: 1 per dataset, and no waiting for it.
+    when(validationStateRepository.countValidationStates()).thenReturn(10);
+    DatasetFairShare datasetFairShare = new DatasetFairShare(
+      redissonClient,
+      validationStateRepository,
+      4,
+      1,
+      0,
+      antuPrometheusMetricsService
+    );
+    // 100 MB, 10 MB per job plus 2 bytes per byte of file.
+    jobAdmissionController =
+      spy(
+        new JobAdmissionController(
+          100,
+          10,
+          2,
+          0,
+          0,
+          0,
+          1000,
+          1000,
+          1000,
+          1000,
+          antuPrometheusMetricsService
+        )
+      );
+    jobQueue = mock(JobQueue.class);
+    jobDispatcher = mock(JobDispatcher.class);
+    queuedJobRunner =
+      new QueuedJobRunner(
+        new DeferredJobRequeuer(jobQueue),
+        datasetFairShare,
+        jobAdmissionController,
+        jobDispatcher
+      );
+  }
+
+  @Test
+  void aJobDeferredByTheFairShareHoldsNoHeap() {
+    String reportId = "report-" + UUID.randomUUID();
+    AntuJob.ValidateFile running = validateFile(reportId, "a.xml");
+    AntuJob.ValidateFile deferred = validateFile(reportId, "b.xml");
+    AtomicLong reservedWhileRunning = new AtomicLong();
+    AtomicLong reservedWhenDeferred = new AtomicLong();
+    doAnswer(invocation -> {
+        reservedWhenDeferred.set(jobAdmissionController.reservedBytes());
+        return null;
+      })
+      .when(jobQueue)
+      .submit(deferred);
+    doAnswer(invocation -> {
+        reservedWhileRunning.set(jobAdmissionController.reservedBytes());
+        // The dataset has its share in flight.
+        queuedJobRunner.run(deferred, JobPriority.LOW);
+        return null;
+      })
+      .when(jobDispatcher)
+      .dispatch(running);
+
+    queuedJobRunner.run(running, JobPriority.LOW);
+
+    verify(jobQueue).submit(deferred);
+    verify(jobAdmissionController, never()).run(eq(deferred), any(), any());
+    verify(jobDispatcher, never()).dispatch(deferred);
+    assertEquals(30 * MEGABYTE, reservedWhileRunning.get());
+    assertEquals(reservedWhileRunning.get(), reservedWhenDeferred.get());
+    assertEquals(0, jobAdmissionController.reservedBytes());
+  }
+
+  @Test
+  void onlyTheFileValidationsTakeTurnsBetweenDatasets() {
+    String reportId = "report-" + UUID.randomUUID();
+    AntuJob.ValidateFile running = validateFile(reportId, "a.xml");
+    AntuJob.AggregateReports aggregateReports = new AntuJob.AggregateReports(
+      running.context(),
+      List.of("a.xml")
+    );
+    doAnswer(invocation -> {
+        queuedJobRunner.run(aggregateReports, JobPriority.LOW);
+        return null;
+      })
+      .when(jobDispatcher)
+      .dispatch(running);
+
+    queuedJobRunner.run(running, JobPriority.LOW);
+
+    verify(jobDispatcher).dispatch(aggregateReports);
+    verify(jobQueue, never()).submit(any());
+  }
+
+  private static AntuJob.ValidateFile validateFile(
+    String reportId,
+    String fileName
+  ) {
+    return new AntuJob.ValidateFile(
+      ValidationContext
+        .builder()
+        .referential("rb_tst")
+        .validationReportId(reportId)
+        .build(),
+      fileName,
+      10 * MEGABYTE,
+      1,
+      0,
+      List.of()
+    );
+  }
+}
@@ -8,9 +8,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.entur.netex.validation.validator.model.ServiceJourneyId;
+import org.entur.netex.validation.validator.model.ServiceJourneyInterchangeInfo;
 import org.entur.netex.validation.validator.model.ServiceJourneyStop;
+import org.entur.netex.validation.validator.model.SimpleLine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.Line;
+import org.rutebanken.netex.model.MultilingualString;
+import org.rutebanken.netex.model.ScheduledStopPointRefStructure;
+import org.rutebanken.netex.model.ServiceJourneyInterchange;
+import org.rutebanken.netex.model.VehicleJourneyRefStructure;
 
 class DefaultNetexDataRepositoryTest {
 
@@ -18,9 +25,9 @@ class DefaultNetexDataRepositoryTest {
 
   private DefaultNetexDataRepository repository;
 
-  private Map<String, List<String>> lineInfoCache;
+  private Map<String, List<SimpleLine>> lineInfoCache;
   private Map<String, Map<String, List<ServiceJourneyStop>>> serviceJourneyStopsCache;
-  private Map<String, List<String>> serviceJourneyInterchangeInfoCache;
+  private Map<String, List<ServiceJourneyInterchangeInfo>> serviceJourneyInterchangeInfoCache;
   private Map<String, Map<ServiceJourneyId, List<LocalDateTime>>> activeDatesByServiceJourneyId;
   private Map<String, Map<String, List<LocalDateTime>>> dayTypeActiveDatesCache;
   private Map<String, Map<String, LocalDateTime>> operatingDayActiveDateCache;
@@ -29,7 +36,10 @@ class DefaultNetexDataRepositoryTest {
   @BeforeEach
   void setUp() {
     lineInfoCache = new HashMap<>();
-    lineInfoCache.put(validationReportId, List.of("TST:Line:1", "TST:Line:2"));
+    lineInfoCache.put(
+      validationReportId,
+      List.of(simpleLine("TST:Line:1"), simpleLine("TST:Line:2"))
+    );
 
     serviceJourneyStopsCache = new HashMap<>();
     serviceJourneyStopsCache.put(
@@ -43,7 +53,27 @@ class DefaultNetexDataRepositoryTest {
     serviceJourneyInterchangeInfoCache = new HashMap<>();
     serviceJourneyInterchangeInfoCache.put(
       validationReportId,
-      List.of("TST:ServiceJourneyInterchange:1")
+      List.of(
+        ServiceJourneyInterchangeInfo.of(
+          "line.xml",
+          new ServiceJourneyInterchange()
+            .withId("TST:ServiceJourneyInterchange:1")
+            .withFromJourneyRef(
+              new VehicleJourneyRefStructure().withRef("TST:ServiceJourney:1")
+            )
+            .withToJourneyRef(
+              new VehicleJourneyRefStructure().withRef("TST:ServiceJourney:2")
+            )
+            .withFromPointRef(
+              new ScheduledStopPointRefStructure()
+                .withRef("TST:ScheduledStopPoint:1")
+            )
+            .withToPointRef(
+              new ScheduledStopPointRefStructure()
+                .withRef("TST:ScheduledStopPoint:2")
+            )
+        )
+      )
     );
 
     activeDatesByServiceJourneyId = new HashMap<>();
@@ -93,6 +123,30 @@ class DefaultNetexDataRepositoryTest {
     assertTrue(scheduledStopPointIdsCache.isEmpty());
   }
 
+  @Test
+  void testCleanUpKeepsOtherReports() {
+    serviceJourneyStopsCache.put("report10", Map.of());
+    lineInfoCache.put("report10", List.of());
+
+    repository.cleanUp(validationReportId);
+
+    assertEquals(Set.of("report10"), serviceJourneyStopsCache.keySet());
+    assertEquals(Set.of("report10"), lineInfoCache.keySet());
+  }
+
+  @Test
+  void testServiceJourneyStopsOfAnotherReport() {
+    assertTrue(repository.serviceJourneyStops("report10").isEmpty());
+  }
+
+  @Test
+  void testLineNames() {
+    assertEquals(
+      List.of(simpleLine("TST:Line:1"), simpleLine("TST:Line:2")),
+      repository.lineNames(validationReportId)
+    );
+  }
+
   @Test
   void testServiceJourneyStops() {
     Map<ServiceJourneyId, List<ServiceJourneyStop>> stops =
@@ -120,4 +174,13 @@ class DefaultNetexDataRepositoryTest {
       activeDates.get(new ServiceJourneyId("TST:ServiceJourney:1")).size()
     );
   }
+
+  private static SimpleLine simpleLine(String lineId) {
+    return SimpleLine.of(
+      new Line()
+        .withId(lineId)
+        .withName(new MultilingualString().withValue("Line " + lineId)),
+      "line.xml"
+    );
+  }
 }
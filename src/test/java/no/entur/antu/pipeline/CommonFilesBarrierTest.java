@@ -4,6 +4,7 @@ import static no.entur.antu.validation.ValidationProfile.TIMETABLE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Comparator;
 import java.util.List;
 import no.entur.antu.job.AntuJob;
 import org.junit.jupiter.api.Test;
@@ -103,6 +104,38 @@ class CommonFilesBarrierTest extends AntuPipelineTestBase {
     );
   }
 
+  /**
+   * The sizes are recorded by the pod that splits the dataset, and read back by whichever pod opens the
+   * common files barrier.
+   */
+  @Test
+  void lineFileJobsCarryTheirSizeAndAreQueuedLargestFirst() {
+    validate(
+      CODESPACE_AVI,
+      uploadTestDataset(CODESPACE_AVI, "rb_avi-aggregated-netex.zip"),
+      TIMETABLE.id()
+    );
+
+    List<Long> lineFileSizes = jobQueue
+      .submittedJobs()
+      .stream()
+      .filter(AntuJob.ValidateFile.class::isInstance)
+      .map(AntuJob.ValidateFile.class::cast)
+      .filter(validateFile -> !validateFile.isCommonFile())
+      .map(AntuJob.ValidateFile::netexFileSize)
+      .toList();
+
+    assertTrue(lineFileSizes.size() > 1, "the dataset has line files");
+    assertTrue(
+      lineFileSizes.stream().allMatch(size -> size > 0),
+      "every line file job must carry the size of its file"
+    );
+    assertEquals(
+      lineFileSizes.stream().sorted(Comparator.reverseOrder()).toList(),
+      lineFileSizes
+    );
+  }
+
   private static int indexOfFirst(List<AntuJob> jobs, Class<?> type) {
     for (int i = 0; i < jobs.size(); i++) {
       if (type.isInstance(jobs.get(i))) {
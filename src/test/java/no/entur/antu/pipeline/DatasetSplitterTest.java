@@ -0,0 +1,97 @@
+package no.entur.antu.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import no.entur.antu.job.AntuJob;
+import no.entur.antu.job.ValidationContext;
+import no.entur.antu.services.AntuExchangeBlobStoreService;
+import org.junit.jupiter.api.Test;
+
+class DatasetSplitterTest {
+
+  private static final ValidationContext CONTEXT = ValidationContext
+    .builder()
+    .referential("rb_tst")
+    .validationReportId("reportId")
+    .build();
+
+  private static final List<String> ALL_FILE_NAMES = List.of(
+    "_common.xml",
+    "a.xml",
+    "b.xml",
+    "c.xml",
+    "large.xml",
+    "unknown.xml"
+  );
+
+  private final NetexFileStore netexFileStore = mock(NetexFileStore.class);
+  private final List<AntuJob> submittedJobs = new ArrayList<>();
+
+  @Test
+  void smallLineFilesAreValidatedSeveralToAJob() {
+    when(netexFileStore.readSizes("reportId"))
+      .thenReturn(
+        Map.of(
+          "_common.xml",
+          10_000L,
+          "a.xml",
+          100L,
+          "b.xml",
+          200L,
+          "c.xml",
+          300L,
+          "large.xml",
+          5_000L
+        )
+      );
+
+    splitter(1, 2)
+      .createLineFileJobs(
+        new AntuJob.CreateLineFileJobs(CONTEXT, ALL_FILE_NAMES)
+      );
+
+    assertEquals(
+      List.of(
+        new AntuJob.ValidateFile(CONTEXT, "large.xml", 5_000, 6, 0, List.of()),
+        new AntuJob.ValidateFile(CONTEXT, "unknown.xml", 0, 6, 0, List.of()),
+        new AntuJob.ValidateFiles(CONTEXT, List.of("c.xml", "b.xml"), 300, 6),
+        new AntuJob.ValidateFile(CONTEXT, "a.xml", 100, 6, 0, List.of())
+      ),
+      submittedJobs
+    );
+  }
+
+  @Test
+  void everyLineFileHasAJobOfItsOwnByDefault() {
+    when(netexFileStore.readSizes("reportId"))
+      .thenReturn(Map.of("a.xml", 100L, "b.xml", 200L));
+
+    splitter(0, 20)
+      .createLineFileJobs(
+        new AntuJob.CreateLineFileJobs(CONTEXT, List.of("a.xml", "b.xml"))
+      );
+
+    assertEquals(
+      List.of(
+        new AntuJob.ValidateFile(CONTEXT, "b.xml", 200, 2, 0, List.of()),
+        new AntuJob.ValidateFile(CONTEXT, "a.xml", 100, 2, 0, List.of())
+      ),
+      submittedJobs
+    );
+  }
+
+  private DatasetSplitter splitter(long batchMaxFileSizeKb, int batchMaxFiles) {
+    return new DatasetSplitter(
+      mock(AntuExchangeBlobStoreService.class),
+      netexFileStore,
+      submittedJobs::add,
+      batchMaxFileSizeKb,
+      batchMaxFiles
+    );
+  }
+}
@@ -14,8 +14,10 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.function.Consumer;
+import no.entur.antu.config.cache.ValidationState;
 import no.entur.antu.exception.AntuException;
 import no.entur.antu.exception.RetryableAntuException;
 import no.entur.antu.job.AntuJob;
@@ -45,7 +47,12 @@ class NetexFileValidatorTest {
     .build();
 
   private static final AntuJob.ValidateFile LINE_FILE_JOB =
-    new AntuJob.ValidateFile(CONTEXT, "netex.xml", 1, 0, List.of());
+    new AntuJob.ValidateFile(CONTEXT, "netex.xml", 0, 1, 0, List.of());
+
+  private static final ValidationState STATE = new ValidationState(
+    CONTEXT,
+    Instant.now()
+  );
 
   private NetexValidationProfile netexValidationProfile;
   private NetexFileStore netexFileStore;
@@ -101,7 +108,7 @@ class NetexFileValidatorTest {
     when(netexFileStore.read(anyString(), anyString()))
       .thenThrow(new AntuMemoryStoreFileNotFoundException("gone"));
 
-    validator.validate(LINE_FILE_JOB);
+    validator.validate(LINE_FILE_JOB, STATE);
 
     verifyNoInteractions(validationReportStore, validationBarrier, jobQueue);
   }
@@ -118,6 +125,7 @@ class NetexFileValidatorTest {
         anyString(),
         anyString(),
         any(),
+        any(),
         any()
       )
     )
@@ -125,7 +133,10 @@ class NetexFileValidatorTest {
         new RetryableAntuException(new IllegalStateException("redis"))
       );
 
-    assertThrows(AntuException.class, () -> validator.validate(LINE_FILE_JOB));
+    assertThrows(
+      AntuException.class,
+      () -> validator.validate(LINE_FILE_JOB, STATE)
+    );
 
     verifyNoInteractions(validationReportStore, validationBarrier, jobQueue);
   }
@@ -143,12 +154,13 @@ class NetexFileValidatorTest {
         anyString(),
         anyString(),
         any(),
+        any(),
         any()
       )
     )
       .thenThrow(new IllegalArgumentException("malformed"));
 
-    validator.validate(LINE_FILE_JOB);
+    validator.validate(LINE_FILE_JOB, STATE);
 
     ArgumentCaptor<ValidationReport> report = ArgumentCaptor.forClass(
       ValidationReport.class
@@ -184,12 +196,13 @@ class NetexFileValidatorTest {
         anyString(),
         anyString(),
         any(),
+        any(),
         any()
       )
     )
       .thenReturn(new ValidationReport("tst", "reportId"));
 
-    validator.validate(LINE_FILE_JOB);
+    validator.validate(LINE_FILE_JOB, STATE);
 
     verify(validationReportStore)
       .saveFileReport(eq(CONTEXT), eq("netex.xml"), any());
@@ -213,12 +226,13 @@ class NetexFileValidatorTest {
         anyString(),
         anyString(),
         any(),
+        any(),
         any()
       )
     )
       .thenReturn(new ValidationReport("tst", "reportId"));
 
-    validator.validate(LINE_FILE_JOB);
+    validator.validate(LINE_FILE_JOB, STATE);
 
     verify(validationBarrier, never())
       .arrive(
@@ -239,6 +253,7 @@ class NetexFileValidatorTest {
         anyString(),
         anyString(),
         any(),
+        any(),
         any()
       )
     )
@@ -252,10 +267,12 @@ class NetexFileValidatorTest {
       new AntuJob.ValidateFile(
         CONTEXT,
         "_common.xml",
+        0,
         2,
         1,
         List.of("_common.xml", "line.xml")
-      )
+      ),
+      STATE
     );
 
     verify(jobQueue)
@@ -267,6 +284,44 @@ class NetexFileValidatorTest {
       );
   }
 
+  /**
+   * Validating small files several to a job saves the job overhead, not the per-file bookkeeping: a file
+   * that went uncounted would keep the dataset from ever being aggregated.
+   */
+  @Test
+  void eachFileOfABatchIsReportedAndCountedAtTheBarrier() {
+    when(
+      netexValidationProfile.validate(
+        anyString(),
+        anyString(),
+        anyString(),
+        anyString(),
+        any(),
+        any(),
+        any()
+      )
+    )
+      .thenReturn(new ValidationReport("tst", "reportId"));
+
+    validator.validate(
+      new AntuJob.ValidateFiles(CONTEXT, List.of("a.xml", "b.xml"), 100, 3),
+      STATE
+    );
+
+    for (String fileName : List.of("a.xml", "b.xml")) {
+      verify(validationReportStore)
+        .saveFileReport(eq(CONTEXT), eq(fileName), any());
+      verify(validationBarrier)
+        .arrive(
+          eq(ValidationBarrier.Stage.REPORTS_WRITTEN),
+          eq("reportId"),
+          eq(fileName),
+          eq(3),
+          any()
+        );
+    }
+  }
+
   @Test
   void passingTheReportBarrierStartsTheAggregation() {
     when(
@@ -276,13 +331,14 @@ class NetexFileValidatorTest {
         anyString(),
         anyString(),
         any(),
+        any(),
         any()
       )
     )
       .thenReturn(new ValidationReport("tst", "reportId"));
     openBarrier(ValidationBarrier.Stage.REPORTS_WRITTEN, List.of("netex.xml"));
 
-    validator.validate(LINE_FILE_JOB);
+    validator.validate(LINE_FILE_JOB, STATE);
 
     verify(jobQueue)
       .submit(new AntuJob.AggregateReports(CONTEXT, List.of("netex.xml")));
@@ -5,17 +5,22 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 import no.entur.antu.config.EmbeddedRedisTestBase;
+import no.entur.antu.job.JobRedisCommands;
 import no.entur.antu.pipeline.ValidationBarrier.Stage;
 import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
 
 /**
  * The barrier is the one place where two pods racing would either run a stage twice or never run it.
@@ -23,7 +28,7 @@ import org.junit.jupiter.api.Test;
 class ValidationBarrierTest extends EmbeddedRedisTestBase {
 
   private static ValidationBarrier barrier() {
-    return new ValidationBarrier(redissonClient);
+    return new ValidationBarrier(JobRedisCommands.counting(redissonClient));
   }
 
   private static String newReportId() {
@@ -66,6 +71,26 @@ class ValidationBarrierTest extends EmbeddedRedisTestBase {
     assertEquals(List.of("a.xml", "b.xml", "c.xml"), opened.only());
   }
 
+  /**
+   * Every file of a dataset arrives at the barrier, so an arrival that does not open it is one round trip.
+   */
+  @Test
+  void anArrivalIsASingleRoundTrip() {
+    ValidationBarrier barrier = barrier();
+    String reportId = newReportId();
+
+    JobRedisCommands.start();
+    barrier.arrive(
+      Stage.REPORTS_WRITTEN,
+      reportId,
+      "a.xml",
+      2,
+      fileNames -> {}
+    );
+
+    assertEquals(1, JobRedisCommands.stop());
+  }
+
   /**
    * PubSub redelivers, so the same file arrives more than once. Counting it twice would open the barrier
    * before the other files are done.
@@ -222,6 +247,70 @@ class ValidationBarrierTest extends EmbeddedRedisTestBase {
     assertEquals(1, handovers.get());
   }
 
+  /**
+   * Pods of their own, each with its own connections, and every file delivered twice, which is what a
+   * dataset fanning out over the fleet looks like when PubSub redelivers. Whatever the interleaving, the
+   * barrier opens once, with every file, and an arrival is a single round trip whether it opens the barrier
+   * or not.
+   */
+  @Test
+  void manyPodsArrivingAtOnceOpenTheBarrierExactlyOnceWithEveryFile()
+    throws Exception {
+    String reportId = newReportId();
+    int podCount = 6;
+    int fileCount = 300;
+    List<RedissonClient> pods = new ArrayList<>();
+    for (int i = 0; i < podCount; i++) {
+      pods.add(newRedissonClient());
+    }
+    List<List<String>> handovers = new CopyOnWriteArrayList<>();
+    AtomicInteger roundTrips = new AtomicInteger();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(32)) {
+      List<Callable<Void>> arrivals = new ArrayList<>();
+      for (int delivery = 0; delivery < 2; delivery++) {
+        for (int i = 0; i < fileCount; i++) {
+          ValidationBarrier pod = new ValidationBarrier(
+            JobRedisCommands.counting(pods.get((i + delivery) % podCount))
+          );
+          String fileName = String.format("file-%03d.xml", i);
+          arrivals.add(() -> {
+            JobRedisCommands.start();
+            try {
+              pod.arrive(
+                Stage.REPORTS_WRITTEN,
+                reportId,
+                fileName,
+                fileCount,
+                handovers::add
+              );
+            } finally {
+              roundTrips.addAndGet(JobRedisCommands.stop());
+            }
+            return null;
+          });
+        }
+      }
+      Collections.shuffle(arrivals, new Random(42));
+
+      for (Future<Void> result : executor.invokeAll(arrivals)) {
+        result.get();
+      }
+    } finally {
+      pods.forEach(RedissonClient::shutdown);
+    }
+
+    assertEquals(1, handovers.size());
+    assertEquals(
+      IntStream
+        .range(0, fileCount)
+        .mapToObj(i -> String.format("file-%03d.xml", i))
+        .toList(),
+      handovers.getFirst()
+    );
+    assertEquals(2 * fileCount, roundTrips.get());
+  }
+
   @Test
   void cleanUpLetsAReportIdBeReused() {
     ValidationBarrier barrier = barrier();
@@ -249,7 +338,9 @@ class ValidationBarrierTest extends EmbeddedRedisTestBase {
     );
 
     long ttl = redissonClient
-      .getSet("BARRIER_" + Stage.REPORTS_WRITTEN.name() + (char) 95 + reportId)
+      .getSet(
+        "BARRIER_V2_" + Stage.REPORTS_WRITTEN.name() + (char) 95 + reportId
+      )
       .remainTimeToLive();
     // Covers both -1 (key with no TTL) and -2 (no key at all).
     assertTrue(ttl > 0, "the arrival set must carry a TTL, got " + ttl);
@@ -73,6 +73,22 @@ class ValidationCompleterTest extends EmbeddedRedisTestBase {
     verify(validationCacheCleaner).cleanUp(context.validationReportId());
   }
 
+  /**
+   * Once the client has its status the job consumer is released, and the clean-up runs behind it.
+   */
+  @Test
+  void aCompletionCleansUpInTheBackground() {
+    when(validationReportStore.reportAlreadyPublished(context))
+      .thenReturn(false);
+
+    completer().complete(context, cleanReport());
+
+    verify(validationStatusNotifier).notifyStatus(context, ValidationStatus.OK);
+    verify(validationCacheCleaner)
+      .cleanUpInBackground(context.validationReportId());
+    verify(validationCacheCleaner, never()).cleanUp(any());
+  }
+
   /**
    * Cleaning up again must not turn into telling the client twice.
    */
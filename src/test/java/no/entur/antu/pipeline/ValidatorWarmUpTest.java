@@ -0,0 +1,100 @@
+package no.entur.antu.pipeline;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
+import no.entur.antu.validation.NetexValidationProfile;
+import no.entur.antu.validation.ValidationProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ValidatorWarmUpTest {
+
+  private NetexValidationProfile netexValidationProfile;
+  private ValidationCacheCleaner validationCacheCleaner;
+  private AntuPrometheusMetricsService antuPrometheusMetricsService;
+
+  @BeforeEach
+  void setUp() {
+    netexValidationProfile = mock(NetexValidationProfile.class);
+    validationCacheCleaner = mock(ValidationCacheCleaner.class);
+    antuPrometheusMetricsService = mock(AntuPrometheusMetricsService.class);
+    when(
+      netexValidationProfile.warmUp(
+        any(),
+        anyString(),
+        anyString(),
+        anyString(),
+        any()
+      )
+    )
+      .thenReturn(true);
+  }
+
+  @Test
+  void everyProfileIsWarmedUpAndTimed() {
+    warmUp(true).warmUp();
+
+    for (ValidationProfile validationProfile : ValidationProfile.values()) {
+      verify(netexValidationProfile)
+        .warmUp(
+          eq(validationProfile),
+          anyString(),
+          anyString(),
+          anyString(),
+          any()
+        );
+      verify(antuPrometheusMetricsService)
+        .recordValidatorWarmUp(eq(validationProfile.id()), any());
+    }
+    verify(validationCacheCleaner).cleanUp(anyString());
+  }
+
+  /**
+   * A pod whose warm-up failed is slower on its first files, which is no reason not to start it.
+   */
+  @Test
+  void aProfileFailingToWarmUpDoesNotStopTheOthers() {
+    when(
+      netexValidationProfile.warmUp(
+        eq(ValidationProfile.TIMETABLE),
+        anyString(),
+        anyString(),
+        anyString(),
+        any()
+      )
+    )
+      .thenThrow(new IllegalStateException("no schema"));
+
+    warmUp(true).warmUp();
+
+    verify(antuPrometheusMetricsService, never())
+      .recordValidatorWarmUp(eq(ValidationProfile.TIMETABLE.id()), any());
+    verify(antuPrometheusMetricsService)
+      .recordValidatorWarmUp(eq(ValidationProfile.STOP.id()), any());
+    verify(validationCacheCleaner).cleanUp(anyString());
+  }
+
+  @Test
+  void nothingRunsWhenDisabled() {
+    warmUp(false).warmUp();
+
+    verifyNoInteractions(netexValidationProfile, validationCacheCleaner);
+  }
+
+  private ValidatorWarmUp warmUp(boolean enabled) {
+    return new ValidatorWarmUp(
+      netexValidationProfile,
+      validationCacheCleaner,
+      antuPrometheusMetricsService,
+      enabled
+    );
+  }
+}
@@ -5,6 +5,7 @@ import static no.entur.antu.Constants.DATASET_NB_NETEX_FILES;
 import static no.entur.antu.Constants.DATASET_REFERENTIAL;
 import static no.entur.antu.Constants.JOB_TYPE;
 import static no.entur.antu.Constants.NETEX_FILE_NAME;
+import static no.entur.antu.Constants.NETEX_FILE_SIZE;
 import static no.entur.antu.Constants.VALIDATION_CORRELATION_ID_HEADER;
 import static no.entur.antu.Constants.VALIDATION_DATASET_FILE_HANDLE_HEADER;
 import static no.entur.antu.Constants.VALIDATION_REPORT_ID_HEADER;
@@ -49,6 +50,7 @@ class JobMessageCodecTest {
       new AntuJob.ValidateFile(
         CONTEXT,
         "_common.xml",
+        48_213,
         12,
         2,
         List.of("_common.xml", "line.xml")
@@ -56,6 +58,13 @@ class JobMessageCodecTest {
     );
   }
 
+  @Test
+  void validateFilesRoundTrips() {
+    assertRoundTrips(
+      new AntuJob.ValidateFiles(CONTEXT, List.of("a.xml", "b.xml"), 4_096, 12)
+    );
+  }
+
   @Test
   void createLineFileJobsRoundTrips() {
     assertRoundTrips(
@@ -100,7 +109,9 @@ class JobMessageCodecTest {
   @Test
   void attributesCarryTheContextFieldTheyBelongTo() {
     Map<String, String> attributes = JobMessageCodec
-      .encode(new AntuJob.ValidateFile(CONTEXT, "line.xml", 12, 2, List.of()))
+      .encode(
+        new AntuJob.ValidateFile(CONTEXT, "line.xml", 48_213, 12, 2, List.of())
+      )
       .attributes();
 
     assertEquals("VALIDATE", attributes.get(JOB_TYPE));
@@ -120,6 +131,7 @@ class JobMessageCodecTest {
     assertEquals("line.xml", attributes.get(NETEX_FILE_NAME));
     assertEquals("12", attributes.get(DATASET_NB_NETEX_FILES));
     assertEquals("2", attributes.get(DATASET_NB_COMMON_FILES));
+    assertEquals("48213", attributes.get(NETEX_FILE_SIZE));
   }
 
   /**
@@ -0,0 +1,47 @@
+package no.entur.antu.pubsub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.EnumSet;
+import no.entur.antu.job.JobPriority;
+import no.entur.antu.job.JobType;
+import org.junit.jupiter.api.Test;
+
+class PubSubJobQueueTest {
+
+  private static final EnumSet<JobType> LIGHTWEIGHT = EnumSet.of(
+    JobType.AGGREGATE_REPORTS,
+    JobType.COMPLETE_VALIDATION,
+    JobType.CREATE_LINE_FILE_JOBS,
+    JobType.REFRESH_ORGANISATION_ALIAS_CACHE
+  );
+
+  /**
+   * A file validation on the lightweight queue would bypass the heap budget of the pod that runs it.
+   */
+  @Test
+  void onlyTheLightweightJobsGoToTheLightweightQueue() {
+    for (JobType jobType : JobType.values()) {
+      assertEquals(
+        LIGHTWEIGHT.contains(jobType)
+          ? AntuQueues.LIGHTWEIGHT_JOB_QUEUE
+          : AntuQueues.JOB_QUEUE,
+        PubSubJobQueue.queueFor(jobType, JobPriority.LOW),
+        jobType.name()
+      );
+    }
+  }
+
+  @Test
+  void theHighPriorityJobsThatAreNotLightweightGoToThePriorityQueue() {
+    for (JobType jobType : JobType.values()) {
+      assertEquals(
+        LIGHTWEIGHT.contains(jobType)
+          ? AntuQueues.LIGHTWEIGHT_JOB_QUEUE
+          : AntuQueues.PRIORITY_JOB_QUEUE,
+        PubSubJobQueue.queueFor(jobType, JobPriority.HIGH),
+        jobType.name()
+      );
+    }
+  }
+}
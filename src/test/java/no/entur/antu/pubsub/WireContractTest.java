@@ -36,6 +36,7 @@ class WireContractTest {
     assertAll(
       () -> assertEquals("JOB_TYPE", Constants.JOB_TYPE),
       () -> assertEquals("EnturNetexFileName", Constants.NETEX_FILE_NAME),
+      () -> assertEquals("EnturNetexFileSize", Constants.NETEX_FILE_SIZE),
       () ->
         assertEquals("EnturDatasetReferential", Constants.DATASET_REFERENTIAL),
       () -> assertEquals("EnturDatasetCodespace", Constants.DATASET_CODESPACE),
@@ -117,6 +118,7 @@ class WireContractTest {
     Map<JobType, String> expected = new LinkedHashMap<>();
     expected.put(JobType.SPLIT, "SPLIT");
     expected.put(JobType.VALIDATE, "VALIDATE");
+    expected.put(JobType.VALIDATE_FILES, "VALIDATE_FILES");
     expected.put(JobType.VALIDATE_DATASET, "VALIDATE_DATASET");
     expected.put(JobType.COMPLETE_VALIDATION, "COMPLETE_VALIDATION");
     expected.put(JobType.AGGREGATE_REPORTS, "AGGREGATE_REPORTS");
@@ -191,7 +193,14 @@ class WireContractTest {
           "AntuNetexValidationStatusQueue",
           AntuQueues.NETEX_VALIDATION_STATUS_QUEUE
         ),
-      () -> assertEquals("AntuJobQueue", AntuQueues.JOB_QUEUE)
+      () -> assertEquals("AntuJobQueue", AntuQueues.JOB_QUEUE),
+      () ->
+        assertEquals(
+          "AntuLightweightJobQueue",
+          AntuQueues.LIGHTWEIGHT_JOB_QUEUE
+        ),
+      () ->
+        assertEquals("AntuPriorityJobQueue", AntuQueues.PRIORITY_JOB_QUEUE)
     );
   }
 
@@ -0,0 +1,180 @@
+package no.entur.antu.stop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DefaultStopPlaceRepositoryTest {
+
+  private static final StopPlaceId STOP_PLACE_1 = new StopPlaceId(
+    "NSR:StopPlace:1"
+  );
+  private static final StopPlaceId STOP_PLACE_2 = new StopPlaceId(
+    "NSR:StopPlace:2"
+  );
+  private static final QuayId QUAY_1 = new QuayId("NSR:Quay:1");
+  private static final QuayId QUAY_2 = new QuayId("NSR:Quay:2");
+
+  private Map<StopPlaceId, Set<String>> quaysByStopPlaceCache;
+  private RecordingMap<QuayId, SimpleQuay> quayCache;
+  private Map<QuayId, SimpleQuay> newQuays;
+  private DefaultStopPlaceRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    quaysByStopPlaceCache = new HashMap<>();
+    quayCache = new RecordingMap<>();
+    newQuays = new HashMap<>();
+    repository =
+      new DefaultStopPlaceRepository(
+        new StopPlaceResource() {
+          @Override
+          public Map<StopPlaceId, SimpleStopPlace> getStopPlaces() {
+            return Map.of(STOP_PLACE_1, new SimpleStopPlace("Stop 1", null));
+          }
+
+          @Override
+          public Map<QuayId, SimpleQuay> getQuays() {
+            return newQuays;
+          }
+
+          @Override
+          public Instant getPublicationTime() {
+            return Instant.EPOCH;
+          }
+
+          @Override
+          public void clear() {}
+        },
+        new HashMap<>(),
+        quayCache,
+        quaysByStopPlaceCache,
+        new QuayNotFoundCache(100, Duration.ofMinutes(5), null, null)
+      );
+  }
+
+  @Test
+  void theQuaysOfAStopPlaceFollowTheChangelog() {
+    repository.createOrUpdateQuay(QUAY_1, quay(STOP_PLACE_1));
+    repository.createOrUpdateQuay(QUAY_2, quay(STOP_PLACE_1));
+    assertEquals(
+      Set.of(QUAY_1.id(), QUAY_2.id()),
+      repository.getQuaysForStopPlaceId(STOP_PLACE_1)
+    );
+
+    // A quay moved to another stop place is no longer listed under the first one.
+    repository.createOrUpdateQuay(QUAY_2, quay(STOP_PLACE_2));
+    assertEquals(
+      Set.of(QUAY_1.id()),
+      repository.getQuaysForStopPlaceId(STOP_PLACE_1)
+    );
+    assertEquals(
+      Set.of(QUAY_2.id()),
+      repository.getQuaysForStopPlaceId(STOP_PLACE_2)
+    );
+
+    repository.deleteQuay(QUAY_2);
+    assertTrue(repository.getQuaysForStopPlaceId(STOP_PLACE_2).isEmpty());
+    assertEquals(Set.of(STOP_PLACE_1), quaysByStopPlaceCache.keySet());
+  }
+
+  @Test
+  void aRefreshRebuildsTheQuaysOfEachStopPlace() {
+    repository.createOrUpdateQuay(QUAY_1, quay(STOP_PLACE_2));
+    newQuays.put(QUAY_1, quay(STOP_PLACE_1));
+    newQuays.put(QUAY_2, quay(STOP_PLACE_1));
+
+    repository.refreshCache();
+
+    assertEquals(
+      Set.of(QUAY_1.id(), QUAY_2.id()),
+      repository.getQuaysForStopPlaceId(STOP_PLACE_1)
+    );
+    assertTrue(repository.getQuaysForStopPlaceId(STOP_PLACE_2).isEmpty());
+  }
+
+  @Test
+  void aRefreshWritesOnlyTheEntriesThatChanged() {
+    QuayId quay3 = new QuayId("NSR:Quay:3");
+    repository.createOrUpdateQuay(QUAY_1, quay(STOP_PLACE_1));
+    repository.createOrUpdateQuay(QUAY_2, quay(STOP_PLACE_1));
+    repository.createOrUpdateQuay(quay3, quay(STOP_PLACE_1));
+    newQuays.put(QUAY_1, quay(STOP_PLACE_1));
+    newQuays.put(QUAY_2, quay(STOP_PLACE_2));
+    quayCache.writtenKeys.clear();
+
+    repository.refreshCache();
+
+    assertEquals(Set.of(QUAY_2), quayCache.writtenKeys);
+    assertEquals(Set.of(QUAY_1, QUAY_2), quayCache.keySet());
+    assertEquals(quay(STOP_PLACE_2), quayCache.get(QUAY_2));
+  }
+
+  @Test
+  void anUnknownQuayIsLookedUpInTheCacheOnlyOnce() {
+    QuayId unknownQuay = new QuayId("NSR:Quay:404");
+    repository.createOrUpdateQuay(QUAY_1, quay(STOP_PLACE_1));
+
+    assertFalse(repository.hasQuayId(unknownQuay));
+    assertEquals(
+      Set.of(QUAY_1),
+      repository.findQuayIds(Set.of(QUAY_1, unknownQuay))
+    );
+    assertFalse(repository.hasQuayId(unknownQuay));
+    assertEquals(List.of(unknownQuay), quayCache.readKeys(unknownQuay));
+
+    repository.createOrUpdateQuay(unknownQuay, quay(STOP_PLACE_1));
+    assertTrue(repository.hasQuayId(unknownQuay));
+  }
+
+  private static SimpleQuay quay(StopPlaceId stopPlaceId) {
+    return new SimpleQuay(new QuayCoordinates(10.0, 59.0), stopPlaceId);
+  }
+
+  /**
+   * A map that records the keys written to it and read from it.
+   */
+  private static class RecordingMap<K, V> extends HashMap<K, V> {
+
+    private final Set<K> writtenKeys = new HashSet<>();
+    private final List<Object> readKeys = new ArrayList<>();
+
+    private List<Object> readKeys(K key) {
+      return readKeys.stream().filter(key::equals).toList();
+    }
+
+    @Override
+    public V get(Object key) {
+      readKeys.add(key);
+      return super.get(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+      writtenKeys.add(key);
+      return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+      map.keySet().forEach(writtenKeys::add);
+      super.putAll(map);
+    }
+  }
+}
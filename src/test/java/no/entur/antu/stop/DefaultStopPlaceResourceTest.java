@@ -1,11 +1,9 @@
 package no.entur.antu.stop;
 
-import jakarta.xml.bind.JAXBElement;
-import java.util.Collection;
-import java.util.List;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import org.entur.netex.index.api.NetexEntitiesIndex;
-import org.entur.netex.index.impl.NetexEntitiesIndexImpl;
+import no.entur.antu.stop.loader.StopPlacesDatasetParser;
 import org.entur.netex.validation.validator.model.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,79 +28,73 @@ class DefaultStopPlaceResourceTest {
   private static final RailSubmodeEnumeration NSR_STOP_PLACE_SUBMODE_2 =
     RailSubmodeEnumeration.LOCAL;
 
-  private static final ObjectFactory netexFactory = new ObjectFactory();
+  private static final String STOP_PLACES_DATASET =
+    """
+    <PublicationDelivery xmlns="http://www.netex.org.uk/netex" version="1.0">
+      <PublicationTimestamp>2024-01-01T12:00:00</PublicationTimestamp>
+      <ParticipantRef>NSR</ParticipantRef>
+      <dataObjects>
+        <SiteFrame version="1" id="NSR:SiteFrame:1">
+          <stopPlaces>
+            <StopPlace version="1" id="%s">
+              <Name>%s</Name>
+              <TransportMode>%s</TransportMode>
+              <BusSubmode>%s</BusSubmode>
+              <quays>
+                <Quay version="1" id="%s">
+                  <Name>Quay 123</Name>
+                </Quay>
+              </quays>
+            </StopPlace>
+            <StopPlace version="1" id="%s">
+              <Name>%s</Name>
+              <TransportMode>%s</TransportMode>
+              <RailSubmode>%s</RailSubmode>
+              <quays>
+                <Quay version="1" id="%s">
+                  <Name>Quay 456</Name>
+                </Quay>
+                <Quay version="1" id="%s">
+                  <Name>Quay 4567</Name>
+                </Quay>
+              </quays>
+            </StopPlace>
+          </stopPlaces>
+        </SiteFrame>
+      </dataObjects>
+    </PublicationDelivery>
+    """.formatted(
+        NSR_STOP_PLACE_1,
+        NSR_STOP_PLACE_NAME_1,
+        NSR_STOP_PLACE_MODE_1.value(),
+        NSR_STOP_PLACE_SUBMODE_1.value(),
+        NSR_QUAY_1,
+        NSR_STOP_PLACE_2,
+        NSR_STOP_PLACE_NAME_2,
+        NSR_STOP_PLACE_MODE_2.value(),
+        NSR_STOP_PLACE_SUBMODE_2.value(),
+        NSR_QUAY_2,
+        NSR_QUAY_3
+      );
 
-  private NetexEntitiesIndex netexEntitiesIndex;
+  private DefaultStopPlaceResource defaultStopPlaceResource;
 
   @BeforeEach
   void setUp() {
-    netexEntitiesIndex = new NetexEntitiesIndexImpl();
-
-    netexEntitiesIndex
-      .getQuayIndex()
-      .putAll(
-        List.of(
-          new Quay()
-            .withId(NSR_QUAY_1)
-            .withVersion("1")
-            .withName(new MultilingualString().withValue("Quay 123")),
-          new Quay()
-            .withId(NSR_QUAY_2)
-            .withVersion("1")
-            .withName(new MultilingualString().withValue("Quay 456")),
-          new Quay()
-            .withId(NSR_QUAY_3)
-            .withVersion("1")
-            .withName(new MultilingualString().withValue("Quay 4567"))
-        )
-      );
-
-    Collection<JAXBElement<? extends Site_VersionStructure>> stopPlaces =
-      List.of(
-        netexFactory.createStopPlace_(
-          new StopPlace()
-            .withId(NSR_STOP_PLACE_1)
-            .withVersion("1")
-            .withName(new MultilingualString().withValue(NSR_STOP_PLACE_NAME_1))
-            .withTransportMode(NSR_STOP_PLACE_MODE_1)
-            .withBusSubmode(NSR_STOP_PLACE_SUBMODE_1)
-        ),
-        netexFactory.createStopPlace_(
-          new StopPlace()
-            .withId(NSR_STOP_PLACE_2)
-            .withVersion("1")
-            .withName(new MultilingualString().withValue(NSR_STOP_PLACE_NAME_2))
-            .withTransportMode(NSR_STOP_PLACE_MODE_2)
-            .withRailSubmode(NSR_STOP_PLACE_SUBMODE_2)
-        )
-      );
-    netexEntitiesIndex
-      .getSiteFrames()
-      .add(
-        new SiteFrame()
-          .withStopPlaces(
-            new StopPlacesInFrame_RelStructure().withStopPlace_(stopPlaces)
+    defaultStopPlaceResource =
+      new DefaultStopPlaceResource(() -> {
+        StopPlacesDatasetParser parser = new StopPlacesDatasetParser();
+        parser.parse(
+          new ByteArrayInputStream(
+            STOP_PLACES_DATASET.getBytes(StandardCharsets.UTF_8)
           )
-      );
-
-    netexEntitiesIndex
-      .getStopPlaceIdByQuayIdIndex()
-      .putAll(
-        Map.of(
-          NSR_QUAY_1,
-          NSR_STOP_PLACE_1,
-          NSR_QUAY_2,
-          NSR_STOP_PLACE_2,
-          NSR_QUAY_3,
-          NSR_STOP_PLACE_2
-        )
-      );
+        );
+        return parser.dataset();
+      });
   }
 
   @Test
   void getQuays() {
-    DefaultStopPlaceResource defaultStopPlaceResource =
-      new DefaultStopPlaceResource(() -> netexEntitiesIndex);
     Assertions.assertEquals(3, defaultStopPlaceResource.getQuays().size());
     Assertions.assertEquals(
       Map.of(
@@ -119,8 +111,6 @@ class DefaultStopPlaceResourceTest {
 
   @Test
   void getStopPlaces() {
-    DefaultStopPlaceResource defaultStopPlaceResource =
-      new DefaultStopPlaceResource(() -> netexEntitiesIndex);
     Assertions.assertEquals(2, defaultStopPlaceResource.getStopPlaces().size());
     TransportModeAndSubMode transportModeAndSubMode1 =
       new TransportModeAndSubMode(
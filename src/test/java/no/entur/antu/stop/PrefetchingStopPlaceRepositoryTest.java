@@ -0,0 +1,171 @@
+package no.entur.antu.stop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import no.entur.antu.common.repository.TestCommonDataRepository;
+import org.entur.netex.NetexParser;
+import org.entur.netex.index.api.NetexEntitiesIndex;
+import org.entur.netex.validation.validator.jaxb.StopPlaceRepository;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.ScheduledStopPointId;
+import org.junit.jupiter.api.Test;
+
+class PrefetchingStopPlaceRepositoryTest {
+
+  private static final QuayId ASSIGNED_QUAY = new QuayId("NSR:Quay:1");
+  private static final QuayId UNKNOWN_QUAY = new QuayId("NSR:Quay:2");
+  private static final QuayId COMMON_FILE_QUAY = new QuayId("NSR:Quay:3");
+
+  @Test
+  void eachQuayIsResolvedOncePerFile() {
+    StopPlaceRepositoryLoader stopPlaceRepository = mock(
+      StopPlaceRepositoryLoader.class
+    );
+    when(stopPlaceRepository.resolveQuays(any()))
+      .thenAnswer(invocation -> {
+        Set<QuayId> quayIds = invocation.getArgument(0);
+        return quayIds.contains(UNKNOWN_QUAY)
+          ? Map.of(ASSIGNED_QUAY, resolvedQuay(10.0))
+          : Map.of(COMMON_FILE_QUAY, resolvedQuay(11.0));
+      });
+    NetexEntitiesIndex netexEntitiesIndex = mock(NetexEntitiesIndex.class);
+    when(netexEntitiesIndex.getQuayIdByStopPointRefIndex())
+      .thenReturn(
+        Map.of(
+          "TST:ScheduledStopPoint:1",
+          ASSIGNED_QUAY.id(),
+          "TST:ScheduledStopPoint:2",
+          UNKNOWN_QUAY.id(),
+          "TST:ScheduledStopPoint:3",
+          ASSIGNED_QUAY.id()
+        )
+      );
+
+    StopPlaceRepository repository = PrefetchingStopPlaceRepository
+      .perFile(
+        stopPlaceRepository,
+        new TestCommonDataRepository(Map.of(), new HashMap<>())
+      )
+      .apply(netexEntitiesIndex);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(
+        new QuayCoordinates(10.0, 59.0),
+        repository.getCoordinatesForQuayId(ASSIGNED_QUAY)
+      );
+      assertFalse(repository.hasQuayId(UNKNOWN_QUAY));
+      assertNull(repository.getStopPlaceNameForQuayId(UNKNOWN_QUAY));
+      assertTrue(repository.hasQuayId(COMMON_FILE_QUAY));
+    }
+    verify(stopPlaceRepository)
+      .resolveQuays(Set.of(ASSIGNED_QUAY, UNKNOWN_QUAY));
+    verify(stopPlaceRepository).resolveQuays(Set.of(COMMON_FILE_QUAY));
+    verify(stopPlaceRepository, times(2)).resolveQuays(any());
+  }
+
+  /**
+   * Entur line files assign no quays: the passenger stop assignments are all in the shared data of the
+   * dataset.
+   */
+  @Test
+  void theQuaysOfALineFileAreResolvedFromTheCommonDataAtOnce()
+    throws IOException {
+    List<String> scheduledStopPoints = List.of(
+      "FLB:ScheduledStopPoint:760232411",
+      "FLB:ScheduledStopPoint:760235801",
+      "FLB:ScheduledStopPoint:760235901",
+      "FLB:ScheduledStopPoint:760236001",
+      "FLB:ScheduledStopPoint:760236104",
+      "FLB:ScheduledStopPoint:760236105",
+      "FLB:ScheduledStopPoint:761235801",
+      "FLB:ScheduledStopPoint:761236001",
+      "FLB:ScheduledStopPoint:762235801",
+      "FLB:ScheduledStopPoint:764235801"
+    );
+    Map<ScheduledStopPointId, QuayId> sharedAssignments = new HashMap<>();
+    for (int i = 0; i < scheduledStopPoints.size(); i++) {
+      sharedAssignments.put(
+        new ScheduledStopPointId(scheduledStopPoints.get(i)),
+        new QuayId("NSR:Quay:" + (i + 1))
+      );
+    }
+    // Assigned in the shared data, but not visited by the line.
+    sharedAssignments.put(
+      new ScheduledStopPointId("FLB:ScheduledStopPoint:1"),
+      new QuayId("NSR:Quay:99")
+    );
+    Set<QuayId> quaysOfTheLine = IntStream
+      .rangeClosed(1, scheduledStopPoints.size())
+      .mapToObj(i -> new QuayId("NSR:Quay:" + i))
+      .collect(Collectors.toSet());
+
+    StopPlaceRepositoryLoader stopPlaceRepository = mock(
+      StopPlaceRepositoryLoader.class
+    );
+    when(stopPlaceRepository.resolveQuays(any()))
+      .thenAnswer(invocation -> {
+        Set<QuayId> quayIds = invocation.getArgument(0);
+        return quayIds
+          .stream()
+          .collect(
+            Collectors.toMap(quayId -> quayId, quayId -> resolvedQuay(10.0))
+          );
+      });
+    NetexEntitiesIndex netexEntitiesIndex = parse(
+      "FLB_FLB-Line-42_42_Flamsbana.xml"
+    );
+    assertTrue(netexEntitiesIndex.getQuayIdByStopPointRefIndex().isEmpty());
+
+    StopPlaceRepository repository =
+      PrefetchingStopPlaceRepository.forValidationReport(
+        "report",
+        () ->
+          PrefetchingStopPlaceRepository
+            .perFile(
+              stopPlaceRepository,
+              new TestCommonDataRepository(sharedAssignments, new HashMap<>())
+            )
+            .apply(netexEntitiesIndex)
+      );
+
+    for (QuayId quayId : quaysOfTheLine) {
+      assertTrue(repository.hasQuayId(quayId));
+    }
+    verify(stopPlaceRepository).resolveQuays(quaysOfTheLine);
+    verify(stopPlaceRepository, times(1)).resolveQuays(any());
+  }
+
+  private static NetexEntitiesIndex parse(String testFile) throws IOException {
+    try (
+      InputStream netex = PrefetchingStopPlaceRepositoryTest.class
+        .getResourceAsStream('/' + testFile)
+    ) {
+      return new NetexParser().parse(netex);
+    }
+  }
+
+  private static ResolvedQuay resolvedQuay(double longitude) {
+    return new ResolvedQuay(
+      new QuayCoordinates(longitude, 59.0),
+      null,
+      "Stop"
+    );
+  }
+}
@@ -0,0 +1,123 @@
+package no.entur.antu.stop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.listener.MessageListener;
+
+class QuayNotFoundCacheTest {
+
+  private static final QuayId QUAY_1 = new QuayId("NSR:Quay:1");
+  private static final QuayId QUAY_2 = new QuayId("NSR:Quay:2");
+  private static final QuayId QUAY_3 = new QuayId("NSR:Quay:3");
+
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  @Test
+  void anEntryExpiresAfterItsTimeToLive() {
+    QuayNotFoundCache cache = cache(10);
+    cache.notFound(QUAY_1);
+
+    nanoTime.addAndGet(Duration.ofSeconds(59).toNanos());
+    assertTrue(cache.isNotFound(QUAY_1));
+
+    nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+    assertFalse(cache.isNotFound(QUAY_1));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void theOldestEntriesAreDroppedBeyondTheMaximumSize() {
+    QuayNotFoundCache cache = cache(2);
+    cache.notFound(QUAY_1);
+    cache.notFound(QUAY_2);
+    cache.notFound(QUAY_1);
+    cache.notFound(QUAY_3);
+
+    assertEquals(2, cache.size());
+    assertFalse(cache.isNotFound(QUAY_2));
+    assertTrue(cache.isNotFound(QUAY_1));
+    assertTrue(cache.isNotFound(QUAY_3));
+  }
+
+  @Test
+  void aQuayWrittenAfterwardsIsNoLongerNotFound() {
+    QuayNotFoundCache cache = cache(10);
+    cache.notFound(QUAY_1);
+    cache.notFound(QUAY_2);
+
+    cache.invalidate(Set.of(QUAY_1));
+
+    assertFalse(cache.isNotFound(QUAY_1));
+    assertTrue(cache.isNotFound(QUAY_2));
+  }
+
+  /**
+   * Only the leader writes to the quay cache: the other instances learn of the quays it writes through the
+   * topic, not when their entries expire.
+   */
+  @Test
+  void aQuayWrittenByAnotherInstanceIsNoLongerNotFound() {
+    RTopic topic = mock(RTopic.class);
+    QuayNotFoundCache leader = new QuayNotFoundCache(
+      10,
+      Duration.ofMinutes(1),
+      nanoTime::get,
+      topic,
+      null
+    );
+    QuayNotFoundCache follower = new QuayNotFoundCache(
+      10,
+      Duration.ofMinutes(1),
+      nanoTime::get,
+      topic,
+      null
+    );
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<MessageListener<String>> listeners =
+      ArgumentCaptor.forClass(MessageListener.class);
+    verify(topic, times(2))
+      .addListener(eq(String.class), listeners.capture());
+    follower.notFound(QUAY_1);
+    follower.notFound(QUAY_2);
+    follower.notFound(QUAY_3);
+
+    leader.invalidate(Set.of(QUAY_1));
+    ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+    verify(topic).publish(message.capture());
+    listeners
+      .getAllValues()
+      .forEach(listener -> listener.onMessage("channel", message.getValue()));
+
+    assertFalse(follower.isNotFound(QUAY_1));
+    assertTrue(follower.isNotFound(QUAY_2));
+
+    listeners
+      .getAllValues()
+      .forEach(listener -> listener.onMessage("channel", "*"));
+
+    assertEquals(0, follower.size());
+  }
+
+  private QuayNotFoundCache cache(int maxSize) {
+    return new QuayNotFoundCache(
+      maxSize,
+      Duration.ofMinutes(1),
+      nanoTime::get,
+      null,
+      null
+    );
+  }
+}
@@ -1,18 +1,30 @@
 package no.entur.antu.stop.changelog;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.entur.antu.metrics.AntuPrometheusMetricsService;
 import no.entur.antu.stop.DefaultStopPlaceRepository;
+import no.entur.antu.stop.StopPlaceChanges;
 import no.entur.antu.stop.StopPlaceRepositoryLoader;
 import org.entur.netex.validation.validator.model.QuayCoordinates;
 import org.entur.netex.validation.validator.model.QuayId;
@@ -67,22 +79,37 @@ class AntuStopPlaceChangeLogListenerTest {
 
   private Map<StopPlaceId, SimpleStopPlace> stopPlaceCache;
   private Map<QuayId, SimpleQuay> quayCache;
+  private Map<StopPlaceId, Set<String>> quaysByStopPlaceCache;
   private StopPlaceRepositoryLoader loader;
   private ChangelogUpdateTimestampRepository timestampRepository;
+  private SimpleMeterRegistry meterRegistry;
   private AntuStopPlaceChangeLogListener listener;
 
   @BeforeEach
   void setUp() {
     this.stopPlaceCache = new HashMap<>();
     this.quayCache = new HashMap<>();
+    this.quaysByStopPlaceCache = new HashMap<>();
     this.loader =
-      new DefaultStopPlaceRepository(null, stopPlaceCache, quayCache);
+      new DefaultStopPlaceRepository(
+        null,
+        stopPlaceCache,
+        quayCache,
+        quaysByStopPlaceCache
+      );
     this.timestampRepository =
       new ChangelogUpdateTimestampRepository() {
         private Instant timestamp;
 
         @Override
         public void setTimestamp(Instant publicationTime) {
+          if (timestamp == null || publicationTime.isAfter(timestamp)) {
+            this.timestamp = publicationTime;
+          }
+        }
+
+        @Override
+        public void resetTimestamp(Instant publicationTime) {
           this.timestamp = publicationTime;
         }
 
@@ -91,8 +118,62 @@ class AntuStopPlaceChangeLogListenerTest {
           return timestamp;
         }
       };
-    this.listener =
-      new AntuStopPlaceChangeLogListener(loader, timestampRepository);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.listener = new AntuStopPlaceChangeLogListener(batcher(loader));
+  }
+
+  /**
+   * A repository whose first write fails, and whose refresh only returns the given publication time.
+   */
+  private StopPlaceRepositoryLoader loaderFailingFirstWrite(
+    Instant exportPublicationTime
+  ) {
+    AtomicBoolean failNextWrite = new AtomicBoolean(true);
+    return new DefaultStopPlaceRepository(
+      null,
+      stopPlaceCache,
+      quayCache,
+      quaysByStopPlaceCache
+    ) {
+      @Override
+      public void apply(StopPlaceChanges changes) {
+        if (failNextWrite.getAndSet(false)) {
+          throw new IllegalStateException("Redis unavailable");
+        }
+        super.apply(changes);
+      }
+
+      @Override
+      public Instant refreshCache() {
+        return exportPublicationTime;
+      }
+    };
+  }
+
+  /**
+   * A batcher writing every update as soon as it is submitted.
+   */
+  private StopPlaceChangelogBatcher batcher(
+    StopPlaceRepositoryLoader stopPlaceRepositoryLoader
+  ) {
+    return batcher(stopPlaceRepositoryLoader, 1);
+  }
+
+  /**
+   * A batcher whose window only closes when it holds {@code maxBatchSize} changes or is flushed: the delay
+   * is longer than any test.
+   */
+  private StopPlaceChangelogBatcher batcher(
+    StopPlaceRepositoryLoader stopPlaceRepositoryLoader,
+    int maxBatchSize
+  ) {
+    return new StopPlaceChangelogBatcher(
+      stopPlaceRepositoryLoader,
+      timestampRepository,
+      new AntuPrometheusMetricsService(meterRegistry),
+      maxBatchSize,
+      Duration.ofHours(1)
+    );
   }
 
   @Test
@@ -129,6 +210,10 @@ class AntuStopPlaceChangeLogListenerTest {
       "id",
       new ByteArrayInputStream(SITE_FRAME.getBytes(StandardCharsets.UTF_8))
     );
+    assertEquals(
+      Set.of("NSR:Quay:100310"),
+      loader.getQuaysForStopPlaceId(new StopPlaceId("NSR:StopPlace:58586"))
+    );
     listener.onStopPlaceDeleted("NSR:StopPlace:58586");
     Instant expectedPublicationTimestamp = LocalDateTime
       .parse("2023-06-08T12:09:20.879", DateTimeFormatter.ISO_DATE_TIME)
@@ -140,6 +225,7 @@ class AntuStopPlaceChangeLogListenerTest {
     );
     assertEquals(0, stopPlaceCache.size());
     assertEquals(0, quayCache.size());
+    assertEquals(0, quaysByStopPlaceCache.size());
   }
 
   @Test
@@ -162,4 +248,111 @@ class AntuStopPlaceChangeLogListenerTest {
     assertEquals(0, stopPlaceCache.size());
     assertEquals(0, quayCache.size());
   }
+
+  @Test
+  void aFailedBatchIsWrittenAgainWithTheNextUpdate() {
+    AntuStopPlaceChangeLogListener failingOnceListener =
+      new AntuStopPlaceChangeLogListener(
+        batcher(loaderFailingFirstWrite(Instant.now()))
+      );
+    byte[] xmlBytes = SITE_FRAME.getBytes(StandardCharsets.UTF_8);
+
+    // The listener fails, and the publication time of the update is not recorded.
+    assertThrows(
+      IllegalStateException.class,
+      () ->
+        failingOnceListener.onStopPlaceCreated(
+          "id",
+          new ByteArrayInputStream(xmlBytes)
+        )
+    );
+    assertTrue(stopPlaceCache.isEmpty());
+    assertNull(timestampRepository.getTimestamp());
+
+    failingOnceListener.onStopPlaceUpdated(
+      "id",
+      new ByteArrayInputStream(xmlBytes)
+    );
+
+    assertEquals(1, stopPlaceCache.size());
+    assertEquals(1, quayCache.size());
+    assertNotNull(timestampRepository.getTimestamp());
+    DistributionSummary batchSize = meterRegistry
+      .get("app.antu.stop.changelog.batch.size")
+      .summary();
+    assertEquals(1, batchSize.count());
+    // One stop place and one quay, although each was submitted twice.
+    assertEquals(2, batchSize.totalAmount());
+  }
+
+  @Test
+  void twoUpdatesOfTheSameStopPlaceInOneWindowAreWrittenOnce() {
+    AtomicInteger writes = new AtomicInteger();
+    StopPlaceRepositoryLoader countingLoader = new DefaultStopPlaceRepository(
+      null,
+      stopPlaceCache,
+      quayCache,
+      quaysByStopPlaceCache
+    ) {
+      @Override
+      public void apply(StopPlaceChanges changes) {
+        writes.incrementAndGet();
+        super.apply(changes);
+      }
+    };
+    StopPlaceChangelogBatcher batcher = batcher(countingLoader, 500);
+    AntuStopPlaceChangeLogListener windowedListener =
+      new AntuStopPlaceChangeLogListener(batcher);
+    byte[] xmlBytes = SITE_FRAME.getBytes(StandardCharsets.UTF_8);
+
+    windowedListener.onStopPlaceCreated(
+      "id",
+      new ByteArrayInputStream(xmlBytes)
+    );
+    windowedListener.onStopPlaceUpdated(
+      "id",
+      new ByteArrayInputStream(xmlBytes)
+    );
+
+    // Nothing is written, and nothing recorded as written, while the window is open.
+    assertEquals(0, writes.get());
+    assertTrue(stopPlaceCache.isEmpty());
+    assertNull(timestampRepository.getTimestamp());
+
+    batcher.flush();
+
+    assertEquals(1, writes.get());
+    assertEquals(1, stopPlaceCache.size());
+    assertEquals(1, quayCache.size());
+    assertNotNull(timestampRepository.getTimestamp());
+    DistributionSummary batchSize = meterRegistry
+      .get("app.antu.stop.changelog.batch.size")
+      .summary();
+    assertEquals(1, batchSize.count());
+    // One stop place and one quay, although each was submitted twice.
+    assertEquals(2, batchSize.totalAmount());
+  }
+
+  @Test
+  void refreshDiscardsTheChangesNotWrittenAndResetsTheTimestamp() {
+    Instant exportPublicationTime = Instant.parse("2023-01-01T00:00:00Z");
+    StopPlaceChangelogBatcher batcher = batcher(
+      loaderFailingFirstWrite(exportPublicationTime)
+    );
+    timestampRepository.setTimestamp(Instant.parse("2024-01-01T00:00:00Z"));
+    byte[] xmlBytes = SITE_FRAME.getBytes(StandardCharsets.UTF_8);
+    assertThrows(
+      IllegalStateException.class,
+      () ->
+        new AntuStopPlaceChangeLogListener(batcher)
+          .onStopPlaceCreated("id", new ByteArrayInputStream(xmlBytes))
+    );
+
+    assertEquals(exportPublicationTime, batcher.refreshCache());
+    batcher.flush();
+
+    // The change from before the export is not written over it.
+    assertTrue(stopPlaceCache.isEmpty());
+    assertEquals(exportPublicationTime, timestampRepository.getTimestamp());
+  }
 }
@@ -0,0 +1,266 @@
+package no.entur.antu.stop.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import jakarta.xml.bind.JAXBElement;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipInputStream;
+import no.entur.antu.stop.changelog.support.ChangeLogUtils;
+import org.entur.netex.NetexParser;
+import org.entur.netex.index.api.NetexEntitiesIndex;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+import org.entur.netex.validation.validator.model.TransportSubMode;
+import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.AllVehicleModesOfTransportEnumeration;
+import org.rutebanken.netex.model.StopPlace;
+
+class StopPlacesDatasetParserTest {
+
+  @Test
+  void theExtractedDataMatchesTheJaxbModel() throws IOException {
+    byte[] stopData = stopData();
+    StopPlacesDatasetParser parser = new StopPlacesDatasetParser();
+    parser.parse(new ByteArrayInputStream(stopData));
+    StopPlacesDataset dataset = parser.dataset();
+
+    NetexEntitiesIndex netexEntitiesIndex = new NetexParser()
+      .parse(new ByteArrayInputStream(stopData));
+
+    assertFalse(dataset.quays().isEmpty());
+    assertEquals(stopPlacesOf(netexEntitiesIndex), dataset.stopPlaces());
+    assertEquals(quaysOf(netexEntitiesIndex), dataset.quays());
+    assertEquals(
+      ChangeLogUtils.parsePublicationTime(netexEntitiesIndex),
+      dataset.publicationTime()
+    );
+  }
+
+  @Test
+  void theLatestVersionOfAQuayIsKept() {
+    StopPlacesDatasetParser parser = new StopPlacesDatasetParser();
+    parser.parse(
+      stream(
+        """
+        <PublicationDelivery xmlns="http://www.netex.org.uk/netex" version="1.0">
+          <dataObjects>
+            <SiteFrame version="1" id="NSR:SiteFrame:1">
+              <stopPlaces>
+                <StopPlace version="2" id="NSR:StopPlace:1">
+                  <Name>Stop</Name>
+                  <quays>
+                    <Quay version="2" id="NSR:Quay:1">
+                      <Centroid><Location>
+                        <Longitude>10.0</Longitude><Latitude>59.0</Latitude>
+                      </Location></Centroid>
+                    </Quay>
+                  </quays>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:1">
+                  <Name>Old stop</Name>
+                  <quays>
+                    <Quay version="1" id="NSR:Quay:1">
+                      <Centroid><Location>
+                        <Longitude>11.0</Longitude><Latitude>60.0</Latitude>
+                      </Location></Centroid>
+                    </Quay>
+                  </quays>
+                </StopPlace>
+              </stopPlaces>
+            </SiteFrame>
+          </dataObjects>
+        </PublicationDelivery>
+        """
+      )
+    );
+
+    StopPlacesDataset dataset = parser.dataset();
+    assertEquals(
+      "Stop",
+      dataset.stopPlaces().get(new StopPlaceId("NSR:StopPlace:1")).name()
+    );
+    assertEquals(
+      new QuayCoordinates(10.0, 59.0),
+      dataset.quays().get(new QuayId("NSR:Quay:1")).quayCoordinates()
+    );
+  }
+
+  /**
+   * A stop place of each mode with a submode, a mode without one, and a submode that does not go with the
+   * mode. The submode element is not always named after the mode: a cableway has a TelecabinSubmode.
+   */
+  @Test
+  void theSubmodeOfEachModeMatchesTheJaxbModel() {
+    byte[] stopData = (
+      """
+        <PublicationDelivery xmlns="http://www.netex.org.uk/netex" version="1.0">
+          <dataObjects>
+            <SiteFrame version="1" id="NSR:SiteFrame:1">
+              <stopPlaces>
+                <StopPlace version="1" id="NSR:StopPlace:1">
+                  <Name>air</Name>
+                  <TransportMode>air</TransportMode>
+                  <AirSubmode>domesticFlight</AirSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:2">
+                  <Name>bus</Name>
+                  <TransportMode>bus</TransportMode>
+                  <BusSubmode>localBus</BusSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:3">
+                  <Name>coach</Name>
+                  <TransportMode>coach</TransportMode>
+                  <CoachSubmode>nationalCoach</CoachSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:4">
+                  <Name>metro</Name>
+                  <TransportMode>metro</TransportMode>
+                  <MetroSubmode>metro</MetroSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:5">
+                  <Name>rail</Name>
+                  <TransportMode>rail</TransportMode>
+                  <RailSubmode>regionalRail</RailSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:6">
+                  <Name>tram</Name>
+                  <TransportMode>tram</TransportMode>
+                  <TramSubmode>cityTram</TramSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:7">
+                  <Name>water</Name>
+                  <TransportMode>water</TransportMode>
+                  <WaterSubmode>highSpeedPassengerService</WaterSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:8">
+                  <Name>cableway</Name>
+                  <TransportMode>cableway</TransportMode>
+                  <TelecabinSubmode>telecabin</TelecabinSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:9">
+                  <Name>funicular</Name>
+                  <TransportMode>funicular</TransportMode>
+                  <FunicularSubmode>funicular</FunicularSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:10">
+                  <Name>snowAndIce</Name>
+                  <TransportMode>snowAndIce</TransportMode>
+                  <SnowAndIceSubmode>snowMobile</SnowAndIceSubmode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:11">
+                  <Name>ferry</Name>
+                  <TransportMode>ferry</TransportMode>
+                </StopPlace>
+                <StopPlace version="1" id="NSR:StopPlace:12">
+                  <Name>bus with the submode of another mode</Name>
+                  <TransportMode>bus</TransportMode>
+                  <RailSubmode>regionalRail</RailSubmode>
+                </StopPlace>
+              </stopPlaces>
+            </SiteFrame>
+          </dataObjects>
+        </PublicationDelivery>
+        """
+    ).getBytes(StandardCharsets.UTF_8);
+    StopPlacesDatasetParser parser = new StopPlacesDatasetParser();
+    parser.parse(new ByteArrayInputStream(stopData));
+
+    Map<StopPlaceId, SimpleStopPlace> stopPlaces = parser
+      .dataset()
+      .stopPlaces();
+
+    NetexEntitiesIndex netexEntitiesIndex = new NetexParser()
+      .parse(new ByteArrayInputStream(stopData));
+    assertEquals(stopPlacesOf(netexEntitiesIndex), stopPlaces);
+    assertEquals(
+      new TransportModeAndSubMode(
+        AllVehicleModesOfTransportEnumeration.CABLEWAY,
+        new TransportSubMode("telecabin")
+      ),
+      stopPlaces
+        .get(new StopPlaceId("NSR:StopPlace:8"))
+        .transportModeAndSubMode()
+    );
+    assertEquals(
+      new TransportModeAndSubMode(
+        AllVehicleModesOfTransportEnumeration.BUS,
+        null
+      ),
+      stopPlaces
+        .get(new StopPlaceId("NSR:StopPlace:12"))
+        .transportModeAndSubMode()
+    );
+  }
+
+  /**
+   * The single NeTEx document of the stop place dataset used in the tests.
+   */
+  private static byte[] stopData() throws IOException {
+    try (
+      ZipInputStream zipInputStream = new ZipInputStream(
+        StopPlacesDatasetParserTest.class.getResourceAsStream("/stopdata.zip")
+      )
+    ) {
+      zipInputStream.getNextEntry();
+      return zipInputStream.readAllBytes();
+    }
+  }
+
+  private static Map<StopPlaceId, SimpleStopPlace> stopPlacesOf(
+    NetexEntitiesIndex netexEntitiesIndex
+  ) {
+    return netexEntitiesIndex
+      .getSiteFrames()
+      .stream()
+      .flatMap(siteFrame -> siteFrame.getStopPlaces().getStopPlace_().stream())
+      .map(JAXBElement::getValue)
+      .map(StopPlace.class::cast)
+      .collect(
+        Collectors.toMap(
+          stopPlace -> new StopPlaceId(stopPlace.getId()),
+          stopPlace ->
+            new SimpleStopPlace(
+              stopPlace.getName().getValue(),
+              TransportModeAndSubMode.of(stopPlace)
+            )
+        )
+      );
+  }
+
+  private static Map<QuayId, SimpleQuay> quaysOf(
+    NetexEntitiesIndex netexEntitiesIndex
+  ) {
+    return netexEntitiesIndex
+      .getQuayIndex()
+      .getLatestVersions()
+      .stream()
+      .collect(
+        Collectors.toMap(
+          quay -> new QuayId(quay.getId()),
+          quay ->
+            new SimpleQuay(
+              QuayCoordinates.of(quay),
+              new StopPlaceId(
+                netexEntitiesIndex
+                  .getStopPlaceIdByQuayIdIndex()
+                  .get(quay.getId())
+              )
+            )
+        )
+      );
+  }
+
+  private static InputStream stream(String xml) {
+    return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,114 @@
+package no.entur.antu.stop.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import no.entur.antu.exception.QuayProximityUnavailableException;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.junit.jupiter.api.Test;
+
+class QuayGridRepositoryTest {
+
+  private static final StopPlaceId STOP_PLACE_1 = new StopPlaceId(
+    "NSR:StopPlace:1"
+  );
+  private static final QuayId QUAY_1 = new QuayId("NSR:Quay:1");
+  private static final QuayId QUAY_2 = new QuayId("NSR:Quay:2");
+  private static final QuayCoordinates OSLO = new QuayCoordinates(
+    10.75,
+    59.91
+  );
+
+  private final AtomicLong version = new AtomicLong();
+  private final StopPlaceVersionRepository stopPlaceVersionRepository =
+    new StopPlaceVersionRepository() {
+      @Override
+      public long getVersion() {
+        return version.get();
+      }
+
+      @Override
+      public void incrementVersion() {
+        version.incrementAndGet();
+      }
+
+      @Override
+      public void incrementVersion(StopPlaceCacheChange change) {
+        version.incrementAndGet();
+      }
+
+      @Override
+      public Optional<StopPlaceCacheChange> changesBetween(
+        long fromVersion,
+        long toVersion
+      ) {
+        return Optional.empty();
+      }
+    };
+
+  private final Map<QuayId, SimpleQuay> quayCache = new HashMap<>();
+  private final QuayGridRepository repository = new QuayGridRepository(
+    quayCache,
+    stopPlaceVersionRepository
+  );
+
+  @Test
+  void theQueriesAreUnavailableBeforeTheCacheIsPrimed() {
+    repository.refreshGrid();
+
+    assertThrows(
+      QuayProximityUnavailableException.class,
+      () -> repository.quaysWithin(OSLO, 1000)
+    );
+    assertThrows(
+      QuayProximityUnavailableException.class,
+      () -> repository.nearestQuay(OSLO, 1000)
+    );
+  }
+
+  @Test
+  void aWriteIsIndexedOnceTheNewVersionIsPolled() {
+    quayCache.put(QUAY_1, new SimpleQuay(OSLO, STOP_PLACE_1));
+    stopPlaceVersionRepository.incrementVersion();
+    repository.refreshGrid();
+
+    assertEquals(List.of(QUAY_1), repository.quaysWithin(OSLO, 1000));
+
+    quayCache.put(
+      QUAY_2,
+      new SimpleQuay(new QuayCoordinates(10.751, 59.91), STOP_PLACE_1)
+    );
+    repository.refreshGrid();
+    assertEquals(List.of(QUAY_1), repository.quaysWithin(OSLO, 1000));
+
+    stopPlaceVersionRepository.incrementVersion();
+    repository.refreshGrid();
+    assertEquals(List.of(QUAY_1, QUAY_2), repository.quaysWithin(OSLO, 1000));
+    assertEquals(Optional.of(QUAY_1), repository.nearestQuay(OSLO, 1000));
+    assertEquals(
+      Optional.empty(),
+      repository.nearestQuay(new QuayCoordinates(5.32, 60.39), 1000)
+    );
+  }
+
+  @Test
+  void theGridIsNotBuiltBeforeTheFirstQuery() {
+    quayCache.put(QUAY_1, new SimpleQuay(OSLO, STOP_PLACE_1));
+    stopPlaceVersionRepository.incrementVersion();
+    repository.refreshGrid();
+
+    quayCache.put(
+      QUAY_2,
+      new SimpleQuay(new QuayCoordinates(10.751, 59.91), STOP_PLACE_1)
+    );
+    assertEquals(List.of(QUAY_1, QUAY_2), repository.quaysWithin(OSLO, 1000));
+  }
+}
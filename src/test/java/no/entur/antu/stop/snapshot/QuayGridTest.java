@@ -0,0 +1,86 @@
+package no.entur.antu.stop.snapshot;
+
+import static no.entur.antu.validation.utilities.SphericalDistanceLibrary.RADIUS_OF_EARTH_IN_M;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import no.entur.antu.validation.utilities.SphericalDistanceLibrary;
+import org.junit.jupiter.api.Test;
+
+class QuayGridTest {
+
+  private static final int QUAYS = 5000;
+
+  private final double[] longitudes = new double[QUAYS];
+  private final double[] latitudes = new double[QUAYS];
+
+  QuayGridTest() {
+    Random random = new Random(42);
+    for (int i = 0; i < QUAYS; i++) {
+      // A few quays without coordinates, the rest around Oslo.
+      longitudes[i] = i % 100 == 0 ? Double.NaN : 10.5 + random.nextDouble();
+      latitudes[i] = i % 100 == 0 ? Double.NaN : 59.5 + random.nextDouble();
+    }
+  }
+
+  @Test
+  void theQuaysWithinARadiusAreThoseOfAFullScan() {
+    QuayGrid grid = new QuayGrid(longitudes, latitudes);
+    Random random = new Random(7);
+    for (int i = 0; i < 50; i++) {
+      double longitude = 10.5 + random.nextDouble();
+      double latitude = 59.5 + random.nextDouble();
+      double radius = 100 + random.nextDouble() * 5000;
+
+      assertArrayEquals(
+        scan(longitude, latitude, radius),
+        grid.within(longitude, latitude, radius)
+      );
+    }
+  }
+
+  @Test
+  void theNearestQuayIsTheClosestOfAFullScan() {
+    QuayGrid grid = new QuayGrid(longitudes, latitudes);
+
+    // Far from every quay: found once the search has widened enough.
+    int[] all = scan(12.0, 61.0, Double.MAX_VALUE);
+    assertEquals(all[0], grid.nearest(12.0, 61.0, 500_000));
+    assertEquals(-1, grid.nearest(12.0, 61.0, 1000));
+  }
+
+  @Test
+  void aRadiusWiderThanThePopulatedCellsFindsEveryQuay() {
+    QuayGrid grid = new QuayGrid(longitudes, latitudes);
+
+    assertArrayEquals(
+      scan(11.0, 60.0, 20_000_000),
+      grid.within(11.0, 60.0, 20_000_000)
+    );
+    assertArrayEquals(new int[0], grid.within(-170.0, -60.0, 100_000));
+  }
+
+  private int[] scan(double longitude, double latitude, double radius) {
+    return IntStream
+      .range(0, QUAYS)
+      .filter(i -> !Double.isNaN(longitudes[i]))
+      .filter(i -> distance(i, longitude, latitude) <= radius)
+      .boxed()
+      .sorted(Comparator.comparingDouble(i -> distance(i, longitude, latitude)))
+      .mapToInt(Integer::intValue)
+      .toArray();
+  }
+
+  private double distance(int quay, double longitude, double latitude) {
+    return SphericalDistanceLibrary.distance(
+      latitude,
+      longitude,
+      latitudes[quay],
+      longitudes[quay],
+      RADIUS_OF_EARTH_IN_M
+    );
+  }
+}
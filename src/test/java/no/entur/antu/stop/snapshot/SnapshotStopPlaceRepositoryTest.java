@@ -0,0 +1,355 @@
+package no.entur.antu.stop.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import no.entur.antu.services.AntuBlobStoreService;
+import no.entur.antu.stop.DefaultStopPlaceRepository;
+import no.entur.antu.stop.StopPlaceResource;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+import org.entur.netex.validation.validator.model.TransportSubMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rutebanken.netex.model.AllVehicleModesOfTransportEnumeration;
+import org.rutebanken.netex.model.BusSubmodeEnumeration;
+
+class SnapshotStopPlaceRepositoryTest {
+
+  private static final StopPlaceId STOP_PLACE_1 = new StopPlaceId(
+    "NSR:StopPlace:1"
+  );
+  private static final QuayId QUAY_1 = new QuayId("NSR:Quay:1");
+  private static final QuayId QUAY_2 = new QuayId("NSR:Quay:2");
+  private static final QuayId OTHER_CODESPACE_QUAY = new QuayId(
+    "TST:Quay:1"
+  );
+  private static final TransportModeAndSubMode BUS =
+    new TransportModeAndSubMode(
+      AllVehicleModesOfTransportEnumeration.BUS,
+      new TransportSubMode(BusSubmodeEnumeration.LOCAL_BUS.value())
+    );
+
+  private final AtomicLong version = new AtomicLong();
+  private final Map<Long, StopPlaceCacheChange> changes = new HashMap<>();
+  private final StopPlaceVersionRepository stopPlaceVersionRepository =
+    new StopPlaceVersionRepository() {
+      @Override
+      public long getVersion() {
+        return version.get();
+      }
+
+      @Override
+      public void incrementVersion() {
+        version.incrementAndGet();
+      }
+
+      @Override
+      public void incrementVersion(StopPlaceCacheChange change) {
+        changes.put(version.incrementAndGet(), change);
+      }
+
+      @Override
+      public Optional<StopPlaceCacheChange> changesBetween(
+        long fromVersion,
+        long toVersion
+      ) {
+        Optional<StopPlaceCacheChange> merged = Optional.empty();
+        for (long v = fromVersion + 1; v <= toVersion; v++) {
+          StopPlaceCacheChange change = changes.get(v);
+          if (change == null) {
+            return Optional.empty();
+          }
+          merged = Optional.of(merged.map(change::merge).orElse(change));
+        }
+        return merged;
+      }
+    };
+
+  @TempDir
+  private Path tempDir;
+
+  private Map<StopPlaceId, SimpleStopPlace> stopPlaceCache;
+  private Map<QuayId, SimpleQuay> quayCache;
+  private DefaultStopPlaceRepository delegate;
+  private SnapshotStopPlaceRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    stopPlaceCache = new HashMap<>();
+    quayCache = new HashMap<>();
+    delegate =
+      new DefaultStopPlaceRepository(
+        new StopPlaceResource() {
+          @Override
+          public Map<StopPlaceId, SimpleStopPlace> getStopPlaces() {
+            return Map.of(STOP_PLACE_1, new SimpleStopPlace("Stop 1", BUS));
+          }
+  
+          @Override
+          public Map<QuayId, SimpleQuay> getQuays() {
+            return Map.of(
+              QUAY_1,
+              new SimpleQuay(new QuayCoordinates(10.0, 59.0), STOP_PLACE_1),
+              OTHER_CODESPACE_QUAY,
+              new SimpleQuay(null, STOP_PLACE_1)
+            );
+          }
+  
+          @Override
+          public Instant getPublicationTime() {
+            return Instant.EPOCH;
+          }
+  
+          @Override
+          public void clear() {}
+        },
+        stopPlaceCache,
+        quayCache,
+        new HashMap<>()
+      );
+    repository =
+      new SnapshotStopPlaceRepository(
+        delegate,
+        stopPlaceCache,
+        quayCache,
+        stopPlaceVersionRepository
+      );
+  }
+
+  @Test
+  void noSnapshotIsBuiltBeforeTheCachesArePrimed() {
+    repository.refreshSnapshot();
+
+    assertFalse(repository.hasQuayId(QUAY_1));
+  }
+
+  @Test
+  void lookupsAreServedFromTheSnapshot() {
+    repository.refreshCache();
+    repository.refreshSnapshot();
+    // Not visible to the snapshot: only the writes through the repository are.
+    quayCache.clear();
+    stopPlaceCache.clear();
+
+    assertTrue(repository.hasStopPlaceId(STOP_PLACE_1));
+    assertTrue(repository.hasQuayId(QUAY_1));
+    assertTrue(repository.hasQuayId(OTHER_CODESPACE_QUAY));
+    assertFalse(repository.hasQuayId(QUAY_2));
+    assertEquals(
+      new QuayCoordinates(10.0, 59.0),
+      repository.getCoordinatesForQuayId(QUAY_1)
+    );
+    assertNull(repository.getCoordinatesForQuayId(OTHER_CODESPACE_QUAY));
+    assertEquals(BUS, repository.getTransportModesForQuayId(QUAY_1));
+    assertEquals("Stop 1", repository.getStopPlaceNameForQuayId(QUAY_1));
+    assertNull(repository.getStopPlaceNameForQuayId(QUAY_2));
+  }
+
+  @Test
+  void aWriteIsVisibleOnceTheNewVersionIsPolled() {
+    repository.refreshCache();
+    repository.refreshSnapshot();
+
+    repository.createOrUpdateQuay(
+      QUAY_2,
+      new SimpleQuay(new QuayCoordinates(11.0, 60.0), STOP_PLACE_1)
+    );
+    assertFalse(repository.hasQuayId(QUAY_2));
+
+    repository.refreshSnapshot();
+    assertTrue(repository.hasQuayId(QUAY_2));
+    assertEquals(
+      new QuayCoordinates(11.0, 60.0),
+      repository.getCoordinatesForQuayId(QUAY_2)
+    );
+  }
+
+  @Test
+  void aChangelogUpdateIsAppliedToTheSnapshotWithoutReadingTheWholeCaches() {
+    repository.refreshCache();
+    repository.refreshSnapshot();
+    // Not visible to the snapshot: only the entries changed through the repository are read again.
+    stopPlaceCache.put(
+      new StopPlaceId("NSR:StopPlace:2"),
+      new SimpleStopPlace("Stop 2", BUS)
+    );
+
+    repository.createOrUpdateQuay(
+      QUAY_2,
+      new SimpleQuay(new QuayCoordinates(11.0, 60.0), STOP_PLACE_1)
+    );
+    repository.deleteQuay(OTHER_CODESPACE_QUAY);
+    repository.refreshSnapshot();
+
+    assertTrue(repository.hasQuayId(QUAY_2));
+    assertEquals("Stop 1", repository.getStopPlaceNameForQuayId(QUAY_2));
+    assertFalse(repository.hasQuayId(OTHER_CODESPACE_QUAY));
+    assertEquals(
+      new QuayCoordinates(10.0, 59.0),
+      repository.getCoordinatesForQuayId(QUAY_1)
+    );
+    assertFalse(
+      repository.hasStopPlaceId(new StopPlaceId("NSR:StopPlace:2"))
+    );
+  }
+
+  @Test
+  void theSavedSnapshotServesLookupsUntilTheCachesArePrimed() {
+    StopPlaceSnapshotStore store = new StopPlaceSnapshotStore(
+      mock(AntuBlobStoreService.class),
+      "stop-place-snapshot.bin",
+      tempDir.resolve("stop-place-snapshot.bin")
+    );
+    new SnapshotStopPlaceRepository(
+      delegate,
+      stopPlaceCache,
+      quayCache,
+      stopPlaceVersionRepository,
+      store
+    )
+      .refreshCache();
+    // A new instance, started after Redis was flushed.
+    stopPlaceCache.clear();
+    quayCache.clear();
+    SnapshotStopPlaceRepository restarted = new SnapshotStopPlaceRepository(
+      delegate,
+      stopPlaceCache,
+      quayCache,
+      stopPlaceVersionRepository,
+      store
+    );
+
+    restarted.refreshSnapshot();
+    assertTrue(restarted.hasStopPlaceId(STOP_PLACE_1));
+    assertEquals(
+      new QuayCoordinates(10.0, 59.0),
+      restarted.getCoordinatesForQuayId(QUAY_1)
+    );
+    assertNull(restarted.getCoordinatesForQuayId(OTHER_CODESPACE_QUAY));
+    assertEquals(BUS, restarted.getTransportModesForQuayId(QUAY_1));
+    assertEquals("Stop 1", restarted.getStopPlaceNameForQuayId(QUAY_1));
+
+    // Replaced by the snapshot of the caches once they are primed.
+    restarted.refreshCache();
+    restarted.createOrUpdateQuay(
+      QUAY_2,
+      new SimpleQuay(new QuayCoordinates(11.0, 60.0), STOP_PLACE_1)
+    );
+    restarted.refreshSnapshot();
+    assertTrue(restarted.hasQuayId(QUAY_2));
+  }
+
+  @Test
+  void theIndexSeparatesIdsThatShareANumber() {
+    StopPlaceSnapshot snapshot = StopPlaceSnapshot.of(
+      0,
+      Map.of(),
+      Map.of(
+        new QuayId("NSR:Quay:7"),
+        new SimpleQuay(new QuayCoordinates(1.0, 1.0), STOP_PLACE_1),
+        new QuayId("NSR:Quay:07"),
+        new SimpleQuay(new QuayCoordinates(2.0, 2.0), STOP_PLACE_1)
+      )
+    );
+
+    assertEquals(
+      new QuayCoordinates(1.0, 1.0),
+      snapshot.getCoordinatesForQuayId(new QuayId("NSR:Quay:7"))
+    );
+    assertEquals(
+      new QuayCoordinates(2.0, 2.0),
+      snapshot.getCoordinatesForQuayId(new QuayId("NSR:Quay:07"))
+    );
+    assertFalse(snapshot.hasQuayId(new QuayId("NSR:Quay:8")));
+  }
+
+  @Test
+  void theChangesAreLookedUpInFrontOfTheIndexUntilTheyAreMergedIntoIt() {
+    StopPlaceId stopPlace2 = new StopPlaceId("NSR:StopPlace:2");
+    StopPlaceSnapshot snapshot = StopPlaceSnapshot.of(
+      0,
+      Map.of(STOP_PLACE_1, new SimpleStopPlace("Stop 1", BUS)),
+      Map.of(
+        QUAY_1,
+        new SimpleQuay(new QuayCoordinates(10.0, 59.0), STOP_PLACE_1)
+      )
+    );
+
+    snapshot =
+      snapshot.withChanges(
+        1,
+        new StopPlaceCacheChange(
+          Set.of(STOP_PLACE_1, stopPlace2),
+          Set.of(QUAY_2)
+        ),
+        Map.of(
+          STOP_PLACE_1,
+          new SimpleStopPlace("Stop 1 renamed", BUS),
+          stopPlace2,
+          new SimpleStopPlace("Stop 2", BUS)
+        ),
+        Map.of(QUAY_2, new SimpleQuay(null, stopPlace2))
+      );
+    assertEquals(
+      "Stop 1 renamed",
+      snapshot.getStopPlaceNameForQuayId(QUAY_1)
+    );
+    assertEquals("Stop 2", snapshot.getStopPlaceNameForQuayId(QUAY_2));
+    assertEquals(2, snapshot.stopPlaceCount());
+    assertEquals(2, snapshot.quayCount());
+
+    snapshot =
+      snapshot.withChanges(
+        2,
+        new StopPlaceCacheChange(Set.of(stopPlace2), Set.of(QUAY_1)),
+        Map.of(),
+        Map.of()
+      );
+    assertFalse(snapshot.hasQuayId(QUAY_1));
+    assertNull(snapshot.getCoordinatesForQuayId(QUAY_1));
+    assertFalse(snapshot.hasStopPlaceId(stopPlace2));
+    assertNull(snapshot.getStopPlaceNameForQuayId(QUAY_2));
+    assertEquals(1, snapshot.stopPlaceCount());
+    assertEquals(1, snapshot.quayCount());
+
+    Map<QuayId, SimpleQuay> quays = new HashMap<>();
+    for (int i = 3; i < 3 + StopPlaceSnapshot.MAX_CHANGES; i++) {
+      quays.put(
+        new QuayId("NSR:Quay:" + i),
+        new SimpleQuay(null, STOP_PLACE_1)
+      );
+    }
+    snapshot =
+      snapshot.withChanges(
+        3,
+        new StopPlaceCacheChange(Set.of(), quays.keySet()),
+        Map.of(),
+        quays
+      );
+    assertEquals(3, snapshot.version());
+    assertFalse(snapshot.hasQuayId(QUAY_1));
+    assertNull(snapshot.getStopPlaceNameForQuayId(QUAY_2));
+    assertEquals(
+      "Stop 1 renamed",
+      snapshot.getStopPlaceNameForQuayId(new QuayId("NSR:Quay:3"))
+    );
+    assertEquals(1, snapshot.stopPlaceCount());
+    assertEquals(1 + StopPlaceSnapshot.MAX_CHANGES, snapshot.quayCount());
+  }
+}
@@ -0,0 +1,77 @@
+package no.entur.antu.stop.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import no.entur.antu.stop.loader.StopPlacesDataset;
+import org.entur.netex.validation.validator.model.QuayCoordinates;
+import org.entur.netex.validation.validator.model.QuayId;
+import org.entur.netex.validation.validator.model.SimpleQuay;
+import org.entur.netex.validation.validator.model.SimpleStopPlace;
+import org.entur.netex.validation.validator.model.StopPlaceId;
+import org.entur.netex.validation.validator.model.TransportModeAndSubMode;
+import org.entur.netex.validation.validator.model.TransportSubMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rutebanken.netex.model.AllVehicleModesOfTransportEnumeration;
+
+class StopPlaceSnapshotFileTest {
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void theDatasetIsReadBackAsWritten() throws IOException {
+    StopPlaceId stopPlaceId = new StopPlaceId("NSR:StopPlace:1");
+    StopPlacesDataset dataset = new StopPlacesDataset(
+      Map.of(
+        stopPlaceId,
+        new SimpleStopPlace(
+          "Bryggen – Øvre",
+          new TransportModeAndSubMode(
+            AllVehicleModesOfTransportEnumeration.WATER,
+            new TransportSubMode("highSpeedPassengerService")
+          )
+        ),
+        new StopPlaceId("NSR:StopPlace:2"),
+        new SimpleStopPlace(
+          null,
+          new TransportModeAndSubMode(
+            AllVehicleModesOfTransportEnumeration.BUS,
+            null
+          )
+        ),
+        new StopPlaceId("NSR:StopPlace:3"),
+        new SimpleStopPlace("No mode", null)
+      ),
+      Map.of(
+        new QuayId("NSR:Quay:1"),
+        new SimpleQuay(new QuayCoordinates(5.32, 60.39), stopPlaceId),
+        new QuayId("NSR:Quay:2"),
+        new SimpleQuay(null, null)
+      ),
+      Instant.parse("2024-05-01T10:15:30Z")
+    );
+
+    Path file = tempDir.resolve("snapshot.bin");
+    try (OutputStream outputStream = Files.newOutputStream(file)) {
+      StopPlaceSnapshotFile.write(dataset, outputStream);
+    }
+
+    assertEquals(dataset, StopPlaceSnapshotFile.read(file));
+  }
+
+  @Test
+  void anotherFileIsRejected() throws IOException {
+    Path file = tempDir.resolve("snapshot.bin");
+    Files.writeString(file, "<PublicationDelivery/>");
+
+    assertThrows(IOException.class, () -> StopPlaceSnapshotFile.read(file));
+  }
+}
@@ -1,8 +1,11 @@
 package no.entur.antu.validation;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
+import java.time.Duration;
+
 import no.entur.antu.validation.state.ValidationStateRepository;
 import org.junit.jupiter.api.Test;
 
@@ -21,11 +24,34 @@ class AntuNetexValidationProgressCallbackTest {
 
     new AntuNetexValidationProgressCallback(
       validationStateRepository,
-      "rb_tst_20260811103000000000"
+      "rb_tst_20260811103000000000",
+      Duration.ZERO
     )
       .notifyProgress("validating something slow");
 
     verify(validationStateRepository)
       .recordProgress("rb_tst_20260811103000000000");
   }
+
+  /**
+   * The validators notify every 10 seconds, far more often than the stall threshold needs, and the job
+   * recorded progress when it started.
+   */
+  @Test
+  void progressIsNotRecordedMoreOftenThanNeeded() {
+    ValidationStateRepository validationStateRepository = mock(
+      ValidationStateRepository.class
+    );
+    AntuNetexValidationProgressCallback callback =
+      new AntuNetexValidationProgressCallback(
+        validationStateRepository,
+        "rb_tst_20260811103000000000"
+      );
+
+    callback.notifyProgress("validating");
+    callback.notifyProgress("still validating");
+
+    verify(validationStateRepository, never())
+      .recordProgress("rb_tst_20260811103000000000");
+  }
 }
@@ -0,0 +1,158 @@
+package no.entur.antu.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import no.entur.antu.exception.RetryableAntuException;
+import org.entur.netex.validation.validator.DatasetValidator;
+import org.entur.netex.validation.validator.NetexValidationProgressCallBack;
+import org.entur.netex.validation.validator.Severity;
+import org.entur.netex.validation.validator.ValidationCompleteEvent;
+import org.entur.netex.validation.validator.ValidationReport;
+import org.entur.netex.validation.validator.ValidationReportEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelDatasetValidatorTest {
+
+  private final ExecutorService executorService =
+    Executors.newFixedThreadPool(2);
+
+  @AfterEach
+  void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void entriesAreMergedInValidatorOrder() {
+    CountDownLatch secondDone = new CountDownLatch(1);
+    DatasetValidator first = report -> {
+      try {
+        // Finish last, so that completion order and listing order differ.
+        secondDone.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return withEntry(report, "RULE_1");
+    };
+    DatasetValidator second = report -> {
+      withEntry(report, "RULE_2");
+      secondDone.countDown();
+      return report;
+    };
+
+    ValidationReport validationReport = new ValidationReport(
+      "codespace",
+      "report-id"
+    );
+    validationReport.addValidationReportEntry(entry("RULE_0"));
+
+    new ParallelDatasetValidator(List.of(first, second), executorService)
+      .validate(validationReport);
+
+    assertEquals(
+      List.of("RULE_0", "RULE_1", "RULE_2"),
+      validationReport
+        .getValidationReportEntries()
+        .stream()
+        .map(ValidationReportEntry::getName)
+        .toList()
+    );
+  }
+
+  @Test
+  void failureOfAValidatorIsRethrownAsIs() {
+    DatasetValidator failing = report -> {
+      throw new RetryableAntuException("redis unavailable", null);
+    };
+
+    ParallelDatasetValidator parallelDatasetValidator =
+      new ParallelDatasetValidator(
+        List.of(report -> withEntry(report, "RULE_1"), failing),
+        executorService
+      );
+    ValidationReport validationReport = new ValidationReport(
+      "codespace",
+      "report-id"
+    );
+
+    assertThrows(
+      RetryableAntuException.class,
+      () -> parallelDatasetValidator.validate(validationReport)
+    );
+  }
+
+  @Test
+  void eachValidatorReportsItsProgressToTheCallbackOfTheValidation() {
+    ConcurrentLinkedQueue<String> messages = new ConcurrentLinkedQueue<>();
+    NetexValidationProgressCallBack progressCallback =
+      new NetexValidationProgressCallBack() {
+        @Override
+        public void notifyProgress(String message) {
+          messages.add(message);
+        }
+
+        @Override
+        public void notifyValidationComplete(ValidationCompleteEvent event) {}
+      };
+    ParallelDatasetValidator parallelDatasetValidator =
+      new ParallelDatasetValidator(
+        List.of(new FirstValidator(), new SecondValidator()),
+        executorService
+      );
+
+    ParallelDatasetValidator.reportingProgressTo(
+      progressCallback,
+      () ->
+        parallelDatasetValidator.validate(
+          new ValidationReport("codespace", "report-id")
+        )
+    );
+
+    assertEquals(
+      Set.of(
+        "Running dataset validator FirstValidator",
+        "Completed dataset validator FirstValidator",
+        "Running dataset validator SecondValidator",
+        "Completed dataset validator SecondValidator"
+      ),
+      Set.copyOf(messages)
+    );
+    assertEquals(4, messages.size());
+  }
+
+  private static final class FirstValidator implements DatasetValidator {
+
+    @Override
+    public ValidationReport validate(ValidationReport report) {
+      return withEntry(report, "RULE_1");
+    }
+  }
+
+  private static final class SecondValidator implements DatasetValidator {
+
+    @Override
+    public ValidationReport validate(ValidationReport report) {
+      return withEntry(report, "RULE_2");
+    }
+  }
+
+  private static ValidationReport withEntry(
+    ValidationReport report,
+    String rule
+  ) {
+    report.addValidationReportEntry(entry(rule));
+    return report;
+  }
+
+  private static ValidationReportEntry entry(String rule) {
+    return new ValidationReportEntry("", rule, Severity.INFO);
+  }
+}
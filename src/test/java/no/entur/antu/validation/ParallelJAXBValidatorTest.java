@@ -0,0 +1,239 @@
+package no.entur.antu.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import no.entur.antu.common.repository.TestCommonDataRepository;
+import no.entur.antu.common.repository.TestStopPlaceRepository;
+import no.entur.antu.config.TimetableDataValidatorConfig;
+import no.entur.antu.exception.RetryableAntuException;
+import org.entur.netex.NetexParser;
+import org.entur.netex.validation.validator.DataLocation;
+import org.entur.netex.validation.validator.Severity;
+import org.entur.netex.validation.validator.ValidationIssue;
+import org.entur.netex.validation.validator.ValidationRule;
+import org.entur.netex.validation.validator.jaxb.JAXBValidationContext;
+import org.entur.netex.validation.validator.jaxb.JAXBValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelJAXBValidatorTest {
+
+  private static final ValidationRule RULE_1 = rule("RULE_1");
+  private static final ValidationRule RULE_2 = rule("RULE_2");
+
+  private final ExecutorService executorService =
+    Executors.newFixedThreadPool(2);
+  private final JAXBValidationContext validationContext = mock(
+    JAXBValidationContext.class
+  );
+
+  @AfterEach
+  void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void issuesAreConcatenatedInValidatorOrder() {
+    ValidationIssue a = issue(RULE_1, "a");
+    ValidationIssue b = issue(RULE_1, "b");
+    ValidationIssue c = issue(RULE_2, "c");
+    CountDownLatch secondDone = new CountDownLatch(1);
+    JAXBValidator first = validator(
+      RULE_1,
+      () -> {
+        try {
+          // Finish last, so that completion order and listing order differ.
+          secondDone.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return List.of(a, b);
+      }
+    );
+    JAXBValidator second = validator(
+      RULE_2,
+      () -> {
+        secondDone.countDown();
+        return List.of(c);
+      }
+    );
+
+    List<ValidationIssue> issues = new ParallelJAXBValidator(
+      List.of(first, second),
+      executorService
+    )
+      .validate(validationContext);
+
+    assertEquals(List.of(a, b, c), issues);
+  }
+
+  @Test
+  void theRulesAreThoseOfEveryValidator() {
+    assertEquals(
+      Set.of(RULE_1, RULE_2),
+      new ParallelJAXBValidator(
+        List.of(validator(RULE_1, List::of), validator(RULE_2, List::of)),
+        executorService
+      )
+        .getRules()
+    );
+  }
+
+  @Test
+  void aFileIsValidatedByItsOwnThreadWhileThePoolIsBusy() throws Exception {
+    ExecutorService busyExecutor = Executors.newSingleThreadExecutor();
+    CountDownLatch releasePool = new CountDownLatch(1);
+    try {
+      busyExecutor.submit(() -> {
+        releasePool.await();
+        return null;
+      });
+      ValidationIssue a = issue(RULE_1, "a");
+      ValidationIssue b = issue(RULE_2, "b");
+
+      List<ValidationIssue> issues = new ParallelJAXBValidator(
+        List.of(
+          validator(RULE_1, () -> List.of(a)),
+          validator(RULE_2, () -> List.of(b))
+        ),
+        busyExecutor
+      )
+        .validate(validationContext);
+
+      assertEquals(List.of(a, b), issues);
+    } finally {
+      releasePool.countDown();
+      busyExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * The validators of the timetable profile share the context of a file, read by several threads at once,
+   * and by several files at once on a pool too small for all of them.
+   */
+  @Test
+  void concurrentRunsOverASharedContextReportWhatASequentialRunDoes()
+    throws Exception {
+    JAXBValidationContext sharedContext = parsedContext(
+      "FLB_FLB-Line-42_42_Flamsbana.xml"
+    );
+    List<JAXBValidator> jaxbValidators =
+      TimetableDataValidatorConfig.timetableDataJaxbValidators();
+    List<String> expected = new ArrayList<>();
+    for (JAXBValidator jaxbValidator : jaxbValidators) {
+      expected.addAll(describe(jaxbValidator.validate(sharedContext)));
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    ExecutorService files = Executors.newFixedThreadPool(4);
+    try {
+      ParallelJAXBValidator parallelJAXBValidator = new ParallelJAXBValidator(
+        jaxbValidators,
+        pool
+      );
+      List<Future<List<ValidationIssue>>> runs = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        runs.add(
+          files.submit(() -> parallelJAXBValidator.validate(sharedContext))
+        );
+      }
+      for (Future<List<ValidationIssue>> run : runs) {
+        assertEquals(expected, describe(run.get(30, TimeUnit.SECONDS)));
+      }
+    } finally {
+      pool.shutdownNow();
+      files.shutdownNow();
+    }
+  }
+
+  @Test
+  void failureOfAValidatorIsRethrownAsIs() {
+    ParallelJAXBValidator parallelJAXBValidator = new ParallelJAXBValidator(
+      List.of(
+        validator(RULE_1, List::of),
+        validator(
+          RULE_2,
+          () -> {
+            throw new RetryableAntuException("redis unavailable", null);
+          }
+        )
+      ),
+      executorService
+    );
+
+    assertThrows(
+      RetryableAntuException.class,
+      () -> parallelJAXBValidator.validate(validationContext)
+    );
+  }
+
+  private static JAXBValidator validator(
+    ValidationRule rule,
+    Supplier<List<ValidationIssue>> issues
+  ) {
+    return new JAXBValidator() {
+      @Override
+      public List<ValidationIssue> validate(
+        JAXBValidationContext validationContext
+      ) {
+        return issues.get();
+      }
+
+      @Override
+      public Set<ValidationRule> getRules() {
+        return Set.of(rule);
+      }
+    };
+  }
+
+  private JAXBValidationContext parsedContext(String testFile)
+    throws IOException {
+    try (InputStream netex = getClass().getResourceAsStream('/' + testFile)) {
+      return new JAXBValidationContext(
+        "report",
+        new NetexParser().parse(netex),
+        new TestCommonDataRepository(Map.of(), new HashMap<>()),
+        v -> TestStopPlaceRepository.ofLocalBusStops(1),
+        "FLB",
+        testFile,
+        Map.of()
+      );
+    }
+  }
+
+  /**
+   * The arguments of an issue are an array, which its equals does not compare.
+   */
+  private static List<String> describe(List<ValidationIssue> issues) {
+    return issues
+      .stream()
+      .map(issue -> issue.rule().code() + " " + issue.dataLocation())
+      .toList();
+  }
+
+  private static ValidationIssue issue(ValidationRule rule, String objectId) {
+    return new ValidationIssue(
+      rule,
+      new DataLocation(objectId, "line.xml", 1, 1)
+    );
+  }
+
+  private static ValidationRule rule(String code) {
+    return new ValidationRule(code, code, code, Severity.WARNING);
+  }
+}
@@ -0,0 +1,118 @@
+package no.entur.antu.validation.validator.organisation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LocalOrganisationAliasRepositoryTest {
+
+  private final AtomicLong version = new AtomicLong();
+  private final List<Runnable> listeners = new ArrayList<>();
+  private final List<Runnable> queuedReloads = new ArrayList<>();
+  private AgreementResource agreementResource;
+  private Set<String> organisationAliasCache;
+  private LocalOrganisationAliasRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    agreementResource = mock(AgreementResource.class);
+    organisationAliasCache = new HashSet<>();
+    repository =
+      new LocalOrganisationAliasRepository(
+        new DefaultOrganisationAliasRepository(
+          agreementResource,
+          organisationAliasCache
+        ),
+        organisationAliasCache,
+        new OrganisationAliasVersionRepository() {
+          @Override
+          public long getVersion() {
+            return version.get();
+          }
+
+          @Override
+          public void publishNewVersion() {
+            version.incrementAndGet();
+            listeners.forEach(Runnable::run);
+          }
+
+          @Override
+          public void onNewVersion(Runnable listener) {
+            listeners.add(listener);
+          }
+        },
+        queuedReloads::add
+      );
+  }
+
+  @Test
+  void lookupsGoToTheCacheUntilACopyIsLoaded() {
+    repository.reload();
+    organisationAliasCache.add("TestOrg1");
+
+    assertTrue(repository.hasOrganisationWithAlias("TestOrg1"));
+  }
+
+  @Test
+  void lookupsAreServedFromTheLocalCopy() {
+    organisationAliasCache.add("TestOrg1");
+    repository.reload();
+    // Not visible to the copy: only the refreshes through the repository are.
+    organisationAliasCache.add("TestOrg2");
+
+    assertTrue(repository.hasOrganisationWithAlias("TestOrg1"));
+    assertFalse(repository.hasOrganisationWithAlias("TestOrg2"));
+  }
+
+  @Test
+  void aRefreshIsVisibleOnceTheNewVersionIsAnnounced() {
+    listeners.add(repository::reload);
+    organisationAliasCache.add("TestOrg1");
+    repository.reload();
+    when(agreementResource.getOrganisationAliases())
+      .thenReturn(Set.of("TestOrg2"));
+
+    repository.refreshCache();
+
+    assertFalse(repository.hasOrganisationWithAlias("TestOrg1"));
+    assertTrue(repository.hasOrganisationWithAlias("TestOrg2"));
+  }
+
+  @Test
+  void announcementsMadeWhileAReloadIsQueuedShareIt() {
+    organisationAliasCache.add("TestOrg1");
+
+    repository.reloadInBackground();
+    repository.reloadInBackground();
+    repository.reloadInBackground();
+    assertEquals(1, queuedReloads.size());
+
+    queuedReloads.remove(0).run();
+    assertTrue(repository.hasOrganisationWithAlias("TestOrg1"));
+
+    repository.reloadInBackground();
+    assertEquals(1, queuedReloads.size());
+  }
+
+  @Test
+  void aRefreshThatChangesNothingPublishesNoNewVersion() {
+    organisationAliasCache.add("TestOrg1");
+    repository.reload();
+    when(agreementResource.getOrganisationAliases())
+      .thenReturn(Set.of("TestOrg1"));
+
+    repository.refreshCache();
+
+    assertEquals(0, version.get());
+  }
+}
@@ -102,6 +102,46 @@ resource "google_pubsub_subscription" "AntuJobQueue" {
   }
 }
 
+# The jobs that only move data between Redis, PubSub and the buckets, so that they do not wait behind the file
+# validations on AntuJobQueue. Has to exist before the version publishing to it is rolled out.
+resource "google_pubsub_topic" "AntuLightweightJobQueue" {
+  name    = "AntuLightweightJobQueue"
+  project = var.gcp_resources_project
+  labels  = var.labels
+}
+
+resource "google_pubsub_subscription" "AntuLightweightJobQueue" {
+  name                       = "AntuLightweightJobQueue"
+  topic                      = google_pubsub_topic.AntuLightweightJobQueue.name
+  project                    = var.gcp_resources_project
+  labels                     = var.labels
+  ack_deadline_seconds       = 60
+  message_retention_duration = "3600s"
+  retry_policy {
+    minimum_backoff = "10s"
+  }
+}
+
+# The jobs of the validations someone is waiting on, so that they do not queue behind a batch on AntuJobQueue.
+# Has to exist before the version publishing to it is rolled out.
+resource "google_pubsub_topic" "AntuPriorityJobQueue" {
+  name    = "AntuPriorityJobQueue"
+  project = var.gcp_resources_project
+  labels  = var.labels
+}
+
+resource "google_pubsub_subscription" "AntuPriorityJobQueue" {
+  name                       = "AntuPriorityJobQueue"
+  topic                      = google_pubsub_topic.AntuPriorityJobQueue.name
+  project                    = var.gcp_resources_project
+  labels                     = var.labels
+  ack_deadline_seconds       = 60
+  message_retention_duration = "3600s"
+  retry_policy {
+    minimum_backoff = "10s"
+  }
+}
+
 # AntuReportAggregationQueue and AntuCommonFilesAggregationQueue fed the Camel aggregator that waited for a
 # dataset's files. The wait is a counter in Redis now, so this version never touches them.
 #